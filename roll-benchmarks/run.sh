@@ -0,0 +1,8 @@
+#!/bin/bash
+# build roll-library and the benchmarks, then run all suites with JSON results,
+# extra arguments are passed to JMH, e.g., ./run.sh NBAOperations -p numOfStates=64
+cd "$(dirname "$0")"
+(cd .. && mvn -q install) && mvn -q package || exit 1
+RESULT=results-$(date +%Y%m%d-%H%M%S).json
+# the system scoped jars of roll-library are not shaded into benchmarks.jar
+java -cp "target/benchmarks.jar:../lib/*" org.openjdk.jmh.Main -rf json -rff "$RESULT" "$@"
@@ -0,0 +1,58 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.benchmarks;
+
+import java.util.Random;
+
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * Common settings of the benchmarks
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+final class Benchmarks {
+    
+    // all random automata and words are generated from this seed
+    static final long SEED = 20180101L;
+    
+    static final int NUM_OF_WORDS = 256;
+    static final int MAX_WORD_LENGTH = 16;
+    
+    private Benchmarks() {
+    }
+    
+    // random ultimately periodic words prefix[i] suffix[i]^w
+    static void getRandomWords(Alphabet alphabet, Word[] prefixes, Word[] suffixes) {
+        Random r = new Random(SEED);
+        for(int i = 0; i < prefixes.length; i ++) {
+            prefixes[i] = getRandomWord(r, alphabet, r.nextInt(MAX_WORD_LENGTH));
+            suffixes[i] = getRandomWord(r, alphabet, 1 + r.nextInt(MAX_WORD_LENGTH));
+        }
+    }
+    
+    private static Word getRandomWord(Random r, Alphabet alphabet, int length) {
+        int[] letters = new int[length];
+        for(int i = 0; i < length; i ++) {
+            letters[i] = r.nextInt(alphabet.getLetterSize());
+        }
+        return alphabet.getArrayWord(letters);
+    }
+
+}
@@ -0,0 +1,84 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dk.brics.automaton.Automaton;
+import roll.automata.DFA;
+import roll.automata.FDFA;
+import roll.automata.operations.DFAGenerator;
+import roll.automata.operations.FDFAOperations;
+import roll.words.Alphabet;
+
+/**
+ * Translation of FDFAs to NBAs
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FDFAOperationsBenchmark {
+    
+    @Param({"4", "16", "64"})
+    public int numOfStates;
+    
+    private FDFA fdfa;
+    
+    @Setup
+    public void setup() {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        DFA leadingDFA = DFAGenerator.getRandomDFA(alphabet, numOfStates, Benchmarks.SEED);
+        List<DFA> progressDFAs = new ArrayList<>();
+        for(int state = 0; state < leadingDFA.getStateSize(); state ++) {
+            progressDFAs.add(DFAGenerator.getRandomDFA(alphabet, numOfStates, Benchmarks.SEED + state + 1));
+        }
+        fdfa = new FDFA(leadingDFA, progressDFAs);
+    }
+    
+    @Benchmark
+    public Automaton buildUnderNBA() {
+        return FDFAOperations.buildUnderNBA(fdfa);
+    }
+    
+    @Benchmark
+    public Automaton buildOverNBA() {
+        return FDFAOperations.buildOverNBA(fdfa);
+    }
+
+}
@@ -0,0 +1,96 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import roll.automata.DFA;
+import roll.automata.operations.DFAGenerator;
+import roll.learner.dfa.table.LearnerDFATableLStar;
+import roll.main.Options;
+import roll.oracle.dfa.dk.TeacherDFADK;
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+
+/**
+ * Closing the observation table of L* and learning a DFA with it
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LearnerDFABenchmark {
+    
+    @Param({"8", "32", "128"})
+    public int numOfStates;
+    
+    private Options options;
+    private Alphabet alphabet;
+    private TeacherDFADK teacher;
+    
+    @Setup
+    public void setup() {
+        options = new Options();
+        alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        DFA target = DFAGenerator.getRandomDFA(alphabet, numOfStates, Benchmarks.SEED);
+        teacher = new TeacherDFADK(options, target);
+    }
+    
+    @Benchmark
+    public DFA closeTable() {
+        LearnerDFATableLStar learner = new LearnerDFATableLStar(options, alphabet, teacher);
+        learner.startLearning();
+        return learner.getHypothesis();
+    }
+    
+    @Benchmark
+    public DFA learn() {
+        LearnerDFATableLStar learner = new LearnerDFATableLStar(options, alphabet, teacher);
+        learner.startLearning();
+        while(true) {
+            DFA hypothesis = learner.getHypothesis();
+            Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(hypothesis);
+            boolean isEq = ceQuery.getQueryAnswer().get();
+            if(isEq) {
+                return hypothesis;
+            }
+            ceQuery.answerQuery(null);
+            learner.refineHypothesis(ceQuery);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import roll.automata.NBA;
+import roll.automata.operations.NBAGenerator;
+import roll.automata.operations.NBAIntersectionCheck;
+
+/**
+ * Emptiness checking of products of two NBAs
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NBAIntersectionCheckBenchmark {
+    
+    @Param({"16", "64", "256"})
+    public int numOfStates;
+    
+    private NBA fst;
+    private NBA snd;
+    
+    @Setup
+    public void setup() {
+        fst = NBAGenerator.getRandomNBA(numOfStates, 2, Benchmarks.SEED);
+        snd = NBAGenerator.getRandomNBA(numOfStates, 2, Benchmarks.SEED + 1);
+    }
+    
+    @Benchmark
+    public boolean isEmpty() {
+        NBAIntersectionCheck checker = new NBAIntersectionCheck(fst, snd, false);
+        return checker.isEmpty();
+    }
+    
+    @Benchmark
+    public boolean isEmptyWithCounterexample() {
+        NBAIntersectionCheck checker = new NBAIntersectionCheck(fst, snd, true);
+        boolean empty = checker.isEmpty();
+        if(! empty) checker.computePath();
+        return empty;
+    }
+
+}
@@ -0,0 +1,100 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import roll.automata.NBA;
+import roll.automata.operations.NBAEmptinessCheck;
+import roll.automata.operations.NBAGenerator;
+import roll.automata.operations.NBAOperations;
+import roll.util.sets.ISet;
+import roll.util.sets.UtilISet;
+import roll.words.Word;
+
+/**
+ * Word acceptance, dead state removal and emptiness checking of NBAs
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NBAOperationsBenchmark {
+    
+    @Param({"16", "64", "256", "1024"})
+    public int numOfStates;
+    
+    @Param({"2", "4"})
+    public int numOfLetters;
+    
+    private NBA nba;
+    private Word[] prefixes;
+    private Word[] suffixes;
+    private ISet allStates;
+    
+    @Setup
+    public void setup() {
+        nba = NBAGenerator.getRandomNBA(numOfStates, numOfLetters, Benchmarks.SEED);
+        prefixes = new Word[Benchmarks.NUM_OF_WORDS];
+        suffixes = new Word[Benchmarks.NUM_OF_WORDS];
+        Benchmarks.getRandomWords(nba.getAlphabet(), prefixes, suffixes);
+        allStates = UtilISet.newISet();
+        for(int state = 0; state < nba.getStateSize(); state ++) {
+            allStates.set(state);
+        }
+    }
+    
+    @Benchmark
+    public int accepts() {
+        int numOfAccepted = 0;
+        for(int i = 0; i < prefixes.length; i ++) {
+            if(NBAOperations.accepts(nba, prefixes[i], suffixes[i])) {
+                numOfAccepted ++;
+            }
+        }
+        return numOfAccepted;
+    }
+    
+    @Benchmark
+    public NBA removeDeadStates() {
+        return NBAOperations.removeDeadStates(nba);
+    }
+    
+    @Benchmark
+    public boolean emptinessCheck() {
+        NBAEmptinessCheck checker = new NBAEmptinessCheck(nba, nba.getFinalStates(), allStates);
+        return checker.isEmpty();
+    }
+
+}
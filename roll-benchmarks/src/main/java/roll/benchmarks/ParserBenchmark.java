@@ -0,0 +1,94 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import roll.automata.NBA;
+import roll.automata.operations.NBAGenerator;
+import roll.automata.operations.nba.inclusion.NBAInclusionCheckTool;
+import roll.main.Options;
+import roll.parser.ba.ParserBA;
+import roll.parser.hoa.ParserHOA;
+
+/**
+ * Parsing NBAs in BA and HOA format
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    
+    @Param({"64", "1024", "16384"})
+    public int numOfStates;
+    
+    private File baFile;
+    private File hoaFile;
+    
+    @Setup
+    public void setup() throws IOException {
+        NBA nba = NBAGenerator.getRandomNBA(numOfStates, 4, Benchmarks.SEED);
+        baFile = File.createTempFile("roll", ".ba");
+        try(PrintStream out = new PrintStream(new FileOutputStream(baFile))) {
+            out.print(nba.toBA());
+        }
+        hoaFile = File.createTempFile("roll", ".hoa");
+        try(PrintStream out = new PrintStream(new FileOutputStream(hoaFile))) {
+            NBAInclusionCheckTool.outputHOAStream(nba, out);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        baFile.delete();
+        hoaFile.delete();
+    }
+    
+    @Benchmark
+    public NBA parseBA() {
+        return new ParserBA(new Options(), baFile.getPath()).parse();
+    }
+    
+    @Benchmark
+    public NBA parseHOA() {
+        return new ParserHOA(new Options(), hoaFile.getPath()).parse();
+    }
+
+}
@@ -0,0 +1,76 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import roll.automata.NBA;
+import roll.automata.operations.NBAGenerator;
+import roll.oracle.nba.sampler.SamplerIndexedMonteCarlo;
+import roll.util.Pair;
+import roll.words.Word;
+
+/**
+ * Number of lassos sampled from an NBA per time unit
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SamplerBenchmark {
+    
+    @Param({"16", "64", "256", "1024"})
+    public int numOfStates;
+    
+    private SamplerIndexedMonteCarlo sampler;
+    
+    @Setup
+    public void setup() {
+        sampler = new SamplerIndexedMonteCarlo(0.0018, 0.0001);
+        NBA nba = NBAGenerator.getRandomNBA(numOfStates, 2, Benchmarks.SEED);
+        // the sampler needs a successor for every state
+        for(int state = 0; state < nba.getStateSize(); state ++) {
+            if(nba.getState(state).getEnabledLetters().isEmpty()) {
+                nba.getState(state).addTransition(0, (state + 1) % nba.getStateSize());
+            }
+        }
+        sampler.setNBA(nba);
+    }
+    
+    @Benchmark
+    public Pair<Pair<Word, Word>, Boolean> getRandomLasso() {
+        return sampler.getRandomLasso();
+    }
+
+}
@@ -17,6 +17,9 @@
 package roll.automata;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.*;
 import java.util.function.Function;
 
@@ -155,12 +158,22 @@ public abstract class FASimple implements FA {
         return builder.toString();
     }
     public String toDot() {
+        StringWriter out = new StringWriter();
+        try {
+            writeDot(out);
+        }catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+    
+    // the writer is flushed but not closed
+    public void writeDot(Writer out) throws IOException {
         ImmutableBiMap<Integer,String> stateColor = ImmutableBiMap.of(0,"orangered",1,"skyblue");
 
-        StringBuilder builder = new StringBuilder();
-        builder.append("digraph {\n");
+        out.write("digraph {\n");
         if (title != null){
-            builder.append("  label=\"" + title + "\";\n");
+            out.write("  label=\"" + title + "\";\n");
         }
         int startNode = this.getStateSize();
         //
@@ -175,25 +188,36 @@ public abstract class FASimple implements FA {
                     node >= stateToAdd && stateToAdd > 0   ? stateColor.get(1) :
                     null
             );
-            builder.append(this.getState(node).toDot(apList,fillColor));
+            this.getState(node).writeDot(out, apList, fillColor);
         }
-        builder.append("  " + startNode + " [label=\"\", shape = plaintext];\n");
-        builder.append("  " + startNode + " -> " + this.getInitialState() + " [label=\"\"];\n");
-        builder.append("}\n");
-        return builder.toString();
+        out.write("  " + startNode + " [label=\"\", shape = plaintext];\n");
+        out.write("  " + startNode + " -> " + this.getInitialState() + " [label=\"\"];\n");
+        out.write("}\n");
+        out.flush();
     }
 
     public String toBA() {
-        StringBuilder builder = new StringBuilder();
-        builder.append("[" + getInitialState() + "]\n");
+        StringWriter out = new StringWriter();
+        try {
+            writeBA(out);
+        }catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+    
+    // the writer is flushed but not closed
+    public void writeBA(Writer out) throws IOException {
+        out.write("[" + getInitialState() + "]\n");
         for (int node = 0; node < this.getStateSize(); node++) {
-            builder.append(this.getState(node).toBA());
+            this.getState(node).writeBA(out);
         }
         for (int acc : finalStates) {
-            builder.append("[" + acc + "]\n");
+            out.write("[" + acc + "]\n");
         }
-        return builder.toString();
+        out.flush();
     }
+    
     public String toSVG() throws IOException {
         return NativeTool.Dot2SVG(this.toDot());
     }
@@ -16,6 +16,11 @@
 
 package roll.automata;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gnu.trove.list.array.TIntArrayList;
 import roll.util.sets.ISet;
 import roll.util.sets.UtilISet;
 import roll.words.Alphabet;
@@ -74,6 +79,50 @@ public class NFA extends FASimple {
         return getState(state).getSuccessors(letter);
     }
     
+    // only the states reachable from the initial state are kept, numbered in
+    // breadth-first order; every state is replaced by its renumbered copy
+    // right away, so the automaton is never held twice
+    public void removeUnreachableStates() {
+        moveReachableStates(this, null);
+    }
+    
+    // moves the reachable states to the empty automaton target in the same way,
+    // letter i becomes letters[i] unless letters is null
+    public void moveReachableStates(NFA target, int[] letters) {
+        assert target == this || target.getStateSize() == 0;
+        if(states.isEmpty()) return;
+        int[] ids = new int[states.size()];
+        Arrays.fill(ids, -1);
+        TIntArrayList order = new TIntArrayList();
+        ids[initialState] = 0;
+        order.add(initialState);
+        for(int head = 0; head < order.size(); head ++) {
+            StateNFA state = getState(order.get(head));
+            for(int letter : state.getEnabledLetters()) {
+                for(int succ : state.getSuccessors(letter)) {
+                    if(ids[succ] >= 0) continue;
+                    ids[succ] = order.size();
+                    order.add(succ);
+                }
+            }
+        }
+        List<StateFA> reach = new ArrayList<>(order.size());
+        ISet finals = UtilISet.newISet();
+        for(int i = 0; i < order.size(); i ++) {
+            int state = order.get(i);
+            reach.add(getState(state).renumber(target, i, ids, letters));
+            states.set(state, null);
+            if(finalStates.get(state)) finals.set(i);
+        }
+        states.clear();
+        finalStates.clear();
+        target.states.clear();
+        target.states.addAll(reach);
+        target.finalStates.clear();
+        target.finalStates.or(finals);
+        target.initialState = 0;
+    }
+    
     private class AccNFA extends AccFA {
 
         public AccNFA(FASimple fa) {
@@ -16,13 +16,11 @@
 
 package roll.automata;
 
-import com.google.common.collect.ImmutableList;
-
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.IntStream;
 
 /**
  * @author Yong Li (liyong@ios.ac.cn)
@@ -82,39 +80,41 @@ public class StateDFA extends StateFA {
 //        }
 //        return builder.toString();
     }
-    public String toDot(List<String> apList,String fillcolor){
-        final List<String> list =
-                Optional.ofNullable(apList).orElse(
-                        IntStream.range(0,dfa.getAlphabetSize())
-                                .mapToObj(Integer::toString)
-                                .collect(ImmutableList.<String>toImmutableList())
-                );
-        StringBuilder builder = new StringBuilder();
-        builder.append("  " + getId() + " [label=\"" + getId() + "\"");
-        if(dfa.isFinal(getId())) builder.append(", shape = doublecircle");
-        else builder.append(", shape = circle");
+    @Override
+    public void writeDot(Writer out, List<String> apList, String fillcolor) throws IOException {
+        final String source = Integer.toString(getId());
+        out.write("  " + source + " [label=\"" + source + "\"");
+        if(dfa.isFinal(getId())) out.write(", shape = doublecircle");
+        else out.write(", shape = circle");
         if (fillcolor !=null){
-            builder.append("," +
+            out.write("," +
                     "style=\"filled\", \n" +
                     "fillcolor=\""+fillcolor+"\", ");
         }
-        builder.append("];\n");
+        out.write("];\n");
 
         // transitions
         for(int i = 0; i < successors.length; i ++) {
-            builder.append("  " + getId() + " -> " + successors[i]
-                    + " [label=\"" + list.get(i) + "\"];\n");
+            out.write("  ");
+            out.write(source);
+            out.write(" -> ");
+            out.write(Integer.toString(successors[i]));
+            out.write(" [label=\"");
+            out.write(apList == null ? Integer.toString(i) : apList.get(i));
+            out.write("\"];\n");
         }
-        return builder.toString();
     }
     @Override
-    public String toBA() {
-        StringBuilder builder = new StringBuilder();
+    public void writeBA(Writer out) throws IOException {
+        final String source = ",[" + getId() + "]->[";
         // transitions
         for(int i = 0; i < successors.length; i ++) {
-            builder.append("a" + i + ",[" + getId() + "]->[" + successors[i] + "]\n");
+            out.write("a");
+            out.write(Integer.toString(i));
+            out.write(source);
+            out.write(Integer.toString(successors[i]));
+            out.write("]\n");
         }
-        return builder.toString();
     }
     
     @Override
@@ -16,6 +16,10 @@
 
 package roll.automata;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -45,9 +49,29 @@ public abstract class StateFA implements State {
     }
     
     public abstract String toString(List<String> apList);
-    public abstract String toDot(List<String> apList,String fillcolor);
+    public abstract void writeDot(Writer out, List<String> apList, String fillcolor) throws IOException;
+    
+    public abstract void writeBA(Writer out) throws IOException;
+    
+    public String toDot(List<String> apList,String fillcolor) {
+        StringWriter out = new StringWriter();
+        try {
+            writeDot(out, apList, fillcolor);
+        }catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
 
     //
-    public abstract String toBA();
+    public String toBA() {
+        StringWriter out = new StringWriter();
+        try {
+            writeBA(out);
+        }catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
 
 }
@@ -16,14 +16,13 @@
 
 package roll.automata;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-import com.google.common.collect.ImmutableList;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.procedure.TIntObjectProcedure;
@@ -90,6 +89,22 @@ public class StateNFA extends StateFA {
         successors.forEachKey(procedure);
     }
     
+    // copy with the given id in target whose successors are renamed by ids and
+    // letters by letters unless null, this state loses its transitions
+    StateNFA renumber(NFA target, int id, int[] ids, int[] letters) {
+        StateNFA copy = new StateNFA(target, id);
+        successors.forEachEntry((letter, succs) -> {
+            ISet renamed = UtilISet.newISet();
+            for(int succ : succs) {
+                renamed.set(ids[succ]);
+            }
+            copy.successors.put(letters == null ? letter : letters[letter], renamed);
+            return true;
+        });
+        successors.clear();
+        return copy;
+    }
+    
     @Override
     public String toString() {
         List<String> apList = new ArrayList<>();
@@ -122,55 +137,65 @@ public class StateNFA extends StateFA {
     }
 
     @Override
-    public String toDot(List<String> apList, String fillcolor) {
-        final List<String> list =
-                Optional.ofNullable(apList).orElse(
-                        IntStream.range(0,nfa.getAlphabetSize())
-                                .mapToObj(Integer::toString)
-                                .collect(ImmutableList.<String>toImmutableList())
-                );
-
-
-        StringBuilder builder = new StringBuilder();
-        builder.append("  " + getId() + " [label=\"" + getId() + "\"");
-        if(nfa.isFinal(getId())) builder.append(", shape = doublecircle");
-        else builder.append(", shape = circle");
+    public void writeDot(Writer out, List<String> apList, String fillcolor) throws IOException {
+        final String source = Integer.toString(getId());
+        out.write("  " + source + " [label=\"" + source + "\"");
+        if(nfa.isFinal(getId())) out.write(", shape = doublecircle");
+        else out.write(", shape = circle");
         if (fillcolor !=null){
-            builder.append("," +
+            out.write("," +
                     "style=\"filled\", \n" +
                     "fillcolor=\""+fillcolor+"\", ");
         }
-        builder.append("];\n");
+        out.write("];\n");
         // transitions
-        TIntObjectProcedure<ISet> procedure = new TIntObjectProcedure<ISet> () {
-            @Override
-            public boolean execute(int letter, ISet succs) {
-                for(int succ : succs) {
-                    builder.append("  " + getId() + " -> " + succ
-                            + " [label=\"" + list.get(letter) + "\"];\n");
-                }
-                return true;
-            }
-        };
-        successors.forEachEntry(procedure);
-        return builder.toString();
+        writeTransitions(out, (letter, succ) -> {
+            out.write("  ");
+            out.write(source);
+            out.write(" -> ");
+            out.write(Integer.toString(succ));
+            out.write(" [label=\"");
+            out.write(apList == null ? Integer.toString(letter) : apList.get(letter));
+            out.write("\"];\n");
+        });
     }
 
     @Override
-    public String toBA() {
-        StringBuilder builder = new StringBuilder();
+    public void writeBA(Writer out) throws IOException {
+        final String source = ",[" + getId() + "]->[";
         // transitions
+        writeTransitions(out, (letter, succ) -> {
+            out.write("a");
+            out.write(Integer.toString(letter));
+            out.write(source);
+            out.write(Integer.toString(succ));
+            out.write("]\n");
+        });
+    }
+    
+    private interface TransitionWriter {
+        void write(int letter, int succ) throws IOException;
+    }
+    
+    // the procedure of forEachEntry can not throw, so the first failure is kept
+    private void writeTransitions(Writer out, TransitionWriter writer) throws IOException {
+        IOException[] failure = new IOException[1];
         TIntObjectProcedure<ISet> procedure = new TIntObjectProcedure<ISet> () {
             @Override
             public boolean execute(int letter, ISet succs) {
-                for(int succ : succs) {
-                    builder.append("a" + letter + ",[" + getId() + "]->[" + succ + "]\n");
+                try {
+                    for(int succ : succs) {
+                        writer.write(letter, succ);
+                    }
+                }catch(IOException e) {
+                    failure[0] = e;
+                    return false;
                 }
                 return true;
             }
         };
         successors.forEachEntry(procedure);
-        return builder.toString();
+        if(failure[0] != null) throw failure[0];
     }
     
     @Override
@@ -113,8 +113,7 @@ class DFA2DBA {
                         State suf = qf.step(letter);  // successor of final state
                         
                         if(sua == null && suf == null) {
-                            System.err.println("sua == null && suf == null");
-                            System.exit(-1);
+                            throw new IllegalStateException("sua == null && suf == null");
                         }
                         PairState sp =  new PairState(sua, suf, map);
                         State sc = stateMap.get(sp);
@@ -152,8 +151,7 @@ class DFA2DBA {
                         State suf = qf.step(letter);  // successor of final state
                         
                         if(sua == null && suf == null) {
-                            System.err.println("sua == null && suf == null");
-                            System.exit(-1);
+                            throw new IllegalStateException("sua == null && suf == null");
                         }
                         PairState sp =  new PairState(sua, suf, map);
                         State sc = stateMap.get(sp);
@@ -190,8 +188,7 @@ class DFA2DBA {
                         State suf = qf.step(letter);  // successor of final state
                         
                         if(sua == null && suf == null) {
-                            System.err.println("sua == null && suf == null");
-                            System.exit(-1);
+                            throw new IllegalStateException("sua == null && suf == null");
                         }
                         PairState sp =  new PairState(sua, suf, map);
                         State sc = stateMap.get(sp);
@@ -237,8 +234,7 @@ class DFA2DBA {
                         State sup = p.step(letter);
                         State suq = q.step(letter);
                         if(sup == null && suq == null) {
-                            System.err.println("sua == null && suf == null");
-                            System.exit(-1);
+                            throw new IllegalStateException("sua == null && suf == null");
                         }
                         PairState sp =  new PairState(sup, suq, map);
                         State sc = stateMap.get(sp);
@@ -254,8 +250,7 @@ class DFA2DBA {
                         State suq = q.step(letter);
                         finals.add(qc); // [qf]
                         if(sui == null && suq == null) {
-                            System.err.println("sua == null && suf == null");
-                            System.exit(-1);
+                            throw new IllegalStateException("sua == null && suf == null");
                         }
                         PairState sp =  new PairState(sui, suq, map);
                         State sc = stateMap.get(sp);
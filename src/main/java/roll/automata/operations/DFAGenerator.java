@@ -29,10 +29,15 @@ import roll.words.Alphabet;
 public class DFAGenerator {
     
     public static DFA getRandomDFA(Alphabet alphabet, int numState) {
+        return getRandomDFA(alphabet, numState, System.currentTimeMillis());
+    }
+    
+    // fixed seeds give the same automaton, e.g., for benchmarks
+    public static DFA getRandomDFA(Alphabet alphabet, int numState, long seed) {
 
         DFA result = new DFA(alphabet);
 
-        Random r = new Random(System.currentTimeMillis());
+        Random r = new Random(seed);
         
         final int apSize = alphabet.getLetterSize();
 
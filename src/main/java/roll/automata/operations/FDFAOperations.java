@@ -26,6 +26,8 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import roll.automata.DFA;
 import roll.automata.FDFA;
+import roll.jfr.Events;
+import roll.jfr.FDFATranslationEvent;
 import roll.util.Pair;
 import roll.util.sets.ISet;
 import roll.words.Alphabet;
@@ -121,6 +123,7 @@ public class FDFAOperations {
     }
     
     private static Automaton buildDFAFromFDFA(FDFA fdfa, boolean complement) {
+        FDFATranslationEvent event = Events.AVAILABLE ? new FDFATranslationEvent() : null;
         TIntObjectMap<State> map = new TIntObjectHashMap<>(); 
         Automaton dkAutL = DFAOperations.toDkDFA(map, fdfa.getLeadingDFA());
         for(int stateNr = 0; stateNr < fdfa.getLeadingDFA().getStateSize(); stateNr ++) {
@@ -140,11 +143,13 @@ public class FDFAOperations {
             }
         }
         dkAutL.setDeterministic(true);
+        if(event != null) event.finish(complement ? "DTwo" : "DOne", fdfa, dkAutL);
         return dkAutL;
     }
     
     // build NBA from FDFA
     public static Automaton buildDollarNFA(FDFA fdfa) {
+        FDFATranslationEvent event = Events.AVAILABLE ? new FDFATranslationEvent() : null;
         // L means Leading and P means Progress
         TIntObjectMap<State> map = new TIntObjectHashMap<>(); 
         Automaton dkAutL = DFAOperations.toDkDFA(map, fdfa.getLeadingDFA());
@@ -177,6 +182,7 @@ public class FDFAOperations {
         }
         dkAutL.setDeterministic(false);
         //dkAutL.minimize(); only for DFA
+        if(event != null) event.finish("DollarNFA", fdfa, dkAutL);
         return dkAutL;
     }
     
@@ -189,6 +195,7 @@ public class FDFAOperations {
     }
     
     private static Automaton buildNBA(FDFA fdfa, boolean under, boolean dba) {
+        FDFATranslationEvent event = Events.AVAILABLE ? new FDFATranslationEvent() : null;
         // L means Leading and P means Progress
         TIntObjectMap<State> map = new TIntObjectHashMap<>();
         Automaton dkAutL = DFAOperations.toDkDFA(map, fdfa.getLeadingDFA());
@@ -239,6 +246,7 @@ public class FDFAOperations {
             }
         }
 
+        if(event != null) event.finish((under ? "Under" : "Over") + (dba ? "LDBA" : "NBA"), fdfa, dkAutL);
         return dkAutL;
     }
     
@@ -274,6 +282,7 @@ public class FDFAOperations {
     }
     
     public static Automaton buildNegNBA(FDFA fdfa) {
+        FDFATranslationEvent event = Events.AVAILABLE ? new FDFATranslationEvent() : null;
         DFA autL = fdfa.getLeadingDFA();
         TIntObjectMap<State> map = new TIntObjectHashMap<>();
         Automaton dkAutL = DFAOperations.toDkDFA(map, autL);
@@ -316,6 +325,7 @@ public class FDFAOperations {
             }
         }
 //      dkAutL.removeDeadTransitions();
+        if(event != null) event.finish("NegNBA", fdfa, dkAutL);
         return dkAutL;
     }
 
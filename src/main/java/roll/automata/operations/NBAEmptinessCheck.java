@@ -21,6 +21,9 @@ import java.util.Stack;
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntIntHashMap;
 import roll.automata.NBA;
+import roll.jfr.EmptinessCheckEvent;
+import roll.jfr.Events;
+import roll.util.Budget;
 import roll.util.Pair;
 import roll.util.sets.ISet;
 import roll.util.sets.UtilISet;
@@ -32,6 +35,7 @@ import roll.words.Word;
 public class NBAEmptinessCheck {
     
     private int index = 0;
+    private int numOfSccs = 0;
     private Stack<Integer> SCCs;
     private NBA nba;
     private TIntIntMap vIndex;
@@ -56,6 +60,13 @@ public class NBAEmptinessCheck {
     }
     
     public boolean isEmpty() {
+        EmptinessCheckEvent event = Events.AVAILABLE ? new EmptinessCheckEvent() : null;
+        boolean empty = isEmptyTarjan();
+        if(event != null) event.finish("NBAEmptinessCheck", index, numOfSccs, 1, empty);
+        return empty;
+    }
+    
+    private boolean isEmptyTarjan() {
         // only check the part where final states can reach
         // all final states are reachable from the initial state
         for(final int s : fstAcc) {
@@ -77,6 +88,7 @@ public class NBAEmptinessCheck {
 
     // terminate on the first accepting loop
     boolean tarjan(int v) {
+        Budget.checkInterrupted("emptiness check");
         vIndex.put(v, index);
         vLowlink.put(v, index);
         index++;
@@ -98,6 +110,7 @@ public class NBAEmptinessCheck {
         
         boolean isAcc = false;
         if(vLowlink.get(v) == vIndex.get(v)){
+            ++ numOfSccs;
             int numStates = 0;
             scc.clear();
             boolean left = false, right = false;
@@ -16,221 +16,383 @@
 
 package roll.automata.operations;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Stack;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
 
-import gnu.trove.map.TIntIntMap;
-import gnu.trove.map.hash.TIntIntHashMap;
 import roll.automata.NBA;
+import roll.jfr.EmptinessCheckEvent;
+import roll.jfr.Events;
+import roll.util.Budget;
 import roll.util.Pair;
-import roll.util.sets.ISet;
-import roll.util.sets.UtilISet;
+import roll.util.offheap.OffHeapIntArray;
+import roll.util.offheap.OffHeapLongArray;
+import roll.util.offheap.OffHeapLongIndex;
 import roll.words.Alphabet;
 import roll.words.Word;
 
 /**
+ * Emptiness check of the product of two NBAs, product states are packed into
+ * long keys and stored in off-heap memory with dense ids, and the data of the
+ * depth first search is kept in arrays indexed by the ids.
+ * Asked for several counterexamples, the search goes on after the first
+ * accepting SCC and takes a lasso from each of the next ones as well.
+ * 
  * @author Yong Li (liyong@ios.ac.cn)
  * */
 
-public class NBAIntersectionCheck {
+public class NBAIntersectionCheck implements Closeable {
+    
+    private static final int DONE = Integer.MAX_VALUE;
     
     private NBA fstOp;
     private NBA sndOp;
     private boolean empty = true;
-    private NBA result;
-    private ISet fstAcc;
-    private ISet sndAcc;
     private boolean needCE;
-    private int numStates;
-    private NBAEmptinessCheck checker;
+    private final Alphabet alphabet;
+    
+    private final OffHeapLongIndex states;   // (fstState, sndState) -> id
+    private final OffHeapIntArray dfsNum;    // 0 for not visited, DONE for finished SCCs
+    private final OffHeapIntArray parent;    // parent and letter in DFS tree for counterexample
+    private final OffHeapIntArray parentLetter;
+    private int sccRoot = -1;                // root of the accepting SCC
+    private int numOfSccs = 0;
+    private Pair<Word, Word> counterexample;
+    private final int numOfCounterexamples;
+    // lassos of the accepting SCCs found so far, by their roots
+    private final List<Pair<Word, Word>> counterexamples = new ArrayList<>();
+    private final TIntSet lassoRoots = new TIntHashSet();
     
     public NBAIntersectionCheck(NBA fstOp, NBA sndOp) {
         this(fstOp, sndOp, false);
     }
     
     public NBAIntersectionCheck(NBA fstOp, NBA sndOp, boolean needCE) {
-        assert fstOp != null && sndOp != null;
+        this(fstOp, sndOp, needCE, 1);
+    }
+    
+    // uses parallel CNDFS if numOfThreads > 1
+    public NBAIntersectionCheck(NBA fstOp, NBA sndOp, boolean needCE, int numOfThreads) {
+        this(fstOp, sndOp, needCE, numOfThreads, 1);
+    }
+    
+    // parallel CNDFS stops at its first lasso, whatever numOfCounterexamples is
+    public NBAIntersectionCheck(NBA fstOp, NBA sndOp, boolean needCE, int numOfThreads, int numOfCounterexamples) {
+        assert fstOp != null && sndOp != null && numOfCounterexamples > 0;
+        EmptinessCheckEvent event = Events.AVAILABLE ? new EmptinessCheckEvent() : null;
         this.needCE = needCE;
+        this.numOfCounterexamples = needCE ? numOfCounterexamples : 1;
         this.fstOp = fstOp;
         this.sndOp = sndOp;
-        this.numStates = 0;
-        if(needCE) {
-            this.result = new NBA(fstOp.getAlphabet());
-            this.fstAcc = UtilISet.newISet();
-            this.sndAcc = UtilISet.newISet();
-        }
-        new AsccExplore();
-        if(needCE) {
-            checker = new NBAEmptinessCheck(result, fstAcc, sndAcc);
-            if(!empty) { // is not empty
-                checker.isEmpty(); // find accepting loop
+        this.alphabet = fstOp.getAlphabet();
+        this.states = new OffHeapLongIndex();
+        this.dfsNum = new OffHeapIntArray();
+        this.parent = needCE ? new OffHeapIntArray() : null;
+        this.parentLetter = needCE ? new OffHeapIntArray() : null;
+        if(numOfThreads > 1) {
+            try {
+                NBAIntersectionCheckCNDFS checker = new NBAIntersectionCheckCNDFS(fstOp, sndOp, numOfThreads);
+                this.empty = checker.isEmpty();
+                this.counterexample = checker.getCounterexample();
+                if(event != null) event.finish("NBAIntersectionCheckCNDFS", checker.getNumOfStates(), -1, numOfThreads, empty);
+            }finally {
+                close();
             }
+            return;
         }
+        try {
+            new AsccExplore();
+        }catch(RuntimeException | Error e) {
+            close();
+            throw e;
+        }
+        if(event != null) event.finish("NBAIntersectionCheck", states.size(), numOfSccs, 1, empty);
+        if(! counterexamples.isEmpty()) counterexample = counterexamples.get(0);
+        // the product is only needed to compute the counterexample
+        if(!needCE || empty || counterexample != null) close();
     }
     
     public void computePath() {
-        if(!needCE || fstAcc == null || sndAcc == null) {
-            throw new UnsupportedOperationException("No accepting loop");
-        }
-        
-        if(fstAcc.isEmpty() || sndAcc.isEmpty()) {
+        if(!needCE || empty) {
             throw new UnsupportedOperationException("No accepting loop");
         }
-        checker.findpath();
+        if(counterexample != null) return;
+        counterexample = getLasso();
+        close();
+    }
+    
+    // the lasso through the accepting SCC of sccRoot, while it is still active
+    private Pair<Word, Word> getLasso() {
+        Word prefix = getPrefix(sccRoot);
+        // loop through both accepting conditions
+        int[] fst = findPath(sccRoot, 1, false);
+        int[] snd = findPath(fst[0], 2, false);
+        int[] back = findPath(snd[0], 0, true);
+        int[] loop = new int[fst.length + snd.length + back.length - 3];
+        System.arraycopy(fst, 1, loop, 0, fst.length - 1);
+        System.arraycopy(snd, 1, loop, fst.length - 1, snd.length - 1);
+        System.arraycopy(back, 1, loop, fst.length + snd.length - 2, back.length - 1);
+        return new Pair<>(prefix, alphabet.getArrayWord(loop));
+    }
+    
+    // releases the off-heap memory of the product, called once the result is known
+    @Override
+    public void close() {
+        states.close();
+        dfsNum.close();
+        if(parent != null) parent.close();
+        if(parentLetter != null) parentLetter.close();
     }
     
     public Pair<Word, Word> getCounterexample() {
-        return checker.getCounterexample();
+        return counterexample;
+    }
+    
+    // at most numOfCounterexamples lassos, the one of getCounterexample() first
+    public List<Pair<Word, Word>> getCounterexamples() {
+        if(! counterexamples.isEmpty()) return Collections.unmodifiableList(counterexamples);
+        return counterexample == null ? Collections.emptyList() : Collections.singletonList(counterexample);
     }
     
     public boolean isEmpty() {
         return empty;
     }
     
-    private class Elem {
-        ProductState state;
-        byte label;
-        Elem(ProductState s, byte l) {
-            state = s;
-            label = l;
-        }
+    // number of product states explored
+    public int getNumOfStates() {
+        return states.size();
+    }
+    
+    private int getFstState(int id) {
+        return OffHeapLongIndex.getFirst(states.getKey(id));
+    }
+    
+    private int getSndState(int id) {
+        return OffHeapLongIndex.getSecond(states.getKey(id));
     }
     
-    private class ProductState {
-        int fstState;
-        int sndState;
-        int resState;
-        ProductState(int fstState, int sndState) {
-            this.fstState = fstState;
-            this.sndState = sndState;
+    private byte getLabel(int id) {
+        byte label = 0;
+        if(fstOp.isFinal(getFstState(id))) {
+            label |= 1;
         }
-        
-        @Override
-        public int hashCode() {
-            return fstState * sndOp.getStateSize() + sndState;
+        if(sndOp.isFinal(getSndState(id))) {
+            label |= 2;
         }
-        
-        @Override
-        public boolean equals(Object obj) {
-            if(obj == null) return false;
-            if(obj == this) return true;
-            if(obj instanceof ProductState) {
-                ProductState other = (ProductState)obj;
-                return fstState == other.fstState
-                    && sndState == other.sndState;
+        return label;
+    }
+    
+    private int getOrAddState(long key) {
+        int numStates = states.size();
+        int id = states.getOrAdd(key);
+        if(id == numStates) {
+            dfsNum.add(0);
+            if(needCE) {
+                parent.add(-1);
+                parentLetter.add(-1);
             }
-            return false;
         }
-        
-        @Override
-        public String toString() {
-            return resState + ":(" + fstState + "," + sndState + ")";
+        return id;
+    }
+    
+    private Word getPrefix(int id) {
+        int length = 0;
+        for(int s = id; parent.get(s) >= 0; s = parent.get(s)) {
+            length ++;
         }
+        int[] letters = new int[length];
+        for(int s = id; parent.get(s) >= 0; s = parent.get(s)) {
+            letters[-- length] = parentLetter.get(s);
+        }
+        return alphabet.getArrayWord(letters);
     }
     
+    private boolean inAcceptingScc(int id) {
+        // active states visited after the root are in its SCC
+        int num = dfsNum.get(id);
+        return num != 0 && num != DONE && num >= dfsNum.get(sccRoot);
+    }
     
+    // breadth first search inside the accepting SCC from source to a state
+    // with given label, or back to the root if toRoot holds, the first element
+    // of the result is the target state followed by the letters of the path
+    private int[] findPath(int source, int label, boolean toRoot) {
+        if(!toRoot && (getLabel(source) & label) != 0) {
+            return new int[] {source};
+        }
+        try(OffHeapIntArray pred = new OffHeapIntArray(states.size(), -1);
+            OffHeapIntArray predLetter = new OffHeapIntArray(states.size(), -1);
+            OffHeapIntArray queue = new OffHeapIntArray()) {
+            queue.add(source);
+            int target = -1;
+            for(long head = 0; head < queue.size() && target < 0; head ++) {
+                int s = queue.get(head);
+                int fst = getFstState(s), snd = getSndState(s);
+                for(int letter = 0; letter < alphabet.getLetterSize() && target < 0; letter ++) {
+                    for(int sndSucc : sndOp.getSuccessors(snd, letter)) {
+                        for(int fstSucc : fstOp.getSuccessors(fst, letter)) {
+                            int succ = states.get(OffHeapLongIndex.getKey(fstSucc, sndSucc));
+                            if(succ < 0 || !inAcceptingScc(succ) || pred.get(succ) >= 0) continue;
+                            pred.set(succ, s);
+                            predLetter.set(succ, letter);
+                            if(toRoot ? succ == sccRoot : (getLabel(succ) & label) != 0) {
+                                target = succ;
+                                break;
+                            }
+                            queue.add(succ);
+                        }
+                        if(target >= 0) break;
+                    }
+                }
+            }
+            assert target >= 0 : "No path in accepting SCC";
+            int length = 0;
+            int s = target;
+            do {
+                length ++;
+                s = pred.get(s);
+            }while(s != source || (toRoot && length == 0));
+            int[] result = new int[length + 1];
+            result[0] = target;
+            s = target;
+            for(int i = length; i >= 1; i --) {
+                result[i] = predLetter.get(s);
+                s = pred.get(s);
+            }
+            return result;
+        }
+    }
     
     public class AsccExplore {
         
         private int depth;
-        private final Stack<Elem> sccs;           // C99 's root stack
-        private final Stack<Integer> act;            // tarjan's stack
-        private final TIntIntMap dfsNum;        
-        private final Map<ProductState, ProductState> map; 
+        private final OffHeapIntArray sccs;           // C99 's root stack
+        private final OffHeapIntArray sccLabels;
+        private final OffHeapIntArray act;            // tarjan's stack
+        // DFS stack, each frame has its state and the range of its successors
+        private final OffHeapIntArray frameStates;
+        private final OffHeapLongArray frameNext;
+        private final OffHeapLongArray frameEnd;
+        private final OffHeapLongArray succKeys;
+        private final OffHeapIntArray succLetters;
         
         public AsccExplore() {
-            this.sccs = new Stack<>();
-            this.act = new Stack<>();
-            this.dfsNum = new TIntIntHashMap();
+            this.sccs = new OffHeapIntArray();
+            this.sccLabels = new OffHeapIntArray();
+            this.act = new OffHeapIntArray();
+            this.frameStates = new OffHeapIntArray();
+            this.frameNext = new OffHeapLongArray();
+            this.frameEnd = new OffHeapLongArray();
+            this.succKeys = new OffHeapLongArray();
+            this.succLetters = new OffHeapIntArray();
             this.depth = 0;
-            this.map = new HashMap<>();
-            strongConnect(initialize());
-        }
-        
-        ProductState getOrAddState(int fst, int snd) {
-            ProductState prod = new ProductState(fst, snd);
-            if(map.containsKey(prod)) {
-                return map.get(prod);
-            }
-            prod.resState = numStates;
-            map.put(prod, prod);
-            ++ numStates;
-            if(needCE) {
-                result.createState();
-                assert numStates == result.getStateSize();
-                if(fstOp.isFinal(fst)) {
-                    fstAcc.set(prod.resState);
-                }
-                if(sndOp.isFinal(snd)) {
-                    sndAcc.set(prod.resState);
-                }
+            try {
+                explore(initialize());
+            }finally {
+                close();
             }
-            
-            return prod;
         }
         
-        private ProductState initialize() {
-            ProductState prod = getOrAddState(fstOp.getInitialState(), sndOp.getInitialState());
-            if(needCE) result.setInitial(prod.resState);
-            return prod;
+        private void close() {
+            sccs.close();
+            sccLabels.close();
+            act.close();
+            frameStates.close();
+            frameNext.close();
+            frameEnd.close();
+            succKeys.close();
+            succLetters.close();
         }
-
-        byte getLabel(ProductState prod) {
-            byte label = 0;
-            if(fstOp.isFinal(prod.fstState)) {
-                label |= 1;
-            }
-            if(sndOp.isFinal(prod.sndState)) {
-                label |= 2;
-            }
-            return label;
+        
+        private int initialize() {
+            return getOrAddState(OffHeapLongIndex.getKey(fstOp.getInitialState(), sndOp.getInitialState()));
         }
-
-        void strongConnect(ProductState prod) {
+        
+        private void push(int id) {
             ++ depth;
-            dfsNum.put(prod.resState, depth);
-            sccs.push(new Elem(prod, getLabel(prod)));
-            act.push(prod.resState);
-            
-            Alphabet alphabet = fstOp.getAlphabet();
+            dfsNum.set(id, depth);
+            sccs.add(id);
+            sccLabels.add(getLabel(id));
+            act.add(id);
+            frameStates.add(id);
+            frameNext.add(succKeys.size());
+            int fst = getFstState(id), snd = getSndState(id);
             for (int letter = 0; letter < alphabet.getLetterSize(); letter ++) {
-                for(int sndSucc : sndOp.getSuccessors(prod.sndState, letter)) {
-                    for(int fstSucc : fstOp.getSuccessors(prod.fstState, letter)) {
-                        ProductState succ = getOrAddState(fstSucc, sndSucc);
-                        if(needCE) result.getState(prod.resState).addTransition(letter, succ.resState);
-                        if (!dfsNum.containsKey(succ.resState)) {
-                            strongConnect(succ);
-                            if(!empty) return ;
-                        } else if (act.contains(succ.resState)) {
-                            // we have already seen it before, there is a loop
-                            // probably there is one final state without self-loop
-                            byte B = 0;
-                            ProductState u;
-                            do {
-                                Elem p = sccs.pop();
-                                u = p.state;
-                                B |= p.label;
-                                if(B == 3) {
-                                    empty = false;
-                                    return;
-                                }
-                            }while(dfsNum.get(u.resState) > dfsNum.get(succ.resState));
-                            sccs.push(new Elem(u, B));
-                        }
+                for(int sndSucc : sndOp.getSuccessors(snd, letter)) {
+                    for(int fstSucc : fstOp.getSuccessors(fst, letter)) {
+                        succKeys.add(OffHeapLongIndex.getKey(fstSucc, sndSucc));
+                        succLetters.add(letter);
                     }
                 }
             }
-            
-            // if current number is done, then we should remove all 
-            // active states in the same scc
-            if(sccs.peek().state.resState == prod.resState) {
-                sccs.pop();
-                int u = 0;
-                do {
-                    assert !act.isEmpty() : "Act empty";
-                    u = act.pop();
-                }while(u != prod.resState);
+            frameEnd.add(succKeys.size());
+        }
+        
+        void explore(int init) {
+            push(init);
+            while(frameStates.size() > 0) {
+                Budget.checkInterrupted("intersection check");
+                long frame = frameStates.size() - 1;
+                int id = frameStates.get(frame);
+                long next = frameNext.get(frame);
+                if(next < frameEnd.get(frame)) {
+                    frameNext.set(frame, next + 1);
+                    int letter = succLetters.get(next);
+                    int succ = getOrAddState(succKeys.get(next));
+                    int num = dfsNum.get(succ);
+                    if(num == 0) {
+                        if(needCE) {
+                            parent.set(succ, id);
+                            parentLetter.set(succ, letter);
+                        }
+                        push(succ);
+                    }else if(num != DONE) {
+                        // we have already seen it before, there is a loop
+                        // probably there is one final state without self-loop
+                        int B = 0, u;
+                        do {
+                            u = sccs.removeLast();
+                            B |= sccLabels.removeLast();
+                        }while(dfsNum.get(u) > num);
+                        sccs.add(u);
+                        sccLabels.add(B);
+                        if(B == 3) {
+                            empty = false;
+                            sccRoot = u;
+                            if(numOfCounterexamples == 1) return;
+                            // a merged SCC has a new root and gives another lasso
+                            if(lassoRoots.add(u)) {
+                                counterexamples.add(getLasso());
+                                if(counterexamples.size() >= numOfCounterexamples) return;
+                            }
+                        }
+                    }
+                    continue;
+                }
+                // if current number is done, then we should remove all 
+                // active states in the same scc
+                if(sccs.getLast() == id) {
+                    ++ numOfSccs;
+                    sccs.removeLast();
+                    sccLabels.removeLast();
+                    int u = 0;
+                    do {
+                        assert act.size() > 0 : "Act empty";
+                        u = act.removeLast();
+                        dfsNum.set(u, DONE);
+                    }while(u != id);
+                }
+                frameStates.removeLast();
+                frameNext.removeLast();
+                frameEnd.removeLast();
+                // successors of this frame are on top
+                long start = frame > 0 ? frameEnd.get(frame - 1) : 0;
+                succKeys.setSize(start);
+                succLetters.setSize(start);
             }
         }
     }
@@ -0,0 +1,312 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.automata.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gnu.trove.list.array.TIntArrayList;
+import net.sf.javabdd.BDD;
+import roll.automata.NBA;
+import roll.bdd.BDDManager;
+import roll.bdd.Permutation;
+import roll.bdd.VariableBDD;
+import roll.util.Budget;
+import roll.util.Pair;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * Symbolic emptiness check of the product of two NBAs, states and letters are
+ * encoded by BDD variables and the fair states of the product are computed by
+ * the Emerson-Lei fixpoint
+ *      nu Z. (EX E[Z U (Z & F1)]) & (EX E[Z U (Z & F2)])
+ * restricted to the reachable states.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class NBAIntersectionCheckBDD {
+    
+    private final NBA fstOp;
+    private final NBA sndOp;
+    private final Alphabet alphabet;
+    
+    private final BDDManager bdd;
+    private final VariableBDD letterVar;
+    private final VariableBDD fstVar;
+    private final VariableBDD sndVar;
+    private final Permutation permutation;  // swap current and next state variables
+    private final BDD presCube;
+    private final BDD nextCube;
+    private final BDD letterCube;
+    private final BDD trans;
+    
+    private BDD init;
+    private BDD reach;
+    private BDD fair;
+    private boolean empty;
+    private Pair<Word, Word> counterexample;
+    
+    public NBAIntersectionCheckBDD(NBA fstOp, NBA sndOp) {
+        this(fstOp, sndOp, false);
+    }
+    
+    public NBAIntersectionCheckBDD(NBA fstOp, NBA sndOp, boolean needCE) {
+        assert fstOp != null && sndOp != null;
+        this.fstOp = fstOp;
+        this.sndOp = sndOp;
+        this.alphabet = fstOp.getAlphabet();
+        this.bdd = new BDDManager();
+        // the manager is released even if the check is cancelled
+        try {
+            // at least one bit for every variable
+            this.letterVar = new VariableBDD(bdd, 1, "a", 0, Math.max(alphabet.getLetterSize() - 1, 1));
+            this.fstVar = new VariableBDD(bdd, 2, "p", 0, Math.max(fstOp.getStateSize() - 1, 1));
+            this.sndVar = new VariableBDD(bdd, 2, "q", 0, Math.max(sndOp.getStateSize() - 1, 1));
+            List<BDD> presVars = new ArrayList<>(fstVar.getBDDVariables(0));
+            presVars.addAll(sndVar.getBDDVariables(0));
+            List<BDD> nextVars = new ArrayList<>(fstVar.getBDDVariables(1));
+            nextVars.addAll(sndVar.getBDDVariables(1));
+            this.permutation = new Permutation(bdd, presVars, nextVars);
+            this.presCube = fstVar.getCube(0).andWith(sndVar.getCube(0));
+            this.nextCube = fstVar.getCube(1).andWith(sndVar.getCube(1));
+            this.letterCube = letterVar.getCube(0);
+            this.trans = buildTransitions();
+            checkEmptiness();
+            // the lasso is built while the BDDs are alive
+            if(!empty && needCE) buildCounterexample();
+        }finally {
+            bdd.close();
+        }
+    }
+    
+    public boolean isEmpty() {
+        return empty;
+    }
+    
+    private void buildCounterexample() {
+        // move to a bottom SCC of the fair states
+        BDD state = pickState(fair);
+        BDD scc;
+        while(true) {
+            BDD forward = getReachable(state, fair, true);
+            BDD backward = getReachable(state, fair, false);
+            BDD rest = forward.and(backward.not());
+            backward.free();
+            if(rest.isZero()) {
+                scc = forward;
+                break;
+            }
+            forward.free();
+            state.free();
+            state = pickState(rest);
+            rest.free();
+        }
+        // all fair paths from the state stay in the SCC, so it contains final
+        // states of both automata
+        TIntArrayList prefix = new TIntArrayList();
+        findPath(init, state, reach, false, prefix);
+        TIntArrayList loop = new TIntArrayList();
+        BDD fstFinal = getFinalStates(fstVar, fstOp).andWith(scc.id());
+        BDD sndFinal = getFinalStates(sndVar, sndOp).andWith(scc.id());
+        BDD s1 = findPath(state, fstFinal, scc, false, loop);
+        BDD s2 = findPath(s1, sndFinal, scc, false, loop);
+        findPath(s2, state, scc, true, loop);
+        counterexample = new Pair<>(alphabet.getArrayWord(prefix.toArray()), alphabet.getArrayWord(loop.toArray()));
+    }
+    
+    // the lasso is computed with the emptiness check, no computePath() is needed;
+    // null if the product is empty or no counterexample was asked for
+    public Pair<Word, Word> getCounterexample() {
+        return counterexample;
+    }
+    
+    private BDD getState(int fst, int snd, int copy) {
+        return fstVar.newValue(copy, fst).andWith(sndVar.newValue(copy, snd));
+    }
+    
+    private BDD getFinalStates(VariableBDD var, NBA nba) {
+        BDD result = bdd.getZero();
+        for(int state : nba.getFinalStates()) {
+            result = result.orWith(var.newValue(0, state));
+        }
+        return result;
+    }
+    
+    // relation of one automaton over letter, current and next states
+    private BDD buildTransitions(VariableBDD var, NBA nba, int letter) {
+        BDD result = bdd.getZero();
+        for(int state = 0; state < nba.getStateSize(); state ++) {
+            BDD succs = bdd.getZero();
+            for(int succ : nba.getSuccessors(state, letter)) {
+                succs = succs.orWith(var.newValue(1, succ));
+            }
+            if(succs.isZero()) continue;
+            result = result.orWith(var.newValue(0, state).andWith(succs));
+        }
+        return result;
+    }
+    
+    private BDD buildTransitions() {
+        BDD result = bdd.getZero();
+        for(int letter = 0; letter < alphabet.getLetterSize(); letter ++) {
+            BDD fstTrans = buildTransitions(fstVar, fstOp, letter);
+            if(fstTrans.isZero()) continue;
+            BDD sndTrans = buildTransitions(sndVar, sndOp, letter);
+            result = result.orWith(letterVar.newValue(0, letter).andWith(fstTrans).andWith(sndTrans));
+        }
+        return result;
+    }
+    
+    private BDD getPost(BDD states) {
+        BDD cube = presCube.and(letterCube);
+        BDD result = trans.relprod(states, cube).replaceWith(permutation.getBDDPairing());
+        cube.free();
+        return result;
+    }
+    
+    private BDD getPre(BDD states) {
+        BDD cube = nextCube.and(letterCube);
+        BDD next = states.replace(permutation.getBDDPairing());
+        BDD result = trans.relprod(next, cube);
+        next.free();
+        cube.free();
+        return result;
+    }
+    
+    // states reachable from (or reaching) source inside the given states
+    private BDD getReachable(BDD source, BDD within, boolean forward) {
+        BDD result = source.id();
+        BDD frontier = source.id();
+        while(! frontier.isZero()) {
+            Budget.checkInterrupted("symbolic intersection check");
+            BDD image = forward ? getPost(frontier) : getPre(frontier);
+            frontier.free();
+            frontier = image.andWith(within.id()).andWith(result.not());
+            result.orWith(frontier.id());
+        }
+        frontier.free();
+        return result;
+    }
+    
+    // E[within U target]
+    private BDD getUntil(BDD within, BDD target) {
+        BDD result = target.id();
+        while(true) {
+            Budget.checkInterrupted("symbolic intersection check");
+            BDD pre = getPre(result).andWith(within.id());
+            BDD next = pre.orWith(result.id());
+            if(next.equals(result)) {
+                next.free();
+                return result;
+            }
+            result.free();
+            result = next;
+        }
+    }
+    
+    private void checkEmptiness() {
+        init = getState(fstOp.getInitialState(), sndOp.getInitialState(), 0);
+        reach = getReachable(init, bdd.getOne(), true);
+        BDD fstFinal = getFinalStates(fstVar, fstOp);
+        BDD sndFinal = getFinalStates(sndVar, sndOp);
+        // Emerson-Lei fixpoint
+        BDD states = reach.id();
+        while(true) {
+            BDD next = states.id();
+            for(BDD finals : new BDD[] {fstFinal, sndFinal}) {
+                BDD target = states.and(finals);
+                BDD until = getUntil(states, target);
+                target.free();
+                next.andWith(getPre(until));
+                until.free();
+            }
+            if(next.equals(states)) {
+                next.free();
+                break;
+            }
+            states.free();
+            states = next;
+        }
+        fstFinal.free();
+        sndFinal.free();
+        fair = states;
+        empty = fair.isZero();
+    }
+    
+    // one concrete state in the set
+    private BDD pickState(BDD states) {
+        BDD one = states.satOne();
+        BDD result = getState(fstVar.toInteger(one), sndVar.toInteger(one), 0);
+        one.free();
+        return result;
+    }
+    
+    private int getLetter(BDD state, BDD succ) {
+        BDD next = succ.replace(permutation.getBDDPairing());
+        BDD cube = presCube.and(nextCube);
+        BDD letters = trans.and(state).andWith(next).exist(cube);
+        BDD one = letters.satOne();
+        int letter = letterVar.toInteger(one);
+        letters.free();
+        one.free();
+        cube.free();
+        return letter;
+    }
+    
+    // shortest path inside within from the state source to target, at least
+    // one step if nonEmpty holds; the letters are appended to word and the
+    // reached state is returned
+    private BDD findPath(BDD source, BDD target, BDD within, boolean nonEmpty, TIntArrayList word) {
+        if(!nonEmpty && !source.and(target).isZero()) {
+            return source;
+        }
+        List<BDD> layers = new ArrayList<>();
+        layers.add(source.id());
+        BDD visited = source.id();
+        BDD hit;
+        while(true) {
+            BDD image = getPost(layers.get(layers.size() - 1)).andWith(within.id());
+            hit = image.and(target);
+            if(! hit.isZero()) {
+                image.free();
+                break;
+            }
+            hit.free();
+            BDD layer = image.andWith(visited.not());
+            assert !layer.isZero() : "No path found";
+            visited.orWith(layer.id());
+            layers.add(layer);
+        }
+        visited.free();
+        BDD result = pickState(hit);
+        hit.free();
+        int[] letters = new int[layers.size()];
+        BDD state = result;
+        for(int i = layers.size() - 1; i >= 0; i --) {
+            BDD preds = getPre(state).andWith(layers.get(i));
+            BDD pred = pickState(preds);
+            preds.free();
+            letters[i] = getLetter(pred, state);
+            state = pred;
+        }
+        word.addAll(letters);
+        return result;
+    }
+
+}
@@ -0,0 +1,363 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.automata.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+import roll.automata.NBA;
+import roll.util.Pair;
+import roll.util.sets.ISet;
+import roll.util.sets.UtilISet;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * Parallel emptiness check of the product of two NBAs by CNDFS in
+ * "Improved Multi-Core Nested Depth-First Search" (ATVA 2012).
+ * The two acceptance conditions are combined by a flag in product states,
+ * the workers explore successors in random orders and share blue and red
+ * colours of product states. States get their ids from a hash table split
+ * into segments which grow independently, the colours are kept by id in
+ * chunks allocated on demand.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class NBAIntersectionCheckCNDFS {
+    
+    private static final int BLUE = 1;
+    private static final int RED = 2;
+    private static final int SEGMENT_BITS = 8;
+    private static final int CHUNK_BITS = 16;
+    private static final int MAX_CHUNKS = 1 << 14;
+    
+    private final NBA fstOp;
+    private final NBA sndOp;        // null for the emptiness of fstOp
+    private final Alphabet alphabet;
+    private final ISet sndSuccs;    // successors if sndOp is null
+    
+    private final Segment[] segments;       // key -> id
+    private final AtomicInteger size;
+    private final AtomicReferenceArray<AtomicIntegerArray> colors; // chunks of id -> colour
+    
+    private volatile boolean stop;
+    private final AtomicReference<Pair<Word, Word>> counterexample;
+    private final AtomicReference<Throwable> error;
+    
+    public NBAIntersectionCheckCNDFS(NBA fstOp, NBA sndOp, int numOfWorkers) {
+        assert fstOp != null && numOfWorkers > 0;
+        this.fstOp = fstOp;
+        this.sndOp = sndOp;
+        this.alphabet = fstOp.getAlphabet();
+        this.sndSuccs = UtilISet.newISet();
+        this.sndSuccs.set(0);
+        this.segments = new Segment[1 << SEGMENT_BITS];
+        for(int i = 0; i < segments.length; i ++) {
+            segments[i] = new Segment();
+        }
+        this.size = new AtomicInteger();
+        this.colors = new AtomicReferenceArray<>(MAX_CHUNKS);
+        this.counterexample = new AtomicReference<>();
+        this.error = new AtomicReference<>();
+        
+        List<Thread> workers = new ArrayList<>();
+        for(int i = 0; i < numOfWorkers; i ++) {
+            Worker worker = new Worker(i);
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.run();
+                }catch(Throwable e) {
+                    error.compareAndSet(null, e);
+                    stop = true;
+                }
+            }, "roll-cndfs-" + i);
+            thread.setDaemon(true);
+            workers.add(thread);
+            thread.start();
+        }
+        try {
+            for(Thread thread : workers) {
+                thread.join();
+            }
+        }catch(InterruptedException e) {
+            stop = true;
+            Thread.currentThread().interrupt();
+            throw new CancellationException("intersection check is cancelled");
+        }
+        Throwable cause = error.get();
+        if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+        if(cause instanceof Error) throw (Error)cause;
+        if(cause != null) throw new IllegalStateException(cause);
+    }
+    
+    public boolean isEmpty() {
+        return counterexample.get() == null;
+    }
+    
+    // number of product states explored by all workers
+    public int getNumOfStates() {
+        return size.get();
+    }
+    
+    public Pair<Word, Word> getCounterexample() {
+        return counterexample.get();
+    }
+    
+    // flag 0 waits for a final state of fstOp and flag 1 for sndOp
+    private static long getKey(int fst, int snd, int flag) {
+        return ((long)fst << 32) | ((long)snd << 1) | flag;
+    }
+    
+    private boolean isAccepting(long key) {
+        return (key & 1) == 0 && fstOp.isFinal((int)(key >>> 32));
+    }
+    
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int)key;
+    }
+    
+    // open addressing table of one segment, resized when 3/4 full
+    private static class Segment {
+        long[] keys = new long[16];     // slot -> key + 1, 0 for empty slot
+        int[] ids = new int[16];
+        int size;
+    }
+    
+    // id of key, a new id if key has not been seen by any worker
+    private int getId(long key) {
+        int h = hash(key);
+        Segment segment = segments[h >>> (Integer.SIZE - SEGMENT_BITS)];
+        long stored = key + 1;
+        synchronized(segment) {
+            int mask = segment.keys.length - 1;
+            int slot = h & mask;
+            while(segment.keys[slot] != 0) {
+                if(segment.keys[slot] == stored) return segment.ids[slot];
+                slot = (slot + 1) & mask;
+            }
+            int id = newId();
+            segment.keys[slot] = stored;
+            segment.ids[slot] = id;
+            if(4 * ++ segment.size > 3 * segment.keys.length) resize(segment);
+            return id;
+        }
+    }
+    
+    private void resize(Segment segment) {
+        long[] keys = segment.keys;
+        int[] ids = segment.ids;
+        segment.keys = new long[keys.length << 1];
+        segment.ids = new int[keys.length << 1];
+        int mask = segment.keys.length - 1;
+        for(int i = 0; i < keys.length; i ++) {
+            if(keys[i] == 0) continue;
+            int slot = hash(keys[i] - 1) & mask;
+            while(segment.keys[slot] != 0) slot = (slot + 1) & mask;
+            segment.keys[slot] = keys[i];
+            segment.ids[slot] = ids[i];
+        }
+    }
+    
+    // the colours of an id are available before the id is published
+    private int newId() {
+        int id = size.getAndIncrement();
+        int chunk = id >>> CHUNK_BITS;
+        if(chunk >= MAX_CHUNKS) {
+            throw new UnsupportedOperationException("Too many states in the product");
+        }
+        if(colors.get(chunk) == null) {
+            colors.compareAndSet(chunk, null, new AtomicIntegerArray(1 << CHUNK_BITS));
+        }
+        return id;
+    }
+    
+    private boolean hasColor(int id, int color) {
+        AtomicIntegerArray chunk = colors.get(id >>> CHUNK_BITS);
+        return (chunk.get(id & ((1 << CHUNK_BITS) - 1)) & color) != 0;
+    }
+    
+    private void setColor(int id, int color) {
+        AtomicIntegerArray chunk = colors.get(id >>> CHUNK_BITS);
+        int index = id & ((1 << CHUNK_BITS) - 1);
+        while(true) {
+            int current = chunk.get(index);
+            if((current & color) != 0 || chunk.compareAndSet(index, current, current | color)) return;
+        }
+    }
+    
+    private class Frame {
+        final long key;
+        final int id;
+        final int letter;       // letter from the previous frame
+        final long[] succs;
+        final int[] letters;
+        int next;
+        
+        Frame(long key, int id, int letter, Random random) {
+            this.key = key;
+            this.id = id;
+            this.letter = letter;
+            int fst = (int)(key >>> 32);
+            int snd = (int)(key >>> 1) & Integer.MAX_VALUE;
+            int flag = (int)(key & 1);
+            boolean sndFinal = sndOp == null || sndOp.isFinal(snd);
+            int nextFlag = flag == 0 ? (fstOp.isFinal(fst) ? 1 : 0) : (sndFinal ? 0 : 1);
+            TLongArrayList succList = new TLongArrayList();
+            TIntArrayList letterList = new TIntArrayList();
+            for(int a = 0; a < alphabet.getLetterSize(); a ++) {
+                ISet sndSuccSet = sndOp == null ? sndSuccs : sndOp.getSuccessors(snd, a);
+                for(int sndSucc : sndSuccSet) {
+                    for(int fstSucc : fstOp.getSuccessors(fst, a)) {
+                        succList.add(getKey(fstSucc, sndSucc, nextFlag));
+                        letterList.add(a);
+                    }
+                }
+            }
+            this.succs = succList.toArray();
+            this.letters = letterList.toArray();
+            // random order of successors for each worker
+            for(int i = succs.length - 1; i > 0; i --) {
+                int j = random.nextInt(i + 1);
+                long tmp = succs[i]; succs[i] = succs[j]; succs[j] = tmp;
+                int a = letters[i]; letters[i] = letters[j]; letters[j] = a;
+            }
+        }
+    }
+    
+    private class Worker {
+        final Random random;
+        final TLongHashSet cyan;
+        final TLongHashSet redSet;
+        final List<Frame> blueStack;
+        final List<Frame> redStack;
+        
+        Worker(int id) {
+            this.random = new Random(id);
+            this.cyan = new TLongHashSet();
+            this.redSet = new TLongHashSet();
+            this.blueStack = new ArrayList<>();
+            this.redStack = new ArrayList<>();
+        }
+        
+        void run() {
+            long init = getKey(fstOp.getInitialState(), sndOp == null ? 0 : sndOp.getInitialState(), 0);
+            cyan.add(init);
+            blueStack.add(new Frame(init, getId(init), -1, random));
+            while(!blueStack.isEmpty() && !stop) {
+                Frame frame = blueStack.get(blueStack.size() - 1);
+                if(frame.next < frame.succs.length) {
+                    long succ = frame.succs[frame.next];
+                    int letter = frame.letters[frame.next];
+                    frame.next ++;
+                    if(cyan.contains(succ)) continue;
+                    int id = getId(succ);
+                    // red states are done by some worker, their sub-graph is not explored again
+                    if(! hasColor(id, BLUE) && ! hasColor(id, RED)) {
+                        cyan.add(succ);
+                        blueStack.add(new Frame(succ, id, letter, random));
+                    }
+                    continue;
+                }
+                setColor(frame.id, BLUE);
+                if(isAccepting(frame.key) && ! redSearch(frame)) return;
+                cyan.remove(frame.key);
+                blueStack.remove(blueStack.size() - 1);
+            }
+        }
+        
+        // returns false if the search should stop
+        boolean redSearch(Frame seed) {
+            redSet.clear();
+            redStack.clear();
+            redSet.add(seed.key);
+            redStack.add(new Frame(seed.key, seed.id, -1, random));
+            while(!redStack.isEmpty() && !stop) {
+                Frame frame = redStack.get(redStack.size() - 1);
+                if(frame.next < frame.succs.length) {
+                    long succ = frame.succs[frame.next];
+                    int letter = frame.letters[frame.next];
+                    frame.next ++;
+                    if(cyan.contains(succ)) {
+                        // accepting cycle through the seed
+                        reportLasso(succ, letter);
+                        return false;
+                    }
+                    if(redSet.contains(succ)) continue;
+                    int id = getId(succ);
+                    if(! hasColor(id, RED)) {
+                        redSet.add(succ);
+                        redStack.add(new Frame(succ, id, letter, random));
+                    }
+                    continue;
+                }
+                redStack.remove(redStack.size() - 1);
+            }
+            if(stop) return false;
+            // other accepting states should be made red by their seeds
+            for(long key : redSet.toArray()) {
+                if(key == seed.key || !isAccepting(key)) continue;
+                int id = getId(key);
+                while(! hasColor(id, RED)) {
+                    if(stop) return false;
+                    Thread.yield();
+                }
+            }
+            for(long key : redSet.toArray()) {
+                setColor(getId(key), RED);
+            }
+            return true;
+        }
+        
+        // prefix reaches the cyan state, the loop goes back to it through the seed
+        void reportLasso(long cyanKey, int lastLetter) {
+            int index = 0;
+            while(blueStack.get(index).key != cyanKey) index ++;
+            TIntArrayList prefix = new TIntArrayList();
+            for(int i = 1; i <= index; i ++) {
+                prefix.add(blueStack.get(i).letter);
+            }
+            TIntArrayList loop = new TIntArrayList();
+            for(int i = index + 1; i < blueStack.size(); i ++) {
+                loop.add(blueStack.get(i).letter);
+            }
+            for(int i = 1; i < redStack.size(); i ++) {
+                loop.add(redStack.get(i).letter);
+            }
+            loop.add(lastLetter);
+            Pair<Word, Word> lasso = new Pair<>(alphabet.getArrayWord(prefix.toArray())
+                    , alphabet.getArrayWord(loop.toArray()));
+            counterexample.compareAndSet(null, lasso);
+            stop = true;
+        }
+    }
+
+}
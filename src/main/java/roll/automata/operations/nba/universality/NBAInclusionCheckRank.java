@@ -23,6 +23,7 @@ import roll.automata.NBA;
 import roll.automata.StateNFA;
 import roll.automata.operations.NBAOperations;
 import roll.automata.operations.StateContainer;
+import roll.util.Budget;
 import roll.util.sets.ISet;
 
 /**
@@ -105,6 +106,7 @@ public class NBAInclusionCheckRank {
                 Set<StateSetKVMHInclusion> pY = preKVMH(y);
                 pY = intersect(pY, F1);
                 x1 = union(pX, pY);
+                Budget.checkInterrupted("rank based inclusion check");
                 if(preX.equals(x1)) {
                     break;
                 }
@@ -119,6 +121,7 @@ public class NBAInclusionCheckRank {
                 Set<StateSetKVMHInclusion> pY = preKVMH(y);
                 pY = intersect(pY, F2);
                 x2 = union(pX, pY);
+                Budget.checkInterrupted("rank based inclusion check");
                 if(preX.equals(x2)) {
                     break;
                 }
@@ -0,0 +1,71 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@Name("roll.EmptinessCheck")
+@Label("Emptiness Check")
+@Category({Events.CATEGORY, "Automata"})
+@Description("Emptiness check of an NBA or of the product of two NBAs")
+@Enabled(false)
+@StackTrace(false)
+public class EmptinessCheckEvent extends Event {
+    
+    @Label("Checker")
+    String checker;
+    
+    @Label("States")
+    @Description("States of the NBA or of the product explored")
+    int states;
+    
+    @Label("SCCs")
+    @Description("Strongly connected components completed")
+    int sccs;
+    
+    @Label("Workers")
+    int workers;
+    
+    @Label("Empty")
+    boolean empty;
+    
+    public EmptinessCheckEvent() {
+        begin();
+    }
+    
+    public void finish(String checker, int states, int sccs, int workers, boolean empty) {
+        if(! shouldCommit()) return;
+        this.checker = checker;
+        this.states = states;
+        this.sccs = sccs;
+        this.workers = workers;
+        this.empty = empty;
+        commit();
+    }
+
+}
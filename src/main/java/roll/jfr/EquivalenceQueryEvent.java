@@ -0,0 +1,99 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.jfr;
+
+import java.util.List;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import roll.automata.FA;
+import roll.automata.FDFA;
+import roll.query.Query;
+import roll.table.HashableValue;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@Name("roll.EquivalenceQuery")
+@Label("Equivalence Query")
+@Category({Events.CATEGORY, "Oracle"})
+@Description("Equivalence query answered by the teacher")
+@Enabled(false)
+@StackTrace(false)
+public class EquivalenceQueryEvent extends Event {
+    
+    @Label("Round")
+    int round;
+    
+    @Label("Hypothesis States")
+    @Description("States of the hypothesis, of all its DFAs for an FDFA")
+    int hypothesisStates;
+    
+    @Label("Equivalent")
+    boolean equivalent;
+    
+    @Label("Counterexamples")
+    int counterexamples;
+    
+    @Label("Stem Length")
+    int stemLength;
+    
+    @Label("Loop Length")
+    int loopLength;
+    
+    public EquivalenceQueryEvent() {
+        begin();
+    }
+    
+    public static int getNumOfStates(Object hypothesis) {
+        if(hypothesis instanceof FA) {
+            return ((FA)hypothesis).getStateSize();
+        }else if(hypothesis instanceof FDFA) {
+            FDFA fdfa = (FDFA)hypothesis;
+            int numOfStates = fdfa.getLeadingDFA().getStateSize();
+            for(int state = 0; state < fdfa.getLeadingDFA().getStateSize(); state ++) {
+                numOfStates += fdfa.getProgressDFA(state).getStateSize();
+            }
+            return numOfStates;
+        }
+        return -1;
+    }
+    
+    // answers are either booleans or pairs of equivalence and membership
+    public void finish(int round, Object hypothesis, List<Query<HashableValue>> result) {
+        if(! shouldCommit()) return;
+        this.round = round;
+        hypothesisStates = getNumOfStates(hypothesis);
+        Query<HashableValue> query = result.get(0);
+        HashableValue answer = query.getQueryAnswer();
+        equivalent = answer.isPair() ? answer.<Boolean>getLeft() : answer.isAccepting();
+        if(! equivalent) {
+            counterexamples = result.size();
+            stemLength = query.getPrefix().length();
+            loopLength = query.getSuffix().length();
+        }
+        commit();
+    }
+
+}
@@ -0,0 +1,47 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.jfr;
+
+/**
+ * JDK Flight Recorder events of ROLL, all of them are disabled by default and
+ * enabled in a JFR settings file, e.g., roll.MembershipQuery#enabled=true.
+ * The events can only be created if {@link #AVAILABLE} holds, since the
+ * jdk.jfr module is missing in Java 8 before 8u262.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public final class Events {
+    
+    public static final String CATEGORY = "ROLL";
+    
+    public static final boolean AVAILABLE = isAvailable();
+    
+    private Events() {
+    }
+    
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        }catch(ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+}
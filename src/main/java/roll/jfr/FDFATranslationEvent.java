@@ -0,0 +1,70 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.jfr;
+
+import dk.brics.automaton.Automaton;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import roll.automata.FDFA;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@Name("roll.FDFATranslation")
+@Label("FDFA Translation")
+@Category({Events.CATEGORY, "Automata"})
+@Description("Construction of an automaton from an FDFA in FDFAOperations")
+@Enabled(false)
+@StackTrace(false)
+public class FDFATranslationEvent extends Event {
+    
+    @Label("Operation")
+    String operation;
+    
+    @Label("Leading States")
+    int leadingStates;
+    
+    @Label("Progress States")
+    @Description("States of all progress DFAs")
+    int progressStates;
+    
+    @Label("Result States")
+    int resultStates;
+    
+    public FDFATranslationEvent() {
+        begin();
+    }
+    
+    public void finish(String operation, FDFA fdfa, Automaton result) {
+        if(! shouldCommit()) return;
+        this.operation = operation;
+        leadingStates = fdfa.getLeadingDFA().getStateSize();
+        for(int state = 0; state < leadingStates; state ++) {
+            progressStates += fdfa.getProgressDFA(state).getStateSize();
+        }
+        resultStates = result.getNumberOfStates();
+        commit();
+    }
+
+}
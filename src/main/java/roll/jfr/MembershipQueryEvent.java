@@ -0,0 +1,63 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import roll.query.Query;
+import roll.table.HashableValue;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@Name("roll.MembershipQuery")
+@Label("Membership Query")
+@Category({Events.CATEGORY, "Oracle"})
+@Description("Membership query answered by the teacher")
+@Enabled(false)
+@StackTrace(false)
+public class MembershipQueryEvent extends Event {
+    
+    @Label("Stem Length")
+    int stemLength;
+    
+    @Label("Loop Length")
+    int loopLength;
+    
+    @Label("Answer")
+    String answer;
+    
+    public MembershipQueryEvent() {
+        begin();
+    }
+    
+    public void finish(Query<HashableValue> query, HashableValue result) {
+        if(! shouldCommit()) return;
+        stemLength = query.getPrefix().length();
+        loopLength = query.getSuffix().length();
+        answer = String.valueOf(result);
+        commit();
+    }
+
+}
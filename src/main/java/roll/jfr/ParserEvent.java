@@ -0,0 +1,62 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@Name("roll.Parser")
+@Label("Parser")
+@Category({Events.CATEGORY, "Parser"})
+@Description("Parsing of input automata")
+@Enabled(false)
+@StackTrace(false)
+public class ParserEvent extends Event {
+    
+    @Label("Format")
+    String format;
+    
+    @Label("Files")
+    String files;
+    
+    @Label("States")
+    @Description("States of all parsed automata")
+    int states;
+    
+    public ParserEvent() {
+        begin();
+    }
+    
+    public void finish(String format, String files, int states) {
+        if(! shouldCommit()) return;
+        this.format = format;
+        this.files = files;
+        this.states = states;
+        commit();
+    }
+
+}
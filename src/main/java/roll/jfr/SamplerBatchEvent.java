@@ -0,0 +1,61 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+@Name("roll.SamplerBatch")
+@Label("Sampler Batch")
+@Category({Events.CATEGORY, "Sampler"})
+@Description("Batch of sampled lassos looking for counterexamples")
+@Enabled(false)
+@StackTrace(false)
+public class SamplerBatchEvent extends Event {
+    
+    @Label("Sample Size")
+    long sampleSize;
+    
+    @Label("Tried")
+    long tried;
+    
+    @Label("Counterexamples")
+    int counterexamples;
+    
+    public SamplerBatchEvent() {
+        begin();
+    }
+    
+    public void finish(long sampleSize, long tried, int counterexamples) {
+        if(! shouldCommit()) return;
+        this.sampleSize = sampleSize;
+        this.tried = tried;
+        this.counterexamples = counterexamples;
+        commit();
+    }
+
+}
@@ -19,6 +19,7 @@ package roll.learner;
 import jupyter.Displayer;
 import jupyter.Displayers;
 import jupyter.MIMETypes;
+import roll.automata.Acceptor;
 import roll.main.Options;
 import roll.oracle.MembershipOracle;
 import roll.query.Query;
@@ -30,7 +31,9 @@ import roll.words.Alphabet;
 import roll.words.Word;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -74,11 +77,55 @@ public abstract class LearnerBase<M> implements Learner<M, HashableValue> {
     protected HashableValue getHashableValueBoolean(boolean result) {
         return new HashableValueBoolean(result);
     }
+    
+    // whether the query still witnesses a difference between hypothesis and target
+    protected boolean isCounterexample(Query<HashableValue> query) {
+        M hypothesis = getHypothesis();
+        if(! (hypothesis instanceof Acceptor)) {
+            return true;
+        }
+        HashableValue answer = query.getQueryAnswer();
+        if(answer == null) {
+            answer = membershipOracle.answerMembershipQuery(query);
+            query.answerQuery(answer);
+        }
+        boolean accepting = ((Acceptor)hypothesis).getAcc().isAccepting(query.getPrefix(), query.getSuffix());
+        return accepting != answer.isAccepting();
+    }
+    
+    // lazy equivalence check: use a counterexample as long as it is still one
+    protected boolean reusesCounterexample() {
+        return options.optimization == Options.Optimization.LAZY_EQ
+            && getHypothesis() instanceof Acceptor;
+    }
+    
+    /**
+     * refine with the counterexamples returned by one equivalence query,
+     * those which are no longer counterexamples of current hypothesis are skipped
+     * */
+    public void refineHypothesis(List<Query<HashableValue>> queries) {
+        for(Query<HashableValue> query : queries) {
+            while(isCounterexample(query)) {
+                M hypothesis = getHypothesis();
+                refineHypothesis(query);
+                // stop if nothing has been changed
+                if(! reusesCounterexample() || hypothesis == getHypothesis()) break;
+            }
+        }
+    }
 
 
     public String toSVG() {
         return "";
     }
+    
+    /**
+     * DOT graphs of the tree-based data structures by their titles,
+     * empty if the learner uses tables
+     * */
+    public Map<String, String> toDots() {
+        return Collections.emptyMap();
+    }
 
     static void register(){
         Displayers.register(LearnerBase.class, new Displayer<LearnerBase>() {
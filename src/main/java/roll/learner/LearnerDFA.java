@@ -114,65 +114,128 @@ public abstract class LearnerDFA extends LearnerBase<DFA> {
             return this.exprValue.get();
         }
         
+        // states of the hypothesis along the counterexample, run[i] is reached by wordCE[0..i-1]
+        protected int[] run;
+        // memoized probe answers, probes[i] = MQ(S(run[i]), wordCE[i..n-1])
+        protected HashableValue[] probes;
+        protected Word wordCE;
+        
         protected CeAnalysisResult findBreakIndex() {
-            Word wordCE = getWordExperiment();
-            CeAnalysisResult ceResult = new CeAnalysisResult();
-            // get the initial state from automaton
-            int letterNr = 0, currState = -1, prevState = dfa.getInitialState();
+            wordCE = getWordExperiment();
+            computeRun();
             
-            if(! options.binarySearch) {
-                for (letterNr = 0; letterNr < wordCE.length(); letterNr++) {
-                    currState = dfa.getSuccessor(prevState, wordCE.getLetter(letterNr));
-                    Word prefix = getStateLabel(currState);
-                    Word suffix = wordCE.getSuffix(letterNr + 1);
-                    HashableValue memMq = processMembershipQuery(prefix, suffix);
-                    if (! result.valueEqual(memMq)) {
-                        ceResult.prevValue = result;
-                        ceResult.currValue = memMq;
-                        break;
-                    }
-                    prevState = currState;
-                }
-            }else {
-                // binary search
-                int low = 0, high = wordCE.length() - 1;
-                while(low <= high) {
-                    int mid = (low + high) / 2;
-                    assert mid < wordCE.length();
-                    int fst = dfa.getSuccessor(wordCE.getPrefix(mid));
-                    int snd = dfa.getSuccessor(fst, wordCE.getLetter(mid));
-                    Word fstLabel = getStateLabel(fst);
-                    Word sndLabel = getStateLabel(snd);
-                                        
-                    HashableValue fstMq = processMembershipQuery(fstLabel, wordCE.getSuffix(mid));
-                    HashableValue sndMq = processMembershipQuery(sndLabel, wordCE.getSuffix(mid + 1));
-                    
-                    if (! fstMq.valueEqual(sndMq)) {
-                        prevState = fst;
-                        letterNr = mid;
-                        currState = snd;
-                        ceResult.prevValue = fstMq;
-                        ceResult.currValue = sndMq;
-                        break;
-                    }
-
-                    if (fstMq.valueEqual(result)) {
-                        low = mid + 1;
-                    } else {
-                        high = mid;
-                    }
-                }
+            int letterNr;
+            switch(getCeAnalysis()) {
+            case BINARY:
+                letterNr = findBreakIndexBinary(0, wordCE.length());
+                break;
+            case EXPONENTIAL:
+                letterNr = findBreakIndexExponential();
+                break;
+            case ALL:
+                letterNr = findBreakIndexAll();
+                break;
+            default:
+                letterNr = findBreakIndexLinear();
+                break;
             }
             
+            CeAnalysisResult ceResult = new CeAnalysisResult();
             ceResult.breakIndex = letterNr;
-            ceResult.prevState = prevState;
-            ceResult.currState = currState;
-            stateToSplit = currState;
+            ceResult.prevState = run[letterNr];
+            ceResult.currState = run[letterNr + 1];
+            ceResult.prevValue = getProbe(letterNr);
+            ceResult.currValue = getProbe(letterNr + 1);
+            stateToSplit = ceResult.currState;
             stateToAdd = dfa.getStateSize();
 
             return ceResult;
         }
-
+        
+        protected Options.CeAnalysis getCeAnalysis() {
+            if(options.binarySearch && options.ceAnalysis == Options.CeAnalysis.LINEAR) {
+                return Options.CeAnalysis.BINARY;
+            }
+            return options.ceAnalysis;
+        }
+        
+        // run the hypothesis over the counterexample only once
+        private void computeRun() {
+            run = new int[wordCE.length() + 1];
+            run[0] = dfa.getInitialState();
+            for(int i = 0; i < wordCE.length(); i ++) {
+                run[i + 1] = dfa.getSuccessor(run[i], wordCE.getLetter(i));
+            }
+            probes = new HashableValue[wordCE.length() + 1];
+            // the initial state is labelled with empty word
+            probes[0] = result;
+        }
+        
+        protected HashableValue getProbe(int index) {
+            if(probes[index] == null) {
+                Word prefix = getStateLabel(run[index]);
+                Word suffix = wordCE.getSuffix(index);
+                probes[index] = processMembershipQuery(prefix, suffix);
+            }
+            return probes[index];
+        }
+        
+        // whether S(run[index]) wordCE[index..] agrees with the counterexample
+        private boolean agree(int index) {
+            return result.valueEqual(getProbe(index));
+        }
+        
+        private int findBreakIndexLinear() {
+            for(int letterNr = 0; letterNr < wordCE.length() - 1; letterNr ++) {
+                if(! agree(letterNr + 1)) {
+                    return letterNr;
+                }
+            }
+            return wordCE.length() - 1;
+        }
+        
+        // Rivest-Schapire, agree(low) holds and agree(high) is assumed to fail
+        private int findBreakIndexBinary(int low, int high) {
+            while(high - low > 1) {
+                int mid = (low + high) >>> 1;
+                if(agree(mid)) {
+                    low = mid;
+                }else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+        
+        // galloping from the beginning, then binary search in the last gap
+        private int findBreakIndexExponential() {
+            int low = 0, step = 1;
+            while(low + step < wordCE.length()) {
+                int probe = low + step;
+                if(! agree(probe)) {
+                    return findBreakIndexBinary(low, probe);
+                }
+                low = probe;
+                step <<= 1;
+            }
+            return findBreakIndexBinary(low, wordCE.length());
+        }
+        
+        // ask all probes and choose the last position where the value changes
+        // from the one of counterexample, i.e., the shortest new experiment
+        private int findBreakIndexAll() {
+            int letterNr = 0;
+            for(int index = 0; index < wordCE.length() - 1; index ++) {
+                if(agree(index) && !agree(index + 1)) {
+                    letterNr = index;
+                }
+            }
+            if(agree(wordCE.length() - 1)) {
+                letterNr = wordCE.length() - 1;
+            }
+            return letterNr;
+        }
+        
     }
     // only valid for column based algorithms
     protected static class CeAnalysisResult {
@@ -17,7 +17,10 @@
 package roll.learner.dfa.tree;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 import gnu.trove.iterator.TIntObjectIterator;
@@ -47,6 +50,11 @@ public abstract class LearnerDFATree extends LearnerDFA implements MIMEObject {
 	protected TreeImpl tree;
 	// updates for tree
     protected List<ValueNode> states;
+    // answers of words at inner nodes, dropped when their node is replaced
+    protected Map<Node<ValueNode>, Map<Word, HashableValue>> siftAnswers = new HashMap<>();
+    // the cache is emptied once it holds more answers than this
+    protected static final int MAX_SIFT_ANSWERS = 1 << 20;
+    protected int numOfSiftAnswers;
     
     
 	public LearnerDFATree(Options options, Alphabet alphabet,
@@ -70,6 +78,7 @@ public abstract class LearnerDFATree extends LearnerDFA implements MIMEObject {
 		ExprValue label = getExprValueWord(wordEmpty);
 		Node<ValueNode> root = getValueNode(null, null, label);  
 		states.clear();
+		clearSiftAnswers();
 		// init empty state
 		ValueNode stateLamda = createNode(root);
 		
@@ -128,8 +137,21 @@ public abstract class LearnerDFATree extends LearnerDFA implements MIMEObject {
 	// needs to check , s <- a - t then t has a successor s 
 	protected void updatePredecessors() {
 		
-		TIntObjectIterator<ISet> iterator = nodeToSplit.getValue().predecessors.iterator();
 		Node<ValueNode> parent = nodeToSplit.getParent();
+		// sift all predecessors in one batch
+		List<Word> words = new ArrayList<>();
+		TIntObjectIterator<ISet> iterator = nodeToSplit.getValue().predecessors.iterator();
+		while(iterator.hasNext()) {
+			iterator.advance();
+			int letter = iterator.key();
+			for(final int stateNr : iterator.value()) {
+				words.add(states.get(stateNr).label.append(letter));
+			}
+		}
+		List<Node<ValueNode>> nodes = sift(words, parent);
+		
+		int wordNr = 0;
+		iterator = nodeToSplit.getValue().predecessors.iterator();
 		ISet letterToDeleted = UtilISet.newISet();
 		while(iterator.hasNext()) {
 			iterator.advance();
@@ -137,8 +159,7 @@ public abstract class LearnerDFATree extends LearnerDFA implements MIMEObject {
 			ISet statePrevs = iterator.value();
 			ISet stateLeft = statePrevs.clone();
 			for(final int stateNr : statePrevs) {
-				ValueNode statePrev = states.get(stateNr);
-				Node<ValueNode> nodeOther = sift(statePrev.label.append(letter), parent);
+				Node<ValueNode> nodeOther = nodes.get(wordNr ++);
 				if (nodeOther != nodeToSplit) {
 					updateTransition(stateNr, letter, nodeOther.getValue().id);
 					stateLeft.clear(stateNr);
@@ -182,16 +203,127 @@ public abstract class LearnerDFATree extends LearnerDFA implements MIMEObject {
 	
 	protected Node<ValueNode> sift(Word word, Node<ValueNode> nodeCurr) {
 		while(! nodeCurr.isLeaf()) {
-			ExprValue exprValue = nodeCurr.getLabel();
-			HashableValue result = processMembershipQuery(word, exprValue);
+			HashableValue result = getNodeAnswer(nodeCurr, word);
 			nodeCurr = nodeCurr.getChild(result);
 		}
 		return nodeCurr;
 	}
 	
-	protected HashableValue processMembershipQuery(Word word, ExprValue exprValue) {
+	protected List<Node<ValueNode>> sift(List<Word> words) {
+		return sift(words, tree.getRoot());
+	}
+	
+	// sift words level by level, the queries of one level are asked in one batch;
+	// a word stops at a leaf or at an inner node without the corresponding child
+	protected List<Node<ValueNode>> sift(List<Word> words, Node<ValueNode> nodeStart) {
+		List<Node<ValueNode>> nodes = new ArrayList<>(words.size());
+		List<Integer> active = new ArrayList<>(words.size());
+		for(int wordNr = 0; wordNr < words.size(); wordNr ++) {
+			nodes.add(nodeStart);
+			active.add(wordNr);
+		}
+		while(! active.isEmpty()) {
+			// go down with known answers, collect the unknown ones
+			Map<Node<ValueNode>, Map<Word, Query<HashableValue>>> unknown = new LinkedHashMap<>();
+			List<Integer> waiting = new ArrayList<>();
+			for(final int wordNr : active) {
+				Word word = words.get(wordNr);
+				Node<ValueNode> nodeCurr = nodes.get(wordNr);
+				while(! nodeCurr.isLeaf()) {
+					HashableValue result = getSiftAnswers(nodeCurr).get(word);
+					if(result == null) break;
+					Node<ValueNode> node = nodeCurr.getChild(result);
+					if(node == null) break;
+					nodeCurr = node;
+				}
+				nodes.set(wordNr, nodeCurr);
+				if(nodeCurr.isLeaf() || getSiftAnswers(nodeCurr).containsKey(word)) {
+					continue;
+				}
+				Map<Word, Query<HashableValue>> queries = unknown.get(nodeCurr);
+				if(queries == null) {
+					queries = new LinkedHashMap<>();
+					unknown.put(nodeCurr, queries);
+				}
+				if(! queries.containsKey(word)) {
+					queries.put(word, getMembershipQuery(word, nodeCurr.getLabel()));
+				}
+				waiting.add(wordNr);
+			}
+			if(unknown.isEmpty()) break;
+			// answer the current level in one batch
+			List<Query<HashableValue>> batch = new ArrayList<>();
+			for(Map<Word, Query<HashableValue>> queries : unknown.values()) {
+				batch.addAll(queries.values());
+			}
+			List<HashableValue> results = membershipOracle.answerMembershipQueries(batch);
+			int queryNr = 0;
+			for(Map.Entry<Node<ValueNode>, Map<Word, Query<HashableValue>>> entry : unknown.entrySet()) {
+				for(Word word : entry.getValue().keySet()) {
+					HashableValue result = getMembershipValue(word, entry.getKey().getLabel(), results.get(queryNr ++));
+					putSiftAnswer(entry.getKey(), word, result);
+				}
+			}
+			active = waiting;
+		}
+		return nodes;
+	}
+	
+	private Map<Word, HashableValue> getSiftAnswers(Node<ValueNode> node) {
+		Map<Word, HashableValue> answers = siftAnswers.get(node);
+		if(answers == null) {
+			answers = new HashMap<>();
+			siftAnswers.put(node, answers);
+		}
+		return answers;
+	}
+	
+	// answer of word at the experiment of an inner node, asked at most once
+	protected HashableValue getNodeAnswer(Node<ValueNode> node, Word word) {
+		Map<Word, HashableValue> answers = getSiftAnswers(node);
+		HashableValue result = answers.get(word);
+		if(result == null) {
+			result = processMembershipQuery(word, node.getLabel());
+			putSiftAnswer(node, word, result);
+		}
+		return result;
+	}
+	
+	private void putSiftAnswer(Node<ValueNode> node, Word word, HashableValue result) {
+		if(numOfSiftAnswers >= MAX_SIFT_ANSWERS) {
+			clearSiftAnswers();
+		}
+		if(getSiftAnswers(node).put(word, result) == null) {
+			numOfSiftAnswers ++;
+		}
+	}
+	
+	protected void clearSiftAnswers() {
+		siftAnswers.clear();
+		numOfSiftAnswers = 0;
+	}
+	
+	// the answers of a node which is no longer in the tree
+	protected void removeSiftAnswers(Node<ValueNode> node) {
+		Map<Word, HashableValue> answers = siftAnswers.remove(node);
+		if(answers != null) {
+			numOfSiftAnswers -= answers.size();
+		}
+	}
+	
+	protected Query<HashableValue> getMembershipQuery(Word word, ExprValue exprValue) {
 		Word suffix = exprValue.get();
-		return membershipOracle.answerMembershipQuery(new QuerySimple<>(word, suffix));
+		return new QuerySimple<>(word, suffix);
+	}
+	
+	protected HashableValue getMembershipValue(Word word, ExprValue exprValue, HashableValue mqResult) {
+		return mqResult;
+	}
+	
+	protected HashableValue processMembershipQuery(Word word, ExprValue exprValue) {
+		Query<HashableValue> query = getMembershipQuery(word, exprValue);
+		HashableValue mqResult = membershipOracle.answerMembershipQuery(query);
+		return getMembershipValue(word, exprValue, mqResult);
 	}
 
 	// word will never be empty word
@@ -230,6 +362,8 @@ public abstract class LearnerDFATree extends LearnerDFA implements MIMEObject {
 		
 		nodeExpr.addChild(branchNodeLeaf, nodeLeaf);
 		nodeExpr.addChild(branchNodePrev, nodePrevNew);
+		// nodePrev is replaced by nodeExpr and nodePrevNew
+		removeSiftAnswers(nodePrev);
 		
 		// update outgoing transitions for nodeLeaf
 		updatePredecessors(stateLeaf.id, 0, alphabet.getLetterSize() - 1);
@@ -268,9 +402,13 @@ public abstract class LearnerDFATree extends LearnerDFA implements MIMEObject {
 		ValueNode state = states.get(stateNr);
 		
 		Word label = state.label;
+		List<Word> wordSuccs = new ArrayList<>();
+		for(int letter = from; letter <= to; letter ++) {
+			wordSuccs.add(label.append(letter));
+		}
+		List<Node<ValueNode>> nodeSuccs = sift(wordSuccs);
 		for(int letter = from; letter <= to; letter ++) {
-			Word wordSucc = label.append(letter);
-			Node<ValueNode> nodeSucc = sift(wordSucc);
+			Node<ValueNode> nodeSucc = nodeSuccs.get(letter - from);
 			updateTransition(stateNr, letter, nodeSucc.getValue().id);
 		}
 	}
@@ -360,4 +498,11 @@ public abstract class LearnerDFATree extends LearnerDFA implements MIMEObject {
 	public String toSVG() {
 		return tree.toSVG();
 	}
+	
+	@Override
+	public Map<String, String> toDots() {
+		Map<String, String> dots = new LinkedHashMap<>();
+		dots.put("", tree.toString());
+		return dots;
+	}
 }
@@ -17,21 +17,23 @@
 package roll.learner.fdfa;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.google.common.collect.Streams;
-import roll.NativeTool;
 import roll.automata.DFA;
 import roll.automata.FDFA;
 import roll.learner.LearnerBase;
 import roll.learner.LearnerType;
 import roll.main.Options;
+import roll.notebook.SVGRenderer;
 import roll.oracle.MembershipOracle;
 import roll.query.Query;
 import roll.query.QuerySimple;
 import roll.table.ExprValue;
 import roll.table.HashableValue;
-import roll.util.Timer;
+import roll.util.Profiler;
 import roll.words.Alphabet;
 import roll.words.Word;
 
@@ -67,20 +69,17 @@ public abstract class LearnerFDFA extends LearnerBase<FDFA> {
             }
         alreadyStarted = true;
         learnerLeading = getLearnerLeading();
-        Timer timer = new Timer();
-        timer.start();
-        learnerLeading.startLearning();
-        timer.stop();
-        options.stats.timeOfLearnerLeading += timer.getTimeElapsed();
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEADING, options.stats::addLeadingTime)) {
+            learnerLeading.startLearning();
+        }
         
         DFA dfa = learnerLeading.getHypothesis();
         for(int state = 0; state < dfa.getStateSize(); state ++ ) {
             LearnerProgress learner = getLearnerProgress(state);
             learnerProgress.add(learner);
-            timer.start();
-            learner.startLearning();
-            timer.stop();
-            options.stats.timeOfLearnerProgress += timer.getTimeElapsed();
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.PROGRESS, options.stats::addProgressTime)) {
+                learner.startLearning();
+            }
         }
         constructHypothesis();
     }
@@ -136,43 +135,38 @@ public abstract class LearnerFDFA extends LearnerBase<FDFA> {
         }
         queryLeading.answerQuery(resultCE);
         if(! resultLabel.equals(resultCE)) { // refine leading automaton
-            Timer timer = new Timer();
-            timer.start();
-            learnerLeading.refineHypothesis(queryLeading);
-            timer.stop();
-            options.stats.timeOfLearnerLeading += timer.getTimeElapsed();
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEADING, options.stats::addLeadingTime)) {
+                learnerLeading.refineHypothesis(queryLeading);
+            }
             
-            timer.start();
-            if(! isPeriodic()) {
-                // Syntactic and Recurrent FDFA should restart progress learning
-                for(LearnerProgress learner : learnerProgress) {
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.PROGRESS, options.stats::addProgressTime)) {
+                if(! isPeriodic()) {
+                    // Syntactic and Recurrent FDFA should restart progress learning
+                    for(LearnerProgress learner : learnerProgress) {
+                        learner.startLearning();
+                    }
+                }
+                DFA leadDFAPrime = learnerLeading.getHypothesis();
+                // new states, not just one (for table-based leading automaton)
+                for(int state = leadDFA.getStateSize(); state < leadDFAPrime.getStateSize(); state ++) {
+                    LearnerProgress learner = getLearnerProgress(state);
                     learner.startLearning();
+                    learnerProgress.add(learner);
                 }
             }
-            DFA leadDFAPrime = learnerLeading.getHypothesis();
-            // new states, not just one (for table-based leading automaton)
-            for(int state = leadDFA.getStateSize(); state < leadDFAPrime.getStateSize(); state ++) {
-                LearnerProgress learner = getLearnerProgress(state);
-                learner.startLearning();
-                learnerProgress.add(learner);
-            }
-            timer.stop();
-            options.stats.timeOfLearnerProgress += timer.getTimeElapsed();
         }else { // refine progress automaton
-            Timer timer = new Timer();
-            timer.start();
-            LearnerProgress learnerPro = null;
-            for(LearnerProgress learner : learnerProgress) {
-                if(learner.getLeadingState() == s) {
-                    learnerPro = learner;
-                    break;
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.PROGRESS, options.stats::addProgressTime)) {
+                LearnerProgress learnerPro = null;
+                for(LearnerProgress learner : learnerProgress) {
+                    if(learner.getLeadingState() == s) {
+                        learnerPro = learner;
+                        break;
+                    }
                 }
+                HashableValue result = learnerPro.getCeAnalyzerHashableValue(resultCE.get(), alphabet.getEmptyWord(), queryLeading.getSuffix());
+                queryLeading.answerQuery(result);
+                learnerPro.refineHypothesis(queryLeading);
             }
-            HashableValue result = learnerPro.getCeAnalyzerHashableValue(resultCE.get(), alphabet.getEmptyWord(), queryLeading.getSuffix());
-            queryLeading.answerQuery(result);
-            learnerPro.refineHypothesis(queryLeading);
-            timer.stop();
-            options.stats.timeOfLearnerProgress += timer.getTimeElapsed();
         }
         constructHypothesis();
         options.log.verbose("Finished counterexample analysis in the learner...");
@@ -193,27 +187,21 @@ public abstract class LearnerFDFA extends LearnerBase<FDFA> {
     @Override
     public String toSVG() {
         if (options.structure == Options.Structure.TREE)
-            return "<p> Leading Learner :  </p> <br> "
-                    +
-                    NativeTool.Dot2SVG(learnerLeading.toString())
-                    +
-                    Streams.zip(
-                            learnerProgress.stream()
-                                    .map(LearnerProgress::getLeadingLabel)
-                                    .map(Word::toStringWithAlphabet),
-                            learnerProgress.stream()
-                                    .map(LearnerProgress::toString)
-                                    .map(NativeTool::Dot2SVG),
-                            (title,dot) -> " <p> Progress Learner for " + title + " : <br> "+ dot + "<br>"
-                    ).reduce("",String::concat);
-//                    learnerProgress.stream()
-//                            .map(LearnerProgress::toString)
-//                            .map(NativeTool::Dot2SVG)
-////                          .peek(s -> System.out.println(s))
-//                            .reduce("",(u,v)-> u +" <p> Progress Learner for xxx : <br> "+ v + "<br>");
+            return SVGRenderer.getDefault().renderAll(toDots()).join();
         else
             return toString();
     }
+    
+    @Override
+    public Map<String, String> toDots() {
+        if (options.structure != Options.Structure.TREE) return Collections.emptyMap();
+        Map<String, String> dots = new LinkedHashMap<>();
+        dots.put("Leading Learner", learnerLeading.toString());
+        for(LearnerProgress learner : learnerProgress) {
+            dots.put("Progress Learner for " + learner.getLeadingLabel().toStringWithAlphabet(), learner.toString());
+        }
+        return dots;
+    }
     // -------------- some helper function
     // for FDFA learning, this function should not be visible
 //    public Word getProgressStateLabel(int stateLeading, int stateProgress) {
@@ -48,11 +48,10 @@ public class LearnerLeadingTree extends LearnerOmegaTree implements LearnerLeadi
     }
     
     @Override
-    protected HashableValue processMembershipQuery(Word label, ExprValue valueExpr) {
+    protected Query<HashableValue> getMembershipQuery(Word label, ExprValue valueExpr) {
         assert valueExpr instanceof ExprValueWordPair;
         ExprValueWordPair valueExprPair = (ExprValueWordPair) valueExpr;
-        Query<HashableValue> query = getQuerySimple(label.concat(valueExprPair.getLeft()), valueExprPair.getRight());
-        return membershipOracle.answerMembershipQuery(query);
+        return getQuerySimple(label.concat(valueExprPair.getLeft()), valueExprPair.getRight());
     }
     
     @Override
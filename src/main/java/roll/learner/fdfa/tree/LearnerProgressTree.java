@@ -73,10 +73,15 @@ abstract class LearnerProgressTree extends LearnerOmegaTree implements LearnerPr
     
     // this is for tree construction
     @Override
-    protected HashableValue processMembershipQuery(Word prefix, ExprValue exprValue) {
+    protected Query<HashableValue> getMembershipQuery(Word prefix, ExprValue exprValue) {
         Word suffix = exprValue.get();
         Word loop = prefix.concat(suffix);
-        HashableValue mqResult = membershipOracle.answerMembershipQuery(new QuerySimple<>(label, loop));
+        return new QuerySimple<>(label, loop);
+    }
+    
+    @Override
+    protected HashableValue getMembershipValue(Word prefix, ExprValue exprValue, HashableValue mqResult) {
+        Word suffix = exprValue.get();
         HashableValue result = prepareRowHashableValue(mqResult.get(), prefix, suffix);
         return result;
     }
@@ -16,6 +16,9 @@
 
 package roll.learner.fdfa.tree;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import gnu.trove.iterator.TIntObjectIterator;
 import roll.learner.LearnerType;
 import roll.learner.dfa.tree.ValueNode;
@@ -121,7 +124,7 @@ public class LearnerProgressTreeSyntactic extends LearnerProgressTree implements
     
     private Partition findNodePartition(Word word, Node<ValueNode> nodeCurr) {
         while(! nodeCurr.isLeaf()) {
-            HashableValue result = processMembershipQuery(word, nodeCurr.getLabel());
+            HashableValue result = getNodeAnswer(nodeCurr, word);
             Node<ValueNode> node = nodeCurr.getChild(result);
             if(node == null) {
                 return new Partition(false, nodeCurr, result); // new leaf node
@@ -134,8 +137,20 @@ public class LearnerProgressTreeSyntactic extends LearnerProgressTree implements
     @Override
     protected void updatePredecessors() {
         
-        TIntObjectIterator<ISet> iterator = nodeToSplit.getValue().predecessors.iterator();
         Node<ValueNode> parent = nodeToSplit.getParent();
+        // ask the queries of all predecessors in one batch
+        List<Word> words = new ArrayList<>();
+        TIntObjectIterator<ISet> iterator = nodeToSplit.getValue().predecessors.iterator();
+        while(iterator.hasNext()) {
+            iterator.advance();
+            int letter = iterator.key();
+            for(final int stateNr : iterator.value()) {
+                words.add(states.get(stateNr).label.append(letter));
+            }
+        }
+        sift(words, parent);
+        
+        iterator = nodeToSplit.getValue().predecessors.iterator();
         ISet letterDeleted = UtilISet.newISet();
         while(iterator.hasNext()) {
             iterator.advance();
@@ -199,7 +214,7 @@ public class LearnerProgressTreeSyntactic extends LearnerProgressTree implements
         parent.addChild(branch, nodeLeaf);
         // test whether this node is accepting
         Word period = nodeLabel.get();
-        HashableValue result = processMembershipQuery(period, tree.getRoot().getLabel());
+        HashableValue result = getNodeAnswer(tree.getRoot(), period);
         if(result.isAccepting()) nodeLeaf.setAcceting();
         
         updatePredecessors(stateLeaf.id, 0, alphabet.getLetterSize() - 1);
@@ -215,6 +230,12 @@ public class LearnerProgressTreeSyntactic extends LearnerProgressTree implements
         
         ValueNode state = states.get(stateNr);
         Word label = state.label;
+        // new leaf nodes may be added below, so only ask the queries in one batch
+        List<Word> wordSuccs = new ArrayList<>();
+        for(int letter = from; letter <= to; letter ++) {
+            wordSuccs.add(label.append(letter));
+        }
+        sift(wordSuccs);
         for(int letter = from; letter <= to; letter ++) {
             Word wordSucc = label.append(letter);
             Partition nodeSucc = findNodePartition(wordSucc);
@@ -16,6 +16,8 @@
 
 package roll.learner.nba.lomega;
 
+import java.util.Map;
+
 import roll.automata.FDFA;
 import roll.automata.NBA;
 import roll.learner.LearnerBase;
@@ -26,7 +28,7 @@ import roll.main.Options;
 import roll.oracle.MembershipOracle;
 import roll.query.Query;
 import roll.table.HashableValue;
-import roll.util.Timer;
+import roll.util.Profiler;
 import roll.words.Alphabet;
 
 /**
@@ -80,23 +82,22 @@ public class LearnerNBALOmega extends LearnerBase<NBA>{
             options.log.println(fdfaLearner.getHypothesis().toString());
         }
         options.log.println("Analyzing counterexample for FDFA learner...");
-        Timer timer = new Timer();
-        timer.start();
-        TranslatorFDFA translator = UtilLOmega.getTranslator(options, fdfaLearner, membershipOracle);
-        // lazy equivalence check is implemented here
-        HashableValue mqResult = query.getQueryAnswer();
-        if(mqResult == null) {
-            mqResult = membershipOracle.answerMembershipQuery(query);
+        TranslatorFDFA translator;
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.TRANSLATOR, options.stats::addTranslatorTime)) {
+            translator = UtilLOmega.getTranslator(options, fdfaLearner, membershipOracle);
+            // lazy equivalence check is implemented here
+            HashableValue mqResult = query.getQueryAnswer();
+            if(mqResult == null) {
+                mqResult = membershipOracle.answerMembershipQuery(query);
+            }
+            query.answerQuery(mqResult);
+            translator.setQuery(query);
         }
-        query.answerQuery(mqResult);
-        translator.setQuery(query);
-        timer.stop();
-        options.stats.timeOfTranslator += timer.getTimeElapsed();
         while(translator.canRefine()) {
-            timer.start();
-            Query<HashableValue> ceQuery = translator.translate();
-            timer.stop();
-            options.stats.timeOfTranslator += timer.getTimeElapsed();
+            Query<HashableValue> ceQuery;
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.TRANSLATOR, options.stats::addTranslatorTime)) {
+                ceQuery = translator.translate();
+            }
             fdfaLearner.refineHypothesis(ceQuery);
             // usually lazyeq is not very useful
             if(options.optimization != Options.Optimization.LAZY_EQ) break;
@@ -105,6 +106,12 @@ public class LearnerNBALOmega extends LearnerBase<NBA>{
         constructHypothesis();
     }
     
+    // counterexample is reused by translator
+    @Override
+    protected boolean reusesCounterexample() {
+        return false;
+    }
+    
     public LearnerFDFA getLearnerFDFA() {
         return fdfaLearner;
     }
@@ -118,4 +125,9 @@ public class LearnerNBALOmega extends LearnerBase<NBA>{
     public String toSVG() {
         return fdfaLearner.toSVG();
     }
+    
+    @Override
+    public Map<String, String> toDots() {
+        return fdfaLearner.toDots();
+    }
 }
@@ -103,7 +103,11 @@ public abstract class TranslatorFDFA implements Translator {
 			return true;
 		}
 	    // else it must be using optimization treating eq test as the last resort
-        // check whether we can still use current counter example 
+        return isCounterexample();
+	}
+	
+	// check whether we can still use current counter example
+	public boolean isCounterexample() {
         assert ceQuery != null && autUVOmega != null;
         // construct lower/upper Buechi automaton
         fdfa = fdfaLearner.getHypothesis();
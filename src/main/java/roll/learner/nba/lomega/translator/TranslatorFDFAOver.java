@@ -30,6 +30,7 @@ import roll.query.Query;
 import roll.query.QuerySimple;
 import roll.table.HashableValue;
 import roll.table.HashableValueBoolean;
+import roll.util.Profiler;
 import roll.util.sets.ISet;
 import roll.words.Alphabet;
 import roll.words.Word;
@@ -54,7 +55,11 @@ public class TranslatorFDFAOver extends TranslatorFDFA {
 	@Override
 	public Query<HashableValue> translate() {
 	    fdfa = fdfaLearner.getHypothesis();
-		String counterexample = translateUpper();
+		String counterexample;
+		try(Profiler.Phase phase = options.stats.profiler.start(ceQuery.getQueryAnswer().get() ? Profiler.POSITIVE_CE : Profiler.NEGATIVE_CE)) {
+		    phase.recordSize(ceQuery.getPrefix().length(), ceQuery.getSuffix().length());
+		    counterexample = translateUpper();
+		}
 		return getQuery(counterexample, new HashableValueBoolean(result));
 	}
 	
@@ -219,8 +224,7 @@ public class TranslatorFDFAOver extends TranslatorFDFA {
 		}
 		
 		if(suf == null) {
-			options.log.err("Not able to find counterexample...");
-			System.exit(-1);
+			throw new IllegalStateException("Not able to find counterexample");
 		}
 		return suf;
 	}
@@ -271,13 +275,11 @@ public class TranslatorFDFAOver extends TranslatorFDFA {
             		suf = yz.concat(yz); // y distinguish p and y since (u, py) is not in L
             	}else {
             		// there exists z... and yz... can not lead to that accepting state?
-            		System.err.println( "Unfortunately, we can not find a valid counterexample");
             	    if(options.verbose) {
             	    	System.out.println("period left: " + yz.toStringExact());
             	    	System.out.println("progress automaton left: \n" + dkAutCE.toDot());
             	    }
-            	    System.exit(-1);
-            		suf = yz;
+            	    throw new IllegalStateException("Unfortunately, we can not find a valid counterexample");
             	}
             	break;
             }
@@ -22,6 +22,7 @@ import roll.automata.operations.FDFAOperations;
 import roll.learner.fdfa.LearnerFDFA;
 import roll.query.Query;
 import roll.table.HashableValue;
+import roll.util.Profiler;
 
 /**
  * @author Yong Li (liyong@ios.ac.cn)
@@ -37,7 +38,11 @@ public class TranslatorFDFAUnder extends TranslatorFDFA {
 	public Query<HashableValue> translate() {
 	    // every time we initialize fdfa, in case it is modified
 	    fdfa = fdfaLearner.getHypothesis();
-		String counterexample = translateLower();
+		String counterexample;
+		try(Profiler.Phase phase = options.stats.profiler.start(ceQuery.getQueryAnswer().get() ? Profiler.POSITIVE_CE : Profiler.NEGATIVE_CE)) {
+		    phase.recordSize(ceQuery.getPrefix().length(), ceQuery.getSuffix().length());
+		    counterexample = translateLower();
+		}
 		return getQuery(counterexample, ceQuery.getQueryAnswer());
 	}
 	
@@ -19,6 +19,7 @@ package roll.main;
 import java.io.OutputStream;
 
 import roll.parser.Format;
+import roll.parser.UtilParser;
 
 
 /**
@@ -66,13 +67,7 @@ public class CLParser {
                 options.runningMode = Options.RunningMode.CONVERTING;
                 options.inputA = args[i + 1];
                 options.inputB = args[i + 2];
-                if(args[i + 1].endsWith(".ba") && args[i +2].endsWith(".ba")) {
-                    options.format = Format.BA;
-                }else if(args[i + 1].endsWith(".hoa") && args[i +2].endsWith(".hoa")){
-                    options.format = Format.HOA;
-                }else {
-                    throw new UnsupportedOperationException("Unsupported input format");
-                }
+                options.format = UtilParser.getFormat(args[i + 1], args[i + 2]);
                 i += 2;
             }
             if(args[i].compareTo("-play") == 0) {
@@ -87,16 +82,47 @@ public class CLParser {
                 options.runningMode = Options.RunningMode.INCLUDING;
                 options.inputA = args[i + 1];
                 options.inputB = args[i + 2];
-                if(args[i + 1].endsWith(".ba") && args[i +2].endsWith(".ba")) {
-                    options.format = Format.BA;
-                }else if(args[i + 1].endsWith(".hoa") && args[i +2].endsWith(".hoa")){
-                    options.format = Format.HOA;
-                }else {
-                    throw new UnsupportedOperationException("Unsupported input format");
-                }
+                options.format = UtilParser.getFormat(args[i + 1], args[i + 2]);
                 i += 2;
                 continue;
             }
+            if(args[i].compareTo("-serve") == 0) {
+                options.runningMode = Options.RunningMode.SERVING;
+                options.port = Integer.parseInt(args[i + 1]);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-token") == 0) {
+                options.tokenFile = args[i + 1];
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-batch") == 0) {
+                options.runningMode = Options.RunningMode.INCLUDING;
+                options.batchFile = args[i + 1];
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-jobs") == 0) {
+                options.numOfJobs = Integer.parseInt(args[i + 1]);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-timeout") == 0) {
+                options.timeBudget = (long)(Double.parseDouble(args[i + 1]) * 1000);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-stagetimeout") == 0) {
+                options.stageTimeBudget = (long)(Double.parseDouble(args[i + 1]) * 1000);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-memout") == 0) {
+                options.heapBudget = Long.parseLong(args[i + 1]) << 20;
+                i += 1;
+                continue;
+            }
             if(args[i].compareTo("-test") == 0) {
                 options.runningMode = Options.RunningMode.TESTING;
                 options.numOfTests = Integer.parseInt(args[i+1]);
@@ -111,13 +137,102 @@ public class CLParser {
                 i += 2;
                 continue;
             }
+            if(args[i].compareTo("-portfolio") == 0) {
+                options.runningMode = Options.RunningMode.LEARNING;
+                options.portfolio = true;
+                options.epsilon = Double.parseDouble(args[i+1]);
+                options.delta = Double.parseDouble(args[i+2]);
+                i += 2;
+                continue;
+            }
             if(args[i].compareTo("-v")==0){
                 options.verbose=true;
                 continue;
             }
+            if(args[i].compareTo("-profile")==0){
+                options.profile = true;
+                options.stats.profiler.setTrackAllocations(true);
+                continue;
+            }
             
             if(args[i].compareTo("-bs")==0) {
                 options.binarySearch = true;
+                options.ceAnalysis = Options.CeAnalysis.BINARY;
+                continue;
+            }
+            if(args[i].compareTo("-mce")==0) {
+                options.numOfCounterexamples = Integer.parseInt(args[i + 1]);
+                if(options.numOfCounterexamples < 1) {
+                    throw new UnsupportedOperationException("-mce expects at least one counterexample");
+                }
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-symbolic")==0) {
+                options.symbolicEmptiness = true;
+                continue;
+            }
+            if(args[i].compareTo("-par")==0) {
+                options.numOfEmptinessWorkers = Integer.parseInt(args[i + 1]);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-ce")==0) {
+                options.ceAnalysis = getEnum(Options.CeAnalysis.class, args[i], args[i + 1]);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-conformance")==0) {
+                options.conformance = getEnum(Options.Conformance.class, args[i], args[i + 1]);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-extrastates")==0) {
+                options.numOfExtraStates = Integer.parseInt(args[i + 1]);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-testthreads")==0) {
+                options.numOfTestThreads = Integer.parseInt(args[i + 1]);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-checkpoint")==0){
+                options.checkpointFile = args[i+1];
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-store")==0){
+                options.membershipStore = args[i+1];
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-metrics")==0){
+                options.metricsFile = args[i+1];
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-trace")==0){
+                options.traceFile = args[i+1];
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-replay")==0){
+                options.replayFile = args[i+1];
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-storesize")==0){
+                long size = Long.parseLong(args[i+1]);
+                if(size < 1 || size > 1024) {
+                    throw new UnsupportedOperationException("-storesize expects between 1 and 1024 MB");
+                }
+                options.membershipStoreSize = (int) (size << 20);
+                i += 1;
+                continue;
+            }
+            if(args[i].compareTo("-resume")==0 || args[i].compareTo("--resume")==0){
+                options.resume = true;
                 continue;
             }
             if(args[i].compareTo("-out")==0){
@@ -193,6 +308,14 @@ public class CLParser {
                 options.dot = true;
                 continue;
             }
+            if(args[i].compareTo("-merge") == 0) {
+                options.mergeTransitions = true;
+                continue;
+            }
+            if(args[i].compareTo("-minterms") == 0) {
+                options.minterms = true;
+                continue;
+            }
             if(args[i].endsWith(".ba")) {
                 options.inputFile = args[i];
                 options.format = Format.BA;
@@ -203,6 +326,11 @@ public class CLParser {
                 options.format = Format.HOA;
                 continue;
             }
+            if(args[i].endsWith(".bin")) {
+                options.inputFile = args[i];
+                options.format = Format.BIN;
+                continue;
+            }
 
         }
         
@@ -210,12 +338,22 @@ public class CLParser {
     }
     
     
+    // value of an enum option, the usage is printed for unknown values
+    private <E extends Enum<E>> E getEnum(Class<E> type, String option, String value) {
+        for(E constant : type.getEnumConstants()) {
+            if(constant.name().equalsIgnoreCase(value)) return constant;
+        }
+        options.log.println("Unknown value " + value + " for " + option + "\n");
+        printUsage();
+        return null;
+    }
+    
     private void printUsage() {
         options.log.println(
                 "ROLL (Regular Omega Language Learning) v" + version + "\n");
         
         options.log.println(
-                "Usage: java -jar ROLL.jar [aut.ba, aut.hoa] [options]");
+                "Usage: java -jar ROLL.jar [aut.ba, aut.hoa, aut.bin] [options]");
         final int indent = 20;
 //        options.log.println("Recommended use", indent, "java -jar ROLL.jar -play -lstar");
         options.log.println("Recommended use", indent, "java -jar ROLL.jar -test 3 3 -table -syntactic -under");
@@ -223,23 +361,44 @@ public class CLParser {
         options.log.println("             or", indent, "java -jar ROLL.jar -complement B.hoa -table -syntactic");
         options.log.println("             or", indent, "java -jar ROLL.jar -include A.ba B.ba -table -syntactic");
         options.log.println("             or", indent, "java -jar ROLL.jar -convert A.ba B.ba -out A.hoa B.hoa");
+        options.log.println("             or", indent, "java -jar ROLL.jar -convert A.ba B.ba -out2 A.bin B.bin");
         options.log.println("             or", indent, "java -jar ROLL.jar -play -table -syntactic");
+        options.log.println("             or", indent, "java -jar ROLL.jar -serve 7070 -jobs 4");
         options.log.println("\noptions:");
         
         options.log.println("-h", indent, "Show this page");
         options.log.println("-v", indent, "Verbose mode");
+        options.log.println("-profile", indent, "Print time and allocations of each phase with latency percentiles");
         options.log.println("-out <A>", indent, "Output learned automaton in file <A>");
         options.log.println("-out2 <A> <B>", indent, "Output two automata in files <A> and <B>");
         options.log.println("-dot", indent, "Output automaton in DOT format");
+        options.log.println("-merge", indent, "Merge transitions with the same source and target into one guard");
+        options.log.println("-checkpoint <F>", indent, "Write learner checkpoints to file <F> after each equivalence query");
+        options.log.println("-resume", indent, "Resume learning from the checkpoint file");
+        options.log.println("-store <F>", indent, "Keep membership answers in file <F> for later runs");
+        options.log.println("-storesize k", indent, "At most k MB answers in the membership store, 1 <= k <= 1024 (Default 64)");
+        options.log.println("-trace <F>", indent, "Record all queries and their answers in file <F>");
+        options.log.println("-replay <F>", indent, "Answer all queries from the trace file <F> instead of the teacher");
+        options.log.println("-metrics <F>", indent, "Write statistics of each round to <F> (CSV for .csv, JSON lines otherwise)");
+        options.log.println("-minterms", indent, "Use minterms of guards as letters for HOA inputs");
         options.log.println("-test k n", indent, "Test ROLL with k randomly generated BAs of n states");
         options.log.println("-play", indent, "You play the role as a teacher");
         options.log.println("-convert [A] [B]", indent, "Convert two input automata to the other format");
         options.log.println("-learn", indent, "Use RABIT or DK package tool as the teacher to learn the input BA");
         options.log.println("-complement", indent, "Use learning algorithm to complement the input BA");
         options.log.println("-include [A] [B]", indent, "Use learning algorithm to test the inclusion between A and B");
+        options.log.println("-batch <M>", indent, "Test the inclusion of every pair of automata \"A B\" listed in file <M>");
+        options.log.println("-jobs k", indent, "Run k pairs of the batch or k jobs of the server at the same time (Default 1)");
+        options.log.println("-timeout s", indent, "Give up the inclusion check after s seconds and report unknown");
+        options.log.println("-stagetimeout s", indent, "Leave a stage of the inclusion check after s seconds");
+        options.log.println("-memout m", indent, "Give up the inclusion check once m MB of heap of the JVM is still in use");
+        options.log.println("", indent + 4, "not with -jobs k > 1 or -serve since all checks share the heap");
+        options.log.println("-serve p", indent, "Run the other modes for clients connecting to local port p (0 for any)");
+        options.log.println("-token <F>", indent, "Write the token clients of the server need to <F> (Default ~/.roll-p.token)");
         options.log.println("-sameq e d", indent, "Sampling as the teacher to check equivalence of two BAs");
         options.log.println("", indent + 4, "e - the probability that equivalence check is not correct");
         options.log.println("", indent + 4, "d - the probability of the confidence for equivalence check");
+        options.log.println("-portfolio e d", indent, "Sampling, RABIT and rank based checks race for equivalence check");
         options.log.println("-tree", indent, "Use tree-based data structure in learning");
         options.log.println("-table", indent, "Use table-based data structure in learning (Default)");
 //        options.log.println("-lstar", indent, "Use classic L* algorithm");
@@ -251,11 +410,19 @@ public class CLParser {
         options.log.println("-over", indent, "Use over-approximation in BA construction for FDFA");
         options.log.println("-under", indent, "Use under-approximation in BA construction for FDFA (Default)");
 //        options.log.println("-bs", indent, "Use binary search to find counterexample");
+        options.log.println("-ce <s>", indent, "Counterexample analysis s: linear (Default), binary, exponential, all");
         options.log.println("-lazyeq", indent, "Equivalence check as the last resort");
+        options.log.println("-mce k", indent, "Ask for at most k counterexamples in one equivalence query");
+        options.log.println("-conformance <m>", indent, "Conformance testing method m for black-box DFAs: w, wp (Default)");
+        options.log.println("-extrastates k", indent, "Conformance tests assume at most k extra states in the target (Default 1)");
+        options.log.println("-testthreads k", indent, "Run conformance tests in k threads (Default 1)");
+        options.log.println("", indent + 4, "only for membership oracles which are thread-safe");
+        options.log.println("-par k", indent, "Use k workers to check emptiness of products");
+        options.log.println("-symbolic", indent, "Use BDDs to check emptiness of products");
         options.log.println("-ldba", indent, "Learning target is a limit deterministic BA");
 //        options.log.println("-fdfa", indent, "Learning target is an FDFA");
 //        options.log.println("-nba", indent, "Learning target is a BA");
-        System.exit(0);
+        throw new UsageException();
     }
     
 
@@ -0,0 +1,162 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client of the server mode, sends a job with its input automata to a ROLL
+ * server on the local machine and prints the log of the job.
+ * 
+ * Usage: java -cp ROLL.jar roll.main.Client port [-token F] [ROLL arguments | -shutdown]
+ * 
+ * The token of the server is read from ~/.roll-port.token unless given by -token.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class Client {
+    
+    private final int port;
+    private final File tokenFile;
+    private final PrintStream log;
+    // files written by the last job by name
+    private final Map<String, List<String>> outputs = new HashMap<>();
+    private String error;
+    
+    public Client(int port, PrintStream log) {
+        this(port, Server.getTokenFile(port), log);
+    }
+    
+    public Client(int port, File tokenFile, PrintStream log) {
+        assert tokenFile != null && log != null;
+        this.port = port;
+        this.tokenFile = tokenFile;
+        this.log = log;
+    }
+    
+    private PrintWriter connect(Socket socket) throws IOException {
+        String token = new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        out.print(Server.TOKEN + " " + token + "\n");
+        return out;
+    }
+    
+    // input automata given by name in the arguments are sent along
+    public boolean run(String ... args) throws IOException {
+        outputs.clear();
+        error = null;
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            PrintWriter out = connect(socket);
+            for(String arg : args) {
+                File file = new File(arg);
+                if((arg.endsWith(".ba") || arg.endsWith(".hoa")) && file.isFile()) {
+                    List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+                    out.print(Server.FILE + " " + lines.size() + " " + arg + "\n");
+                    for(String line : lines) {
+                        out.print(line + "\n");
+                    }
+                }
+            }
+            out.print(Server.RUN + " " + String.join("\t", args) + "\n");
+            out.flush();
+            return read(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)));
+        }
+    }
+    
+    public void shutdown() throws IOException {
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            PrintWriter out = connect(socket);
+            out.print(Server.SHUTDOWN + "\n");
+            out.flush();
+            read(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)));
+        }
+    }
+    
+    private boolean read(BufferedReader in) throws IOException {
+        String line;
+        while((line = in.readLine()) != null) {
+            if(line.startsWith(Server.REPLY_FILE + " ")) {
+                String[] header = line.split(" ", 3);
+                int numOfLines = Integer.parseInt(header[1]);
+                List<String> lines = new ArrayList<>(numOfLines);
+                for(int i = 0; i < numOfLines; i ++) {
+                    lines.add(in.readLine());
+                }
+                outputs.put(header[2], lines);
+            }else if(line.startsWith(Server.REPLY_END + " ")) {
+                String status = line.substring(Server.REPLY_END.length() + 1);
+                if(status.equals("OK")) return true;
+                error = status.startsWith("ERROR ") ? status.substring("ERROR ".length()) : status;
+                return false;
+            }else {
+                log.println(line);
+            }
+        }
+        error = "Connection closed by the server";
+        return false;
+    }
+    
+    public Map<String, List<String>> getOutputs() {
+        return outputs;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        int first = args.length > 2 && args[1].equals("-token") ? 3 : 1;
+        if(args.length < first + 1) {
+            System.out.println("Usage: java -cp ROLL.jar roll.main.Client port [-token F] [ROLL arguments | -shutdown]");
+            System.exit(1);
+        }
+        int port = Integer.parseInt(args[0]);
+        Client client = new Client(port, first == 3 ? new File(args[2]) : Server.getTokenFile(port), System.out);
+        if(args[first].equals("-shutdown")) {
+            client.shutdown();
+            return;
+        }
+        String[] job = new String[args.length - first];
+        System.arraycopy(args, first, job, 0, job.length);
+        boolean ok = client.run(job);
+        // the files written by the job are saved where they are named
+        for(Map.Entry<String, List<String>> output : client.getOutputs().entrySet()) {
+            Files.write(new File(output.getKey()).toPath(), output.getValue(), StandardCharsets.UTF_8);
+        }
+        if(! ok) {
+            System.err.println("Job failed: " + client.getError());
+            System.exit(1);
+        }
+    }
+
+}
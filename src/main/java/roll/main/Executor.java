@@ -16,6 +16,8 @@
 
 package roll.main;
 
+import java.util.List;
+
 import roll.automata.DFA;
 import roll.automata.FDFA;
 import roll.automata.NBA;
@@ -23,13 +25,18 @@ import roll.learner.LearnerBase;
 import roll.learner.nba.ldollar.LearnerNBALDollar;
 import roll.learner.nba.lomega.LearnerNBALOmega;
 import roll.learner.nba.lomega.UtilLOmega;
+import roll.oracle.MembershipStore;
 import roll.oracle.Teacher;
+import roll.oracle.TeacherCheckpoint;
+import roll.oracle.TeacherMembershipStore;
+import roll.oracle.TeacherTraceRecorder;
 import roll.oracle.nba.TeacherNBA;
+import roll.oracle.nba.portfolio.TeacherNBAPortfolio;
 import roll.oracle.nba.rabit.TeacherNBARABIT;
 import roll.oracle.nba.sampler.TeacherNBASampler;
 import roll.query.Query;
 import roll.table.HashableValue;
-import roll.util.Timer;
+import roll.util.Profiler;
 import roll.words.Alphabet;
 
 /**
@@ -43,11 +50,24 @@ public class Executor {
         Executor.execute(options, target, teacher);
     }
     
+    public static void executePortfolio(Options options, NBA target) {
+        try(TeacherNBAPortfolio teacher = new TeacherNBAPortfolio(options, target)) {
+            Executor.execute(options, target, teacher);
+        }
+    }
+    
     public static void executeSampler(Options options, NBA target) {
         TeacherNBASampler teacher = new TeacherNBASampler(options, target);
         Executor.execute(options, target, teacher);
     }
     
+    private static FDFA getFDFA(LearnerBase<NBA> learner) {
+        if(learner instanceof LearnerNBALOmega) {
+            return ((LearnerNBALOmega)learner).getLearnerFDFA().getHypothesis();
+        }
+        return null;
+    }
+    
     private static void prepareStats(Options options, LearnerBase<NBA> learner, NBA hypothesis) {
         options.stats.numOfStatesInHypothesis = hypothesis.getStateSize();
         if(learner instanceof LearnerNBALOmega) {
@@ -72,34 +92,40 @@ public class Executor {
     }
     
     private static void execute(Options options, NBA target,
-            TeacherNBA teacher) {
-        LearnerBase<NBA> learner = getLearner(options, target.getAlphabet(), teacher);
-        Timer timer = new Timer();
-        options.log.println("Initializing learner...");
-        timer.start();
-        learner.startLearning();
-        timer.stop();
-        options.stats.timeOfLearner += timer.getTimeElapsed();
-        NBA hypothesis = null;
-        while(true) {
-            options.log.verbose("Table/Tree is both closed and consistent\n" + learner.toString());
-            hypothesis = learner.getHypothesis();
-            // along with ce
-            options.log.println("Resolving equivalence query for hypothesis (#Q=" + hypothesis.getStateSize() + ")...  ");
-            Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(hypothesis);
-            boolean isEq = ceQuery.getQueryAnswer().get();
-            if(isEq) {
-                // store statistics
-                prepareStats(options, learner, hypothesis);
-                break;
+            TeacherNBA teacherNBA) {
+        try(MembershipStore store = MembershipStore.open(options);
+            TeacherTraceRecorder<NBA> teacher = TeacherTraceRecorder.prepare(options, target.getAlphabet()
+                    , TeacherCheckpoint.prepare(options, target.getAlphabet()
+                    , TeacherMembershipStore.prepare(options, teacherNBA, store, MembershipStore.getFingerprint("nba", target))));
+            MetricsExporter metrics = MetricsExporter.prepare(options)) {
+            LearnerBase<NBA> learner = getLearner(options, target.getAlphabet(), teacher);
+            options.log.println("Initializing learner...");
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEARNER, options.stats::addLearnerTime)) {
+                learner.startLearning();
+            }
+            NBA hypothesis = null;
+            while(true) {
+                options.log.verbose("Table/Tree is both closed and consistent\n" + learner.toString());
+                hypothesis = learner.getHypothesis();
+                // along with ce
+                options.log.println("Resolving equivalence query for hypothesis (#Q=" + hypothesis.getStateSize() + ")...  ");
+                List<Query<HashableValue>> ceQueries = teacher.answerEquivalenceQueries(hypothesis, options.numOfCounterexamples);
+                metrics.record(hypothesis, getFDFA(learner));
+                boolean isEq = ceQueries.get(0).getQueryAnswer().get();
+                if(isEq) {
+                    // store statistics
+                    prepareStats(options, learner, hypothesis);
+                    break;
+                }
+                for(Query<HashableValue> ceQuery : ceQueries) {
+                    ceQuery.answerQuery(null);
+                    options.log.verbose("Counterexample is: " + ceQuery.toString());
+                }
+                options.log.println("Refining current hypothesis...");
+                try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEARNER, options.stats::addLearnerTime)) {
+                    learner.refineHypothesis(ceQueries);
+                }
             }
-            ceQuery.answerQuery(null);
-            options.log.verbose("Counterexample is: " + ceQuery.toString());
-            timer.start();
-            options.log.println("Refining current hypothesis...");
-            learner.refineHypothesis(ceQuery);
-            timer.stop();
-            options.stats.timeOfLearner += timer.getTimeElapsed();
         }
         options.log.println("Learning completed...");
     }
@@ -167,6 +167,11 @@ public class LearningSequence {
         }
     }
 
+    /**
+     * learns again from scratch to replay the counterexamples, use
+     * {@link roll.notebook.LearningSession#getRound} to revisit a round instead
+     * */
+    @Deprecated
     static public LearnerBase<DFA> refinedLearner(DFA target,Options options,List<Query<HashableValue>> ceList){
         TeacherDFADK teacher = new TeacherDFADK(options, target);
         LearnerType algo = null;
@@ -277,6 +282,11 @@ public class LearningSequence {
         }
     }
 
+    /**
+     * learns again from scratch to replay the counterexamples, use
+     * {@link roll.notebook.LearningSession#getRound} to revisit a round instead
+     * */
+    @Deprecated
     static public LearnerNBALOmega refinedLearner(NBA target,Options options,List<Query<HashableValue>> ceList){
         TeacherNBARABIT teacher = new TeacherNBARABIT(options, target);
         LearnerNBALOmega learner = new LearnerNBALOmega(options, target.getAlphabet(), teacher);
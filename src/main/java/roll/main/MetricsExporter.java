@@ -0,0 +1,169 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.main;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import roll.automata.FDFA;
+import roll.automata.NBA;
+import roll.automata.operations.NBAOperations;
+
+/**
+ * Writes a snapshot of the statistics after every equivalence round, as JSON
+ * lines or as CSV if the file name ends with .csv, so that the runs can be
+ * charted and compared offline.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class MetricsExporter implements Closeable {
+    
+    private static final String[] COLUMNS = {
+            "round", "time", "hypothesisStates", "hypothesisTransitions"
+            , "leadingStates", "progressStates", "maxProgressStates"
+            , "membershipQueries", "roundMembershipQueries", "equivalenceQueries", "roundEquivalenceQueries"
+            , "membershipTime", "roundMembershipTime", "equivalenceTime", "roundEquivalenceTime"
+            , "cacheHitRate", "storeHitRate", "heapUsed", "heapCommitted"
+    };
+    
+    private final Options options;
+    private final Writer writer;
+    private final boolean csv;
+    private final long start;
+    
+    private int round;
+    // cumulative values of last round
+    private long lastMQ;
+    private long lastEQ;
+    private long lastTimeMQ;
+    private long lastTimeEQ;
+    
+    private MetricsExporter(Options options, Writer writer, boolean csv) {
+        this.options = options;
+        this.writer = writer;
+        this.csv = csv;
+        this.start = System.nanoTime();
+    }
+    
+    public MetricsExporter(Options options, String file) throws IOException {
+        this(options, new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))
+                , file.toLowerCase().endsWith(".csv"));
+        if(csv) {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+    }
+    
+    // exporter of the metrics file in the options, nothing is written without it
+    public static MetricsExporter prepare(Options options) {
+        if(options.metricsFile != null) {
+            try {
+                return new MetricsExporter(options, options.metricsFile);
+            }catch(IOException e) {
+                options.log.err("Failed to open metrics file " + options.metricsFile);
+                e.printStackTrace();
+            }
+        }
+        return new MetricsExporter(options, null, false);
+    }
+    
+    private static double getRate(long hits, long total) {
+        return total == 0 ? 0 : hits / (double)total;
+    }
+    
+    // called after each equivalence query, hypothesis or fdfa can be null
+    public void record(NBA hypothesis, FDFA fdfa) {
+        if(writer == null) return;
+        Statistics stats = options.stats;
+        round ++;
+        int numOfStates = -1, numOfTrans = -1;
+        if(hypothesis != null) {
+            numOfStates = hypothesis.getStateSize();
+            numOfTrans = NBAOperations.getNumberOfTransitions(hypothesis);
+        }
+        int numOfLeading = -1, numOfProgress = -1, maxProgress = -1;
+        if(fdfa != null) {
+            numOfLeading = fdfa.getLeadingDFA().getStateSize();
+            numOfProgress = 0;
+            maxProgress = 0;
+            for(int state = 0; state < numOfLeading; state ++) {
+                int size = fdfa.getProgressDFA(state).getStateSize();
+                numOfProgress += size;
+                maxProgress = Math.max(maxProgress, size);
+            }
+        }
+        // queries answered by the checkpoint cache and the store do not reach the teacher
+        long numOfLookups = stats.numOfCachedAnswers + stats.numOfStoredAnswers + stats.numOfMembershipQuery;
+        Runtime runtime = Runtime.getRuntime();
+        long committed = runtime.totalMemory();
+        Object[] values = {
+                round, (System.nanoTime() - start) / 1000000, numOfStates, numOfTrans
+                , numOfLeading, numOfProgress, maxProgress
+                , stats.numOfMembershipQuery, stats.numOfMembershipQuery - lastMQ
+                , stats.numOfEquivalenceQuery, stats.numOfEquivalenceQuery - lastEQ
+                , stats.timeOfMembershipQuery, stats.timeOfMembershipQuery - lastTimeMQ
+                , stats.timeOfEquivalenceQuery, stats.timeOfEquivalenceQuery - lastTimeEQ
+                , getRate(stats.numOfCachedAnswers, numOfLookups)
+                , getRate(stats.numOfStoredAnswers, numOfLookups - stats.numOfCachedAnswers)
+                , committed - runtime.freeMemory(), committed
+        };
+        lastMQ = stats.numOfMembershipQuery;
+        lastEQ = stats.numOfEquivalenceQuery;
+        lastTimeMQ = stats.timeOfMembershipQuery;
+        lastTimeEQ = stats.timeOfEquivalenceQuery;
+        
+        StringBuilder builder = new StringBuilder();
+        if(! csv) builder.append('{');
+        for(int i = 0; i < COLUMNS.length; i ++) {
+            if(i > 0) builder.append(',');
+            if(! csv) builder.append('"').append(COLUMNS[i]).append("\":");
+            builder.append(values[i]);
+        }
+        if(! csv) builder.append('}');
+        builder.append('\n');
+        try {
+            writer.write(builder.toString());
+            // the runs may end without closing the exporter
+            writer.flush();
+        }catch(IOException e) {
+            options.log.err("Failed to write metrics file " + options.metricsFile);
+            e.printStackTrace();
+        }
+    }
+    
+    public int getNumOfRounds() {
+        return round;
+    }
+
+    @Override
+    public void close() {
+        if(writer == null) return;
+        try {
+            writer.close();
+        }catch(IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
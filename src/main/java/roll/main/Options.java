@@ -18,6 +18,8 @@ package roll.main;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 
 import roll.parser.Format;
 
@@ -48,6 +50,9 @@ public class Options {
     public double epsilon;
     public double delta;
     
+    // run sampler and exact checkers at the same time as the teacher
+    public boolean portfolio = false;
+    
     // number of test cases and size of automaton for each case
     public int numOfTests;
     public int numOfStatesForTest;
@@ -55,24 +60,79 @@ public class Options {
     // output mode
     public boolean verbose = false;
     
+    // print the phase profile with latency percentiles and allocations
+    public boolean profile = false;
+    
     // search method for counterexample
     public boolean binarySearch = false;
+    public CeAnalysis ceAnalysis = CeAnalysis.LINEAR;
+    
+    // maximal number of counterexamples returned by one equivalence query
+    public int numOfCounterexamples = 1;
+    
+    // conformance testing as the teacher for black-box DFAs
+    public Conformance conformance = Conformance.WP;
+    public int numOfExtraStates = 1;
+    // tests are asked one after the other unless more threads are given, which
+    // requires a membership oracle that may be called from several threads
+    public int numOfTestThreads = 1;
+    
+    // number of workers for parallel emptiness checking of products
+    public int numOfEmptinessWorkers = 1;
+    // BDD based emptiness checking of products
+    public boolean symbolicEmptiness = false;
     
     // output file for learned automaton
     public String outputFile = null;
     // input file
     public String inputFile = null;
     
+    // checkpoint file written after each equivalence round and whether to resume from it
+    public String checkpointFile = null;
+    public boolean resume = false;
+    
+    // persistent membership answers shared by all runs and its size in bytes
+    public String membershipStore = null;
+    public int membershipStoreSize = 64 << 20;
+    
+    // binary trace of all queries and their answers, recorded or replayed
+    public String traceFile = null;
+    public String replayFile = null;
+    
+    // file for the statistics of every equivalence round, CSV if it ends with .csv, JSON lines otherwise
+    public String metricsFile = null;
+    
     // input A and B for inclusion testing
     public String inputA = null;
     public String inputB = null;
     
+    // local port of the server mode, 0 for any free port
+    public int port = 0;
+    // file with the token clients of the server have to send, ~/.roll-port.token if null
+    public String tokenFile = null;
+    
+    // manifest of (A, B) pairs to check for inclusion and number of pairs checked at the same time
+    public String batchFile = null;
+    public int numOfJobs = 1;
+    
+    // budgets of an inclusion check in milliseconds and bytes of heap, 0 for none;
+    // the heap is shared by the whole JVM, so the heap budget needs a single job
+    public long timeBudget = 0;
+    public long stageTimeBudget = 0;
+    public long heapBudget = 0;
+    
     // output A and B for format conversion
     public String outputA = null;
     public String outputB = null;
     
     public boolean dot = false;
     
+    // output transitions with the same source and target as one transition
+    public boolean mergeTransitions = false;
+    
+    // letters of HOA inputs are the minterms of their guards instead of valuations
+    public boolean minterms = false;
+    
     //  format
     public Format format;
     
@@ -92,6 +152,23 @@ public class Options {
         this.stats = new Statistics(this);
     }
     
+    // a copy with its own log and statistics, so several runs can share the settings
+    public Options copy(OutputStream out) {
+        Options result = new Options(out);
+        try {
+            for(Field field : Options.class.getFields()) {
+                if(Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())
+                 || field.getName().equals("log") || field.getName().equals("stats")) {
+                    continue;
+                }
+                field.set(result, field.get(this));
+            }
+        }catch(IllegalAccessException e) {
+            throw new UnsupportedOperationException("Can not copy options", e);
+        }
+        return result;
+    }
+    
     public static enum RunningMode {
         TESTING,
         PLAYING,
@@ -99,7 +176,8 @@ public class Options {
         LEARNING,      // learning automata
         SAMPLING,
         COMPLEMENTING, // complement input BA
-        INCLUDING;     // inclusion testing for input BAs
+        INCLUDING,     // inclusion testing for input BAs
+        SERVING;       // serve the other modes to clients on a local port
         
         boolean isTestMode() {
             return this == TESTING;
@@ -132,11 +210,23 @@ public class Options {
         }
     }
     
+    public static enum CeAnalysis {
+        LINEAR,       // one query per letter from the beginning
+        BINARY,       // Rivest-Schapire binary search
+        EXPONENTIAL,  // exponential search followed by binary search
+        ALL           // ask all positions and pick the last breakpoint, i.e., the shortest new experiment
+    }
+    
     public static enum Approximation {
         UNDER,
         OVER
     }
     
+    public static enum Conformance {
+        W,
+        WP
+    }
+    
     public static enum Optimization {
         NONE,
         LAZY_EQ,
@@ -186,7 +276,10 @@ public class Options {
         }
         builder.append("verbose=" + verbose + ",");
         builder.append("bs=" + binarySearch + ",");
+        builder.append("ce=" + ceAnalysis + ",");
+        builder.append("mce=" + numOfCounterexamples + ",");
         builder.append("dot=" + dot + ",");
+        builder.append("merge=" + mergeTransitions + ",");
         builder.append("inputfile=" + inputFile + ",");
         builder.append("outputfile=" + outputFile + ",");
         builder.append("outputA=" + outputA + ",");
@@ -208,6 +301,15 @@ public class Options {
                 && (!algorithm.isTargetFDFA())) {
                   throw new UnsupportedOperationException("arguments for test mode are illegal");
         }
+        if(traceFile != null && replayFile != null) {
+            throw new UnsupportedOperationException("can not record and replay a query trace at the same time");
+        }
+        if(resume && checkpointFile == null) {
+            throw new UnsupportedOperationException("no checkpoint file to resume from");
+        }
+        if(heapBudget > 0 && (numOfJobs > 1 || runningMode == RunningMode.SERVING)) {
+            throw new UnsupportedOperationException("-memout measures the heap of the JVM, it needs -jobs 1 and no -serve");
+        }
         
     }
 
@@ -16,11 +16,19 @@
 
 package roll.main;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import roll.automata.FDFA;
 import roll.automata.NBA;
@@ -32,13 +40,20 @@ import roll.learner.nba.lomega.UtilLOmega;
 import roll.learner.nba.lomega.translator.TranslatorFDFA;
 import roll.learner.nba.lomega.translator.TranslatorFDFAUnder;
 import roll.main.complement.TeacherNBAComplement;
+import roll.main.inclusion.InclusionBatch;
 import roll.main.inclusion.NBAInclusionCheck;
+import roll.oracle.MembershipStore;
+import roll.oracle.TeacherCheckpoint;
+import roll.oracle.TeacherMembershipStore;
+import roll.oracle.TeacherTraceRecorder;
 import roll.parser.PairParser;
 import roll.parser.Parser;
 import roll.parser.UtilParser;
+import roll.parser.bin.BinaryFormat;
 import roll.query.Query;
 import roll.table.HashableValue;
 import roll.table.HashableValueBoolean;
+import roll.util.Profiler;
 import roll.util.Timer;
 
 /**
@@ -53,9 +68,18 @@ public final class ROLL {
     public static void main(String[] args) {
         // select mode to execute
         CLParser clParser = new CLParser();
-        clParser.prepareOptions(args);
+        try {
+            clParser.prepareOptions(args);
+        }catch(UsageException e) {
+            return;
+        }
         Options options = clParser.getOptions();
         options.log.println("\n" + options.toString());
+        run(options);
+    }
+    
+    // run the mode selected in the options
+    static void run(Options options) {
         switch(options.runningMode) {
         case TESTING:
             options.log.info("Testing ROLL...");
@@ -85,6 +109,10 @@ public final class ROLL {
             options.log.info("ROLL for BA learning via sampling...");
             runLearningMode(options, true);
             break;
+        case SERVING:
+            options.log.info("ROLL for serving jobs...");
+            runServingMode(options);
+            break;
         default :
                 options.log.err("Incorrect running mode.");
         }
@@ -122,6 +150,19 @@ public final class ROLL {
         options.log.println("\nB input automaton:");
         parser.print(B, options.log.getOutputStream());
         options.log.println("\noutput automata:");
+        // to the binary format
+        if(options.outputA != null && options.outputB != null
+        && options.outputA.endsWith(".bin") && options.outputB.endsWith(".bin")) {
+            try(OutputStream binA = new BufferedOutputStream(new FileOutputStream(options.outputA));
+                OutputStream binB = new BufferedOutputStream(new FileOutputStream(options.outputB))) {
+                BinaryFormat.write(binA, A, letter -> parser.getLabel(A, letter));
+                BinaryFormat.write(binB, B, letter -> parser.getLabel(B, letter));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            out.close();
+            return;
+        }
         PrintStream outA = null, outB = null;
         if(options.outputA != null && options.outputB != null) {
             try {
@@ -141,9 +182,14 @@ public final class ROLL {
             NBAInclusionCheckTool.outputHOAStream(B, outB); // BA to HOA
             break;
         case HOA:
-            outA.println(A.toBA());
+            writeBA(A, outA); // HOA to BA
+            out.println("\n");
+            writeBA(B, outB); // HOA to BA
+            break;
+        case BIN:
+            parser.print(A, outA); // BIN to BA
             out.println("\n");
-            outB.println(B.toBA());
+            parser.print(B, outB); // BIN to BA
             break;
         default:
             throw new UnsupportedOperationException("Unknow input format");
@@ -157,6 +203,18 @@ public final class ROLL {
         }
     }
     
+    // the stream is not closed, it may be the log
+    private static void writeBA(NBA nba, OutputStream stream) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        try {
+            nba.writeBA(writer);
+            writer.write("\n");
+            writer.flush();
+        }catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
     public static void runPlayingMode(Options options) {
         InteractiveMode.interact(options);
     }
@@ -172,7 +230,9 @@ public final class ROLL {
         options.stats.numOfStatesInTraget = target.getStateSize();
         // learn the target automaton
         
-        if(sampling) {
+        if(options.portfolio) {
+            Executor.executePortfolio(options, target);
+        }else if(sampling) {
             Executor.executeSampler(options, target);
         }else {
             Executor.executeRABIT(options, target);
@@ -197,7 +257,33 @@ public final class ROLL {
         options.stats.numOfTransInTraget = NBAOperations.getNumberOfTransitions(target);
         options.stats.numOfTransInHypothesis = NBAOperations.getNumberOfTransitions(options.stats.hypothesis);
         options.stats.print();
-        
+        options.stats.printProfile();
+    }
+    
+    // the counterexamples of one equivalence query for the complement, those
+    // fixed by the earlier ones are skipped
+    private static void refineHypothesis(Options options, LearnerFDFA learner, List<Query<HashableValue>> ceQueries) {
+        for(int i = 0; i < ceQueries.size(); i ++) {
+            // counterexample analysis
+            Query<HashableValue> ceQuery = ceQueries.get(i);
+            ceQuery.answerQuery(new HashableValueBoolean(ceQuery.getQueryAnswer().getRight()));
+            TranslatorFDFA translator = new TranslatorFDFAUnder(learner);
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.TRANSLATOR, options.stats::addTranslatorTime)) {
+                translator.setQuery(ceQuery);
+                if(i > 0 && ! translator.isCounterexample()) continue;
+            }
+            while(translator.canRefine()) {
+                try(Profiler.Phase phase = options.stats.profiler.start(Profiler.TRANSLATOR, options.stats::addTranslatorTime)) {
+                    ceQuery = translator.translate();
+                }
+                options.log.verbose("Counterexample is: " + ceQuery.toString());
+                try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEARNER, options.stats::addLearnerTime)) {
+                    options.log.println("Refining current hypothesis...");
+                    learner.refineHypothesis(ceQuery);
+                }
+                if(options.optimization != Options.Optimization.LAZY_EQ) break;
+            }
+        }
     }
     
     public static NBA complement(Options options, NBA input) {
@@ -205,48 +291,38 @@ public final class ROLL {
         options.stats.numOfLetters = input.getAlphabetSize();
         options.stats.numOfStatesInTraget = input.getStateSize();
         
-        TeacherNBAComplement teacher = new TeacherNBAComplement(options, input);
-        LearnerFDFA learner = UtilLOmega.getLearnerFDFA(options, input.getAlphabet(), teacher);
-        options.log.println("Initializing learner...");
-        Timer timer = new Timer();
-        long t = timer.getCurrentTime();
-        learner.startLearning();
-        t = timer.getCurrentTime() - t;
-        options.stats.timeOfLearner += t;
-        FDFA hypothesis = null;
-        while(true) {
-            options.log.verbose("Table/Tree is both closed and consistent\n" + learner.toString());
-            hypothesis = learner.getHypothesis();
-            // along with ce
-            options.log.println("Resolving equivalence query for hypothesis...  ");
-            Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(hypothesis);
-            boolean isEq = ceQuery.getQueryAnswer().getLeft();
-            if(isEq) {
-                // store statistics
-                options.stats.numOfStatesInLeading = hypothesis.getLeadingDFA().getStateSize();
-                for(int state = 0; state < hypothesis.getLeadingDFA().getStateSize(); state ++) {
-                    options.stats.numOfStatesInProgress.add(hypothesis.getProgressDFA(state).getStateSize());
+        TeacherNBAComplement teacherNBA = new TeacherNBAComplement(options, input);
+        try(MembershipStore store = MembershipStore.open(options);
+            TeacherTraceRecorder<FDFA> teacher = TeacherTraceRecorder.prepare(options, input.getAlphabet()
+                    , TeacherCheckpoint.prepare(options, input.getAlphabet()
+                    , TeacherMembershipStore.prepare(options, teacherNBA, store, MembershipStore.getFingerprint("complement", input))))) {
+            LearnerFDFA learner = UtilLOmega.getLearnerFDFA(options, input.getAlphabet(), teacher);
+            options.log.println("Initializing learner...");
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEARNER, options.stats::addLearnerTime)) {
+                learner.startLearning();
+            }
+            FDFA hypothesis = null;
+            while(true) {
+                options.log.verbose("Table/Tree is both closed and consistent\n" + learner.toString());
+                hypothesis = learner.getHypothesis();
+                // along with ce
+                options.log.println("Resolving equivalence query for hypothesis...  ");
+                List<Query<HashableValue>> ceQueries = teacher.answerEquivalenceQueries(hypothesis, options.numOfCounterexamples);
+                boolean isEq = ceQueries.get(0).getQueryAnswer().getLeft();
+                if(isEq) {
+                    // store statistics
+                    options.stats.numOfStatesInLeading = hypothesis.getLeadingDFA().getStateSize();
+                    for(int state = 0; state < hypothesis.getLeadingDFA().getStateSize(); state ++) {
+                        options.stats.numOfStatesInProgress.add(hypothesis.getProgressDFA(state).getStateSize());
+                    }
+                    break;
                 }
-                break;
+                refineHypothesis(options, learner, ceQueries);
             }
-            // counterexample analysis
-            ceQuery.answerQuery(new HashableValueBoolean(ceQuery.getQueryAnswer().getRight()));
-            TranslatorFDFA translator = new TranslatorFDFAUnder(learner);
-            translator.setQuery(ceQuery);
-            while(translator.canRefine()) {
-                ceQuery = translator.translate();
-                options.log.verbose("Counterexample is: " + ceQuery.toString());
-                t = timer.getCurrentTime();
-                options.log.println("Refining current hypothesis...");
-                learner.refineHypothesis(ceQuery);
-                t = timer.getCurrentTime() - t;
-                options.stats.timeOfLearner += t;
-                if(options.optimization != Options.Optimization.LAZY_EQ) break;
-            }            
         }
         options.log.println("Learning completed...");
         
-        teacher.print();
+        teacherNBA.print();
         return options.stats.hypothesis;
     }
 
@@ -260,44 +336,37 @@ public final class ROLL {
         options.stats.numOfLetters = input.getAlphabetSize();
         options.stats.numOfStatesInTraget = input.getStateSize();
         
-        TeacherNBAComplement teacher = new TeacherNBAComplement(options, input);
-        LearnerFDFA learner = UtilLOmega.getLearnerFDFA(options, input.getAlphabet(), teacher);
-        options.log.println("Initializing learner...");
+        TeacherNBAComplement teacherNBA = new TeacherNBAComplement(options, input);
+        try(MembershipStore store = MembershipStore.open(options);
+            TeacherTraceRecorder<FDFA> teacher = TeacherTraceRecorder.prepare(options, input.getAlphabet()
+                    , TeacherCheckpoint.prepare(options, input.getAlphabet()
+                    , TeacherMembershipStore.prepare(options, teacherNBA, store, MembershipStore.getFingerprint("complement", input))));
+            MetricsExporter metrics = MetricsExporter.prepare(options)) {
+            LearnerFDFA learner = UtilLOmega.getLearnerFDFA(options, input.getAlphabet(), teacher);
+            options.log.println("Initializing learner...");
         
-        long t = timer.getCurrentTime();
-        learner.startLearning();
-        t = timer.getCurrentTime() - t;
-        options.stats.timeOfLearner += t;
-        FDFA hypothesis = null;
-        while(true) {
-            options.log.verbose("Table/Tree is both closed and consistent\n" + learner.toString());
-            hypothesis = learner.getHypothesis();
-            // along with ce
-            options.log.println("Resolving equivalence query for hypothesis...  ");
-            Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(hypothesis);
-            boolean isEq = ceQuery.getQueryAnswer().getLeft();
-            if(isEq) {
-                // store statistics
-                options.stats.numOfStatesInLeading = hypothesis.getLeadingDFA().getStateSize();
-                for(int state = 0; state < hypothesis.getLeadingDFA().getStateSize(); state ++) {
-                    options.stats.numOfStatesInProgress.add(hypothesis.getProgressDFA(state).getStateSize());
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEARNER, options.stats::addLearnerTime)) {
+                learner.startLearning();
+            }
+            FDFA hypothesis = null;
+            while(true) {
+                options.log.verbose("Table/Tree is both closed and consistent\n" + learner.toString());
+                hypothesis = learner.getHypothesis();
+                // along with ce
+                options.log.println("Resolving equivalence query for hypothesis...  ");
+                List<Query<HashableValue>> ceQueries = teacher.answerEquivalenceQueries(hypothesis, options.numOfCounterexamples);
+                metrics.record(options.stats.hypothesis, hypothesis);
+                boolean isEq = ceQueries.get(0).getQueryAnswer().getLeft();
+                if(isEq) {
+                    // store statistics
+                    options.stats.numOfStatesInLeading = hypothesis.getLeadingDFA().getStateSize();
+                    for(int state = 0; state < hypothesis.getLeadingDFA().getStateSize(); state ++) {
+                        options.stats.numOfStatesInProgress.add(hypothesis.getProgressDFA(state).getStateSize());
+                    }
+                    break;
                 }
-                break;
+                refineHypothesis(options, learner, ceQueries);
             }
-            // counterexample analysis
-            ceQuery.answerQuery(new HashableValueBoolean(ceQuery.getQueryAnswer().getRight()));
-            TranslatorFDFA translator = new TranslatorFDFAUnder(learner);
-            translator.setQuery(ceQuery);
-            while(translator.canRefine()) {
-                ceQuery = translator.translate();
-                options.log.verbose("Counterexample is: " + ceQuery.toString());
-                t = timer.getCurrentTime();
-                options.log.println("Refining current hypothesis...");
-                learner.refineHypothesis(ceQuery);
-                t = timer.getCurrentTime() - t;
-                options.stats.timeOfLearner += t;
-                if(options.optimization != Options.Optimization.LAZY_EQ) break;
-            }            
         }
         options.log.println("Learning completed...");
         // output target automaton
@@ -322,14 +391,28 @@ public final class ROLL {
         options.stats.timeInTotal = timer.getTimeElapsed();
         
         options.stats.print();
-        teacher.print();
+        options.stats.printProfile();
+        teacherNBA.print();
     }
     
     
+    public static void runServingMode(Options options) {
+        try(Server server = new Server(options, options.port)) {
+            options.log.info("Listening on " + server.getAddress() + "...");
+            server.serve();
+        }catch(IOException e) {
+            throw new UncheckedIOException("Failed to serve on port " + options.port, e);
+        }
+    }
+    
     public static void runIncludingMode(Options options) {
         
         // a bit complicated so move the code to another file
-        NBAInclusionCheck.execute(options);
+        if(options.batchFile != null) {
+            InclusionBatch.execute(options);
+        }else {
+            NBAInclusionCheck.execute(options);
+        }
         
     }
 
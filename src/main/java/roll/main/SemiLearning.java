@@ -1,5 +1,6 @@
 package roll.main;
 
+import roll.automata.DFA;
 import roll.automata.FASimple;
 import roll.automata.NBA;
 import roll.learner.Learner;
@@ -11,6 +12,7 @@ import roll.learner.dfa.tree.LearnerDFATreeKV;
 import roll.learner.nba.ldollar.LearnerNBALDollar;
 import roll.learner.nba.lomega.LearnerNBALOmega;
 import roll.oracle.MembershipOracle;
+import roll.oracle.dfa.conformance.TeacherDFAConformance;
 import roll.oracle.semi.SemiTeacher;
 import roll.query.Query;
 import roll.table.HashableValue;
@@ -22,6 +24,7 @@ import java.util.function.Function;
 public class SemiLearning <M extends FASimple> {
     public LearnerBase<M> learner;
     public SemiTeacher teacher;
+    private TeacherDFAConformance tester;
     public SemiLearning(Alphabet alphabet,Options options, BiFunction<String,String,Boolean> f) {
         teacher = new SemiTeacher(f);
         learner = SemiLearning.createLearner(options,alphabet,teacher);
@@ -39,6 +42,18 @@ public class SemiLearning <M extends FASimple> {
         return learner.getHypothesis();
     }
 
+    // conformance testing of DFA hypothesis, answer is true if no counterexample is found
+    public Query<HashableValue> findCounterexample() {
+        M hypothesis = learner.getHypothesis();
+        if(! (hypothesis instanceof DFA)) {
+            throw new UnsupportedOperationException("Conformance testing only supports DFAs");
+        }
+        if(tester == null) {
+            tester = new TeacherDFAConformance(learner.getOptions(), hypothesis.getAlphabet(), teacher);
+        }
+        return tester.answerEquivalenceQuery((DFA)hypothesis);
+    }
+
     public M refineHypothesis(Query<HashableValue> query) throws Exception {
         boolean targetAccepting = this.teacher.answerMembershipQuery(query).get();
         boolean hypothAccepting = this.learner.getHypothesis().getAcc().isAccepting(query.getPrefix(),query.getSuffix());
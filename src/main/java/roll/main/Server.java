@@ -0,0 +1,363 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.main;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server mode of ROLL: runs the jobs of clients in one warm JVM.
+ * 
+ * The server only listens on the loopback address and writes a random token
+ * to a file only its user can read, by default ~/.roll-port.token. A client
+ * first sends this token, then the input automata as text and then the
+ * command line of the job:
+ * 
+ *   TOKEN t         the token of the server, otherwise the client is rejected
+ *   FILE n name     followed by the n lines of the file called name
+ *   RUN args        the arguments separated by tabs, names of sent files are allowed
+ *   SHUTDOWN        stops the server instead of running a job
+ * 
+ * The server answers with the log of the job as it is written, followed by
+ * every file written by -out or -out2 as "@FILE n name" with n lines, and
+ * ends with "@END OK" or "@END ERROR message". Every job has its own options
+ * and statistics. A job may only read the files sent with it and write its
+ * outputs, so options which take other file paths are rejected.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class Server implements Closeable {
+    
+    public static final String TOKEN = "TOKEN";
+    public static final String FILE = "FILE";
+    public static final String RUN = "RUN";
+    public static final String SHUTDOWN = "SHUTDOWN";
+    public static final String REPLY_FILE = "@FILE";
+    public static final String REPLY_END = "@END";
+    
+    // options of a job which would read or write files on the server
+    private static final Set<String> FILE_OPTIONS = new HashSet<>(Arrays.asList(
+            "-batch", "-checkpoint", "-store", "-metrics", "-trace", "-replay"));
+    
+    private final Options options;
+    private final ServerSocket socket;
+    private final ExecutorService pool;
+    private final File tokenFile;
+    private final byte[] token;
+    
+    public Server(Options options, int port) throws IOException {
+        assert options != null;
+        this.options = options;
+        this.socket = new ServerSocket();
+        this.socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.tokenFile = options.tokenFile != null ? new File(options.tokenFile) : getTokenFile(getPort());
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        this.token = toHex(random).getBytes(StandardCharsets.UTF_8);
+        try {
+            writeToken(tokenFile.toPath(), token);
+        }catch(IOException e) {
+            socket.close();
+            throw e;
+        }
+        this.pool = Executors.newFixedThreadPool(Math.max(1, options.numOfJobs), runnable -> {
+            Thread thread = new Thread(runnable, "roll-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // token file of a server on the given port if none is given by -token
+    public static File getTokenFile(int port) {
+        return new File(System.getProperty("user.home"), ".roll-" + port + ".token");
+    }
+    
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for(byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+    
+    // only the user running the server may read the token
+    private static void writeToken(Path path, byte[] token) throws IOException {
+        Files.deleteIfExists(path);
+        if(FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }else {
+            File file = Files.createFile(path).toFile();
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+        Files.write(path, token);
+    }
+    
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+    
+    public File getTokenFile() {
+        return tokenFile;
+    }
+    
+    public String getAddress() {
+        return socket.getInetAddress().getHostAddress() + ":" + socket.getLocalPort();
+    }
+    
+    // accept clients until the server is closed
+    public void serve() {
+        while(! socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            }catch(IOException e) {
+                if(socket.isClosed()) break;
+                options.log.err("Failed to accept a client: " + e.getMessage());
+                continue;
+            }
+            pool.execute(() -> handle(client));
+        }
+    }
+    
+    private void handle(Socket client) {
+        List<File> files = new ArrayList<>();
+        try(Socket connection = client) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = new JobOutputStream(connection.getOutputStream());
+            PrintStream reply = new PrintStream(out, true, "UTF-8");
+            // sent files and output files by name
+            Map<String, File> inputs = new HashMap<>();
+            String line = in.readLine();
+            if(line == null || ! line.startsWith(TOKEN + " ")
+            || ! MessageDigest.isEqual(token, line.substring(TOKEN.length() + 1).getBytes(StandardCharsets.UTF_8))) {
+                reply.println(REPLY_END + " ERROR invalid token");
+                return;
+            }
+            while((line = in.readLine()) != null) {
+                if(line.startsWith(FILE + " ")) {
+                    String error = receive(in, line, inputs, files);
+                    if(error != null) {
+                        reply.println(REPLY_END + " ERROR " + error);
+                        break;
+                    }
+                }else if(line.startsWith(RUN)) {
+                    String args = line.substring(RUN.length()).trim();
+                    run(args.isEmpty() ? new String[0] : args.split("\t"), inputs, files, out, reply);
+                    break;
+                }else if(line.equals(SHUTDOWN)) {
+                    reply.println(REPLY_END + " OK");
+                    // the running jobs finish before the server is closed
+                    socket.close();
+                    break;
+                }else {
+                    reply.println(REPLY_END + " ERROR unknown request " + line);
+                    break;
+                }
+            }
+        }catch(IOException | RuntimeException e) {
+            options.log.err("Failed to serve a client: " + e);
+        }finally {
+            for(File file : files) {
+                file.delete();
+            }
+        }
+    }
+    
+    // FILE <number of lines> <name> and then the lines, an error if the file is malformed
+    private String receive(BufferedReader in, String line, Map<String, File> inputs, List<File> files) throws IOException {
+        String[] header = line.split(" ", 3);
+        if(header.length != 3 || header[2].isEmpty() || ! header[1].matches("\\d{1,9}")) {
+            return "malformed file header " + line;
+        }
+        int numOfLines = Integer.parseInt(header[1]);
+        List<String> lines = new ArrayList<>(Math.min(numOfLines, 1024));
+        for(int i = 0; i < numOfLines; i ++) {
+            String next = in.readLine();
+            if(next == null) {
+                return "file " + header[2] + " ends after " + i + " of " + numOfLines + " lines";
+            }
+            lines.add(next);
+        }
+        File file = createFile(files, header[2]);
+        inputs.put(header[2], file);
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        return null;
+    }
+    
+    private File createFile(List<File> files, String name) throws IOException {
+        if(name.endsWith(".bin")) {
+            throw new UnsupportedOperationException("Binary files are not supported by the server: " + name);
+        }
+        int dot = name.lastIndexOf('.');
+        File file = File.createTempFile("roll", dot < 0 ? null : name.substring(dot));
+        files.add(file);
+        return file;
+    }
+    
+    private void run(String[] args, Map<String, File> inputs, List<File> files
+            , OutputStream out, PrintStream reply) throws IOException {
+        // output files of the job by name
+        Map<String, File> outputs = new HashMap<>();
+        try {
+            for(int i = 0; i < args.length; i ++) {
+                if(args[i].equals("-h")) {
+                    throw new UnsupportedOperationException("No usage page in server mode");
+                }
+                if(FILE_OPTIONS.contains(args[i])) {
+                    throw new UnsupportedOperationException("Option " + args[i] + " is not served, it takes a file path");
+                }
+                int numOfOutputs = args[i].equals("-out") ? 1 : (args[i].equals("-out2") ? 2 : 0);
+                for(int j = 0; j < numOfOutputs && i + 1 < args.length; j ++) {
+                    i ++;
+                    File file = createFile(files, args[i]);
+                    outputs.put(args[i], file);
+                    args[i] = file.getPath();
+                }
+                File input = inputs.get(args[i]);
+                if(input != null) args[i] = input.getPath();
+            }
+            if(args.length < 2) {
+                throw new UnsupportedOperationException("Too few arguments for a job");
+            }
+            CLParser parser = new CLParser(out);
+            parser.prepareOptions(args);
+            Options job = parser.getOptions();
+            checkFiles(job, files);
+            if(job.runningMode == Options.RunningMode.SERVING
+            || job.runningMode == Options.RunningMode.PLAYING
+            || job.runningMode == Options.RunningMode.TESTING) {
+                throw new UnsupportedOperationException("Running mode " + job.runningMode + " is not served");
+            }
+            if(job.heapBudget > 0) {
+                throw new UnsupportedOperationException("Option -memout is not served, all jobs share the heap");
+            }
+            ROLL.run(job);
+        }catch(RuntimeException e) {
+            reply.println();
+            reply.println(REPLY_END + " ERROR " + e.toString().replace('\n', ' '));
+            return;
+        }
+        reply.println();
+        for(Map.Entry<String, File> output : outputs.entrySet()) {
+            if(! output.getValue().exists()) continue;
+            List<String> lines = Files.readAllLines(output.getValue().toPath(), StandardCharsets.UTF_8);
+            reply.println(REPLY_FILE + " " + lines.size() + " " + output.getKey());
+            for(String line : lines) {
+                reply.println(line);
+            }
+        }
+        reply.println(REPLY_END + " OK");
+    }
+
+    // the input and output files of a job are the ones created for it
+    private static void checkFiles(Options job, List<File> files) {
+        Set<String> paths = new HashSet<>();
+        for(File file : files) {
+            paths.add(file.getPath());
+        }
+        String[] used = { job.inputFile, job.inputA, job.inputB, job.outputFile, job.outputA, job.outputB
+                , job.checkpointFile, job.membershipStore, job.metricsFile, job.traceFile, job.replayFile, job.batchFile };
+        for(String path : used) {
+            if(path != null && ! paths.contains(path)) {
+                throw new UnsupportedOperationException("File " + path + " was not sent by the client");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        Files.deleteIfExists(tokenFile.toPath());
+        pool.shutdown();
+        // let the running jobs finish
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // the jobs may close their output, which must not close the connection;
+    // lines are sent as soon as they are complete
+    private static class JobOutputStream extends FilterOutputStream {
+        
+        JobOutputStream(OutputStream out) {
+            super(new BufferedOutputStream(out));
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if(b == '\n') out.flush();
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            for(int i = off; i < off + len; i ++) {
+                if(b[i] == '\n') {
+                    out.flush();
+                    break;
+                }
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+            }catch(SocketException e) {
+                // the client has gone
+            }
+        }
+    }
+
+}
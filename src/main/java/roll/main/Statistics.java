@@ -16,10 +16,14 @@
 
 package roll.main;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import roll.automata.NBA;
+import roll.util.Profiler;
 
 /**
  * @author Yong Li (liyong@ios.ac.cn)
@@ -36,6 +40,9 @@ public class Statistics {
     
     public int numOfMembershipQuery ; // number of membership query
     public int numOfEquivalenceQuery ; // number of equivalence query
+    public int numOfCounterexamples ; // number of counterexamples returned by equivalence queries
+    public int numOfStoredAnswers ; // number of membership queries answered by the membership store
+    public int numOfCachedAnswers ; // number of repeated membership queries answered by the checkpoint
     
     public int numOfStatesInLeading; // number of states in leading automaton
     public List<Integer> numOfStatesInProgress; // number of states in progress automata
@@ -59,15 +66,23 @@ public class Statistics {
     // sampling as the teacher
     public long numOfSamplingOmegaWords;
     
+    // checker which answered each equivalence query in portfolio teacher
+    public List<String> winnersOfEquivalenceQuery;
+    
     private final Log log;
     private final Options options;
     
     public NBA hypothesis;
     
+    // nanosecond phases of the run, the times above are its totals in milliseconds
+    public final Profiler profiler;
+    
     public Statistics(Options options) {
         this.options = options;
         this.log = options.log;
+        this.profiler = new Profiler();
         this.numOfStatesInProgress = new ArrayList<>();
+        this.winnersOfEquivalenceQuery = new ArrayList<>();
     }
     
     public void print() {
@@ -98,7 +113,13 @@ public class Statistics {
         log.println("#F.S = " + numTotal , indent , "    // #L.S + #P.S");
         
         log.println("#MQ = " + numOfMembershipQuery , indent , "    // #membership query");
+        if(numOfStoredAnswers > 0) {
+            log.println("#SMQ = " + numOfStoredAnswers , indent , "    // #membership query answered by the store");
+        }
         log.println("#EQ = " + numOfEquivalenceQuery , indent , "    // #equivalence query");
+        if(options.numOfCounterexamples > 1) {
+            log.println("#CE = " + numOfCounterexamples , indent , "    // #counterexamples returned");
+        }
         
         log.println("#TMQ = " + timeOfMembershipQuery + " (ms)" , indent , "    // time for membership queries");
         log.println("#TEQ = " + timeOfEquivalenceQuery + " (ms)" , indent , "    // time for equivalence queries");
@@ -117,8 +138,86 @@ public class Statistics {
 //            log.println("#TSA = " + timeOfSampling, indent, "    // time of sampling");
         }
                 
+        if(! winnersOfEquivalenceQuery.isEmpty()) {
+            log.println("#EQW = " + winnersOfEquivalenceQuery, indent, "    // checker answered each equivalence query");
+        }
+        
         log.println("#TTO = " + timeInTotal + " (ms)" , indent , "    // total time for learning Buchi automata");
-                
+    }
+    
+    // only complete once all phases are closed
+    public void printProfile() {
+        if(options.profile) {
+            profiler.print(log);
+        }
+    }
+    
+    // listeners of the profiler phases, which add their time to the fields above
+    public void addMembershipTime(Profiler.Phase phase) {
+        timeOfMembershipQuery += phase.getMillis();
+    }
+    
+    public void addEquivalenceTime(Profiler.Phase phase) {
+        timeOfEquivalenceQuery += phase.getMillis();
+        timeOfLastEquivalenceQuery = phase.getNanos() / 1000000;
+    }
+    
+    public void addLearnerTime(Profiler.Phase phase) {
+        timeOfLearner += phase.getMillis();
+    }
+    
+    public void addLeadingTime(Profiler.Phase phase) {
+        timeOfLearnerLeading += phase.getMillis();
+    }
+    
+    public void addProgressTime(Profiler.Phase phase) {
+        timeOfLearnerProgress += phase.getMillis();
+    }
+    
+    public void addTranslatorTime(Profiler.Phase phase) {
+        timeOfTranslator += phase.getMillis();
+    }
+
+    // counters for checkpoints, the automata are computed again after resuming
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(numOfMembershipQuery);
+        out.writeInt(numOfEquivalenceQuery);
+        out.writeInt(numOfCounterexamples);
+        out.writeInt(numOfStoredAnswers);
+        out.writeLong(timeOfMembershipQuery);
+        out.writeLong(timeOfEquivalenceQuery);
+        out.writeLong(timeOfLastEquivalenceQuery);
+        out.writeLong(timeOfTranslator);
+        out.writeLong(timeOfLearner);
+        out.writeLong(timeOfLearnerLeading);
+        out.writeLong(timeOfLearnerProgress);
+        out.writeLong(numOfSamplingTried);
+        out.writeLong(numOfSamplingOmegaWords);
+        out.writeInt(winnersOfEquivalenceQuery.size());
+        for(String winner : winnersOfEquivalenceQuery) {
+            out.writeUTF(winner);
+        }
+    }
+    
+    public void read(DataInput in) throws IOException {
+        numOfMembershipQuery = in.readInt();
+        numOfEquivalenceQuery = in.readInt();
+        numOfCounterexamples = in.readInt();
+        numOfStoredAnswers = in.readInt();
+        timeOfMembershipQuery = in.readLong();
+        timeOfEquivalenceQuery = in.readLong();
+        timeOfLastEquivalenceQuery = in.readLong();
+        timeOfTranslator = in.readLong();
+        timeOfLearner = in.readLong();
+        timeOfLearnerLeading = in.readLong();
+        timeOfLearnerProgress = in.readLong();
+        numOfSamplingTried = in.readLong();
+        numOfSamplingOmegaWords = in.readLong();
+        winnersOfEquivalenceQuery.clear();
+        int numOfWinners = in.readInt();
+        for(int i = 0; i < numOfWinners; i ++) {
+            winnersOfEquivalenceQuery.add(in.readUTF());
+        }
     }
 
 }
@@ -16,19 +16,26 @@
 
 package roll.main.complement;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import automata.FiniteAutomaton;
 import dk.brics.automaton.Automaton;
-import mainfiles.RABIT;
 import oracle.IntersectionCheck;
 import roll.automata.FDFA;
 import roll.automata.NBA;
 import roll.automata.operations.FDFAOperations;
+import roll.automata.operations.NBAIntersectionCheck;
+import roll.automata.operations.NBAIntersectionCheckBDD;
 import roll.automata.operations.NBAOperations;
+import roll.jfr.EquivalenceQueryEvent;
+import roll.jfr.Events;
+import roll.jfr.MembershipQueryEvent;
 import roll.main.Options;
 import roll.main.inclusion.UtilInclusion;
 import roll.oracle.Teacher;
+import roll.oracle.nba.rabit.UtilRABIT;
 import roll.oracle.nba.sampler.NBAInclusionSampler;
 import roll.oracle.nba.sampler.SamplerIndexedMonteCarlo;
 import roll.query.Query;
@@ -37,7 +44,7 @@ import roll.table.HashableValue;
 import roll.table.HashableValueBoolean;
 import roll.table.HashableValueBooleanExactPair;
 import roll.util.Pair;
-import roll.util.Timer;
+import roll.util.Profiler;
 import roll.words.Alphabet;
 import roll.words.Word;
 
@@ -66,23 +73,22 @@ public class TeacherNBAComplement implements Teacher<FDFA, Query<HashableValue>,
     
     @Override
     public HashableValue answerMembershipQuery(Query<HashableValue> query) {
-        Timer timer = new Timer();
-        timer.start();
-        
         boolean result;
         Word prefix = query.getPrefix();
         Word suffix = query.getSuffix();
         
         if(suffix.isEmpty()) {
             return new HashableValueBoolean(false);
-        }else {
+        }
+        MembershipQueryEvent event = Events.AVAILABLE ? new MembershipQueryEvent() : null;
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.MEMBERSHIP, options.stats::addMembershipTime)) {
+            phase.recordSize(prefix.length(), suffix.length());
             result = NBAOperations.accepts(B, prefix, suffix);
         }
-        
-        timer.stop();
-        options.stats.timeOfMembershipQuery += timer.getTimeElapsed();
         ++ options.stats.numOfMembershipQuery; 
-        return new HashableValueBoolean(!result); // reverse the result for Buechi automaton
+        HashableValue answer = new HashableValueBoolean(!result); // reverse the result for Buechi automaton
+        if(event != null) event.finish(query, answer);
+        return answer;
     }
     
     public int numInterBandBF;
@@ -108,10 +114,55 @@ public class TeacherNBAComplement implements Teacher<FDFA, Query<HashableValue>,
         return new Pair<>(alphabet.getArrayWord(pre), alphabet.getArrayWord(suf));
     }
 
+    // at most bound words accepted by both automata, by RABIT, parallel CNDFS or BDDs,
+    // or by the sequential product which goes on to further accepting SCCs
+    private List<Pair<Word, Word>> getCommonWords(NBA fst, FiniteAutomaton rFst, NBA snd, FiniteAutomaton rSnd, int bound) {
+        if(options.symbolicEmptiness) {
+            NBAIntersectionCheckBDD checker = new NBAIntersectionCheckBDD(fst, snd, true);
+            if(checker.isEmpty()) return Collections.emptyList();
+            return Collections.singletonList(checker.getCounterexample());
+        }
+        if(options.numOfEmptinessWorkers > 1 || bound > 1) {
+            try(NBAIntersectionCheck checker = new NBAIntersectionCheck(fst, snd, true, options.numOfEmptinessWorkers, bound)) {
+                if(checker.isEmpty()) return Collections.emptyList();
+                checker.computePath();
+                return checker.getCounterexamples();
+            }
+        }
+        IntersectionCheck checker = new IntersectionCheck(rFst, rSnd);
+        if(checker.checkEmptiness()) return Collections.emptyList();
+        checker.computePath();
+        return Collections.singletonList(getCounterexample(checker.getPrefix(), checker.getSuffix()));
+    }
+
     @Override
     public Query<HashableValue> answerEquivalenceQuery(FDFA hypothesis) {
-        Timer timer = new Timer();
-        timer.start();
+        return answerEquivalenceQueries(hypothesis, 1).get(0);
+    }
+    
+    @Override
+    public List<Query<HashableValue>> answerEquivalenceQueries(FDFA hypothesis, int bound) {
+        EquivalenceQueryEvent event = Events.AVAILABLE ? new EquivalenceQueryEvent() : null;
+        List<Query<HashableValue>> queries;
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.EQUIVALENCE, options.stats::addEquivalenceTime)) {
+            queries = checkEquivalences(hypothesis, bound);
+        }
+        ++ options.stats.numOfEquivalenceQuery;
+        if(event != null) event.finish(options.stats.numOfEquivalenceQuery, hypothesis, queries);
+        options.stats.numOfCounterexamples += queries.get(0).getQueryAnswer().getLeft() ? 0 : queries.size();
+        
+        if(options.verbose) System.out.println("counter example = " + queries);
+        return queries;
+    }
+    
+    // isInTarget tells whether the word is accepted by B, thus not by its complement
+    private Query<HashableValue> getQuery(Word prefix, Word suffix, boolean isEq, boolean isInTarget) {
+        Query<HashableValue> query = new QuerySimple<>(prefix, suffix);
+        query.answerQuery(new HashableValueBooleanExactPair(isEq, ! isInTarget));
+        return query;
+    }
+    
+    private List<Query<HashableValue>> checkEquivalences(FDFA hypothesis, int bound) {
         options.log.println("Translating FDFA to under Buchi automaton ...");
         Automaton dkBF = FDFAOperations.buildUnderNBA(hypothesis);
         NBA BF = NBAOperations.fromDkNBA(dkBF, alphabet);
@@ -119,50 +170,40 @@ public class TeacherNBAComplement implements Teacher<FDFA, Query<HashableValue>,
         options.stats.hypothesis = BF;
         ++ this.numInterBandBF;
         options.log.println("Checking the intersection of BF (" + BF.getStateSize() + ") and B ("+ B.getStateSize() + ")...");
-        long t = timer.getCurrentTime();
-        FiniteAutomaton rBF = UtilInclusion.toRABITNBA(BF);
-        IntersectionCheck checker = new IntersectionCheck(rBF, rB);
-//        NBAIntersectionCheck interCheck = new NBAIntersectionCheck(BF, B, true);
-//        boolean isEmpty = interCheck.isEmpty();
-        boolean isEmpty = checker.checkEmptiness();
-        t = timer.getCurrentTime() - t;
-        this.timeInterBandBF += t;
+        FiniteAutomaton rBF;
+        List<Pair<Word, Word>> common;
+        try(Profiler.Phase phase = options.stats.profiler.start("B(F) & B", p -> timeInterBandBF += p.getMillis())) {
+            rBF = UtilInclusion.toRABITNBA(BF);
+            common = getCommonWords(BF, rBF, B, rB, bound);
+        }
         if(options.verbose) {
             options.log.println("Hypothesis for complementation B");
             options.log.println(BF.toString());
         }
-        Word prefix = null;
-        Word suffix = null;
-        boolean isEq = false, isInTarget = false;
-        if(! isEmpty) {
-            // we have omega word in FDFA which should not be there
-            checker.computePath();
-            Pair<Word, Word> pair = getCounterexample(checker.getPrefix(), checker.getSuffix());
-            prefix = pair.getLeft();
-            suffix = pair.getRight();
-            isEq = false;
-            isInTarget = true;
+        List<Query<HashableValue>> queries = new ArrayList<>();
+        if(! common.isEmpty()) {
+            // we have omega words in FDFA which should not be there
+            for(Pair<Word, Word> word : common) {
+                queries.add(getQuery(word.getLeft(), word.getRight(), false, true));
+            }
         } else {
             Automaton dkBFC = FDFAOperations.buildNegNBA(hypothesis);
             NBA BFC = NBAOperations.fromDkNBA(dkBFC, alphabet);
             options.log.println("Checking the intersection for B(F) (" + BF.getStateSize() + ") and B(F^c) ("
                     + BFC.getStateSize() + ")...");
             ++this.numInterBFCandBF;
-            t = timer.getCurrentTime();
-            FiniteAutomaton rBFC = UtilInclusion.toRABITNBA(BFC);
-            checker = new IntersectionCheck(rBFC, rBF);
-            isEmpty = checker.checkEmptiness();
-            t = timer.getCurrentTime() - t;
-            this.timeInterBFCandBF += t;
+            FiniteAutomaton rBFC;
+            try(Profiler.Phase phase = options.stats.profiler.start("B(F^c) & B(F)", p -> timeInterBFCandBF += p.getMillis())) {
+                rBFC = UtilInclusion.toRABITNBA(BFC);
+                common = getCommonWords(BFC, rBFC, BF, rBF, bound);
+            }
 
-            if (!isEmpty) {
-                // we have found counterexample now
-                checker.computePath();
-                Pair<Word, Word> pair = getCounterexample(checker.getPrefix(), checker.getSuffix());
-                prefix = pair.getLeft();
-                suffix = pair.getRight();
-                isEq = false;
-                isInTarget = NBAOperations.accepts(B, prefix, suffix);
+            if (! common.isEmpty()) {
+                // we have found counterexamples now
+                for(Pair<Word, Word> word : common) {
+                    boolean isInTarget = NBAOperations.accepts(B, word.getLeft(), word.getRight());
+                    queries.add(getQuery(word.getLeft(), word.getRight(), false, isInTarget));
+                }
             } else {
                 // we have to resort to the equivalence check for hypothesisNotA
                 ++this.numBFCLessB;
@@ -172,63 +213,35 @@ public class TeacherNBAComplement implements Teacher<FDFA, Query<HashableValue>,
                     options.log.println("B(F^c): \n" + BFC.toString());
                 }
                 // by sampler
-                boolean hasCE = false;
+                Query<HashableValue> ceQuery = null;
                 
                 if(sampling) {
                     options.log.println("Sampling for a counterexample to the inclusion...");
                     SamplerIndexedMonteCarlo sampler = new SamplerIndexedMonteCarlo(options.epsilon, options.delta);
                     sampler.K = B.getStateSize();
-                    Query<HashableValue> ceQuery = NBAInclusionSampler.isIncluded(BFC, B, sampler);
-                    if (ceQuery != null) {
-                        prefix = ceQuery.getPrefix();
-                        suffix = ceQuery.getSuffix();
-                        isInTarget = false;
-                        isEq = false;
-                        hasCE = true;
-                    }
+                    ceQuery = NBAInclusionSampler.isIncluded(BFC, B, sampler);
                 }
                 
-                if(! hasCE) {
+                if(ceQuery != null) {
+                    queries.add(getQuery(ceQuery.getPrefix(), ceQuery.getSuffix(), false, false));
+                }else {
                     // by rabit
                     options.log.println("RABIT for a counterexample to the inclusion...");
-                    t = timer.getCurrentTime();
-                    boolean isIncluded = RABIT.isIncludedPar(rBFC, rB);
-                    t = timer.getCurrentTime() - t;
-                    this.timeBFCLessB += t;
-                    String prefixStr = RABIT.getPrefix();
-                    String suffixStr = RABIT.getSuffix();
-                    if (isIncluded) {
-                        isEq = true;
+                    Pair<Word, Word> word;
+                    try(Profiler.Phase phase = options.stats.profiler.start("B(F^c) <= B", p -> timeBFCLessB += p.getMillis())) {
+                        word = UtilRABIT.isIncludedPar(alphabet, rBFC, rB);
+                    }
+                    if (word == null) {
+                        queries.add(getQuery(alphabet.getEmptyWord(), alphabet.getEmptyWord(), true, false));
                     } else {
-                        isInTarget = false;
-                        // check whether it is in A
-                        prefix = alphabet.getWordFromString(prefixStr);
-                        suffix = alphabet.getWordFromString(suffixStr);
-                        isEq = false;
+                        queries.add(getQuery(word.getLeft(), word.getRight(), false, false));
                     }
                 }
             }
         }
         
         options.log.println("Done for checking equivalence...");
-        Query<HashableValue> query = null;
-        isInTarget = ! isInTarget;
-        
-        if(isEq) {
-            query = new QuerySimple<>(alphabet.getEmptyWord(), alphabet.getEmptyWord());
-            query.answerQuery(new HashableValueBooleanExactPair(true, true));
-        }else {
-            query = new QuerySimple<>(prefix, suffix);
-            query.answerQuery(new HashableValueBooleanExactPair(false, isInTarget));
-        }
-        
-        timer.stop();
-        options.stats.timeOfEquivalenceQuery += timer.getTimeElapsed();
-        ++ options.stats.numOfEquivalenceQuery;
-        options.stats.timeOfLastEquivalenceQuery = timer.getTimeElapsed();
-        
-        if(options.verbose) System.out.println("counter example = " + query);
-        return query;
+        return queries;
     }
     
     public void print() {
@@ -0,0 +1,46 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.main.inclusion;
+
+import roll.util.Pair;
+import roll.words.Word;
+
+/**
+ * Thrown by the teacher when a membership query already witnesses that
+ * L(A) is not included in L(B), to leave the learner in the middle of a
+ * refinement.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+class CounterexampleFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+    
+    private final Pair<Word, Word> counterexample;
+    
+    CounterexampleFoundException(Pair<Word, Word> counterexample) {
+        super(null, null, false, false);
+        this.counterexample = counterexample;
+    }
+    
+    Pair<Word, Word> getCounterexample() {
+        return counterexample;
+    }
+
+}
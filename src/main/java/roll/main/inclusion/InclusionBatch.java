@@ -0,0 +1,146 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.main.inclusion;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import roll.main.Options;
+import roll.util.Pair;
+
+/**
+ * Batch mode of the inclusion check: reads a manifest with one pair of
+ * automata "A B" per line and checks them on a pool of workers in the same
+ * JVM, so the start-up and the warm-up of the JVM are only paid once.
+ * 
+ * Every result is written as soon as it is known, as one tab separated line
+ * A, B, verdict, deciding stage, time in ms and the counterexample if any.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class InclusionBatch {
+    
+    // relative paths in the manifest are relative to the manifest, # starts a comment
+    public static List<Pair<String, String>> readManifest(String manifest) throws IOException {
+        File dir = new File(manifest).getAbsoluteFile().getParentFile();
+        List<Pair<String, String>> pairs = new ArrayList<>();
+        int lineNr = 0;
+        for(String line : Files.readAllLines(new File(manifest).toPath(), StandardCharsets.UTF_8)) {
+            lineNr ++;
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")) continue;
+            String[] files = line.split("\\s+");
+            if(files.length != 2) {
+                throw new IOException("Line " + lineNr + " of " + manifest + " is not a pair of automata");
+            }
+            pairs.add(new Pair<>(resolve(dir, files[0]), resolve(dir, files[1])));
+        }
+        return pairs;
+    }
+    
+    private static String resolve(File dir, String file) {
+        File result = new File(file);
+        if(! result.isAbsolute()) result = new File(dir, file);
+        return result.getPath();
+    }
+    
+    public static void execute(Options options) {
+        List<Pair<String, String>> pairs;
+        try {
+            pairs = readManifest(options.batchFile);
+        }catch(IOException e) {
+            throw new UncheckedIOException("Failed to read manifest " + options.batchFile, e);
+        }
+        // the files of a single run would be shared by all checks
+        Options template = options.copy(options.log.getOutputStream());
+        template.checkpointFile = null;
+        template.resume = false;
+        template.membershipStore = null;
+        template.traceFile = null;
+        template.replayFile = null;
+        template.metricsFile = null;
+        InclusionChecker checker = new InclusionChecker(template);
+        
+        PrintStream out = new PrintStream(options.log.getOutputStream(), true);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, options.numOfJobs), runnable -> {
+            Thread thread = new Thread(runnable, "roll-inclusion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Pair<InclusionResult.Verdict, String>> results = new ExecutorCompletionService<>(pool);
+        for(Pair<String, String> pair : pairs) {
+            results.submit(() -> check(checker, pair.getLeft(), pair.getRight()));
+        }
+        int numOfIncluded = 0, numOfNotIncluded = 0, numOfUnknown = 0, numOfFailed = 0;
+        try {
+            for(int i = 0; i < pairs.size(); i ++) {
+                Pair<InclusionResult.Verdict, String> line = results.take().get();
+                if(line.getLeft() == null) numOfFailed ++;
+                else if(line.getLeft() == InclusionResult.Verdict.INCLUDED) numOfIncluded ++;
+                else if(line.getLeft() == InclusionResult.Verdict.NOT_INCLUDED) numOfNotIncluded ++;
+                else numOfUnknown ++;
+                out.println(line.getRight());
+            }
+        }catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }catch(ExecutionException e) {
+            // the checks report their own failures, so this is a bug
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+            if(e.getCause() instanceof Error) throw (Error)e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }finally {
+            pool.shutdownNow();
+        }
+        options.log.info("Checked " + pairs.size() + " pairs: " + numOfIncluded + " included, "
+                + numOfNotIncluded + " not included, "
+                + numOfUnknown + " unknown, " + numOfFailed + " failed");
+    }
+    
+    // a failed check is reported in its line without verdict, the others go on
+    private static Pair<InclusionResult.Verdict, String> check(InclusionChecker checker, String fileA, String fileB) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(fileA + "\t" + fileB + "\t");
+        InclusionResult.Verdict verdict = null;
+        try {
+            InclusionResult result = checker.check(fileA, fileB);
+            verdict = result.getVerdict();
+            builder.append(result.getVerdict() + "\t" + result.getStage() + "\t" + result.getTimeInTotal());
+            Pair<List<String>, List<String>> labels = result.getCounterexampleLabels();
+            if(labels != null) {
+                builder.append("\t" + String.join(" ", labels.getLeft())
+                        + "\t" + String.join(" ", labels.getRight()));
+            }
+        }catch(RuntimeException e) {
+            builder.append("ERROR\t" + e);
+        }
+        return new Pair<>(verdict, builder.toString());
+    }
+
+}
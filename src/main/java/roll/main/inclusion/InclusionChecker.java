@@ -0,0 +1,67 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.main.inclusion;
+
+import java.io.OutputStream;
+
+import roll.main.Options;
+import roll.parser.UtilParser;
+
+/**
+ * Checks the inclusion L(A) <= L(B) for many pairs of automata in the same JVM.
+ * 
+ * Every check runs with its own copy of the given options, log and statistics,
+ * so a checker can be used by several threads at the same time.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class InclusionChecker {
+    
+    // the output of a check if no output is given
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    
+    private final Options options;
+    
+    public InclusionChecker(Options options) {
+        assert options != null;
+        this.options = options;
+    }
+    
+    public InclusionResult check(String fileA, String fileB) {
+        return check(fileA, fileB, DISCARD);
+    }
+    
+    // the log of the check is written to out
+    public InclusionResult check(String fileA, String fileB, OutputStream out) {
+        Options copy = options.copy(out);
+        copy.runningMode = Options.RunningMode.INCLUDING;
+        copy.inputA = fileA;
+        copy.inputB = fileB;
+        copy.format = UtilParser.getFormat(fileA, fileB);
+        return NBAInclusionCheck.check(copy);
+    }
+
+}
@@ -0,0 +1,100 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.main.inclusion;
+
+import java.util.List;
+
+import roll.main.Statistics;
+import roll.util.Pair;
+import roll.words.Word;
+
+/**
+ * Outcome of checking whether L(A) is included in L(B)
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class InclusionResult {
+    
+    public static enum Verdict {
+        INCLUDED,
+        NOT_INCLUDED,
+        // the budget ran out before any stage could decide
+        UNKNOWN
+    }
+    
+    private final Verdict verdict;
+    private final Pair<Word, Word> counterexample;
+    // labels of the letters of the counterexample in the input files
+    private final Pair<List<String>, List<String>> labels;
+    private final String stage;
+    private final Statistics stats;
+    
+    public InclusionResult(Verdict verdict, Pair<Word, Word> counterexample
+            , Pair<List<String>, List<String>> labels, String stage, Statistics stats) {
+        assert verdict != null && stage != null && stats != null;
+        assert (counterexample == null) == (labels == null);
+        this.verdict = verdict;
+        this.counterexample = counterexample;
+        this.labels = labels;
+        this.stage = stage;
+        this.stats = stats;
+    }
+    
+    public Verdict getVerdict() {
+        return verdict;
+    }
+    
+    public boolean isIncluded() {
+        return verdict == Verdict.INCLUDED;
+    }
+    
+    // a word u v^w in L(A) but not in L(B), null if included or not reported by the deciding stage
+    public Pair<Word, Word> getCounterexample() {
+        return counterexample;
+    }
+    
+    public Pair<List<String>, List<String>> getCounterexampleLabels() {
+        return labels;
+    }
+    
+    // the stage of the check which decided the inclusion, or ran out of budget if unknown
+    public String getStage() {
+        return stage;
+    }
+    
+    public Statistics getStatistics() {
+        return stats;
+    }
+    
+    public long getTimeInTotal() {
+        return stats.timeInTotal;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(verdict + " by " + stage + " in " + stats.timeInTotal + " ms");
+        if(counterexample != null) {
+            builder.append(", counterexample (" + String.join(" ", labels.getLeft())
+                + ", " + String.join(" ", labels.getRight()) + ")");
+        }
+        return builder.toString();
+    }
+
+}
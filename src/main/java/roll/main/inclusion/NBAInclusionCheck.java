@@ -16,26 +16,42 @@
 
 package roll.main.inclusion;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
 import automata.FiniteAutomaton;
 import automata.IBuchi;
 import operation.isincluded.IsIncludedExplore;
 import oracle.EmptinessChecker;
+import roll.automata.FDFA;
 import roll.automata.NBA;
 import roll.automata.operations.NBAEmptinessCheck;
+import roll.automata.operations.NBAIntersectionCheckCNDFS;
 import roll.automata.operations.NBALasso;
 import roll.automata.operations.NBAOperations;
 import roll.learner.fdfa.LearnerFDFA;
 import roll.learner.nba.lomega.UtilLOmega;
 import roll.learner.nba.lomega.translator.Translator;
 import roll.learner.nba.lomega.translator.TranslatorFDFAUnder;
+import roll.main.MetricsExporter;
 import roll.main.Options;
+import roll.main.UsageException;
+import roll.oracle.MembershipStore;
+import roll.oracle.Teacher;
+import roll.oracle.TeacherCheckpoint;
+import roll.oracle.TeacherMembershipStore;
+import roll.oracle.TeacherTraceRecorder;
 import roll.oracle.nba.sampler.SamplerIndexedMonteCarlo;
 import roll.parser.PairParser;
 import roll.parser.UtilParser;
 import roll.query.Query;
 import roll.table.HashableValue;
 import roll.table.HashableValueBoolean;
+import roll.util.Budget;
 import roll.util.Pair;
+import roll.util.Profiler;
 import roll.util.Timer;
 import roll.util.sets.ISet;
 import roll.util.sets.UtilISet;
@@ -60,6 +76,11 @@ public class NBAInclusionCheck {
     }
     
     public static void execute(Options options) {
+        check(options);
+    }
+    
+    // check whether L(A) <= L(B) for the input files given in the options
+    public static InclusionResult check(Options options) {
         options.epsilon = 0.0018;
         options.delta = 0.0001;
         
@@ -68,37 +89,123 @@ public class NBAInclusionCheck {
         }
         Timer timer = new Timer();
         timer.start();
-        PairParser parser = UtilParser.prepare(options, options.inputA, options.inputB, options.format);
+        // the total budget counts from the start of the check
+        long deadline = options.timeBudget > 0 ? System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(options.timeBudget) : Long.MAX_VALUE;
+        PairParser parser;
+        try(Profiler.Phase stage = options.stats.profiler.start("parse")) {
+            parser = UtilParser.prepare(options, options.inputA, options.inputB, options.format);
+        }
+        InclusionResult result;
+        try {
+            result = check(options, parser, timer, deadline);
+        }finally {
+            parser.close();
+        }
+        // all stages are closed by now
+        options.stats.printProfile();
+        return result;
+    }
+    
+    // every stage which decides the inclusion stops here
+    private static InclusionResult finish(Options options, PairParser parser, Timer timer
+            , InclusionResult.Verdict verdict, Pair<Word, Word> counterexample, String stage) {
+        timer.stop();
+        options.stats.timeInTotal = timer.getTimeElapsed();
+        options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
+        return getResult(options, parser, verdict, counterexample, stage);
+    }
+    
+    // a stage has its own time budget as long as the total one lasts
+    private static Budget getBudget(Options options, long deadline) {
+        long nanos = deadline == Long.MAX_VALUE ? 0 : Math.max(1, deadline - System.nanoTime());
+        if(options.stageTimeBudget > 0) {
+            long stageNanos = TimeUnit.MILLISECONDS.toNanos(options.stageTimeBudget);
+            nanos = nanos > 0 ? Math.min(nanos, stageNanos) : stageNanos;
+        }
+        return new Budget(nanos, options.heapBudget);
+    }
+    
+    // no verdict within the budget, the statistics so far are kept
+    private static InclusionResult giveUp(Options options, PairParser parser, Timer timer
+            , String exceeded, String stage) {
+        options.log.println("Unknown, out of " + exceeded + " in " + stage);
+        return finish(options, parser, timer, InclusionResult.Verdict.UNKNOWN, null, stage);
+    }
+    
+    // cancellations not caused by the budget, like a shutdown, are passed on
+    private static String getExceeded(Budget budget, CancellationException e) {
+        budget.close();
+        if(! budget.isExceeded()) throw e;
+        return budget.getExceeded();
+    }
+    
+    private static boolean isTimeOut(long deadline) {
+        return System.nanoTime() >= deadline;
+    }
+    
+    private static InclusionResult getResult(Options options, PairParser parser
+            , InclusionResult.Verdict verdict, Pair<Word, Word> counterexample, String stage) {
+        Pair<List<String>, List<String>> labels = null;
+        if(counterexample != null) {
+            labels = new Pair<>(getLabels(parser, counterexample.getLeft())
+                    , getLabels(parser, counterexample.getRight()));
+        }
+        return new InclusionResult(verdict, counterexample, labels, stage, options.stats);
+    }
+    
+    private static List<String> getLabels(PairParser parser, Word word) {
+        List<String> labels = new ArrayList<>(word.length());
+        for(int i = 0; i < word.length(); i ++) {
+            labels.add(parser.getLabel(parser.getA(), word.getLetter(i)));
+        }
+        return labels;
+    }
+    
+    // stages run from the cheapest to the most expensive one, each under its budget
+    private static InclusionResult check(Options options, PairParser parser, Timer timer, long deadline) {
         NBA A = parser.getA();
         NBA B = parser.getB();
         int transA = NBAOperations.getNumberOfTransitions(A);
         int transB = NBAOperations.getNumberOfTransitions(B);
         options.log.println("Aut A : # of Trans. "+ transA +", # of States "+ A.getStateSize() + ".");
         options.log.println("Aut B : # of Trans. "+ transB +", # of States "+ B.getStateSize() +".");
-        A = NBAOperations.removeDeadStates(A);
-        if (A.getFinalStates().isEmpty()) {
-            options.log.println("Included");
-            timer.stop();
-            options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-            System.exit(0);
-        }
-        B = NBAOperations.removeDeadStates(B);
-        if (B.getFinalStates().isEmpty()) {
-            ISet allStates = UtilISet.newISet();
-            for(int i = 0; i < A.getStateSize(); i ++) {
-                allStates.set(i);
+        Budget budget = getBudget(options, deadline);
+        try(Profiler.Phase stage = options.stats.profiler.start("preprocess")) {
+            A = NBAOperations.removeDeadStates(A);
+            if (A.getFinalStates().isEmpty()) {
+                options.log.println("Included");
+                return finish(options, parser, timer, InclusionResult.Verdict.INCLUDED, null, "preprocess");
             }
-            NBAEmptinessCheck checker = new NBAEmptinessCheck(A, A.getFinalStates(), allStates);
-            boolean empty = checker.isEmpty();
-            if (!empty) {
-                checker.findpath();
-                Pair<Word, Word> pair = checker.getCounterexample();
-                printCounterexample(options, parser, pair);
-                parser.close();
-                timer.stop();
-                options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-                System.exit(0);
+            B = NBAOperations.removeDeadStates(B);
+            if (B.getFinalStates().isEmpty()) {
+                ISet allStates = UtilISet.newISet();
+                for(int i = 0; i < A.getStateSize(); i ++) {
+                    allStates.set(i);
+                }
+                NBAIntersectionCheckCNDFS parChecker = null;
+                if(options.numOfEmptinessWorkers > 1) {
+                    // B is empty, check emptiness of A alone
+                    parChecker = new NBAIntersectionCheckCNDFS(A, null, options.numOfEmptinessWorkers);
+                }
+                NBAEmptinessCheck checker = parChecker != null ? null : new NBAEmptinessCheck(A, A.getFinalStates(), allStates);
+                boolean empty = parChecker != null ? parChecker.isEmpty() : checker.isEmpty();
+                if (!empty) {
+                    Pair<Word, Word> pair;
+                    if(parChecker != null) {
+                        pair = parChecker.getCounterexample();
+                    }else {
+                        checker.findpath();
+                        pair = checker.getCounterexample();
+                    }
+                    printCounterexample(options, parser, pair);
+                    return finish(options, parser, timer, InclusionResult.Verdict.NOT_INCLUDED, pair, "preprocess");
+                }
             }
+        }catch(CancellationException e) {
+            return giveUp(options, parser, timer, getExceeded(budget, e), "preprocess");
+        }finally {
+            budget.close();
         }
         
         // now we are ready to replace the symbols on the transitions
@@ -111,37 +218,48 @@ public class NBAInclusionCheck {
         long num = sampler.getSampleSize();
         sampler.setNBA(A);
         options.log.println("Trying " + num + " samples from A automaton...");
-        for (int i = 0; i < num; i++) {
-            Pair<Pair<Word, Word>, Boolean> result = sampler.getRandomLasso();
-            Pair<Word, Word> word = result.getLeft();
-            boolean needCheck = false;
-            if (result.getRight()) {
-                needCheck = true;
-            } else {
-                needCheck = NBAOperations.accepts(A, word.getLeft(), word.getRight());
-            }
-            if (needCheck) {
-                boolean acc = NBAOperations.accepts(B, word.getLeft(), word.getRight());
-                if (!acc) {
-                    printCounterexample(options, parser, word);
-                    parser.close();
-                    timer.stop();
-                    options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-                    System.exit(0);
+        budget = getBudget(options, deadline);
+        try(Profiler.Phase stage = options.stats.profiler.start("sampling")) {
+            for (int i = 0; i < num; i++) {
+                Budget.checkInterrupted("sampling");
+                Pair<Pair<Word, Word>, Boolean> result = sampler.getRandomLasso();
+                Pair<Word, Word> word = result.getLeft();
+                boolean needCheck = false;
+                if (result.getRight()) {
+                    needCheck = true;
+                } else {
+                    needCheck = NBAOperations.accepts(A, word.getLeft(), word.getRight());
+                }
+                if (needCheck) {
+                    boolean acc = NBAOperations.accepts(B, word.getLeft(), word.getRight());
+                    if (!acc) {
+                        printCounterexample(options, parser, word);
+                        return finish(options, parser, timer, InclusionResult.Verdict.NOT_INCLUDED, word, "sampling");
+                    }
                 }
             }
+        }catch(CancellationException e) {
+            // sampling only looks for counterexamples, the next stages may still decide
+            String exceeded = getExceeded(budget, e);
+            if(isTimeOut(deadline)) return giveUp(options, parser, timer, exceeded, "sampling");
+            options.log.println("Sampling stopped, out of " + exceeded);
+        }finally {
+            budget.close();
         }
+        
+        // RABIT cannot be interrupted, so its stages only start within the total budget
+        if(isTimeOut(deadline)) return giveUp(options, parser, timer, "time", "simulation");
 
         options.log.println("Start using Forward/Delayed simulation algorithm to prove inclusion...");
         FiniteAutomaton aut1 = UtilInclusion.toRABITNBA(A);
         FiniteAutomaton aut2 = UtilInclusion.toRABITNBA(B);
-        Pair<Boolean, Pair<FiniteAutomaton, FiniteAutomaton>> pair = UtilInclusion.lightPrepocess(aut1, aut2);
+        Pair<Boolean, Pair<FiniteAutomaton, FiniteAutomaton>> pair;
+        try(Profiler.Phase stage = options.stats.profiler.start("simulation")) {
+            pair = UtilInclusion.lightPrepocess(aut1, aut2);
+        }
         if (pair.getLeft()) {
             options.log.println("Included");
-            parser.close();
-            timer.stop();
-            options.log.println("Total checking time: " + timer.getTimeElapsed() / 1000.0 + " secs");
-            System.exit(0);
+            return finish(options, parser, timer, InclusionResult.Verdict.INCLUDED, null, "simulation");
         }
         aut1 = pair.getRight().getLeft();
         aut2 = pair.getRight().getRight();
@@ -150,13 +268,14 @@ public class NBAInclusionCheck {
         options.log.println(
                 "Aut B (after similation) : # of Trans. " + aut2.trans + ", # of States " + aut2.states.size() + ".");
         // now we use minimization
+        if(isTimeOut(deadline)) return giveUp(options, parser, timer, "time", "minimization");
         options.log.println("Start using minimization algorithm to prove inclusion...");
-        pair = UtilInclusion.prepocess(aut1, aut2);
+        try(Profiler.Phase stage = options.stats.profiler.start("minimization")) {
+            pair = UtilInclusion.prepocess(aut1, aut2);
+        }
         if (pair.getLeft()) {
             options.log.println("Included");
-            timer.stop();
-            options.log.println("Total checking time: " + timer.getTimeElapsed() / 1000.0 + " secs");
-            System.exit(0);
+            return finish(options, parser, timer, InclusionResult.Verdict.INCLUDED, null, "minimization");
         }
         aut1 = pair.getRight().getLeft();
         aut2 = pair.getRight().getRight();
@@ -169,30 +288,65 @@ public class NBAInclusionCheck {
         B = UtilInclusion.toNBA(aut2, alphabet);
         
         boolean isSemiDet = NBAOperations.isSemideterministic(B);
+        if(isTimeOut(deadline)) return giveUp(options, parser, timer, "time", isSemiDet ? "NCSB" : "learning");
         if(isSemiDet) {
-            boolean result = runNCSBComplement(options, parser, A, B);
+            boolean result;
+            try(Profiler.Phase stage = options.stats.profiler.start("NCSB")) {
+                result = runNCSBComplement(options, parser, A, B);
+            }
             if(result) {
                 options.log.println("Included");
             }
-            timer.stop();
-            options.log.println("Total checking time: " + timer.getTimeElapsed() / 1000.0 + " secs");
-            System.exit(0);
+            return finish(options, parser, timer, result ? InclusionResult.Verdict.INCLUDED
+                    : InclusionResult.Verdict.NOT_INCLUDED, null, "NCSB");
         }
 
         options.log.println("Start using learning algorithm to prove inclusion...");
         // learning algorithm
-        TeacherNBAInclusion teacher = new TeacherNBAInclusion(options, parser, A, B);
-        LearnerFDFA learner = UtilLOmega.getLearnerFDFA(options, alphabet, teacher);
+        TeacherNBAInclusion teacherNBA = new TeacherNBAInclusion(options, parser, A, B);
+        try(Profiler.Phase stage = options.stats.profiler.start("learning");
+            MembershipStore store = MembershipStore.open(options);
+            TeacherTraceRecorder<FDFA> teacher = TeacherTraceRecorder.prepare(options, alphabet
+                    , TeacherCheckpoint.prepare(options, alphabet
+                    , TeacherMembershipStore.prepare(options, teacherNBA, store, MembershipStore.getFingerprint("inclusion", A, B))));
+            MetricsExporter metrics = MetricsExporter.prepare(options)) {
+            LearnerFDFA learner = UtilLOmega.getLearnerFDFA(options, alphabet, teacher);
+            budget = getBudget(options, deadline);
+            try {
+                learn(options, learner, teacher, metrics);
+            }catch(CounterexampleFoundException e) {
+                // a membership query has found a word in A but not in B
+                return finish(options, parser, timer, InclusionResult.Verdict.NOT_INCLUDED, e.getCounterexample(), "learning");
+            }catch(CancellationException e) {
+                String exceeded = getExceeded(budget, e);
+                teacherNBA.print();
+                return giveUp(options, parser, timer, exceeded, "learning");
+            }finally {
+                budget.close();
+            }
+        }
+        timer.stop();
+        options.stats.timeInTotal = timer.getTimeElapsed();
+        options.log.println("Learning completed...");
+        teacherNBA.print();
+        options.stats.print();
+        Pair<Word, Word> counterexample = teacherNBA.getCounterexample();
+        return getResult(options, parser, counterexample == null ? InclusionResult.Verdict.INCLUDED
+                : InclusionResult.Verdict.NOT_INCLUDED, counterexample, "learning");
+    }
+    
+    private static void learn(Options options, LearnerFDFA learner
+            , Teacher<FDFA, Query<HashableValue>, HashableValue> teacher, MetricsExporter metrics) {
         // learning loop
         options.log.println("Start learning...");
-        long t = timer.getCurrentTime();
-        learner.startLearning();
-        t = timer.getCurrentTime() - t;
-        options.stats.timeOfLearner += t;
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEARNER, options.stats::addLearnerTime)) {
+            learner.startLearning();
+        }
         boolean result = false;
         while(! result ) {
             if(options.verbose) options.log.println("learner output: " + learner.toString());
             Query<HashableValue> query = teacher.answerEquivalenceQuery(learner.getHypothesis());
+            metrics.record(options.stats.hypothesis, learner.getHypothesis());
             // get out of the loop
             HashableValue answer = query.getQueryAnswer();
             if(answer.getLeft().equals(true)) {
@@ -201,32 +355,34 @@ public class NBAInclusionCheck {
             // lazy equivalence check is implemented here
             Translator translator = new TranslatorFDFAUnder(learner);
             query.answerQuery(new HashableValueBoolean(answer.getRight()));
-            translator.setQuery(query);
+            try(Profiler.Phase phase = options.stats.profiler.start(Profiler.TRANSLATOR, options.stats::addTranslatorTime)) {
+                translator.setQuery(query);
+            }
             while(translator.canRefine()) {
-                Query<HashableValue> ceQuery = translator.translate();
-                t = timer.getCurrentTime();
-                learner.refineHypothesis(ceQuery);
-                t = timer.getCurrentTime() - t;
-                options.stats.timeOfLearner += t;
+                Query<HashableValue> ceQuery;
+                try(Profiler.Phase phase = options.stats.profiler.start(Profiler.TRANSLATOR, options.stats::addTranslatorTime)) {
+                    ceQuery = translator.translate();
+                }
+                try(Profiler.Phase phase = options.stats.profiler.start(Profiler.LEARNER, options.stats::addLearnerTime)) {
+                    learner.refineHypothesis(ceQuery);
+                }
                 if(options.verbose) options.log.println("learner output: " + learner.toString());
                 // if do not set lazy eq check or it is learnerBuechi
                 if(options.optimization != Options.Optimization.LAZY_EQ) break;
             }
         }
-        parser.close();
-        timer.stop();
-        options.stats.timeInTotal = timer.getTimeElapsed();
-        options.log.println("Learning completed...");
-        teacher.print();
-        options.stats.print();
     }
     
     private static boolean runNCSBComplement(Options options, PairParser parser, NBA A, NBA B) {
         options.log.println("Start using NCSB algorithm to prove inclusion...");
         IBuchi bA = UtilInclusion.toBuchiNBA(A);
         IBuchi bB = UtilInclusion.toBuchiNBA(B);
-        IsIncludedExplore checker = new IsIncludedExplore(bA, bB);
-        boolean result = checker.isIncluded();
+        boolean result;
+        // the settings of the NCSB library are static as well
+        synchronized(IsIncludedExplore.class) {
+            IsIncludedExplore checker = new IsIncludedExplore(bA, bB);
+            result = checker.isIncluded();
+        }
         if(!result) {
             // not likely to happen
             options.log.println("Not included");
@@ -247,14 +403,18 @@ public class NBAInclusionCheck {
         options.algorithm = Options.Algorithm.RECURRENT;
         options.structure = Options.Structure.TABLE;
         // parse input arguments
-        for(int i = 0; i < args.length; i ++) {
-            if(args[i].compareTo("-h")==0) {
+        try {
+            for(int i = 0; i < args.length; i ++) {
+                if(args[i].compareTo("-h")==0) {
+                    helper(options);
+                }
+            }
+            
+            if(args.length < 2) {
                 helper(options);
             }
-        }
-        
-        if(args.length < 2) {
-            helper(options);
+        }catch(UsageException e) {
+            return;
         }
 
         // for learning
@@ -308,7 +468,7 @@ public class NBAInclusionCheck {
             options.log.println("Included");
             timer.stop();
             options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-            System.exit(0);
+            return;
         }
         boolean isEmpty2 = UtilInclusion.removeDeadStates(aut2);
         if (isEmpty2 && !isEmpty1) {
@@ -321,7 +481,7 @@ public class NBAInclusionCheck {
                 options.log.println("suffix: " + checker.getWordFinder().getWordSuffix());
                 timer.stop();
                 options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-                System.exit(0);
+                return;
             }
         }
         // restructure the automata
@@ -370,7 +530,7 @@ public class NBAInclusionCheck {
                     options.log.println("");
                     timer.stop();
                     options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-                    System.exit(0);
+                    return;
                 }
             }
         }
@@ -381,7 +541,7 @@ public class NBAInclusionCheck {
             options.log.println("Included");
             timer.stop();
             options.log.println("Total checking time: " + timer.getTimeElapsed() / 1000.0 + " secs");
-            System.exit(0);
+            return;
         }
         aut1 = pair.getRight().getLeft();
         aut2 = pair.getRight().getRight();
@@ -397,7 +557,7 @@ public class NBAInclusionCheck {
             options.log.println("Included");
             timer.stop();
             options.log.println("Total checking time: " + timer.getTimeElapsed() / 1000.0 + " secs");
-            System.exit(0);
+            return;
         }
         aut1 = pair.getRight().getLeft();
         aut2 = pair.getRight().getRight();
@@ -435,7 +595,7 @@ public class NBAInclusionCheck {
         options.log.println("-periodic", indent, "Use peridoc FDFA to learn Omega regular language");
         options.log.println("-recurrent", indent, "Use recurrent FDFA to learn Omega regular language");
         options.log.println("-syntactic", indent, "Use syntactic FDFA to learn Omega regular language");
-        System.exit(0);
+        throw new UsageException();
     }
 
 }
@@ -22,6 +22,7 @@ import roll.automata.NBA;
 import roll.automata.operations.NBAOperations;
 import roll.automata.operations.nba.inclusion.NBAInclusionCheckTool;
 import roll.main.Options;
+import roll.main.UsageException;
 import roll.oracle.nba.sampler.SamplerIndexedMonteCarlo;
 import roll.util.Pair;
 import roll.util.Timer;
@@ -50,14 +51,18 @@ public class NBAInclusionCheckSDBA {
         options.algorithm = Options.Algorithm.RECURRENT;
         options.structure = Options.Structure.TABLE;
         // parse input arguments
-        for(int i = 0; i < args.length; i ++) {
-            if(args[i].compareTo("-h")==0) {
+        try {
+            for(int i = 0; i < args.length; i ++) {
+                if(args[i].compareTo("-h")==0) {
+                    helper(options);
+                }
+            }
+            
+            if(args.length < 2) {
                 helper(options);
             }
-        }
-        
-        if(args.length < 2) {
-            helper(options);
+        }catch(UsageException e) {
+            return;
         }
 
         // for learning
@@ -111,7 +116,7 @@ public class NBAInclusionCheckSDBA {
             options.log.println("Included");
             timer.stop();
             options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-            System.exit(0);
+            return;
         }
         boolean isEmpty2 = UtilInclusion.removeDeadStates(aut2);
         if (isEmpty2 && !isEmpty1) {
@@ -124,7 +129,7 @@ public class NBAInclusionCheckSDBA {
                 options.log.println("suffix: " + checker.getWordFinder().getWordSuffix());
                 timer.stop();
                 options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-                System.exit(0);
+                return;
             }
         }
         aut1 = UtilInclusion.copyAutomaton(aut1);
@@ -172,7 +177,7 @@ public class NBAInclusionCheckSDBA {
                     options.log.println("");
                     timer.stop();
                     options.log.println("Total checking time: " + timer.getTimeElapsed()/ 1000.0 + " secs");
-                    System.exit(0);
+                    return;
                 }
             }
         }
@@ -185,7 +190,7 @@ public class NBAInclusionCheckSDBA {
             options.log.println("Included");
             timer.stop();
             options.log.println("Total checking time: " + timer.getTimeElapsed() / 1000.0 + " secs");
-            System.exit(0);
+            return;
         }
         aut1 = pair.getRight().getLeft();
         aut2 = pair.getRight().getRight();
@@ -200,7 +205,7 @@ public class NBAInclusionCheckSDBA {
             options.log.println("Included");
             timer.stop();
             options.log.println("Total checking time: " + timer.getTimeElapsed() / 1000.0 + " secs");
-            System.exit(0);
+            return;
         }
         aut1 = pair.getRight().getLeft();
         aut2 = pair.getRight().getRight();
@@ -252,7 +257,7 @@ public class NBAInclusionCheckSDBA {
         options.log.println("-periodic", indent, "Use peridoc FDFA to learn Omega regular language");
         options.log.println("-recurrent", indent, "Use recurrent FDFA to learn Omega regular language");
         options.log.println("-syntactic", indent, "Use syntactic FDFA to learn Omega regular language");
-        System.exit(0);
+        throw new UsageException();
     }
 
 }
@@ -16,16 +16,22 @@
 
 package roll.main.inclusion;
 
+import java.util.Collections;
+
 import automata.FiniteAutomaton;
 import dk.brics.automaton.Automaton;
-import mainfiles.RABIT;
 import roll.automata.FDFA;
 import roll.automata.NBA;
 import roll.automata.operations.FDFAOperations;
 import roll.automata.operations.NBAIntersectionCheck;
+import roll.automata.operations.NBAIntersectionCheckBDD;
 import roll.automata.operations.NBAOperations;
+import roll.jfr.EquivalenceQueryEvent;
+import roll.jfr.Events;
+import roll.jfr.MembershipQueryEvent;
 import roll.main.Options;
 import roll.oracle.Teacher;
+import roll.oracle.nba.rabit.UtilRABIT;
 import roll.oracle.nba.sampler.NBAInclusionSampler;
 import roll.oracle.nba.sampler.SamplerIndexedMonteCarlo;
 import roll.parser.PairParser;
@@ -34,8 +40,9 @@ import roll.query.QuerySimple;
 import roll.table.HashableValue;
 import roll.table.HashableValueBoolean;
 import roll.table.HashableValueBooleanExactPair;
+import roll.util.Budget;
 import roll.util.Pair;
-import roll.util.Timer;
+import roll.util.Profiler;
 import roll.words.Alphabet;
 import roll.words.Word;
 
@@ -51,6 +58,8 @@ public class TeacherNBAInclusion implements Teacher<FDFA, Query<HashableValue>,
     private final NBA B;
     private final FiniteAutomaton rB;
     private final PairParser parser;
+    // a word in L(A) but not in L(B) once found
+    private Pair<Word, Word> counterexample;
     
     public TeacherNBAInclusion(Options options, PairParser parser, NBA A, NBA B) {
         assert options != null && parser != null && A != null && B != null;
@@ -64,34 +73,34 @@ public class TeacherNBAInclusion implements Teacher<FDFA, Query<HashableValue>,
     
     @Override
     public HashableValue answerMembershipQuery(Query<HashableValue> query) {
-        Timer timer = new Timer();
-        timer.start();
-        
+        Budget.checkInterrupted("learning based inclusion check");
         boolean result;
         Word prefix = query.getPrefix();
         Word suffix = query.getSuffix();
         
         if(suffix.isEmpty()) {
             return new HashableValueBoolean(false);
-        }else {
-            result = NBAOperations.accepts(B, prefix, suffix);
         }
-        
+        MembershipQueryEvent event = Events.AVAILABLE ? new MembershipQueryEvent() : null;
         // if uv is not in B
         boolean terminate = false;
-        if(! result && ! suffix.isEmpty()) {
-            terminate = NBAOperations.accepts(A, prefix, suffix);
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.MEMBERSHIP, options.stats::addMembershipTime)) {
+            phase.recordSize(prefix.length(), suffix.length());
+            result = NBAOperations.accepts(B, prefix, suffix);
+            if(! result && ! suffix.isEmpty()) {
+                terminate = NBAOperations.accepts(A, prefix, suffix);
+            }
         }
-        
-        timer.stop();
-        options.stats.timeOfMembershipQuery += timer.getTimeElapsed();
         ++ options.stats.numOfMembershipQuery; 
         if(terminate) {
-            NBAInclusionCheck.printCounterexample(options, parser, new Pair<>(prefix, suffix));
+            counterexample = new Pair<>(prefix, suffix);
+            NBAInclusionCheck.printCounterexample(options, parser, counterexample);
             options.log.println("Learning completed...");
-            System.exit(0);
+            throw new CounterexampleFoundException(counterexample);
         }
-        return new HashableValueBoolean(!result); // reverse the result for Buechi automaton
+        HashableValue answer = new HashableValueBoolean(!result); // reverse the result for Buechi automaton
+        if(event != null) event.finish(query, answer);
+        return answer;
     }
     
     private int numInterBandBF;
@@ -106,20 +115,47 @@ public class TeacherNBAInclusion implements Teacher<FDFA, Query<HashableValue>,
     private int numBFCLessB;
     private long timeBFCLessB;
 
+    // a word accepted by both automata or null, by the symbolic or the explicit product
+    private Pair<Word, Word> getCommonWord(NBA fst, NBA snd) {
+        if(options.symbolicEmptiness) {
+            NBAIntersectionCheckBDD checker = new NBAIntersectionCheckBDD(fst, snd, true);
+            return checker.getCounterexample();
+        }
+        try(NBAIntersectionCheck checker = new NBAIntersectionCheck(fst, snd, true, options.numOfEmptinessWorkers)) {
+            if(checker.isEmpty()) return null;
+            checker.computePath();
+            return checker.getCounterexample();
+        }
+    }
+
     @Override
     public Query<HashableValue> answerEquivalenceQuery(FDFA hypothesis) {
-        Timer timer = new Timer();
-        timer.start();
+        Budget.checkInterrupted("learning based inclusion check");
+        EquivalenceQueryEvent event = Events.AVAILABLE ? new EquivalenceQueryEvent() : null;
+        Query<HashableValue> query;
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.EQUIVALENCE, options.stats::addEquivalenceTime)) {
+            query = checkEquivalence(hypothesis);
+        }
+        ++ options.stats.numOfEquivalenceQuery;
+        if(event != null) event.finish(options.stats.numOfEquivalenceQuery, hypothesis, Collections.singletonList(query));
+        
+        if(options.verbose) System.out.println("counter example = " + query);
+        return query;
+    }
+    
+    private Query<HashableValue> checkEquivalence(FDFA hypothesis) {
         options.log.println("Translating FDFA to Under Buechi automaton ...");
         Automaton dkBF = FDFAOperations.buildUnderNBA(hypothesis);
         NBA BF = NBAOperations.fromDkNBA(dkBF, alphabet);
+        // record the constructed Buchi automaton
+        options.stats.hypothesis = BF;
         ++ this.numInterBandBF;
         options.log.println("Checking the intersection of BF (" + BF.getStateSize() + ") and B ("+ B.getStateSize() + ")...");
-        long t = timer.getCurrentTime();
-        NBAIntersectionCheck interCheck = new NBAIntersectionCheck(BF, B, true);
-        boolean isEmpty = interCheck.isEmpty();
-        t = timer.getCurrentTime() - t;
-        this.timeInterBandBF += t;
+        Pair<Word, Word> common;
+        try(Profiler.Phase phase = options.stats.profiler.start("B(F) & B", p -> timeInterBandBF += p.getMillis())) {
+            common = getCommonWord(BF, B);
+        }
+        boolean isEmpty = common == null;
         if(options.verbose) {
             options.log.println("Hypothesis for complementation B");
             options.log.println(BF.toString());
@@ -129,8 +165,7 @@ public class TeacherNBAInclusion implements Teacher<FDFA, Query<HashableValue>,
         boolean isEq = false, isInTarget = false;
         if(! isEmpty) {
             // we have omega word in FDFA which should not be there
-            interCheck.computePath();
-            Pair<Word, Word> pair = interCheck.getCounterexample();
+            Pair<Word, Word> pair = common;
             prefix = pair.getLeft();
             suffix = pair.getRight();
             isEq = false;
@@ -139,36 +174,33 @@ public class TeacherNBAInclusion implements Teacher<FDFA, Query<HashableValue>,
             // intersection check for A and B(F)
             ++ this.numInterAandBF;
             options.log.println("Checking the intersection of A (" + A.getStateSize() + ") and B(F) ("+ BF.getStateSize() + ")...");
-            t = timer.getCurrentTime();
-            interCheck = new NBAIntersectionCheck(A, BF, true);
-            isEmpty = interCheck.isEmpty();
-            t = timer.getCurrentTime() - t;
-            this.timeInterAandBF += t;
+            try(Profiler.Phase phase = options.stats.profiler.start("A & B(F)", p -> timeInterAandBF += p.getMillis())) {
+                common = getCommonWord(A, BF);
+            }
+            isEmpty = common == null;
             
             if(! isEmpty) {
                 // we have found counterexample now
-                interCheck.computePath();
-                Pair<Word, Word> pair = interCheck.getCounterexample();
+                Pair<Word, Word> pair = common;
                 prefix = pair.getLeft();
                 suffix = pair.getRight();
                 isEq = true;
-                NBAInclusionCheck.printCounterexample(options, parser, new Pair<>(prefix, suffix));
+                counterexample = new Pair<>(prefix, suffix);
+                NBAInclusionCheck.printCounterexample(options, parser, counterexample);
 
             }else {
                 Automaton dkBFC = FDFAOperations.buildNegNBA(hypothesis);
                 NBA BFC = NBAOperations.fromDkNBA(dkBFC, alphabet);
                 options.log.println("Checking the intersection for B(F) (" + BF.getStateSize() + ") and B(F^c) ("+ BFC.getStateSize() + ")...");
                 ++ this.numInterBFCandBF;
-                t = timer.getCurrentTime();
-                interCheck = new NBAIntersectionCheck(BFC, BF, true);
-                isEmpty = interCheck.isEmpty();
-                t = timer.getCurrentTime() - t;
-                this.timeInterBFCandBF += t;
+                try(Profiler.Phase phase = options.stats.profiler.start("B(F^c) & B(F)", p -> timeInterBFCandBF += p.getMillis())) {
+                    common = getCommonWord(BFC, BF);
+                }
+                isEmpty = common == null;
                 
                 if(! isEmpty) {
                     // we have found counterexample now
-                    interCheck.computePath();
-                    Pair<Word, Word> pair = interCheck.getCounterexample();
+                    Pair<Word, Word> pair = common;
                     prefix = pair.getLeft();
                     suffix = pair.getRight();
                     isEq = false;
@@ -186,6 +218,8 @@ public class TeacherNBAInclusion implements Teacher<FDFA, Query<HashableValue>,
                     SamplerIndexedMonteCarlo sampler = new SamplerIndexedMonteCarlo(options.epsilon, options.delta);
                     sampler.K = B.getStateSize();
                     Query<HashableValue> ceQuery = NBAInclusionSampler.isIncluded(BFC, B, sampler);
+                    // the sampler stops early once interrupted, RABIT would not
+                    Budget.checkInterrupted("learning based inclusion check");
                     
                     if(ceQuery != null) {
                         prefix = ceQuery.getPrefix();
@@ -193,31 +227,31 @@ public class TeacherNBAInclusion implements Teacher<FDFA, Query<HashableValue>,
                         isInTarget = false;
                         boolean isAStr = NBAOperations.accepts(A, prefix, suffix);
                         if(isAStr) {
-                            NBAInclusionCheck.printCounterexample(options, parser, new Pair<>(prefix, suffix));
+                            counterexample = new Pair<>(prefix, suffix);
+                            NBAInclusionCheck.printCounterexample(options, parser, counterexample);
                             isEq = true;
                         }
                     }else {
                         // by rabit
                         options.log.println("RABIT for a counterexample to the inclusion...");
-                        t = timer.getCurrentTime();    
-                        FiniteAutomaton rBFC = UtilInclusion.toRABITNBA(BFC);
-                        boolean isIncluded = RABIT.isIncluded(rBFC, rB);
-                        t = timer.getCurrentTime() - t;
-                        this.timeBFCLessB += t;
-                        String prefixStr = RABIT.getPrefix();
-                        String suffixStr = RABIT.getSuffix();
-                        if(isIncluded) {
+                        Pair<Word, Word> word;
+                        try(Profiler.Phase phase = options.stats.profiler.start("B(F^c) <= B", p -> timeBFCLessB += p.getMillis())) {
+                            FiniteAutomaton rBFC = UtilInclusion.toRABITNBA(BFC);
+                            word = UtilRABIT.isIncluded(alphabet, rBFC, rB);
+                        }
+                        if(word == null) {
                             options.log.println("Included");
                             isEq = true;
                         }else {
                             isInTarget = false;
                             // check whether it is in A
-                            prefix = alphabet.getWordFromString(prefixStr);
-                            suffix = alphabet.getWordFromString(suffixStr);
+                            prefix = word.getLeft();
+                            suffix = word.getRight();
                             boolean isAStr = NBAOperations.accepts(A, prefix, suffix);
                             
                             if(isAStr) {
-                                NBAInclusionCheck.printCounterexample(options, parser, new Pair<>(prefix, suffix));
+                                counterexample = new Pair<>(prefix, suffix);
+                                NBAInclusionCheck.printCounterexample(options, parser, counterexample);
                                 isEq = true;
                             }
                         }
@@ -238,15 +272,14 @@ public class TeacherNBAInclusion implements Teacher<FDFA, Query<HashableValue>,
             query.answerQuery(new HashableValueBooleanExactPair(false, isInTarget));
         }
         
-        timer.stop();
-        options.stats.timeOfEquivalenceQuery += timer.getTimeElapsed();
-        ++ options.stats.numOfEquivalenceQuery;
-        options.stats.timeOfLastEquivalenceQuery = timer.getTimeElapsed();
-        
-        if(options.verbose) System.out.println("counter example = " + query);
         return query;
     }
     
+    // null if L(A) is included in L(B) once the learning has finished
+    public Pair<Word, Word> getCounterexample() {
+        return counterexample;
+    }
+    
     public void print() {
         final int indent = 30;
         options.log.println("#B(F)&B = " + numInterBandBF, indent, "    // #number of B(F) intersection with B");
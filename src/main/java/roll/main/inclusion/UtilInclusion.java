@@ -23,7 +23,6 @@ import java.util.Set;
 import java.util.TreeSet;
 
 import algorithms.Minimization;
-import algorithms.Options;
 import algorithms.Simulation;
 import automata.AutomatonPreprocessingResult;
 import automata.Buchi;
@@ -37,6 +36,7 @@ import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import roll.automata.NBA;
 import roll.automata.StateFA;
+import roll.oracle.nba.rabit.UtilRABIT;
 import roll.util.Pair;
 import roll.util.sets.ISet;
 import roll.words.Alphabet;
@@ -225,23 +225,14 @@ public class UtilInclusion {
     
     public static Pair<Boolean, Pair<FiniteAutomaton, FiniteAutomaton>>
           lightPrepocess(FiniteAutomaton system, FiniteAutomaton spec) {
-        Options.debug = false;
-        Options.fast=true;
-        Options.backward=true;
-        Options.rd=true;
-        Options.fplus=true;
-        Options.SFS=true;
-        Options.qr=true;
-        Options.C1=true;
-        Options.EB=false; // difference to fast. EB must be false to report counterexamples
-        Options.CPT=true;
-        Options.superpruning=true;
-        Options.delayed=true;
-        Options.blamin=true;
-        Options.blasub=true;
-        Options.transient_pruning=true;
-        Options.jumpsim_quotienting=true;
-        Options.verbose=false; // set verbose to true to report counterexample
+        synchronized(UtilRABIT.class) {
+            UtilRABIT.setOptions();
+            return lightPrepocessRABIT(system, spec);
+        }
+    }
+    
+    private static Pair<Boolean, Pair<FiniteAutomaton, FiniteAutomaton>>
+          lightPrepocessRABIT(FiniteAutomaton system, FiniteAutomaton spec) {
         Minimization minimizer = new Minimization();
         Simulation simulation = new Simulation();
         Set<datastructure.Pair<FAState, FAState>> frel, drel;
@@ -260,23 +251,14 @@ public class UtilInclusion {
 
     public static Pair<Boolean, Pair<FiniteAutomaton, FiniteAutomaton>> prepocess(FiniteAutomaton system,
             FiniteAutomaton spec) {
-        Options.debug = false;
-        Options.fast=true;
-        Options.backward=true;
-        Options.rd=true;
-        Options.fplus=true;
-        Options.SFS=true;
-        Options.qr=true;
-        Options.C1=true;
-        Options.EB=false; // difference to fast. EB must be false to report counterexamples
-        Options.CPT=true;
-        Options.superpruning=true;
-        Options.delayed=true;
-        Options.blamin=true;
-        Options.blasub=true;
-        Options.transient_pruning=true;
-        Options.jumpsim_quotienting=true;
-        Options.verbose=false; // set verbose to true to report counterexample
+        synchronized(UtilRABIT.class) {
+            UtilRABIT.setOptions();
+            return prepocessRABIT(system, spec);
+        }
+    }
+    
+    private static Pair<Boolean, Pair<FiniteAutomaton, FiniteAutomaton>> prepocessRABIT(FiniteAutomaton system,
+            FiniteAutomaton spec) {
         Minimization minimizer = new Minimization();
         AutomatonPreprocessingResult x = minimizer.Preprocess_Buchi(system, spec);
         system = x.system;
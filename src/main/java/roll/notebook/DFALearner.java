@@ -4,6 +4,7 @@ import roll.automata.DFA;
 import roll.learner.LearnerBase;
 import roll.main.Options;
 import roll.oracle.MembershipOracle;
+import roll.oracle.dfa.conformance.TeacherDFAConformance;
 import roll.query.Query;
 import roll.query.QuerySimple;
 import roll.table.HashableValue;
@@ -19,6 +20,7 @@ public class DFALearner implements JupyterLearner<DFA> {
     private LearnerBase<DFA> learner;
     private MembershipOracle<HashableValue> mqOracle;
     private Alphabet alphabet;
+    private TeacherDFAConformance tester;
     public DFALearner(Alphabet alphabet
             , LearnerBase<DFA> learner
             , MembershipOracle<HashableValue> mqOracle) {
@@ -60,6 +62,19 @@ public class DFALearner implements JupyterLearner<DFA> {
         learner.refineHypothesis(ceQuery);
     }
 
+    // test current hypothesis against the membership function,
+    // returns null if no counterexample is found
+    public String findCounterexample() {
+        if(tester == null) {
+            tester = new TeacherDFAConformance(learner.getOptions(), alphabet, mqOracle);
+        }
+        Query<HashableValue> ceQuery = tester.answerEquivalenceQuery(learner.getHypothesis());
+        if(ceQuery.getQueryAnswer().get()) {
+            return null;
+        }
+        return ceQuery.getQueriedWord().toStringWithAlphabet();
+    }
+
     @Override
     public boolean isTable() {
         return learner.getOptions().structure == Options.Structure.TABLE;
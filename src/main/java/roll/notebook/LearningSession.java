@@ -0,0 +1,197 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+
+package roll.notebook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import roll.automata.FASimple;
+import roll.learner.LearnerBase;
+import roll.main.Options;
+import roll.oracle.TeacherAbstract;
+import roll.query.Query;
+import roll.table.HashableValue;
+
+/**
+ * A learning session which advances the learner one round at a time.
+ * 
+ * Each round keeps a compact snapshot: the hypothesis, the counterexample
+ * it was refined with and the text of the learner at that time. Earlier rounds
+ * can therefore be revisited without learning again, and nothing is rendered
+ * until a round is displayed.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class LearningSession implements Iterator<LearningSession.Round>, Iterable<LearningSession.Round> {
+    
+    private final TeacherAbstract<FASimple> teacher;
+    private final LearnerBase<FASimple> learner;
+    private final List<Round> rounds = new ArrayList<>();
+    // counterexample of the last hypothesis, null before the first round
+    private Query<HashableValue> ceQuery;
+    private boolean finished;
+    
+    @SuppressWarnings("unchecked")
+    LearningSession(TeacherAbstract<? extends FASimple> teacher, LearnerBase<? extends FASimple> learner) {
+        assert teacher != null && learner != null;
+        // the learner and the teacher work on the same kind of automata
+        this.teacher = (TeacherAbstract<FASimple>)teacher;
+        this.learner = (LearnerBase<FASimple>)learner;
+    }
+    
+    // a session for the learning algorithm and data structure in the options
+    public static LearningSession create(Options options, FASimple target) {
+        TeacherAbstract<? extends FASimple> teacher = ROLLNotebook.getTeacher(options, target);
+        return new LearningSession(teacher, ROLLNotebook.getLearner(options, target.getAlphabet(), teacher));
+    }
+    
+    @Override
+    public boolean hasNext() {
+        return ! finished;
+    }
+    
+    // learns the next round
+    @Override
+    public Round next() {
+        if(finished) throw new NoSuchElementException("The target has already been learned");
+        if(rounds.isEmpty()) {
+            learner.startLearning();
+        }else {
+            learner.refineHypothesis(ceQuery);
+        }
+        FASimple hypothesis = learner.getHypothesis();
+        Round round = new Round(rounds.size(), hypothesis, ceQuery == null ? null : ceQuery.clone()
+                , learner.toString(), learner.toDots());
+        rounds.add(round);
+        ceQuery = teacher.answerEquivalenceQuery(hypothesis);
+        finished = ceQuery.getQueryAnswer().get();
+        ceQuery.answerQuery(null);
+        return round;
+    }
+    
+    // the round of the given index, learning as many rounds as needed
+    public Round getRound(int index) {
+        while(rounds.size() <= index && hasNext()) {
+            next();
+        }
+        return rounds.get(index);
+    }
+    
+    // the rounds learned so far
+    public List<Round> getRounds() {
+        return Collections.unmodifiableList(rounds);
+    }
+    
+    public boolean isFinished() {
+        return finished;
+    }
+    
+    @Override
+    public Iterator<Round> iterator() {
+        return new Iterator<Round>() {
+            private int index = 0;
+            
+            @Override
+            public boolean hasNext() {
+                return index < rounds.size() || LearningSession.this.hasNext();
+            }
+            
+            @Override
+            public Round next() {
+                if(! hasNext()) throw new NoSuchElementException();
+                return getRound(index ++);
+            }
+        };
+    }
+    
+    // all rounds from the first one, later rounds are learned when they are consumed
+    public Stream<Round> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator()
+                , Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+    
+    public static class Round {
+        
+        private final int index;
+        private final FASimple hypothesis;
+        private final Query<HashableValue> ceQuery;
+        // tables as text and trees as DOT graphs, the learner itself changes in later rounds
+        private final String learnerText;
+        private final Map<String, String> learnerDots;
+        
+        private Round(int index, FASimple hypothesis, Query<HashableValue> ceQuery
+                , String learnerText, Map<String, String> learnerDots) {
+            this.index = index;
+            this.hypothesis = hypothesis;
+            this.ceQuery = ceQuery;
+            this.learnerDots = learnerDots;
+            this.learnerText = learnerDots.isEmpty() ? learnerText : null;
+        }
+        
+        public int getIndex() {
+            return index;
+        }
+        
+        public FASimple getHypothesis() {
+            return hypothesis;
+        }
+        
+        // the counterexample this round was refined with, null in the first round
+        public Query<HashableValue> getCounterexample() {
+            return ceQuery;
+        }
+        
+        public CompletableFuture<String> renderHypothesis() {
+            return SVGRenderer.getDefault().renderAsync(hypothesis.toDot());
+        }
+        
+        public CompletableFuture<String> renderLearner() {
+            if(learnerText != null) {
+                return CompletableFuture.completedFuture("<pre>" + learnerText + "</pre>");
+            }
+            return SVGRenderer.getDefault().renderAll(learnerDots);
+        }
+        
+        // the learner, hypothesis and counterexample as displayed by the notebook
+        public CompletableFuture<Triple> render() {
+            CompletableFuture<String> hypothesis = renderHypothesis();
+            return renderLearner().thenCombine(hypothesis, (learner, svg) -> new Triple(learner, svg, ceQuery));
+        }
+        
+        public Triple toTriple() {
+            return render().join();
+        }
+        
+        @Override
+        public String toString() {
+            return "round " + index + (ceQuery == null ? "" : " refined by " + ceQuery);
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package roll.notebook;
 
+import java.util.Map;
+
 import roll.automata.NBA;
 import roll.learner.LearnerBase;
 import roll.main.Options;
@@ -40,7 +42,9 @@ public class NBALearner implements JupyterLearner<NBA> {
         if(isTable()) {
             return learner.toString();
         }else {
-            return learner.toSVG();
+            // the learners of an FDFA are rendered at the same time
+            Map<String, String> dots = learner.toDots();
+            return dots.isEmpty() ? learner.toSVG() : SVGRenderer.getDefault().renderAll(dots).join();
         }
     }
     
@@ -16,49 +16,17 @@
 
 package roll.notebook;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.util.stream.Collectors;
-
 /**
  * @author Jianlin Li
  * */
 
 public class NativeTool {
     /**
-     * make sure you have dot installed on your system
+     * make sure you have dot installed on your system, otherwise
+     * only small graphs are laid out
      * */
     static public String dot2SVG(String dot) {
-        ProcessBuilder builder = new ProcessBuilder(
-                "/bin/bash",
-                "-c","dot -Tsvg"
-        );
-        Process process = null;
-        try {
-            process = builder.start();
-            OutputStream stdin = process.getOutputStream();
-            InputStream stdout = process.getInputStream();
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(stdout));
-            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(stdin));
-
-            writer.write(dot);
-            writer.flush();
-            writer.close();
-            String res = reader.lines().collect(Collectors.joining());
-            reader.close();
-            process.destroy();
-
-            return res;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return "";
+        return SVGRenderer.getDefault().render(dot);
     }
 
 }
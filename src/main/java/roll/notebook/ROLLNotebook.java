@@ -17,14 +17,15 @@
 package roll.notebook;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import jupyter.Displayer;
 import jupyter.Displayers;
@@ -43,9 +44,7 @@ import roll.main.Options;
 import roll.main.ROLL;
 import roll.oracle.MembershipOracle;
 import roll.oracle.TeacherAbstract;
-import roll.oracle.dfa.TeacherDFA;
 import roll.oracle.dfa.dk.TeacherDFADK;
-import roll.oracle.nba.TeacherNBA;
 import roll.oracle.nba.rabit.TeacherNBARABIT;
 import roll.query.Query;
 import roll.query.QuerySimple;
@@ -142,31 +141,43 @@ public class ROLLNotebook {
         Displayers.register(Triple.class, new Displayer<Triple>() {
             @Override
             public Map<String, String> display(Triple triple) {
-                return new HashMap<String, String> () {/**
-                     * 
-                     */
-                    private static final long serialVersionUID = 1L;
-                {
-                    String HTML =
-                            "<table border=\"1\" cellspacing=\"0\" bordercolor=\"#000000\"  style=\"border-collapse:collapse;\">\n" +
-                            "  <tr>\n" +
-                            "    <th><center> Learner</center></th>\n" +
-                            "    <th><center>  Hypothesis </center></th>\n" +
-                            "    <th><center> Counterexample </center></th>\n" +
-                            "  </tr>\n" +
-                            "  <tr>\n"  +
-                            "    <td>%s</td>\n" +
-                            "    <td><center>%s</center></td>\n" +
-                            "    <td><center>%s</center></td>\n" +
-                            "  </tr>\n" +
-                            "</table>";
-                    String learner = triple.getLeft();
-                    String hypothesis = triple.getMiddle();
-                    QuerySimple<HashableValue> query = (QuerySimple<HashableValue>) triple.getRight();
-                    put(MIMETypes.HTML,String.format(HTML, learner, hypothesis, query == null ? "" : "$" + query.toLaTex() + "$"));
-                }};
+                return displayTriple(triple);
+            }
+        });
+        
+        // a round of a learning session is only rendered once it is displayed
+        Displayers.register(LearningSession.Round.class, new Displayer<LearningSession.Round>() {
+            @Override
+            public Map<String, String> display(LearningSession.Round round) {
+                return displayTriple(round.toTriple());
             }
-        }); 
+        });
+    }
+    
+    private static Map<String, String> displayTriple(Triple triple) {
+        return new HashMap<String, String> () {/**
+             * 
+             */
+            private static final long serialVersionUID = 1L;
+        {
+            String HTML =
+                    "<table border=\"1\" cellspacing=\"0\" bordercolor=\"#000000\"  style=\"border-collapse:collapse;\">\n" +
+                    "  <tr>\n" +
+                    "    <th><center> Learner</center></th>\n" +
+                    "    <th><center>  Hypothesis </center></th>\n" +
+                    "    <th><center> Counterexample </center></th>\n" +
+                    "  </tr>\n" +
+                    "  <tr>\n"  +
+                    "    <td>%s</td>\n" +
+                    "    <td><center>%s</center></td>\n" +
+                    "    <td><center>%s</center></td>\n" +
+                    "  </tr>\n" +
+                    "</table>";
+            String learner = triple.getLeft();
+            String hypothesis = triple.getMiddle();
+            QuerySimple<HashableValue> query = (QuerySimple<HashableValue>) triple.getRight();
+            put(MIMETypes.HTML,String.format(HTML, learner, hypothesis, query == null ? "" : "$" + query.toLaTex() + "$"));
+        }};
     }
     
     public static Alphabet alphabet;
@@ -194,41 +205,25 @@ public class ROLLNotebook {
     
     // ==============================================================================================================
     
+    // learns one round whenever the next one is asked for
+    public static LearningSession learningSession(String algo, String structure, FASimple target) {
+        return LearningSession.create(parseOptions(algo, structure), target);
+    }
+    
+    /**
+     * learns to the end and renders every round, use {@link #learningSession}
+     * for large targets
+     * */
+    @Deprecated
     public static List<Triple> learningSeq(
             String algo, String structure, FASimple target) {
-        // first choose learning algorithm and teacher
-        Options options = parseOptions(algo, structure);
-        TeacherAbstract<? extends FASimple> teacher = getTeacher(options, target);
-        LearnerBase<? extends FASimple> learner = getLearner(options, target.getAlphabet(), teacher);
-        ArrayList<Triple> sequence = new ArrayList<>();
-        // learning loop
-        learner.startLearning();
-        Query<HashableValue> ceQuery = null;
-        while(true) {
-            // along with ce
-            FASimple hypothesis = learner.getHypothesis();
-            Triple triple = null;
-            String learnerStr = options.structure == Options.Structure.TREE ?
-                    learner.toSVG()
-                    : "<pre>" + learner.toString() + "</pre>"; //.replaceAll("\n", "<br>").replaceAll(" ", "&nbsp;") + "</text>"; //.replaceAll(" ", "&nbsp;").replaceAll("" + (char)(9), "&#9;");
-            triple = new Triple(learnerStr,
-                    dotToSVG(hypothesis.toDot()), ceQuery);
-            if(hypothesis instanceof NBA) {
-                TeacherNBA teacherNBA = (TeacherNBA)teacher;
-                ceQuery = teacherNBA.answerEquivalenceQuery((NBA)hypothesis);
-            }else {
-                TeacherDFA teacherDFA = (TeacherDFA)teacher;
-                ceQuery = teacherDFA.answerEquivalenceQuery((DFA)hypothesis);
-            }
-            sequence.add(triple);
-            boolean isEq = ceQuery.getQueryAnswer().get();
-            if(isEq) {
-                break;
-            }
-            ceQuery.answerQuery(null);
-            learner.refineHypothesis(ceQuery);
-        }
-        return sequence;
+        // rounds are rendered while the later ones are learned
+        List<CompletableFuture<Triple>> triples = learningSession(algo, structure, target).stream()
+                .map(LearningSession.Round::render)
+                .collect(Collectors.toList());
+        return triples.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
     }
     
     private static Options parseOptions(String algo, String structure) {
@@ -279,7 +274,7 @@ public class ROLLNotebook {
         return options;
     }
     
-    private static TeacherAbstract<? extends FASimple> getTeacher(Options options, FASimple target) {
+    static TeacherAbstract<? extends FASimple> getTeacher(Options options, FASimple target) {
         if((target instanceof NBA) && (options.algorithm == Options.Algorithm.NBA_LDOLLAR
                 || options.algorithm == Options.Algorithm.PERIODIC
                 || options.algorithm == Options.Algorithm.SYNTACTIC
@@ -295,7 +290,7 @@ public class ROLLNotebook {
            }
     }
     
-    private static LearnerBase<? extends FASimple> getLearner(Options options, Alphabet alphabet,
+    static LearnerBase<? extends FASimple> getLearner(Options options, Alphabet alphabet,
             MembershipOracle<HashableValue> teacher) {
         LearnerBase<? extends FASimple> learner = null;
         if(options.algorithm == Options.Algorithm.NBA_LDOLLAR) {
@@ -0,0 +1,304 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+
+package roll.notebook;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A simple layered layout of small DOT graphs in pure Java, used when dot is
+ * not installed. Only the subset of DOT written by ROLL is understood.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+final class SVGLayout {
+    
+    // larger graphs are not readable without a real layout anyway
+    static final int MAX_NODES = 128;
+    
+    private static final int MARGIN = 30;
+    private static final int RADIUS = 18;
+    private static final int LAYER_GAP = 110;
+    private static final int NODE_GAP = 70;
+    // room for the self loops above a node
+    private static final int LOOP = 40;
+    private static final int FONT_SIZE = 14;
+    
+    private static final Pattern EDGE = Pattern.compile(
+            "\"?([\\w.]+)\"?\\s*->\\s*\"?([\\w.]+)\"?\\s*(?:\\[(.*)\\])?", Pattern.DOTALL);
+    private static final Pattern NODE = Pattern.compile("\"?([\\w.]+)\"?\\s*(?:\\[(.*)\\])?", Pattern.DOTALL);
+    private static final Pattern ATTRIBUTE = Pattern.compile(
+            "(\\w+)\\s*=\\s*(?:\"((?:[^\"\\\\]|\\\\.)*)\"|([\\w.#]+))");
+    
+    private final Map<String, Map<String, String>> nodes = new LinkedHashMap<>();
+    // labels of the parallel edges are merged
+    private final Map<String, Map<String, List<String>>> edges = new LinkedHashMap<>();
+    private final Map<String, Map<String, String>> edgeAttributes = new HashMap<>();
+    private String title;
+    
+    private SVGLayout() {
+    }
+    
+    // null if the graph is too large or not understood
+    static String render(String dot) {
+        SVGLayout layout = new SVGLayout();
+        if(! layout.parse(dot) || layout.nodes.isEmpty() || layout.nodes.size() > MAX_NODES) {
+            return null;
+        }
+        return layout.toSVG();
+    }
+    
+    private boolean parse(String dot) {
+        int begin = dot.indexOf('{'), end = dot.lastIndexOf('}');
+        if(begin < 0 || end < begin) return false;
+        for(String statement : split(dot.substring(begin + 1, end))) {
+            if(statement.isEmpty() || statement.startsWith("//")) continue;
+            Matcher matcher = EDGE.matcher(statement);
+            if(matcher.matches()) {
+                addEdge(matcher.group(1), matcher.group(2), getAttributes(matcher.group(3)));
+                continue;
+            }
+            if(statement.startsWith("label")) {
+                title = getAttributes(statement).get("label");
+                continue;
+            }
+            matcher = NODE.matcher(statement);
+            if(! matcher.matches()) continue;
+            String id = matcher.group(1);
+            // defaults and graph attributes are not laid out
+            if(id.equals("node") || id.equals("edge") || id.equals("graph")) continue;
+            getNode(id).putAll(getAttributes(matcher.group(2)));
+        }
+        return true;
+    }
+    
+    // statements end at ';' or a line break outside of quotes and attribute lists
+    private static List<String> split(String body) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        boolean quoted = false;
+        int depth = 0;
+        for(int i = 0; i < body.length(); i ++) {
+            char c = body.charAt(i);
+            if(quoted) {
+                if(c == '\\' && i + 1 < body.length()) {
+                    builder.append(c);
+                    c = body.charAt(++ i);
+                }else if(c == '"') {
+                    quoted = false;
+                }
+            }else if(c == '"') {
+                quoted = true;
+            }else if(c == '[') {
+                depth ++;
+            }else if(c == ']') {
+                depth --;
+            }else if(depth == 0 && (c == ';' || c == '\n')) {
+                statements.add(builder.toString().trim());
+                builder.setLength(0);
+                continue;
+            }
+            builder.append(c);
+        }
+        statements.add(builder.toString().trim());
+        return statements;
+    }
+    
+    private static Map<String, String> getAttributes(String list) {
+        Map<String, String> attributes = new HashMap<>();
+        if(list == null) return attributes;
+        Matcher matcher = ATTRIBUTE.matcher(list);
+        while(matcher.find()) {
+            String value = matcher.group(2) != null ? matcher.group(2).replace("\\\"", "\"") : matcher.group(3);
+            attributes.put(matcher.group(1), value);
+        }
+        return attributes;
+    }
+    
+    private Map<String, String> getNode(String id) {
+        return nodes.computeIfAbsent(id, k -> new HashMap<>());
+    }
+    
+    private void addEdge(String source, String target, Map<String, String> attributes) {
+        getNode(source);
+        getNode(target);
+        List<String> labels = edges.computeIfAbsent(source, k -> new LinkedHashMap<>())
+                .computeIfAbsent(target, k -> new ArrayList<>());
+        String label = attributes.get("label");
+        if(label != null && ! label.isEmpty()) labels.add(label);
+        edgeAttributes.putIfAbsent(source + "->" + target, attributes);
+    }
+    
+    private boolean hasEdge(String source, String target) {
+        Map<String, List<String>> succs = edges.get(source);
+        return succs != null && succs.containsKey(target);
+    }
+    
+    // layers by breadth first search from the nodes without predecessors, left to right
+    private Map<String, int[]> getPositions() {
+        Map<String, Integer> layers = new LinkedHashMap<>();
+        List<String> roots = new ArrayList<>();
+        for(String id : nodes.keySet()) {
+            boolean isRoot = true;
+            for(Map.Entry<String, Map<String, List<String>>> entry : edges.entrySet()) {
+                if(! entry.getKey().equals(id) && entry.getValue().containsKey(id)) {
+                    isRoot = false;
+                    break;
+                }
+            }
+            if(isRoot) roots.add(id);
+        }
+        roots.addAll(nodes.keySet());
+        for(String root : roots) {
+            if(layers.containsKey(root)) continue;
+            List<String> queue = new ArrayList<>();
+            queue.add(root);
+            layers.put(root, 0);
+            for(int i = 0; i < queue.size(); i ++) {
+                String id = queue.get(i);
+                Map<String, List<String>> succs = edges.get(id);
+                if(succs == null) continue;
+                for(String succ : succs.keySet()) {
+                    if(layers.containsKey(succ)) continue;
+                    layers.put(succ, layers.get(id) + 1);
+                    queue.add(succ);
+                }
+            }
+        }
+        Map<String, int[]> positions = new HashMap<>();
+        Map<Integer, Integer> sizes = new HashMap<>();
+        for(Map.Entry<String, Integer> entry : layers.entrySet()) {
+            int layer = entry.getValue();
+            int index = sizes.merge(layer, 1, Integer::sum) - 1;
+            positions.put(entry.getKey(), new int[] {MARGIN + RADIUS + layer * LAYER_GAP
+                    , MARGIN + LOOP + RADIUS + index * NODE_GAP});
+        }
+        return positions;
+    }
+    
+    private String toSVG() {
+        Map<String, int[]> positions = getPositions();
+        int width = 0, height = 0;
+        for(int[] position : positions.values()) {
+            width = Math.max(width, position[0]);
+            height = Math.max(height, position[1]);
+        }
+        width += RADIUS + MARGIN * 2;
+        height += RADIUS + MARGIN * 2 + (title != null ? FONT_SIZE * 2 : 0);
+        StringBuilder svg = new StringBuilder();
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "pt\" height=\"" + height
+                + "pt\" viewBox=\"0 0 " + width + " " + height + "\" font-family=\"Times,serif\" font-size=\""
+                + FONT_SIZE + "\">");
+        svg.append("<defs><marker id=\"roll-arrow\" viewBox=\"0 0 10 10\" refX=\"10\" refY=\"5\""
+                + " markerWidth=\"8\" markerHeight=\"8\" orient=\"auto\"><path d=\"M0,0 L10,5 L0,10 z\"/></marker></defs>");
+        for(Map.Entry<String, Map<String, List<String>>> entry : edges.entrySet()) {
+            for(Map.Entry<String, List<String>> succ : entry.getValue().entrySet()) {
+                appendEdge(svg, entry.getKey(), succ.getKey(), String.join(", ", succ.getValue()), positions);
+            }
+        }
+        for(Map.Entry<String, Map<String, String>> entry : nodes.entrySet()) {
+            appendNode(svg, entry.getKey(), entry.getValue(), positions.get(entry.getKey()));
+        }
+        if(title != null) {
+            svg.append("<text x=\"" + width / 2 + "\" y=\"" + (height - MARGIN) + "\" text-anchor=\"middle\">"
+                    + escape(title) + "</text>");
+        }
+        svg.append("</svg>");
+        return svg.toString();
+    }
+    
+    private void appendNode(StringBuilder svg, String id, Map<String, String> attributes, int[] position) {
+        String label = attributes.getOrDefault("label", id);
+        String shape = attributes.getOrDefault("shape", "ellipse");
+        String style = attributes.getOrDefault("style", "");
+        String fill = style.contains("filled") ? attributes.getOrDefault("fillcolor", "lightgrey") : "white";
+        int x = position[0], y = position[1];
+        String stroke = " fill=\"" + fill + "\" stroke=\"black\"/>";
+        switch(shape) {
+        case "plaintext":
+        case "none":
+            break;
+        case "box":
+            int half = Math.max(RADIUS, label.length() * FONT_SIZE / 4 + 6);
+            svg.append("<rect x=\"" + (x - half) + "\" y=\"" + (y - RADIUS + 4) + "\" width=\"" + half * 2
+                    + "\" height=\"" + (RADIUS * 2 - 8) + "\"" + stroke);
+            break;
+        case "doublecircle":
+            svg.append("<circle cx=\"" + x + "\" cy=\"" + y + "\" r=\"" + RADIUS + "\"" + stroke);
+            svg.append("<circle cx=\"" + x + "\" cy=\"" + y + "\" r=\"" + (RADIUS - 4) + "\" fill=\"none\" stroke=\"black\"/>");
+            break;
+        default:
+            svg.append("<circle cx=\"" + x + "\" cy=\"" + y + "\" r=\"" + RADIUS + "\"" + stroke);
+            break;
+        }
+        if(! label.isEmpty()) {
+            svg.append("<text x=\"" + x + "\" y=\"" + (y + FONT_SIZE / 3) + "\" text-anchor=\"middle\">"
+                    + escape(label) + "</text>");
+        }
+    }
+    
+    private void appendEdge(StringBuilder svg, String source, String target, String label
+            , Map<String, int[]> positions) {
+        int[] from = positions.get(source), to = positions.get(target);
+        Map<String, String> attributes = edgeAttributes.get(source + "->" + target);
+        String style = attributes.getOrDefault("style", "");
+        String stroke = " fill=\"none\" stroke=\"black\" marker-end=\"url(#roll-arrow)\""
+                + (style.contains("dashed") ? " stroke-dasharray=\"5,5\"" : "") + "/>";
+        double labelX, labelY;
+        if(source.equals(target)) {
+            int x = from[0], y = from[1] - RADIUS;
+            svg.append("<path d=\"M" + (x - 8) + "," + y + " C" + (x - 30) + "," + (y - LOOP) + " " + (x + 30)
+                    + "," + (y - LOOP) + " " + (x + 8) + "," + y + "\"" + stroke);
+            labelX = x;
+            labelY = y - LOOP + 6;
+        }else {
+            double dx = to[0] - from[0], dy = to[1] - from[1];
+            double length = Math.sqrt(dx * dx + dy * dy);
+            double ux = dx / length, uy = dy / length;
+            // edges in both directions, and edges between nodes of one layer, are bent apart
+            double bend = hasEdge(target, source) || from[0] == to[0] ? 20 : 0;
+            double cx = (from[0] + to[0]) / 2.0 - uy * bend, cy = (from[1] + to[1]) / 2.0 + ux * bend;
+            double sx = from[0] + ux * RADIUS, sy = from[1] + uy * RADIUS;
+            double ex = to[0] - ux * RADIUS, ey = to[1] - uy * RADIUS;
+            svg.append("<path d=\"M" + round(sx) + "," + round(sy) + " Q" + round(cx) + "," + round(cy) + " "
+                    + round(ex) + "," + round(ey) + "\"" + stroke);
+            labelX = cx;
+            labelY = cy - 4;
+        }
+        if(! label.isEmpty()) {
+            svg.append("<text x=\"" + round(labelX) + "\" y=\"" + round(labelY) + "\" text-anchor=\"middle\">"
+                    + escape(label) + "</text>");
+        }
+    }
+    
+    private static long round(double value) {
+        return Math.round(value);
+    }
+    
+    static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+}
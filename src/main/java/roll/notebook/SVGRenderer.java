@@ -0,0 +1,280 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+
+package roll.notebook;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Renders DOT graphs to SVG for the notebook.
+ * 
+ * Rendered graphs are kept in an LRU cache keyed by the hash of their DOT text.
+ * A few long-lived dot processes are fed over pipes, one for each rendering
+ * thread, so rendering does not fork a process for every graph. If dot does not
+ * answer graph by graph, each graph gets its own dot process as before; if dot
+ * is not installed, small graphs are laid out in pure Java. Both fallbacks only
+ * last for a while, then dot is tried again and graphs laid out in Java are
+ * rendered anew.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class SVGRenderer implements Closeable {
+    
+    private static final int NUM_OF_RENDERERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int CACHE_SIZE = 256;
+    // seconds to wait for an answer before the dot process is replaced
+    private static final long TIMEOUT = 60;
+    // a new dot process has to render an empty graph this fast to be kept alive
+    private static final long PROBE_TIMEOUT = 5;
+    private static final String PROBE = "digraph { }";
+    // milliseconds before a failed dot is tried again
+    private static final long RETRY = 60000;
+    
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "roll-dot-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private static final SVGRenderer DEFAULT = new SVGRenderer("dot", NUM_OF_RENDERERS, CACHE_SIZE);
+    
+    private final String command;
+    private final ExecutorService pool;
+    // the dot process owned by each rendering thread
+    private final ThreadLocal<DotProcess> process = new ThreadLocal<>();
+    private final List<DotProcess> processes = new ArrayList<>();
+    private final Map<String, CompletableFuture<String>> cache;
+    // keys of the cached graphs laid out without dot
+    private final Set<String> fallbacks = new HashSet<>();
+    private final long retryNanos;
+    // System.nanoTime() from which on dot, or a long-lived dot process, is tried again
+    private volatile long installedFrom;
+    private volatile long streamingFrom;
+    
+    public SVGRenderer(String command, int numOfRenderers, int cacheSize) {
+        this(command, numOfRenderers, cacheSize, RETRY);
+    }
+    
+    public SVGRenderer(String command, int numOfRenderers, int cacheSize, long retryMillis) {
+        assert numOfRenderers > 0 && cacheSize > 0 && retryMillis >= 0;
+        this.command = command;
+        this.retryNanos = TimeUnit.MILLISECONDS.toNanos(retryMillis);
+        this.installedFrom = System.nanoTime();
+        this.streamingFrom = installedFrom;
+        this.pool = Executors.newFixedThreadPool(numOfRenderers, runnable -> {
+            Thread thread = new Thread(runnable, "roll-dot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = new LinkedHashMap<String, CompletableFuture<String>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<String>> eldest) {
+                if(size() <= cacheSize) return false;
+                fallbacks.remove(eldest.getKey());
+                return true;
+            }
+        };
+    }
+    
+    // the renderer shared by the notebook
+    public static SVGRenderer getDefault() {
+        return DEFAULT;
+    }
+    
+    public CompletableFuture<String> renderAsync(String dot) {
+        String key = getKey(dot);
+        synchronized(cache) {
+            CompletableFuture<String> svg = cache.get(key);
+            if(svg != null && isDue(installedFrom) && fallbacks.remove(key)) {
+                // dot may be back
+                svg = null;
+            }
+            if(svg == null) {
+                svg = CompletableFuture.supplyAsync(() -> renderNow(key, dot), pool);
+                cache.put(key, svg);
+            }
+            return svg;
+        }
+    }
+    
+    public String render(String dot) {
+        return renderAsync(dot).join();
+    }
+    
+    // graphs by title rendered at the same time, joined in their order
+    public CompletableFuture<String> renderAll(Map<String, String> dots) {
+        List<CompletableFuture<String>> svgs = new ArrayList<>();
+        for(Map.Entry<String, String> dot : dots.entrySet()) {
+            String title = dot.getKey().isEmpty() ? "" : " <p> " + dot.getKey() + " : </p> <br> ";
+            svgs.add(renderAsync(dot.getValue()).thenApply(svg -> title + svg + "<br>"));
+        }
+        return CompletableFuture.allOf(svgs.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> svgs.stream().map(CompletableFuture::join).collect(Collectors.joining()));
+    }
+    
+    private static String getKey(String dot) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder builder = new StringBuilder();
+            for(byte b : digest.digest(dot.getBytes(StandardCharsets.UTF_8))) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        }catch(NoSuchAlgorithmException e) {
+            throw new UnsupportedOperationException(e);
+        }
+    }
+    
+    private static boolean isDue(long from) {
+        return System.nanoTime() - from >= 0;
+    }
+    
+    private String renderNow(String key, String dot) {
+        if(isDue(installedFrom)) {
+            try {
+                String svg = isDue(streamingFrom) ? renderByProcess(dot) : null;
+                return svg != null ? svg : renderOnce(dot);
+            }catch(IOException e) {
+                // dot is not installed, or not yet
+                installedFrom = System.nanoTime() + retryNanos;
+            }
+        }
+        synchronized(cache) {
+            if(cache.containsKey(key)) fallbacks.add(key);
+        }
+        String svg = SVGLayout.render(dot);
+        return svg != null ? svg : "<pre>" + SVGLayout.escape(dot) + "</pre>";
+    }
+    
+    // null if the dot process of this thread failed, it is replaced next time
+    private String renderByProcess(String dot) throws IOException {
+        DotProcess current = process.get();
+        if(current == null) {
+            current = new DotProcess();
+            if(current.render(PROBE, PROBE_TIMEOUT) == null) {
+                // dot waits for more input before it answers
+                streamingFrom = System.nanoTime() + retryNanos;
+                current.destroy();
+                return null;
+            }
+            process.set(current);
+        }
+        String svg = current.render(dot, TIMEOUT);
+        if(svg == null) {
+            process.remove();
+            current.destroy();
+        }
+        return svg;
+    }
+    
+    private String renderOnce(String dot) throws IOException {
+        Process once = new ProcessBuilder(command, "-Tsvg").start();
+        try(BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(once.getOutputStream(), StandardCharsets.UTF_8));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(once.getInputStream(), StandardCharsets.UTF_8))) {
+            writer.write(dot);
+            writer.close();
+            return reader.lines().collect(Collectors.joining());
+        }finally {
+            once.destroy();
+        }
+    }
+    
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        synchronized(processes) {
+            for(DotProcess current : processes) {
+                current.process.destroy();
+            }
+            processes.clear();
+        }
+    }
+    
+    private class DotProcess {
+        
+        private final Process process;
+        private final BufferedWriter writer;
+        private final BufferedReader reader;
+        
+        DotProcess() throws IOException {
+            // warnings come before the graph they are about
+            this.process = new ProcessBuilder(command, "-Tsvg").redirectErrorStream(true).start();
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            synchronized(processes) {
+                processes.add(this);
+            }
+        }
+        
+        // null if dot reported an error, exited or did not answer in time
+        String render(String dot, long timeout) {
+            ScheduledFuture<?> watchdog = WATCHDOG.schedule(process::destroy, timeout, TimeUnit.SECONDS);
+            try {
+                writer.write(dot);
+                writer.write('\n');
+                writer.flush();
+                StringBuilder svg = new StringBuilder();
+                String line;
+                while((line = reader.readLine()) != null) {
+                    if(line.startsWith("Error:")) return null;
+                    // skip the warnings
+                    if(svg.length() == 0 && ! line.startsWith("<")) continue;
+                    svg.append(line);
+                    if(line.startsWith("</svg>")) return svg.toString();
+                }
+                return null;
+            }catch(IOException e) {
+                return null;
+            }finally {
+                watchdog.cancel(false);
+            }
+        }
+        
+        void destroy() {
+            process.destroy();
+            synchronized(processes) {
+                processes.remove(this);
+            }
+        }
+    }
+
+}
@@ -16,11 +16,22 @@
 
 package roll.oracle;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Yong Li (liyong@ios.ac.cn)
  * */
 public interface EquivalenceOracle<M, O> {
 	
 	O answerEquivalenceQuery(M hypothesis);
+	
+	// at most bound answers, ranked with shortest and most diverse counterexamples
+	// first; the first one is always an answer to answerEquivalenceQuery
+	default List<O> answerEquivalenceQueries(M hypothesis, int bound) {
+		List<O> answers = new ArrayList<>();
+		answers.add(answerEquivalenceQuery(hypothesis));
+		return answers;
+	}
 
 }
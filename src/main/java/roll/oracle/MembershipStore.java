@@ -0,0 +1,386 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.oracle;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import roll.automata.NBA;
+import roll.main.Options;
+import roll.table.HashableValue;
+import roll.util.Pair;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * Persistent membership answers, memory mapped from a file and shared by
+ * all runs on the same targets.
+ * 
+ * The key of an answer is the fingerprint of the target together with the
+ * normal form of the queried word, the file consists of a header, a hash
+ * index with open addressing and an append-only record area:
+ * <pre>
+ *   header : magic, version, #slots, record capacity, record end, #answers, #evictions, generation
+ *   index  : #slots longs, (hash of key) << 32 | (record offset / 8 + 1), 0 for empty
+ *   records: key length, answer length, key, answer, aligned to 8 bytes
+ * </pre>
+ * Keys and answers are encoded by {@link QueryCodec}. The size of the file
+ * is fixed on creation, the older half of the answers is evicted once the
+ * record area or the index is full.
+ * 
+ * Writers append under an exclusive lock which also locks the file for
+ * other processes and make the generation odd while they change the file.
+ * Readers do not lock the file, they read again if the generation has
+ * changed during the lookup.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class MembershipStore implements Closeable {
+    
+    private static final int MAGIC = 0x524F4C4D;
+    private static final int VERSION = 2;
+    
+    private static final int POS_NUM_SLOTS = 8;
+    private static final int POS_CAPACITY = 12;
+    private static final int POS_END = 16;
+    private static final int POS_NUM_ANSWERS = 20;
+    private static final int POS_NUM_EVICTIONS = 24;
+    private static final int POS_GENERATION = 28;
+    private static final int HEADER_SIZE = 32;
+    
+    // lookups without the file lock before waiting for the writers
+    private static final int MAX_OPTIMISTIC_READS = 64;
+    
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int numOfSlots;
+    private final int capacity;
+    private final int records;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // orders the accesses to the mapped file around the generation
+    private volatile int fence;
+    
+    public MembershipStore(String fileName, int capacity) throws IOException {
+        this.file = new RandomAccessFile(fileName, "rw");
+        this.channel = file.getChannel();
+        try(FileLock fileLock = channel.lock()) {
+            if(file.length() >= HEADER_SIZE) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if(header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("Not a membership store of this version: " + fileName);
+                }
+                this.numOfSlots = header.getInt(POS_NUM_SLOTS);
+                this.capacity = header.getInt(POS_CAPACITY);
+            }else {
+                // about one slot for every 64 bytes of records
+                this.numOfSlots = Integer.highestOneBit(Math.max(1024, capacity / 64));
+                this.capacity = capacity;
+            }
+            this.records = HEADER_SIZE + numOfSlots * 8;
+            if((long)records + this.capacity > Integer.MAX_VALUE) {
+                throw new IOException("Membership store is limited to 2GB: " + fileName);
+            }
+            boolean created = file.length() < HEADER_SIZE;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, records + this.capacity);
+            if(created) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(POS_NUM_SLOTS, numOfSlots);
+                buffer.putInt(POS_CAPACITY, this.capacity);
+            }
+        }catch(IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+    
+    // store given in the options, null if there is none or it can not be opened
+    public static MembershipStore open(Options options) {
+        if(options.membershipStore == null) return null;
+        try {
+            MembershipStore store = new MembershipStore(options.membershipStore, options.membershipStoreSize);
+            options.log.println("Using membership store " + options.membershipStore + " with "
+                    + store.getNumOfAnswers() + " answers...");
+            return store;
+        }catch(IOException e) {
+            options.log.err("Failed to open membership store " + options.membershipStore);
+            e.printStackTrace();
+        }
+        return null;
+    }
+    
+    // fingerprint of the targets for the teacher of the given kind
+    public static long getFingerprint(String kind, NBA... nbas) {
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < kind.length(); i ++) {
+            hash = (hash ^ kind.charAt(i)) * 0x100000001b3L;
+        }
+        for(NBA nba : nbas) {
+            hash = mix(hash, nba.getAlphabetSize());
+            for(int letter = 0; letter < nba.getAlphabetSize(); letter ++) {
+                hash = mix(hash, nba.getAlphabet().getLetter(letter));
+            }
+            hash = mix(hash, nba.getStateSize());
+            hash = mix(hash, nba.getInitialState());
+            for(int state = 0; state < nba.getStateSize(); state ++) {
+                hash = mix(hash, nba.isFinal(state) ? -1 : -2);
+                for(int letter = 0; letter < nba.getAlphabetSize(); letter ++) {
+                    for(int succ : nba.getSuccessors(state, letter)) {
+                        hash = mix(hash, letter);
+                        hash = mix(hash, succ);
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+    
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+    
+    // the answers only depend on the omega word
+    private byte[] getKey(long fingerprint, Word prefix, Word suffix) {
+        if(! suffix.isEmpty()) {
+            Pair<Word, Word> normal = Alphabet.getNormalForm(prefix, suffix);
+            prefix = normal.getLeft();
+            suffix = normal.getRight();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(fingerprint);
+            QueryCodec.writeWord(out, prefix);
+            QueryCodec.writeWord(out, suffix);
+        }catch(IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private byte[] getAnswer(HashableValue answer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            QueryCodec.writeValue(out, answer);
+        }catch(IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private int getHash(byte[] key) {
+        int hash = 0x811c9dc5;
+        for(byte b : key) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        return hash;
+    }
+    
+    // hash of the key of the record at the given offset
+    private int getHash(int offset) {
+        int hash = 0x811c9dc5;
+        int length = buffer.getInt(offset);
+        for(int i = 0; i < length; i ++) {
+            hash = (hash ^ (buffer.get(offset + 5 + i) & 0xFF)) * 0x01000193;
+        }
+        return hash;
+    }
+    
+    private int getRecordSize(int offset) {
+        return (5 + buffer.getInt(offset) + buffer.get(offset + 4) + 7) & ~7;
+    }
+    
+    // slot of the key, or the empty slot where it should be inserted
+    private int getSlot(byte[] key, int hash) {
+        int slot = hash & (numOfSlots - 1);
+        // bounded since a reader may see an index which is being rebuilt
+        for(int probe = 0; probe < numOfSlots; probe ++) {
+            long entry = buffer.getLong(HEADER_SIZE + slot * 8);
+            if(entry == 0) return slot;
+            if((int) (entry >>> 32) == hash && matches(getOffset(entry), key)) {
+                return slot;
+            }
+            slot = (slot + 1) & (numOfSlots - 1);
+        }
+        return -1;
+    }
+    
+    private int getOffset(long entry) {
+        return records + ((int) entry - 1) * 8;
+    }
+    
+    private boolean matches(int offset, byte[] key) {
+        if(buffer.getInt(offset) != key.length) return false;
+        for(int i = 0; i < key.length; i ++) {
+            if(buffer.get(offset + 5 + i) != key[i]) return false;
+        }
+        return true;
+    }
+    
+    private HashableValue lookup(byte[] key, int hash) throws IOException {
+        int slot = getSlot(key, hash);
+        if(slot < 0) return null;
+        long entry = buffer.getLong(HEADER_SIZE + slot * 8);
+        if(entry == 0) return null;
+        int offset = getOffset(entry);
+        byte[] answer = new byte[buffer.get(offset + 4)];
+        for(int i = 0; i < answer.length; i ++) {
+            answer[i] = buffer.get(offset + 5 + key.length + i);
+        }
+        return QueryCodec.readValue(new DataInputStream(new ByteArrayInputStream(answer)));
+    }
+    
+    public HashableValue get(long fingerprint, Word prefix, Word suffix) {
+        byte[] key = getKey(fingerprint, prefix, suffix);
+        int hash = getHash(key);
+        lock.readLock().lock();
+        try {
+            for(int attempt = 0; attempt < MAX_OPTIMISTIC_READS; attempt ++) {
+                int generation = buffer.getInt(POS_GENERATION);
+                if((generation & 1) == 0) {
+                    int ignore = fence;
+                    try {
+                        HashableValue answer = lookup(key, hash);
+                        fence = ignore;
+                        if(buffer.getInt(POS_GENERATION) == generation) return answer;
+                    }catch(IOException | RuntimeException e) {
+                        // a record written by another process at the same time
+                    }
+                }
+                Thread.yield();
+            }
+        }finally {
+            lock.readLock().unlock();
+        }
+        // another process keeps writing, wait for it
+        lock.writeLock().lock();
+        try(FileLock fileLock = channel.lock()) {
+            return lookup(key, hash);
+        }catch(IOException e) {
+            return null;
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void put(long fingerprint, Word prefix, Word suffix, HashableValue answer) throws IOException {
+        byte[] key = getKey(fingerprint, prefix, suffix);
+        byte[] value = getAnswer(answer);
+        int hash = getHash(key);
+        int size = (5 + key.length + value.length + 7) & ~7;
+        if(size > capacity) return;
+        lock.writeLock().lock();
+        try(FileLock fileLock = channel.lock()) {
+            // the index is consistent under the file lock
+            int slot = getSlot(key, hash);
+            if(slot >= 0 && buffer.getLong(HEADER_SIZE + slot * 8) != 0) return;
+            int generation = buffer.getInt(POS_GENERATION);
+            buffer.putInt(POS_GENERATION, generation + 1);
+            fence = generation;
+            try {
+                // no slot is left only if the index of the file is full
+                while(slot < 0 || buffer.getInt(POS_END) + size > capacity
+                        || buffer.getInt(POS_NUM_ANSWERS) + 1 > numOfSlots / 4 * 3) {
+                    evict();
+                    slot = getSlot(key, hash);
+                }
+                int end = buffer.getInt(POS_END);
+                // write the record before publishing it in the index
+                int offset = records + end;
+                buffer.putInt(offset, key.length);
+                buffer.put(offset + 4, (byte) value.length);
+                for(int i = 0; i < key.length; i ++) {
+                    buffer.put(offset + 5 + i, key[i]);
+                }
+                for(int i = 0; i < value.length; i ++) {
+                    buffer.put(offset + 5 + key.length + i, value[i]);
+                }
+                buffer.putLong(HEADER_SIZE + slot * 8, ((long) hash << 32) | (end / 8 + 1));
+                buffer.putInt(POS_END, end + size);
+                buffer.putInt(POS_NUM_ANSWERS, buffer.getInt(POS_NUM_ANSWERS) + 1);
+            }finally {
+                // readers do not wait forever for a failed eviction
+                fence = generation;
+                buffer.putInt(POS_GENERATION, generation + 2);
+            }
+        }finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // drops the older half of the answers, records are kept in the order they
+    // were added, so the newer ones are moved to the front and indexed again
+    private void evict() {
+        int end = buffer.getInt(POS_END);
+        int start = 0;
+        while(start < end / 2) {
+            start += getRecordSize(records + start);
+        }
+        for(int pos = 0; pos < end - start; pos += 8) {
+            buffer.putLong(records + pos, buffer.getLong(records + start + pos));
+        }
+        end -= start;
+        for(int slot = 0; slot < numOfSlots; slot ++) {
+            buffer.putLong(HEADER_SIZE + slot * 8, 0);
+        }
+        int numOfAnswers = 0;
+        for(int pos = 0; pos < end; pos += getRecordSize(records + pos)) {
+            int hash = getHash(records + pos);
+            int slot = hash & (numOfSlots - 1);
+            while(buffer.getLong(HEADER_SIZE + slot * 8) != 0) {
+                slot = (slot + 1) & (numOfSlots - 1);
+            }
+            buffer.putLong(HEADER_SIZE + slot * 8, ((long) hash << 32) | (pos / 8 + 1));
+            numOfAnswers ++;
+        }
+        buffer.putInt(POS_END, end);
+        buffer.putInt(POS_NUM_ANSWERS, numOfAnswers);
+        buffer.putInt(POS_NUM_EVICTIONS, buffer.getInt(POS_NUM_EVICTIONS) + 1);
+    }
+    
+    public int getNumOfAnswers() {
+        return buffer.getInt(POS_NUM_ANSWERS);
+    }
+    
+    public int getNumOfEvictions() {
+        return buffer.getInt(POS_NUM_EVICTIONS);
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+            file.close();
+        }catch(IOException e) {
+            throw new UncheckedIOException("Failed to close the membership store", e);
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.oracle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import roll.main.Options;
+import roll.query.Query;
+import roll.query.QuerySimple;
+import roll.table.HashableValue;
+import roll.table.HashableValueBoolean;
+import roll.table.HashableValueBooleanExactPair;
+import roll.table.HashableValueBooleanPair;
+import roll.table.HashableValueInt;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * Binary encoding of the words and answers of queries shared by the
+ * checkpoints and the query traces.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+final class QueryCodec {
+    
+    private QueryCodec() {
+    }
+    
+    // the learner is only deterministic under the same settings
+    static String getSetting(Options options) {
+        return options.algorithm + "," + options.structure + "," + options.approximation
+              + "," + options.optimization + "," + options.ceAnalysis + "," + options.numOfCounterexamples;
+    }
+    
+    // 7 bits per byte, most words and letters fit in one byte
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+    
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+    
+    static void writeWord(DataOutput out, Word word) throws IOException {
+        writeVarInt(out, word.length());
+        for(int i = 0; i < word.length(); i ++) {
+            writeVarInt(out, word.getLetter(i));
+        }
+    }
+    
+    static Word readWord(DataInput in, Alphabet alphabet) throws IOException {
+        int[] letters = new int[readVarInt(in)];
+        for(int i = 0; i < letters.length; i ++) {
+            letters[i] = readVarInt(in);
+        }
+        return alphabet.getArrayWord(letters);
+    }
+    
+    // 0 for boolean, 1 for boolean pair, 2 for exact boolean pair, 3 for integer
+    static void writeValue(DataOutput out, HashableValue value) throws IOException {
+        if(value instanceof HashableValueBoolean) {
+            out.writeByte(0);
+            out.writeBoolean(value.isAccepting());
+        }else if(value instanceof HashableValueBooleanPair) {
+            out.writeByte(value instanceof HashableValueBooleanExactPair ? 2 : 1);
+            out.writeBoolean(value.<Boolean>getLeft());
+            out.writeBoolean(value.<Boolean>getRight());
+        }else if(value instanceof HashableValueInt) {
+            out.writeByte(3);
+            out.writeInt(value.<Integer>get());
+        }else {
+            throw new UnsupportedOperationException("Unsupported answer " + value);
+        }
+    }
+    
+    static HashableValue readValue(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        switch(kind) {
+        case 0:
+            return new HashableValueBoolean(in.readBoolean());
+        case 1:
+            return new HashableValueBooleanPair(in.readBoolean(), in.readBoolean());
+        case 2:
+            return new HashableValueBooleanExactPair(in.readBoolean(), in.readBoolean());
+        case 3:
+            return new HashableValueInt(in.readInt());
+        default:
+            throw new UnsupportedOperationException("Unknown answer kind " + kind);
+        }
+    }
+    
+    // the learners may change the answers of counterexamples
+    static HashableValue copy(HashableValue value) {
+        if(value instanceof HashableValueBoolean) {
+            return new HashableValueBoolean(value.isAccepting());
+        }else if(value instanceof HashableValueBooleanExactPair) {
+            return new HashableValueBooleanExactPair(value.getLeft(), value.getRight());
+        }else if(value instanceof HashableValueBooleanPair) {
+            return new HashableValueBooleanPair(value.getLeft(), value.getRight());
+        }
+        return value;
+    }
+    
+    static List<Query<HashableValue>> copy(List<Query<HashableValue>> queries) {
+        List<Query<HashableValue>> result = new ArrayList<>(queries.size());
+        for(Query<HashableValue> query : queries) {
+            Query<HashableValue> ceQuery = new QuerySimple<>(query.getPrefix(), query.getSuffix());
+            ceQuery.answerQuery(copy(query.getQueryAnswer()));
+            result.add(ceQuery);
+        }
+        return result;
+    }
+
+}
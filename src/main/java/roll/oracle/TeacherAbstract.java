@@ -16,10 +16,17 @@
 
 package roll.oracle;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import roll.jfr.EquivalenceQueryEvent;
+import roll.jfr.Events;
+import roll.jfr.MembershipQueryEvent;
 import roll.main.Options;
 import roll.query.Query;
 import roll.table.HashableValue;
-import roll.util.Timer;
+import roll.util.Profiler;
 
 /**
  * @author Yong Li (liyong@ios.ac.cn)
@@ -37,11 +44,13 @@ public abstract class TeacherAbstract<M> implements Teacher<M, Query<HashableVal
     
     @Override
     public HashableValue answerMembershipQuery(Query<HashableValue> query) {
-        Timer timer = new Timer();
-        timer.start();
-        HashableValue answer = checkMembership(query);
-        timer.stop();
-        options.stats.timeOfMembershipQuery += timer.getTimeElapsed();
+        MembershipQueryEvent event = Events.AVAILABLE ? new MembershipQueryEvent() : null;
+        HashableValue answer;
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.MEMBERSHIP, options.stats::addMembershipTime)) {
+            phase.recordSize(query.getPrefix().length(), query.getSuffix().length());
+            answer = checkMembership(query);
+        }
+        if(event != null) event.finish(query, answer);
         options.stats.numOfMembershipQuery ++;
         return answer;
     }
@@ -50,13 +59,34 @@ public abstract class TeacherAbstract<M> implements Teacher<M, Query<HashableVal
     
     @Override
     public Query<HashableValue> answerEquivalenceQuery(M hypothesis) {
-        Timer timer = new Timer();
-        timer.start();
-        Query<HashableValue> result = checkEquivalence(hypothesis);
-        timer.stop();
+        EquivalenceQueryEvent event = Events.AVAILABLE ? new EquivalenceQueryEvent() : null;
+        Query<HashableValue> result;
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.EQUIVALENCE, options.stats::addEquivalenceTime)) {
+            result = checkEquivalence(hypothesis);
+        }
+        options.stats.numOfEquivalenceQuery ++;
+        if(event != null) event.finish(options.stats.numOfEquivalenceQuery, hypothesis, Collections.singletonList(result));
+        return result;
+    }
+
+    
+    // teachers which find more counterexamples at once should override this
+    protected List<Query<HashableValue>> checkEquivalences(M hypothesis, int bound) {
+        List<Query<HashableValue>> result = new ArrayList<>();
+        result.add(checkEquivalence(hypothesis));
+        return result;
+    }
+    
+    @Override
+    public List<Query<HashableValue>> answerEquivalenceQueries(M hypothesis, int bound) {
+        EquivalenceQueryEvent event = Events.AVAILABLE ? new EquivalenceQueryEvent() : null;
+        List<Query<HashableValue>> result;
+        try(Profiler.Phase phase = options.stats.profiler.start(Profiler.EQUIVALENCE, options.stats::addEquivalenceTime)) {
+            result = checkEquivalences(hypothesis, bound);
+        }
         options.stats.numOfEquivalenceQuery ++;
-        options.stats.timeOfEquivalenceQuery += timer.getTimeElapsed();
-        options.stats.timeOfLastEquivalenceQuery = timer.getTimeElapsed();
+        if(event != null) event.finish(options.stats.numOfEquivalenceQuery, hypothesis, result);
+        options.stats.numOfCounterexamples += result.get(0).getQueryAnswer().isAccepting() ? 0 : result.size();
         return result;
     }
 
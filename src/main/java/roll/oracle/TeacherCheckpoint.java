@@ -0,0 +1,304 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.oracle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import roll.main.Options;
+import roll.query.Query;
+import roll.query.QuerySimple;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * Teacher which records all membership answers and counterexamples of
+ * the given teacher in a checkpoint file. The file is a log, after each
+ * equivalence round only the answers since the last round and the new
+ * counterexamples are appended; it is compacted when resuming and every
+ * {@link #COMPACT_ROUNDS} rounds.
+ * 
+ * Since the learners are deterministic, resuming from a checkpoint replays
+ * the learner with the recorded answers, which restores the observation
+ * tables and the discrimination trees without asking the given teacher
+ * any recorded query again.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class TeacherCheckpoint<M> implements Teacher<M, Query<HashableValue>, HashableValue> {
+    
+    private static final int MAGIC = 0x524F4C43;
+    private static final int VERSION = 2;
+    
+    private static final int MEMBERSHIP = 0;
+    private static final int ROUND = 1;
+    public static final int COMPACT_ROUNDS = 64;
+    
+    private final Options options;
+    private final Alphabet alphabet;
+    private final Teacher<M, Query<HashableValue>, HashableValue> teacher;
+    private final String file;
+    
+    // prefix -> suffix -> answer
+    private final Map<Word, Map<Word, HashableValue>> answers = new HashMap<>();
+    private int numOfAnswers;
+    // answers not in the file yet
+    private final List<Query<HashableValue>> newAnswers = new ArrayList<>();
+    // counterexamples of each equivalence round
+    private final List<List<Query<HashableValue>>> rounds = new ArrayList<>();
+    // number of rounds which have been replayed
+    private int numOfReplayedRounds;
+    // rounds appended since the file was written as a whole, -1 if the file
+    // does not belong to this teacher yet
+    private int numOfAppendedRounds = -1;
+    public TeacherCheckpoint(Options options, Alphabet alphabet
+            , Teacher<M, Query<HashableValue>, HashableValue> teacher, String file) {
+        assert options != null && alphabet != null && teacher != null && file != null;
+        this.options = options;
+        this.alphabet = alphabet;
+        this.teacher = teacher;
+        this.file = file;
+    }
+    
+    // wrap the teacher if checkpointing is enabled in the options
+    public static <M> Teacher<M, Query<HashableValue>, HashableValue> prepare(Options options
+            , Alphabet alphabet, Teacher<M, Query<HashableValue>, HashableValue> teacher) {
+        if(options.checkpointFile == null) return teacher;
+        TeacherCheckpoint<M> checkpoint = new TeacherCheckpoint<>(options, alphabet, teacher, options.checkpointFile);
+        if(options.resume) {
+            if(new File(options.checkpointFile).exists()) {
+                try {
+                    checkpoint.load();
+                    options.log.println("Resuming from " + options.checkpointFile + " with "
+                    + checkpoint.numOfAnswers + " answers and " + checkpoint.rounds.size() + " counterexamples...");
+                }catch(IOException e) {
+                    throw new UncheckedIOException("Failed to read checkpoint " + options.checkpointFile, e);
+                }
+            }else {
+                options.log.println("No checkpoint " + options.checkpointFile + " found, start from scratch...");
+            }
+        }
+        return checkpoint;
+    }
+    
+    public boolean isReplaying() {
+        return numOfReplayedRounds < rounds.size();
+    }
+
+    @Override
+    public HashableValue answerMembershipQuery(Query<HashableValue> query) {
+        Map<Word, HashableValue> suffixes = answers.get(query.getPrefix());
+        if(suffixes == null) {
+            suffixes = new HashMap<>();
+            answers.put(query.getPrefix(), suffixes);
+        }
+        HashableValue answer = suffixes.get(query.getSuffix());
+        if(answer == null) {
+            answer = teacher.answerMembershipQuery(query);
+            suffixes.put(query.getSuffix(), answer);
+            numOfAnswers ++;
+            Query<HashableValue> entry = new QuerySimple<>(query.getPrefix(), query.getSuffix());
+            entry.answerQuery(answer);
+            newAnswers.add(entry);
+        }else {
+            options.stats.numOfCachedAnswers ++;
+        }
+        return answer;
+    }
+
+    @Override
+    public Query<HashableValue> answerEquivalenceQuery(M hypothesis) {
+        if(isReplaying()) {
+            return replay().get(0);
+        }
+        List<Query<HashableValue>> result = new ArrayList<>();
+        result.add(teacher.answerEquivalenceQuery(hypothesis));
+        record(result);
+        return result.get(0);
+    }
+    
+    @Override
+    public List<Query<HashableValue>> answerEquivalenceQueries(M hypothesis, int bound) {
+        if(isReplaying()) {
+            return replay();
+        }
+        List<Query<HashableValue>> result = teacher.answerEquivalenceQueries(hypothesis, bound);
+        record(result);
+        return result;
+    }
+    
+    private List<Query<HashableValue>> replay() {
+        List<Query<HashableValue>> result = QueryCodec.copy(rounds.get(numOfReplayedRounds));
+        numOfReplayedRounds ++;
+        return result;
+    }
+    
+    private void record(List<Query<HashableValue>> result) {
+        HashableValue answer = result.get(0).getQueryAnswer();
+        boolean isEq = answer.isPair() ? answer.<Boolean>getLeft() : answer.isAccepting();
+        if(isEq) {
+            return;
+        }
+        // the learner may change the answers of the counterexamples
+        rounds.add(QueryCodec.copy(result));
+        numOfReplayedRounds ++;
+        try {
+            save();
+        }catch(IOException e) {
+            options.log.err("Failed to write checkpoint " + file);
+            e.printStackTrace();
+        }
+    }
+    
+    // appends the new answers and the last round, or compacts the whole log
+    public void save() throws IOException {
+        if(numOfAppendedRounds < 0 || numOfAppendedRounds >= COMPACT_ROUNDS) {
+            compact();
+            return;
+        }
+        FileOutputStream stream = new FileOutputStream(file, true);
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            for(Query<HashableValue> answer : newAnswers) {
+                writeAnswer(out, answer.getPrefix(), answer.getSuffix(), answer.getQueryAnswer());
+            }
+            writeRound(out, rounds.get(rounds.size() - 1));
+            out.flush();
+            stream.getFD().sync();
+        }
+        newAnswers.clear();
+        numOfAppendedRounds ++;
+    }
+    
+    // write to a temporary file first, so a crash never leaves a broken checkpoint
+    private void compact() throws IOException {
+        File tmp = new File(file + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(alphabet.getLetterSize());
+            out.writeUTF(QueryCodec.getSetting(options));
+            for(Map.Entry<Word, Map<Word, HashableValue>> entry : answers.entrySet()) {
+                for(Map.Entry<Word, HashableValue> answer : entry.getValue().entrySet()) {
+                    writeAnswer(out, entry.getKey(), answer.getKey(), answer.getValue());
+                }
+            }
+            for(List<Query<HashableValue>> round : rounds) {
+                writeRound(out, round);
+            }
+        }
+        Files.move(tmp.toPath(), new File(file).toPath(), StandardCopyOption.REPLACE_EXISTING
+                , StandardCopyOption.ATOMIC_MOVE);
+        newAnswers.clear();
+        numOfAppendedRounds = 0;
+    }
+    
+    private void writeAnswer(DataOutputStream out, Word prefix, Word suffix, HashableValue answer) throws IOException {
+        out.writeByte(MEMBERSHIP);
+        QueryCodec.writeWord(out, prefix);
+        QueryCodec.writeWord(out, suffix);
+        QueryCodec.writeValue(out, answer);
+    }
+    
+    // the statistics of the last round are the ones restored, the record is
+    // prefixed by its length so a cut off round does not touch the statistics
+    private void writeRound(DataOutputStream out, List<Query<HashableValue>> round) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        options.stats.write(record);
+        record.writeInt(round.size());
+        for(Query<HashableValue> query : round) {
+            QueryCodec.writeWord(record, query.getPrefix());
+            QueryCodec.writeWord(record, query.getSuffix());
+            QueryCodec.writeValue(record, query.getQueryAnswer());
+        }
+        record.flush();
+        out.writeByte(ROUND);
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+    
+    // a record cut off by a crash is dropped, the log is compacted at the next save
+    public void load() throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a checkpoint of this version: " + file);
+            }
+            if(in.readInt() != alphabet.getLetterSize() || !in.readUTF().equals(QueryCodec.getSetting(options))) {
+                throw new IOException("Checkpoint " + file + " was written for another input or algorithm");
+            }
+            answers.clear();
+            numOfAnswers = 0;
+            rounds.clear();
+            int tag;
+            try {
+                while((tag = in.read()) >= 0) {
+                    if(tag == MEMBERSHIP) {
+                        Word prefix = QueryCodec.readWord(in, alphabet);
+                        Word suffix = QueryCodec.readWord(in, alphabet);
+                        HashableValue answer = QueryCodec.readValue(in);
+                        Map<Word, HashableValue> suffixes = answers.get(prefix);
+                        if(suffixes == null) {
+                            suffixes = new HashMap<>();
+                            answers.put(prefix, suffixes);
+                        }
+                        if(suffixes.put(suffix, answer) == null) numOfAnswers ++;
+                    }else if(tag == ROUND) {
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+                        DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+                        options.stats.read(record);
+                        int size = record.readInt();
+                        List<Query<HashableValue>> round = new ArrayList<>(size);
+                        for(int j = 0; j < size; j ++) {
+                            Query<HashableValue> query = new QuerySimple<>(QueryCodec.readWord(record, alphabet)
+                                    , QueryCodec.readWord(record, alphabet));
+                            query.answerQuery(QueryCodec.readValue(record));
+                            round.add(query);
+                        }
+                        rounds.add(round);
+                    }else {
+                        throw new IOException("Corrupted checkpoint " + file);
+                    }
+                }
+            }catch(EOFException e) {
+                options.log.println("Dropping the incomplete last record of checkpoint " + file);
+            }
+            newAnswers.clear();
+            numOfReplayedRounds = 0;
+            numOfAppendedRounds = -1;
+        }
+    }
+
+}
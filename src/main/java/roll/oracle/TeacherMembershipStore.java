@@ -0,0 +1,87 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.oracle;
+
+import java.io.IOException;
+import java.util.List;
+
+import roll.main.Options;
+import roll.query.Query;
+import roll.table.HashableValue;
+
+/**
+ * Teacher which answers membership queries from a persistent membership
+ * store and only asks the given teacher for the answers not stored yet
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class TeacherMembershipStore<M> implements Teacher<M, Query<HashableValue>, HashableValue> {
+    
+    private final Options options;
+    private final Teacher<M, Query<HashableValue>, HashableValue> teacher;
+    private final MembershipStore store;
+    private final long fingerprint;
+    
+    public TeacherMembershipStore(Options options, Teacher<M, Query<HashableValue>, HashableValue> teacher
+            , MembershipStore store, long fingerprint) {
+        assert options != null && teacher != null && store != null;
+        this.options = options;
+        this.teacher = teacher;
+        this.store = store;
+        this.fingerprint = fingerprint;
+    }
+    
+    // wrap the teacher if there is a store, which is closed by the caller
+    public static <M> Teacher<M, Query<HashableValue>, HashableValue> prepare(Options options
+            , Teacher<M, Query<HashableValue>, HashableValue> teacher, MembershipStore store, long fingerprint) {
+        if(store == null) return teacher;
+        return new TeacherMembershipStore<>(options, teacher, store, fingerprint);
+    }
+
+    @Override
+    public HashableValue answerMembershipQuery(Query<HashableValue> query) {
+        HashableValue answer = store.get(fingerprint, query.getPrefix(), query.getSuffix());
+        if(answer != null) {
+            options.stats.numOfStoredAnswers ++;
+            return answer;
+        }
+        answer = teacher.answerMembershipQuery(query);
+        try {
+            store.put(fingerprint, query.getPrefix(), query.getSuffix(), answer);
+        }catch(IOException e) {
+            options.log.err("Failed to write membership store " + options.membershipStore);
+            e.printStackTrace();
+        }
+        return answer;
+    }
+
+    @Override
+    public Query<HashableValue> answerEquivalenceQuery(M hypothesis) {
+        return teacher.answerEquivalenceQuery(hypothesis);
+    }
+    
+    @Override
+    public List<Query<HashableValue>> answerEquivalenceQueries(M hypothesis, int bound) {
+        return teacher.answerEquivalenceQueries(hypothesis, bound);
+    }
+    
+    public MembershipStore getStore() {
+        return store;
+    }
+
+}
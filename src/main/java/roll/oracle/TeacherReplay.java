@@ -0,0 +1,137 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.oracle;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import roll.main.Options;
+import roll.query.Query;
+import roll.query.QuerySimple;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * Teacher which answers all queries from a trace written by
+ * {@link TeacherTraceRecorder}, without any automata operation.
+ * 
+ * Since the learners are deterministic, the same learner under the same
+ * settings asks exactly the recorded queries, so the time spent here is
+ * the time of the learner alone.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class TeacherReplay<M> extends TeacherAbstract<M> {
+    
+    private final String file;
+    // prefix -> suffix -> answer
+    private final Map<Word, Map<Word, HashableValue>> answers = new HashMap<>();
+    private int numOfAnswers;
+    // counterexamples of each equivalence round
+    private final List<List<Query<HashableValue>>> rounds = new ArrayList<>();
+    private int numOfReplayedRounds;
+    
+    public TeacherReplay(Options options, Alphabet alphabet, String file) throws IOException {
+        super(options);
+        assert alphabet != null && file != null;
+        this.file = file;
+        load(alphabet);
+    }
+    
+    private void load(Alphabet alphabet) throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt() != TeacherTraceRecorder.MAGIC || in.readInt() != TeacherTraceRecorder.VERSION) {
+                throw new IOException("Not a query trace of this version: " + file);
+            }
+            if(in.readInt() != alphabet.getLetterSize() || !in.readUTF().equals(QueryCodec.getSetting(options))) {
+                throw new IOException("Query trace " + file + " was written for another input or algorithm");
+            }
+            int tag;
+            while((tag = in.read()) >= 0) {
+                if(tag == TeacherTraceRecorder.MEMBERSHIP) {
+                    Word prefix = QueryCodec.readWord(in, alphabet);
+                    Word suffix = QueryCodec.readWord(in, alphabet);
+                    Map<Word, HashableValue> suffixes = answers.get(prefix);
+                    if(suffixes == null) {
+                        suffixes = new HashMap<>();
+                        answers.put(prefix, suffixes);
+                    }
+                    if(suffixes.put(suffix, QueryCodec.readValue(in)) == null) {
+                        numOfAnswers ++;
+                    }
+                }else if(tag == TeacherTraceRecorder.EQUIVALENCE) {
+                    int size = QueryCodec.readVarInt(in);
+                    List<Query<HashableValue>> round = new ArrayList<>(size);
+                    for(int i = 0; i < size; i ++) {
+                        Query<HashableValue> query = new QuerySimple<>(QueryCodec.readWord(in, alphabet)
+                                , QueryCodec.readWord(in, alphabet));
+                        query.answerQuery(QueryCodec.readValue(in));
+                        round.add(query);
+                    }
+                    rounds.add(round);
+                }else {
+                    throw new IOException("Broken query trace " + file);
+                }
+            }
+        }
+    }
+    
+    public int getNumOfAnswers() {
+        return numOfAnswers;
+    }
+    
+    public int getNumOfRounds() {
+        return rounds.size();
+    }
+
+    @Override
+    protected HashableValue checkMembership(Query<HashableValue> query) {
+        Map<Word, HashableValue> suffixes = answers.get(query.getPrefix());
+        HashableValue answer = suffixes == null ? null : suffixes.get(query.getSuffix());
+        if(answer == null) {
+            throw new UnsupportedOperationException("Membership query (" + query.getPrefix().toStringWithAlphabet()
+                    + ", " + query.getSuffix().toStringWithAlphabet() + ") is not in the trace " + file);
+        }
+        return answer;
+    }
+
+    @Override
+    protected Query<HashableValue> checkEquivalence(M hypothesis) {
+        return checkEquivalences(hypothesis, 1).get(0);
+    }
+    
+    @Override
+    protected List<Query<HashableValue>> checkEquivalences(M hypothesis, int bound) {
+        if(numOfReplayedRounds >= rounds.size()) {
+            throw new UnsupportedOperationException("No more equivalence queries in the trace " + file);
+        }
+        // the learner may change the answers of the counterexamples
+        List<Query<HashableValue>> result = QueryCodec.copy(rounds.get(numOfReplayedRounds));
+        numOfReplayedRounds ++;
+        return result;
+    }
+
+}
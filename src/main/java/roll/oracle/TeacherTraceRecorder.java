@@ -0,0 +1,180 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.oracle;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import roll.main.Options;
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+
+/**
+ * Teacher which writes every membership query with its answer and every
+ * equivalence query with its counterexamples to a compact binary trace,
+ * in the order the learner asks them.
+ * 
+ * A trace can be answered again by {@link TeacherReplay} without the
+ * original teacher, so the learner alone can be timed on exactly the
+ * same queries. The trace is complete once the recorder is closed.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class TeacherTraceRecorder<M> implements Teacher<M, Query<HashableValue>, HashableValue>, Closeable {
+    
+    static final int MAGIC = 0x524F4C54;
+    static final int VERSION = 1;
+    
+    static final byte MEMBERSHIP = 0;
+    static final byte EQUIVALENCE = 1;
+    
+    private final Options options;
+    private final Teacher<M, Query<HashableValue>, HashableValue> teacher;
+    private final String file;
+    // null if nothing is recorded
+    private final DataOutputStream out;
+    private boolean closed;
+    
+    public TeacherTraceRecorder(Options options, Alphabet alphabet
+            , Teacher<M, Query<HashableValue>, HashableValue> teacher, String file) throws IOException {
+        assert options != null && alphabet != null && teacher != null && file != null;
+        this.options = options;
+        this.teacher = teacher;
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(alphabet.getLetterSize());
+            out.writeUTF(QueryCodec.getSetting(options));
+        }catch(IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+    
+    // only passes the queries on
+    private TeacherTraceRecorder(Options options, Teacher<M, Query<HashableValue>, HashableValue> teacher) {
+        this.options = options;
+        this.teacher = teacher;
+        this.file = null;
+        this.out = null;
+    }
+    
+    // replay or record the queries if a trace file is given in the options,
+    // the result should be closed by the run like the membership store
+    public static <M> TeacherTraceRecorder<M> prepare(Options options
+            , Alphabet alphabet, Teacher<M, Query<HashableValue>, HashableValue> teacher) {
+        try {
+            if(options.replayFile != null) {
+                options.log.println("Replaying queries from " + options.replayFile + "...");
+                return new TeacherTraceRecorder<>(options, new TeacherReplay<>(options, alphabet, options.replayFile));
+            }
+            if(options.traceFile != null) {
+                return new TeacherTraceRecorder<>(options, alphabet, teacher, options.traceFile);
+            }
+        }catch(IOException e) {
+            throw new UncheckedIOException("Failed to open query trace "
+                    + (options.replayFile != null ? options.replayFile : options.traceFile), e);
+        }
+        return new TeacherTraceRecorder<>(options, teacher);
+    }
+
+    @Override
+    public HashableValue answerMembershipQuery(Query<HashableValue> query) {
+        HashableValue answer = teacher.answerMembershipQuery(query);
+        if(out == null) return answer;
+        synchronized(out) {
+            if(closed) return answer;
+            try {
+                out.writeByte(MEMBERSHIP);
+                QueryCodec.writeWord(out, query.getPrefix());
+                QueryCodec.writeWord(out, query.getSuffix());
+                QueryCodec.writeValue(out, answer);
+            }catch(IOException e) {
+                fail(e);
+            }
+        }
+        return answer;
+    }
+
+    @Override
+    public Query<HashableValue> answerEquivalenceQuery(M hypothesis) {
+        Query<HashableValue> result = teacher.answerEquivalenceQuery(hypothesis);
+        List<Query<HashableValue>> round = new ArrayList<>(1);
+        round.add(result);
+        record(round);
+        return result;
+    }
+    
+    @Override
+    public List<Query<HashableValue>> answerEquivalenceQueries(M hypothesis, int bound) {
+        List<Query<HashableValue>> result = teacher.answerEquivalenceQueries(hypothesis, bound);
+        record(result);
+        return result;
+    }
+    
+    // written before the learner changes the answers of the counterexamples
+    private void record(List<Query<HashableValue>> round) {
+        if(out == null) return;
+        synchronized(out) {
+            if(closed) return;
+            try {
+                out.writeByte(EQUIVALENCE);
+                QueryCodec.writeVarInt(out, round.size());
+                for(Query<HashableValue> query : round) {
+                    QueryCodec.writeWord(out, query.getPrefix());
+                    QueryCodec.writeWord(out, query.getSuffix());
+                    QueryCodec.writeValue(out, query.getQueryAnswer());
+                }
+                out.flush();
+            }catch(IOException e) {
+                fail(e);
+            }
+        }
+    }
+    
+    private void fail(IOException e) {
+        options.log.err("Failed to write query trace " + file);
+        e.printStackTrace();
+        closed = true;
+    }
+
+    @Override
+    public void close() {
+        if(out == null) return;
+        synchronized(out) {
+            if(closed) return;
+            closed = true;
+            try {
+                out.close();
+            }catch(IOException e) {
+                options.log.err("Failed to close query trace " + file);
+            }
+        }
+    }
+
+}
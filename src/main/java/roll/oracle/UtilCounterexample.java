@@ -0,0 +1,76 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.oracle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.words.Word;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class UtilCounterexample {
+    
+    private UtilCounterexample() {
+        
+    }
+    
+    private static int getLength(Query<HashableValue> query) {
+        return query.getPrefix().length() + query.getSuffix().length();
+    }
+    
+    /**
+     * remove duplicates and rank the counterexamples, the shortest counterexample
+     * of each different loop comes first and then the remaining ones by length
+     * */
+    public static List<Query<HashableValue>> rank(List<Query<HashableValue>> queries, int bound) {
+        List<Query<HashableValue>> sorted = new ArrayList<>();
+        Set<List<Word>> words = new HashSet<>();
+        for(Query<HashableValue> query : queries) {
+            if(words.add(Arrays.asList(query.getPrefix(), query.getSuffix()))) {
+                sorted.add(query);
+            }
+        }
+        sorted.sort(Comparator.comparingInt(UtilCounterexample::getLength));
+        
+        List<Query<HashableValue>> result = new ArrayList<>();
+        List<Query<HashableValue>> rest = new ArrayList<>();
+        Set<Word> loops = new HashSet<>();
+        for(Query<HashableValue> query : sorted) {
+            if(loops.add(query.getSuffix())) {
+                result.add(query);
+            }else {
+                rest.add(query);
+            }
+        }
+        result.addAll(rest);
+        
+        if(result.size() > bound) {
+            return new ArrayList<>(result.subList(0, bound));
+        }
+        return result;
+    }
+
+}
@@ -40,6 +40,13 @@ public abstract class TeacherDFA extends TeacherAbstract<DFA>{
         this.alphabet = dfa.getAlphabet();
     }
     
+    // for black-box targets which only answer membership queries
+    protected TeacherDFA(Options options, Alphabet alphabet) {
+        super(options);
+        this.target = null;
+        this.alphabet = alphabet;
+    }
+    
     @Override
     protected HashableValue checkMembership(Query<HashableValue> query) {
         Word word = query.getQueriedWord();
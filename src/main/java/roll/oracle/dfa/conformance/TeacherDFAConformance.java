@@ -0,0 +1,318 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.oracle.dfa.conformance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import roll.automata.DFA;
+import roll.main.Options;
+import roll.oracle.MembershipOracle;
+import roll.oracle.dfa.TeacherDFA;
+import roll.query.Query;
+import roll.query.QuerySimple;
+import roll.table.HashableValue;
+import roll.table.HashableValueBoolean;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * Approximate equivalence check for black-box DFAs by conformance testing,
+ * the test suite is P.Sigma^{<=k+1}.W for W-method, and for Wp-method the
+ * last layer only uses the identifying set of the reached state, where P is
+ * the set of access sequences, W is the characterizing set of the hypothesis
+ * and k is the number of extra states in the target.
+ * 
+ * The answers of the test words are kept across equivalence queries, so the
+ * tests passed by previous hypotheses are checked without asking the target.
+ * Batches of tests are asked one after the other; only if more test threads
+ * are given, they are asked concurrently, so the membership oracle has to be
+ * thread-safe then.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class TeacherDFAConformance extends TeacherDFA {
+    
+    private static final int BATCH_SIZE = 64;
+    
+    private final MembershipOracle<HashableValue> mqOracle;
+    // answers of the target for words asked before
+    private final Map<Word, Boolean> answers;
+    // test threads of the current equivalence query
+    private ExecutorService pool;
+    
+    public TeacherDFAConformance(Options options, Alphabet alphabet, MembershipOracle<HashableValue> mqOracle) {
+        super(options, alphabet);
+        this.mqOracle = mqOracle;
+        this.answers = new HashMap<>();
+    }
+    
+    @Override
+    protected HashableValue checkMembership(Query<HashableValue> query) {
+        Word word = query.getQueriedWord();
+        Boolean answer = answers.get(word);
+        if(answer == null) {
+            answer = mqOracle.answerMembershipQuery(query).isAccepting();
+            answers.put(word, answer);
+        }
+        return new HashableValueBoolean(answer);
+    }
+
+    @Override
+    protected Query<HashableValue> checkEquivalence(DFA hypothesis) {
+        if(options.numOfTestThreads <= 1) {
+            return runTests(hypothesis);
+        }
+        pool = Executors.newFixedThreadPool(options.numOfTestThreads, runnable -> {
+            Thread thread = new Thread(runnable, "roll-conformance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            return runTests(hypothesis);
+        }finally {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+    
+    private Query<HashableValue> runTests(DFA hypothesis) {
+        Word[] access = getAccessSequences(hypothesis);
+        Word[][] dist = getDistinguishingWords(hypothesis);
+        Set<Word> charSet = new HashSet<>();
+        for(int s = 0; s < dist.length; s ++) {
+            for(int t = 0; t < dist.length; t ++) {
+                if(dist[s][t] != null) charSet.add(dist[s][t]);
+            }
+        }
+        if(charSet.isEmpty()) charSet.add(alphabet.getEmptyWord());
+        
+        TestRunner runner = new TestRunner(hypothesis);
+        List<Word> middles = new ArrayList<>();
+        middles.add(alphabet.getEmptyWord());
+        int k = options.numOfExtraStates;
+        for(int i = 0; i <= k + 1; i ++) {
+            boolean identify = options.conformance == Options.Conformance.WP && i == k + 1;
+            for(Word prefix : access) {
+                if(prefix == null) continue;
+                for(Word middle : middles) {
+                    Word word = prefix.concat(middle);
+                    if(identify) {
+                        // identifying set of the reached state
+                        int state = hypothesis.getSuccessor(word);
+                        boolean added = false;
+                        for(int t = 0; state >= 0 && t < dist.length; t ++) {
+                            if(dist[state][t] == null) continue;
+                            added = true;
+                            if(runner.test(word.concat(dist[state][t]))) return runner.counterexample;
+                        }
+                        if(!added && runner.test(word)) return runner.counterexample;
+                    }else {
+                        for(Word suffix : charSet) {
+                            if(runner.test(word.concat(suffix))) return runner.counterexample;
+                        }
+                    }
+                }
+            }
+            if(i == k + 1) break;
+            List<Word> next = new ArrayList<>();
+            for(Word middle : middles) {
+                for(int letter = 0; letter < alphabet.getLetterSize(); letter ++) {
+                    next.add(middle.append(letter));
+                }
+            }
+            middles = next;
+        }
+        if(runner.flush()) return runner.counterexample;
+        
+        Query<HashableValue> ceQuery = new QuerySimple<>(alphabet.getEmptyWord());
+        ceQuery.answerQuery(new HashableValueBoolean(true));
+        return ceQuery;
+    }
+    
+    // shortest word reaching each state, null if not reachable
+    private Word[] getAccessSequences(DFA hypothesis) {
+        Word[] access = new Word[hypothesis.getStateSize()];
+        LinkedList<Integer> queue = new LinkedList<>();
+        int init = hypothesis.getInitialState();
+        access[init] = alphabet.getEmptyWord();
+        queue.add(init);
+        while(! queue.isEmpty()) {
+            int state = queue.remove();
+            for(int letter = 0; letter < alphabet.getLetterSize(); letter ++) {
+                int succ = hypothesis.getSuccessor(state, letter);
+                if(succ < 0 || access[succ] != null) continue;
+                access[succ] = access[state].append(letter);
+                queue.add(succ);
+            }
+        }
+        return access;
+    }
+    
+    // shortest suffix distinguishing two states, null if they are equivalent
+    private Word[][] getDistinguishingWords(DFA hypothesis) {
+        int numStates = hypothesis.getStateSize();
+        Word[][] dist = new Word[numStates][numStates];
+        for(int s = 0; s < numStates; s ++) {
+            for(int t = 0; t < numStates; t ++) {
+                if(hypothesis.isFinal(s) != hypothesis.isFinal(t)) {
+                    dist[s][t] = alphabet.getEmptyWord();
+                }
+            }
+        }
+        // the suffixes found in round i have length i
+        boolean changed = true;
+        while(changed) {
+            changed = false;
+            Word[][] next = new Word[numStates][];
+            for(int s = 0; s < numStates; s ++) {
+                next[s] = dist[s].clone();
+                for(int t = 0; t < numStates; t ++) {
+                    if(dist[s][t] != null) continue;
+                    for(int letter = 0; letter < alphabet.getLetterSize(); letter ++) {
+                        int ss = hypothesis.getSuccessor(s, letter);
+                        int st = hypothesis.getSuccessor(t, letter);
+                        if(ss < 0 || st < 0 || dist[ss][st] == null) continue;
+                        next[s][t] = dist[ss][st].preappend(letter);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+            dist = next;
+        }
+        return dist;
+    }
+    
+    private boolean isAccepting(DFA hypothesis, Word word) {
+        int state = hypothesis.getSuccessor(word);
+        return state >= 0 && hypothesis.isFinal(state);
+    }
+    
+    // collects test words and asks the target batch by batch
+    private class TestRunner {
+        final DFA hypothesis;
+        final Set<Word> tested = new HashSet<>();
+        final List<Word> batch = new ArrayList<>();
+        Query<HashableValue> counterexample;
+        
+        TestRunner(DFA hypothesis) {
+            this.hypothesis = hypothesis;
+        }
+        
+        // returns true if a counterexample has been found
+        boolean test(Word word) {
+            if(! tested.add(word)) return false;
+            Boolean answer = answers.get(word);
+            if(answer != null) {
+                // passed or failed before, no need to ask the target
+                return answer != isAccepting(hypothesis, word) && setCounterexample(word);
+            }
+            batch.add(word);
+            if(batch.size() >= BATCH_SIZE) return flush();
+            return false;
+        }
+        
+        boolean setCounterexample(Word word) {
+            counterexample = new QuerySimple<>(word);
+            counterexample.answerQuery(new HashableValueBoolean(false));
+            return true;
+        }
+        
+        boolean flush() {
+            List<Word> words = new ArrayList<>(batch);
+            batch.clear();
+            if(words.isEmpty()) return false;
+            if(pool == null) {
+                List<Query<HashableValue>> queries = new ArrayList<>();
+                for(Word word : words) {
+                    queries.add(new QuerySimple<>(word));
+                }
+                List<HashableValue> results = mqOracle.answerMembershipQueries(queries);
+                for(int i = 0; i < words.size(); i ++) {
+                    answers.put(words.get(i), results.get(i).isAccepting());
+                }
+                // the shortest disagreement in the batch
+                for(Word word : words) {
+                    boolean answer = answers.get(word);
+                    if(answer != isAccepting(hypothesis, word)) {
+                        return setCounterexample(word);
+                    }
+                }
+                return false;
+            }
+            return flushParallel(words);
+        }
+        
+        // stop at the first disagreement
+        boolean flushParallel(List<Word> words) {
+            CompletionService<Word> service = new ExecutorCompletionService<>(pool);
+            List<Future<Word>> futures = new ArrayList<>();
+            Map<Word, Boolean> results = new HashMap<>();
+            for(Word word : words) {
+                futures.add(service.submit(() -> {
+                    boolean answer = mqOracle.answerMembershipQuery(new QuerySimple<>(word)).isAccepting();
+                    synchronized(results) {
+                        results.put(word, answer);
+                    }
+                    return word;
+                }));
+            }
+            Word ce = null;
+            try {
+                for(int i = 0; i < words.size() && ce == null; i ++) {
+                    Word word = service.take().get();
+                    boolean answer;
+                    synchronized(results) {
+                        answer = results.get(word);
+                    }
+                    if(answer != isAccepting(hypothesis, word)) ce = word;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("conformance testing is cancelled");
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+                if(e.getCause() instanceof Error) throw (Error)e.getCause();
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                for(Future<Word> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            synchronized(results) {
+                answers.putAll(results);
+            }
+            if(ce == null) return false;
+            return setCounterexample(ce);
+        }
+    }
+
+}
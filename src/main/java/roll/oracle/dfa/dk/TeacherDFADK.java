@@ -16,6 +16,9 @@
 
 package roll.oracle.dfa.dk;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import dk.brics.automaton.Automaton;
 import roll.automata.DFA;
 import roll.automata.operations.DFAOperations;
@@ -70,4 +73,27 @@ public class TeacherDFADK extends TeacherDFA {
         return ceQuery;
     }
 
+    // shortest words in the symmetric difference, one after another
+    @Override
+    protected List<Query<HashableValue>> checkEquivalences(DFA hypothesis, int bound) {
+        Automaton conjecture = DFAOperations.toDkDFA(hypothesis);
+        Automaton result = automaton.clone().minus(conjecture.clone())
+                .union(conjecture.clone().minus(automaton.clone()));
+        List<Query<HashableValue>> ceQueries = new ArrayList<>();
+        while(ceQueries.size() < bound) {
+            String counterexample = result.getShortestExample(true);
+            if(counterexample == null) break;
+            Query<HashableValue> ceQuery = new QuerySimple<>(parseString(counterexample));
+            ceQuery.answerQuery(new HashableValueBoolean(false));
+            ceQueries.add(ceQuery);
+            result = result.minus(Automaton.makeString(counterexample));
+        }
+        if(ceQueries.isEmpty()) {
+            Query<HashableValue> ceQuery = new QuerySimple<>(alphabet.getEmptyWord());
+            ceQuery.answerQuery(new HashableValueBoolean(true));
+            ceQueries.add(ceQuery);
+        }
+        return ceQueries;
+    }
+
 }
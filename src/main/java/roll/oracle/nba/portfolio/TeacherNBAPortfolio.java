@@ -0,0 +1,248 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.oracle.nba.portfolio;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import automata.FiniteAutomaton;
+import roll.automata.NBA;
+import roll.automata.operations.NBAOperations;
+import roll.automata.operations.nba.universality.NBAInclusionCheckRank;
+import roll.main.Options;
+import roll.oracle.nba.TeacherNBA;
+import roll.oracle.nba.rabit.UtilRABIT;
+import roll.oracle.nba.sampler.NBAInclusionSampler;
+import roll.oracle.nba.sampler.SamplerIndexedMonteCarlo;
+import roll.query.Query;
+import roll.query.QuerySimple;
+import roll.table.HashableValue;
+import roll.table.HashableValueBoolean;
+import roll.util.Pair;
+import roll.words.Word;
+
+/**
+ * Run sampling, RABIT and rank based inclusion check at the same time,
+ * the first counterexample wins and the other checkers are cancelled.
+ * The hypothesis is equivalent to the target only if both inclusions are
+ * proved by the exact checkers; a sampler without counterexample or a
+ * failed checker does not decide anything.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class TeacherNBAPortfolio extends TeacherNBA implements Closeable {
+    
+    public static final String SAMPLER = "sampler";
+    public static final String RABIT = "rabit";
+    public static final String RANK = "rank";
+    
+    private final NBA targetSampler;
+    private FiniteAutomaton rabitTgt;
+    private final ExecutorService pool;
+    // RABIT can not be interrupted, a cancelled run goes on until this completes
+    private CompletableFuture<Void> rabitDone = CompletableFuture.completedFuture(null);
+    
+    public TeacherNBAPortfolio(Options options, NBA target) {
+        super(options, target);
+        // sampler needs every state to have a successor
+        this.targetSampler = NBAOperations.removeDeadStates(target);
+        this.pool = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "roll-portfolio");
+            // RABIT can not be interrupted, do not wait for it
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // answer of one checker
+    private static class Result {
+        final String checker;
+        final boolean hypoIncluded;         // L(H) <= L(T) is proved
+        final boolean targetIncluded;       // L(T) <= L(H) is proved
+        final Query<HashableValue> ceQuery; // counterexample if found
+        
+        Result(String checker, boolean hypoIncluded, boolean targetIncluded, Query<HashableValue> ceQuery) {
+            this.checker = checker;
+            this.hypoIncluded = hypoIncluded;
+            this.targetIncluded = targetIncluded;
+            this.ceQuery = ceQuery;
+        }
+    }
+    
+    private Query<HashableValue> getQuery(Pair<Word, Word> word, boolean isEq) {
+        Query<HashableValue> ceQuery = new QuerySimple<>(word.getLeft(), word.getRight());
+        ceQuery.answerQuery(new HashableValueBoolean(isEq));
+        return ceQuery;
+    }
+    
+    private Result runSampler(NBA hypothesis) {
+        SamplerIndexedMonteCarlo sampler = new SamplerIndexedMonteCarlo(options.epsilon, options.delta);
+        NBA A = hypothesis, B = targetSampler;
+        List<Query<HashableValue>> ceQueries = new ArrayList<>();
+        if(! A.getFinalStates().isEmpty()) {
+            sampler.K = B.getStateSize();
+            ceQueries = NBAInclusionSampler.getCounterexamples(A, B, sampler, 1);
+        }
+        if(ceQueries.isEmpty() && !B.getFinalStates().isEmpty()) {
+            sampler.K = A.getStateSize();
+            ceQueries = NBAInclusionSampler.getCounterexamples(B, A, sampler, 1);
+        }
+        return new Result(SAMPLER, false, false, ceQueries.isEmpty() ? null : ceQueries.get(0));
+    }
+    
+    // both directions of RABIT, one after the other
+    private class RABITRun implements Callable<Result> {
+        final NBA hypothesis;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        // whether call() runs or the run is abandoned before it started
+        final AtomicBoolean claimed = new AtomicBoolean();
+        
+        RABITRun(NBA hypothesis) {
+            this.hypothesis = hypothesis;
+        }
+        
+        @Override
+        public Result call() throws Exception {
+            if(! claimed.compareAndSet(false, true)) {
+                throw new CancellationException("RABIT is cancelled");
+            }
+            try {
+                if(rabitTgt == null) {
+                    rabitTgt = UtilRABIT.toRABITNBA(target);
+                }
+                FiniteAutomaton rabitHypo = UtilRABIT.toRABITNBA(hypothesis);
+                Pair<Word, Word> word = UtilRABIT.isIncluded(target.getAlphabet(), rabitHypo, rabitTgt);
+                if(word != null) {
+                    return new Result(RABIT, false, false, getQuery(word, false));
+                }
+                if(Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("RABIT is cancelled");
+                }
+                word = UtilRABIT.isIncluded(target.getAlphabet(), rabitTgt, rabitHypo);
+                if(word != null) {
+                    return new Result(RABIT, true, false, getQuery(word, false));
+                }
+                return new Result(RABIT, true, true, null);
+            }finally {
+                done.complete(null);
+            }
+        }
+        
+        // the cancelled run never started
+        void abandon() {
+            if(claimed.compareAndSet(false, true)) {
+                done.complete(null);
+            }
+        }
+    }
+    
+    // rank based check does not give counterexamples
+    private Result runRank(NBA A, NBA B, boolean hypoIncluded) {
+        NBAInclusionCheckRank checker = new NBAInclusionCheckRank(A, B);
+        boolean included = checker.isIncluded();
+        return new Result(RANK, hypoIncluded && included, !hypoIncluded && included, null);
+    }
+
+    @Override
+    protected Query<HashableValue> checkEquivalence(NBA hypothesis) {
+        CompletionService<Result> service = new ExecutorCompletionService<>(pool);
+        Map<Future<Result>, String> futures = new HashMap<>();
+        futures.put(service.submit(() -> runSampler(hypothesis)), SAMPLER);
+        // RABIT sits out the rounds until its cancelled run has finished
+        RABITRun rabit = null;
+        if(rabitDone.isDone()) {
+            rabit = new RABITRun(hypothesis);
+            rabitDone = rabit.done;
+            futures.put(service.submit(rabit), RABIT);
+        }else {
+            options.log.verbose("Checker " + RABIT + " is still running, skipped");
+        }
+        futures.put(service.submit(() -> runRank(hypothesis, target, true)), RANK);
+        futures.put(service.submit(() -> runRank(target, hypothesis, false)), RANK);
+        
+        boolean hypoIncluded = false, targetIncluded = false;
+        Query<HashableValue> ceQuery = null;
+        String winner = null;
+        Throwable failure = null;
+        try {
+            for(int i = 0; i < futures.size(); i ++) {
+                Future<Result> future = service.take();
+                Result result;
+                try {
+                    result = future.get();
+                }catch(ExecutionException e) {
+                    // a failed checker knows nothing, the others go on
+                    if(failure == null) failure = e.getCause();
+                    options.log.verbose("Checker " + futures.get(future) + " failed: " + e.getCause());
+                    continue;
+                }
+                if(result.ceQuery != null) {
+                    ceQuery = result.ceQuery;
+                    winner = result.checker;
+                    break;
+                }
+                hypoIncluded = hypoIncluded || result.hypoIncluded;
+                targetIncluded = targetIncluded || result.targetIncluded;
+                if(hypoIncluded && targetIncluded) {
+                    winner = result.checker;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("portfolio equivalence check is cancelled");
+        } finally {
+            for(Future<Result> future : futures.keySet()) {
+                future.cancel(true);
+            }
+            if(rabit != null) rabit.abandon();
+        }
+        if(winner == null) {
+            // only a failed exact checker leaves the equivalence open
+            if(failure instanceof RuntimeException) throw (RuntimeException)failure;
+            if(failure instanceof Error) throw (Error)failure;
+            throw new IllegalStateException("No checker decides the equivalence", failure);
+        }
+        options.stats.winnersOfEquivalenceQuery.add(winner);
+        
+        if(ceQuery != null) return ceQuery;
+        // both inclusions are proved
+        Word wordEmpty = target.getAlphabet().getEmptyWord();
+        return getQuery(new Pair<>(wordEmpty, wordEmpty), true);
+    }
+    
+    // a running RABIT check is not waited for
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package roll.oracle.nba.rabit;
 
+import algorithms.Options;
 import automata.FAState;
 import automata.FiniteAutomaton;
 import gnu.trove.map.TIntObjectMap;
@@ -74,10 +75,47 @@ public class UtilRABIT {
         return rabitAut;
     }
     
-    public static Pair<Word, Word> isIncluded(Alphabet alphabet
+    // RABIT keeps its settings in static fields, so every call sets them
+    // under the lock of this class instead of relying on the last caller
+    public static synchronized void setOptions() {
+        Options.debug = false;
+        Options.fast=true;
+        Options.backward=true;
+        Options.rd=true;
+        Options.fplus=true;
+        Options.SFS=true;
+        Options.qr=true;
+        Options.C1=true;
+        Options.EB=false; // difference to fast. EB must be false to report counterexamples
+        Options.CPT=true;
+        Options.superpruning=true;
+        Options.delayed=true;
+        Options.blamin=true;
+        Options.blasub=true;
+        Options.transient_pruning=true;
+        Options.jumpsim_quotienting=true;
+        Options.verbose=false; // set verbose to true to report counterexample
+    }
+    
+    // RABIT also keeps the last counterexample in static fields,
+    // so all calls to RABIT are made under the lock of this class
+    public static synchronized Pair<Word, Word> isIncluded(Alphabet alphabet
             , FiniteAutomaton A, FiniteAutomaton B) {
+        setOptions();
         boolean inclusion = RABIT.isIncluded(A, B);
         if(inclusion) return null;
+        return getCounterexample(alphabet);
+    }
+    
+    public static synchronized Pair<Word, Word> isIncludedPar(Alphabet alphabet
+            , FiniteAutomaton A, FiniteAutomaton B) {
+        setOptions();
+        boolean inclusion = RABIT.isIncludedPar(A, B);
+        if(inclusion) return null;
+        return getCounterexample(alphabet);
+    }
+    
+    private static Pair<Word, Word> getCounterexample(Alphabet alphabet) {
         String prefixStr = RABIT.getPrefix();
         String suffixStr = RABIT.getSuffix();
         Word prefix = alphabet.getWordFromString(prefixStr);
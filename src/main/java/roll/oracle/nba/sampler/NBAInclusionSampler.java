@@ -16,8 +16,13 @@
 
 package roll.oracle.nba.sampler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import roll.automata.NBA;
 import roll.automata.operations.NBAOperations;
+import roll.jfr.Events;
+import roll.jfr.SamplerBatchEvent;
 import roll.query.Query;
 import roll.query.QuerySimple;
 import roll.table.HashableValue;
@@ -30,19 +35,44 @@ import roll.words.Word;
  * */
 
 public class NBAInclusionSampler {
-    public static int numTried = 0;
+    // samplers may run in several threads at the same time
+    private static final ThreadLocal<long[]> numTried = ThreadLocal.withInitial(() -> new long[1]);
     private NBAInclusionSampler() {
         
     }
     
+    // number of lassos sampled by the current thread
+    public static long getNumTried() {
+        return numTried.get()[0];
+    }
+    
+    public static void resetNumTried() {
+        numTried.get()[0] = 0;
+    }
+    
     public static Query<HashableValue> isIncluded(NBA A, NBA B, Sampler sampler) {
+        List<Query<HashableValue>> result = getCounterexamples(A, B, sampler, 1);
+        return result.isEmpty() ? null : result.get(0);
+    }
+    
+    /**
+     * collect at most bound sampled words accepted by A but not by B,
+     * sampling stops as soon as bound counterexamples are found
+     * */
+    public static List<Query<HashableValue>> getCounterexamples(NBA A, NBA B, Sampler sampler, int bound) {
+        SamplerBatchEvent event = Events.AVAILABLE ? new SamplerBatchEvent() : null;
+        long[] tried = numTried.get();
+        long triedBefore = tried[0];
+        List<Query<HashableValue>> result = new ArrayList<>();
         sampler.setNBA(A);
-        for (int i = 0; i < sampler.getSampleSize(); i++) {
-            numTried ++;
-            Pair<Pair<Word, Word>, Boolean> result = sampler.getRandomLasso();
-            Pair<Word, Word> word = result.getLeft();
+        for (int i = 0; i < sampler.getSampleSize() && result.size() < bound; i++) {
+            // cooperative cancellation when running with other checkers
+            if(Thread.currentThread().isInterrupted()) return result;
+            tried[0] ++;
+            Pair<Pair<Word, Word>, Boolean> lasso = sampler.getRandomLasso();
+            Pair<Word, Word> word = lasso.getLeft();
             boolean needCheck = false;
-            if (result.getRight()) {
+            if (lasso.getRight()) {
                 needCheck = true;
             } else {
                 needCheck = NBAOperations.accepts(A, word.getLeft(), word.getRight());
@@ -52,19 +82,19 @@ public class NBAInclusionSampler {
                 // found a counterexample
                 boolean acc = NBAOperations.accepts(B, word.getLeft(), word.getRight());
                 if(! acc) {
-                    Query<HashableValue> ceQuery = new QuerySimple<>(word.getLeft(), word.getRight());
-                    ceQuery.answerQuery(new HashableValueBoolean(false));
-                    return ceQuery;
+                    result.add(getCounterexample(word));
                 }
             }
         }
         sampler.setNBA(B);
-        for (int i = 0; i < sampler.getSampleSize(); i++) {
-            numTried ++;
-            Pair<Pair<Word, Word>, Boolean> result = sampler.getRandomLasso();
-            Pair<Word, Word> word = result.getLeft();
+        for (int i = 0; i < sampler.getSampleSize() && result.size() < bound; i++) {
+            // cooperative cancellation when running with other checkers
+            if(Thread.currentThread().isInterrupted()) return result;
+            tried[0] ++;
+            Pair<Pair<Word, Word>, Boolean> lasso = sampler.getRandomLasso();
+            Pair<Word, Word> word = lasso.getLeft();
             boolean needCheck = false;
-            if (result.getRight()) {
+            if (lasso.getRight()) {
                 needCheck = false;
             } else {
                 needCheck = !NBAOperations.accepts(B, word.getLeft(), word.getRight());
@@ -74,12 +104,17 @@ public class NBAInclusionSampler {
                 // found a counterexample
                 boolean acc = NBAOperations.accepts(A, word.getLeft(), word.getRight());
                 if(acc) {
-                    Query<HashableValue> ceQuery = new QuerySimple<>(word.getLeft(), word.getRight());
-                    ceQuery.answerQuery(new HashableValueBoolean(false));
-                    return ceQuery;
+                    result.add(getCounterexample(word));
                 }
             }
         }
-        return null;
+        if(event != null) event.finish(2 * sampler.getSampleSize(), tried[0] - triedBefore, result.size());
+        return result;
+    }
+    
+    private static Query<HashableValue> getCounterexample(Pair<Word, Word> word) {
+        Query<HashableValue> ceQuery = new QuerySimple<>(word.getLeft(), word.getRight());
+        ceQuery.answerQuery(new HashableValueBoolean(false));
+        return ceQuery;
     }
 }
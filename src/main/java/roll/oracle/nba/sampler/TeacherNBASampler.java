@@ -16,9 +16,13 @@
 
 package roll.oracle.nba.sampler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import roll.automata.NBA;
 import roll.automata.operations.NBAOperations;
 import roll.main.Options;
+import roll.oracle.UtilCounterexample;
 import roll.oracle.nba.TeacherNBA;
 import roll.query.Query;
 import roll.query.QuerySimple;
@@ -53,8 +57,13 @@ public class TeacherNBASampler extends TeacherNBA {
 
     @Override
     protected Query<HashableValue> checkEquivalence(NBA hypothesis) {
+        return checkEquivalences(hypothesis, 1).get(0);
+    }
+    
+    @Override
+    protected List<Query<HashableValue>> checkEquivalences(NBA hypothesis, int bound) {
         // sample words from hypothesis
-        Query<HashableValue> ceQuery = null;
+        List<Query<HashableValue>> ceQueries = new ArrayList<>();
         NBA A, B;
         if(target.getStateSize() > hypothesis.getStateSize()) {
             A = hypothesis;
@@ -66,25 +75,26 @@ public class TeacherNBASampler extends TeacherNBA {
         
         if(!isEmptyNBA(A)) {
             sampler.K = B.getStateSize();
-            NBAInclusionSampler.numTried = 0;
-            ceQuery = NBAInclusionSampler.isIncluded(A, B, sampler);
-            options.stats.numOfSamplingTried += NBAInclusionSampler.numTried;
+            NBAInclusionSampler.resetNumTried();
+            ceQueries.addAll(NBAInclusionSampler.getCounterexamples(A, B, sampler, bound));
+            options.stats.numOfSamplingTried += NBAInclusionSampler.getNumTried();
         }
-        if(ceQuery != null) return ceQuery;
+        if(ceQueries.size() >= bound) return UtilCounterexample.rank(ceQueries, bound);
         
         if(!isEmptyNBA(B)) {
             sampler.K = A.getStateSize();
-            NBAInclusionSampler.numTried = 0;
-            ceQuery = NBAInclusionSampler.isIncluded(B, A, sampler);
-            options.stats.numOfSamplingTried += NBAInclusionSampler.numTried;
+            NBAInclusionSampler.resetNumTried();
+            ceQueries.addAll(NBAInclusionSampler.getCounterexamples(B, A, sampler, bound - ceQueries.size()));
+            options.stats.numOfSamplingTried += NBAInclusionSampler.getNumTried();
         }
-        if(ceQuery != null) return ceQuery;
+        if(! ceQueries.isEmpty()) return UtilCounterexample.rank(ceQueries, bound);
         
         Word wordEmpty = target.getAlphabet().getEmptyWord();
         // found a counterexample
-        ceQuery = new QuerySimple<>(wordEmpty, wordEmpty);
+        Query<HashableValue> ceQuery = new QuerySimple<>(wordEmpty, wordEmpty);
         ceQuery.answerQuery(new HashableValueBoolean(true));
-        return ceQuery;
+        ceQueries.add(ceQuery);
+        return ceQueries;
     }
 
 }
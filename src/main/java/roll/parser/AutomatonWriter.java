@@ -0,0 +1,220 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.parser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import roll.automata.NBA;
+import roll.words.Alphabet;
+
+/**
+ * Writes a Buchi automaton in DOT, BA or HOA format straight to a buffered
+ * stream, so that large automata are never held as one string.
+ * 
+ * The label of every letter is computed once. Transitions with the same source
+ * and target can be merged into one transition, whose guard is computed from
+ * all of its letters; the BA format has one letter per transition and is never
+ * merged.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class AutomatonWriter {
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private final NBA nba;
+    private final Writer out;
+    private final String[] labels;
+    // letter reserved for L$ automata, -1 if there is none
+    private final int dollar;
+    private final boolean merge;
+    // guard of the letters of a merged transition, their labels are listed if null
+    private final Function<TIntList, String> guard;
+    
+    public AutomatonWriter(NBA nba, OutputStream stream, IntFunction<String> label) {
+        this(nba, stream, label, false, null);
+    }
+    
+    public AutomatonWriter(NBA nba, OutputStream stream, IntFunction<String> label, boolean merge) {
+        this(nba, stream, label, merge, null);
+    }
+    
+    public AutomatonWriter(NBA nba, OutputStream stream, IntFunction<String> label, Function<TIntList, String> guard) {
+        this(nba, stream, label, true, guard);
+    }
+    
+    private AutomatonWriter(NBA nba, OutputStream stream, IntFunction<String> label
+            , boolean merge, Function<TIntList, String> guard) {
+        this.nba = nba;
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.labels = new String[nba.getAlphabetSize()];
+        for(int letter = 0; letter < labels.length; letter ++) {
+            labels[letter] = String.valueOf(label.apply(letter));
+        }
+        this.dollar = nba.getAlphabet().indexOf(Alphabet.DOLLAR);
+        this.merge = merge;
+        this.guard = guard;
+    }
+    
+    public void writeDot() {
+        try {
+            out.write("//nba \n");
+            out.write("digraph {\n");
+            for(int stateNr = 0; stateNr < nba.getStateSize(); stateNr ++) {
+                final String source = Integer.toString(stateNr);
+                out.write("  ");
+                out.write(source);
+                out.write(" [label=\"");
+                out.write(source);
+                out.write(nba.isFinal(stateNr) ? "\", shape = doublecircle];\n" : "\", shape = circle];\n");
+                forEachTransition(stateNr, -1, (succNr, label) -> {
+                    out.write("  ");
+                    out.write(source);
+                    out.write(" -> ");
+                    out.write(Integer.toString(succNr));
+                    out.write(" [label=\"");
+                    out.write(label);
+                    out.write("\"];\n");
+                });
+            }
+            out.write("  " + nba.getStateSize() + " [label=\"\", shape = plaintext];\n");
+            out.write("  " + nba.getStateSize() + " -> " + nba.getInitialState() + " [label=\"\"];\n");
+            out.write("}\n\n");
+            out.flush();
+        }catch(IOException e) {
+            throw new UncheckedIOException("Failed to write the automaton", e);
+        }
+    }
+    
+    public void writeBA() {
+        try {
+            out.write("[" + nba.getInitialState() + "]\n");
+            for(int stateNr = 0; stateNr < nba.getStateSize(); stateNr ++) {
+                final String source = ",[" + stateNr + "]->[";
+                for(int letter = 0; letter < labels.length; letter ++) {
+                    if(letter == dollar) continue;
+                    for(int succNr : nba.getSuccessors(stateNr, letter)) {
+                        out.write(labels[letter]);
+                        out.write(source);
+                        out.write(Integer.toString(succNr));
+                        out.write("]\n");
+                    }
+                }
+            }
+            for(final int finalNr : nba.getFinalStates()) {
+                out.write("[" + finalNr + "]\n");
+            }
+            out.flush();
+        }catch(IOException e) {
+            throw new UncheckedIOException("Failed to write the automaton", e);
+        }
+    }
+    
+    public void writeHOA(List<String> aps) {
+        try {
+            out.write("HOA: v1\n");
+            out.write("tool: \"ROLL\"\n");
+            out.write("properties: explicit-labels state-acc trans-labels \n");
+            out.write("States: " + nba.getStateSize() + "\n");
+            out.write("Start: " + nba.getInitialState() + "\n");
+            out.write("acc-name: Buchi\n");
+            out.write("Acceptance: 1 Inf(0)\n");
+            out.write("AP: " + aps.size());
+            for(String ap : aps) {
+                out.write(" \"" + ap + "\"");
+            }
+            out.write("\n--BODY--\n");
+            for(int stateNr = 0; stateNr < nba.getStateSize(); stateNr ++) {
+                out.write("State: " + stateNr);
+                out.write(nba.isFinal(stateNr) ? " {0}\n" : "\n");
+                forEachTransition(stateNr, dollar, (succNr, label) -> {
+                    out.write("[");
+                    out.write(label);
+                    out.write("]  ");
+                    out.write(Integer.toString(succNr));
+                    out.write("\n");
+                });
+            }
+            out.write("--END--\n");
+            out.flush();
+        }catch(IOException e) {
+            throw new UncheckedIOException("Failed to write the automaton", e);
+        }
+    }
+    
+    private interface TransitionWriter {
+        void write(int succNr, String label) throws IOException;
+    }
+    
+    // transitions of the letter skip are left out
+    private void forEachTransition(int stateNr, int skip, TransitionWriter writer) throws IOException {
+        if(! merge) {
+            for(int letter = 0; letter < labels.length; letter ++) {
+                if(letter == skip) continue;
+                for(int succNr : nba.getSuccessors(stateNr, letter)) {
+                    writer.write(succNr, labels[letter]);
+                }
+            }
+            return;
+        }
+        // successors in the order they are first reached
+        TIntList succs = new TIntArrayList();
+        TIntObjectMap<TIntList> letters = new TIntObjectHashMap<>();
+        for(int letter = 0; letter < labels.length; letter ++) {
+            if(letter == skip) continue;
+            for(int succNr : nba.getSuccessors(stateNr, letter)) {
+                TIntList list = letters.get(succNr);
+                if(list == null) {
+                    list = new TIntArrayList();
+                    letters.put(succNr, list);
+                    succs.add(succNr);
+                }
+                list.add(letter);
+            }
+        }
+        for(int i = 0; i < succs.size(); i ++) {
+            TIntList list = letters.get(succs.get(i));
+            writer.write(succs.get(i), list.size() == 1 ? labels[list.get(0)] : getGuard(list));
+        }
+    }
+    
+    private String getGuard(TIntList letters) {
+        if(guard != null) return guard.apply(letters);
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < letters.size(); i ++) {
+            if(i > 0) builder.append(", ");
+            builder.append(labels[letters.get(i)]);
+        }
+        return builder.toString();
+    }
+
+}
@@ -24,6 +24,8 @@ public enum Format {
     
     BA,  // Buechi format supported by RABIT
     
-    HOA  // Hanoi Omega Automata Format
+    HOA, // Hanoi Omega Automata Format
+    
+    BIN  // binary format of ROLL for NBA, DFA and FDFA
 
 }
@@ -33,5 +33,10 @@ public interface Parser {
 	
 	void print(NBA fa, OutputStream out);
 	
+	// label of the letter in the input file
+	default String getLabel(NBA fa, int letter) {
+	    return fa.getAlphabet().getLetter(letter).toString();
+	}
+	
 	void close();
 }
\ No newline at end of file
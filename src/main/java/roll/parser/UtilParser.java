@@ -17,13 +17,16 @@
 package roll.parser;
 
 import java.io.OutputStream;
-import java.io.PrintStream;
 import java.util.function.Function;
 
 import roll.automata.NBA;
+import roll.jfr.Events;
+import roll.jfr.ParserEvent;
 import roll.main.Options;
 import roll.parser.ba.PairParserBA;
 import roll.parser.ba.ParserBA;
+import roll.parser.bin.PairParserBinary;
+import roll.parser.bin.ParserBinary;
 import roll.parser.hoa.PairParserHOA;
 import roll.parser.hoa.ParserHOA;
 
@@ -35,46 +38,57 @@ public class UtilParser {
     
     
     public static void print(NBA nba, OutputStream out, Function<Integer, String> fun) {
-        PrintStream printer = new PrintStream(out);
-        printer.print("//nba \n");
-        printer.print("digraph {\n");
-        
-        for(int stateNr = 0; stateNr < nba.getStateSize(); stateNr ++) {
-            printer.print("  " + stateNr + " [label=\"" +  stateNr + "\"");
-            if(nba.isFinal(stateNr)) printer.print(", shape = doublecircle");
-            else printer.print(", shape = circle");
-            printer.print("];\n");
-            for(int letter = 0; letter < nba.getAlphabetSize(); letter ++) {
-                for(int succNr : nba.getSuccessors(stateNr, letter)) {
-                    printer.print("  " + stateNr + " -> " + succNr 
-                            + " [label=\"" + fun.apply(letter)
-                            + "\"];\n");
-                }
-            }
-        }   
-        printer.print("  " + nba.getStateSize() + " [label=\"\", shape = plaintext];\n");
-        printer.print("  " + nba.getStateSize() + " -> " + nba.getInitialState() + " [label=\"\"];\n");
-        printer.print("}\n\n");
+        print(nba, out, fun, false);
+    }
+    
+    // letters of the transitions with the same source and target are listed on one edge if merged
+    public static void print(NBA nba, OutputStream out, Function<Integer, String> fun, boolean merge) {
+        new AutomatonWriter(nba, out, fun::apply, merge).writeDot();
     }
     
     public static Parser prepare(Options options, String file, Format format) {
+        ParserEvent event = Events.AVAILABLE ? new ParserEvent() : null;
+        Parser parser = null;
         if(format == Format.BA) {
-            return new ParserBA(options, file);
+            parser = new ParserBA(options, file);
         }else if(format == Format.HOA) {
-            return new ParserHOA(options, file);
+            parser = new ParserHOA(options, file);
+        }else if(format == Format.BIN) {
+            parser = new ParserBinary(options, file);
         }
-        
-        return null;
+        if(event != null && parser != null) {
+            event.finish(format.toString(), file, parser.parse().getStateSize());
+        }
+        return parser;
     }
     
     public static PairParser prepare(Options options, String fileA, String fileB, Format format) {
+        ParserEvent event = Events.AVAILABLE ? new ParserEvent() : null;
+        PairParser parser = null;
         if(format == Format.BA) {
-            return new PairParserBA(options, fileA, fileB);
+            parser = new PairParserBA(options, fileA, fileB);
         }else if(format == Format.HOA) {
-            return new PairParserHOA(options, fileA, fileB);
+            parser = new PairParserHOA(options, fileA, fileB);
+        }else if(format == Format.BIN) {
+            parser = new PairParserBinary(options, fileA, fileB);
+        }
+        if(event != null && parser != null) {
+            event.finish(format.toString(), fileA + " " + fileB
+                    , parser.getA().getStateSize() + parser.getB().getStateSize());
+        }
+        return parser;
+    }
+    
+    // both input files must be in the same format
+    public static Format getFormat(String fileA, String fileB) {
+        if(fileA.endsWith(".ba") && fileB.endsWith(".ba")) {
+            return Format.BA;
+        }else if(fileA.endsWith(".hoa") && fileB.endsWith(".hoa")){
+            return Format.HOA;
+        }else if(fileA.endsWith(".bin") && fileB.endsWith(".bin")){
+            return Format.BIN;
         }
-        
-        return null;
+        throw new UnsupportedOperationException("Unsupported input format");
     }
 
 }
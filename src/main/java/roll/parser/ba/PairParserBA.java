@@ -16,11 +16,9 @@
 
 package roll.parser.ba;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-import dk.brics.automaton.Automaton;
 import roll.automata.NBA;
 import roll.main.Options;
 import roll.parser.PairParser;
@@ -32,30 +30,45 @@ import roll.parser.PairParser;
 public class PairParserBA extends ParserBA implements PairParser {
     protected NBA A;
     protected NBA B;
+    // the files of A and B are read concurrently; A numbers the shared letters
+    // in the order of its transitions, B numbers its own letters and they
+    // are merged into the shared ones once A is complete
     public PairParserBA(Options options, String fileA, String fileB) {
         super(options);
+        ParserBA parserA = new ParserBA(this);
+        ParserBA parserB = new ParserBA(options);
+        CompletableFuture<Void> futureA = CompletableFuture.runAsync(() -> parserA.parseFile(fileA));
+        parserB.parseFile(fileB);
         try {
-            this.automaton = new Automaton();
-            this.strStateMap.clear();
-            FileInputStream inputStream = new FileInputStream(new File(fileA));
-            JBAParser parser = new JBAParser(inputStream);
-            parser.parse(this);
+            futureA.join();
+        }catch(CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw e;
+        }
+        parserA.nba.removeUnreachableStates();
+        this.A = parserA.parse();
+        this.B = new NBA(alphabet);
+        parserB.nba.moveReachableStates(B, mergeLetters(parserB));
+        this.nba = B;
+    }
+    
+    // shared letter of every letter of parser
+    private int[] mergeLetters(ParserBA parser) {
+        int[] letters = new int[parser.alphabet.getLetterSize()];
+        synchronized(this) {
             final int numLetters = strCharMap.size();
-            this.A = nba;
-            this.automaton = new Automaton();
-            this.strStateMap.clear();
-            inputStream = new FileInputStream(new File(fileB));
-            this.calledAcc = false;
-            parser = new JBAParser(inputStream);
-            parser.parse(this);
-            this.B = nba;
+            for(int letter = 0; letter < letters.length; letter ++) {
+                char ch = getCharFromString(parser.charStrMap.get(parser.alphabet.getLetter(letter)));
+                letters[letter] = alphabet.indexOf(ch);
+            }
+            // B should not have letters which are not in A
             if(strCharMap.size() != numLetters) {
                 throw new UnsupportedOperationException("Alphabet not the same between A and B");
             }
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
         }
-        
+        return letters;
     }
 
     @Override
@@ -21,20 +21,17 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Function;
 
-import dk.brics.automaton.Automaton;
-import dk.brics.automaton.State;
-import dk.brics.automaton.Transition;
 import gnu.trove.map.TCharObjectMap;
 import gnu.trove.map.TObjectCharMap;
+import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TCharObjectHashMap;
 import gnu.trove.map.hash.TObjectCharHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import roll.automata.NBA;
-import roll.automata.operations.NBAOperations;
 import roll.main.Options;
+import roll.parser.AutomatonWriter;
 import roll.parser.Parser;
 import roll.parser.UtilParser;
 import roll.words.Alphabet;
@@ -47,26 +44,21 @@ public class ParserBA implements Parser {
 	
 	protected TCharObjectMap<String> charStrMap ; // char -> str
 	protected TObjectCharMap<String> strCharMap ; // str -> char
-	protected Map<String, State> strStateMap = new HashMap<>();
+	// str -> state in the order of appearance in the file
+	protected TObjectIntMap<String> strStateMap = new TObjectIntHashMap<>();
 	protected final Alphabet alphabet;
-	// this class only allow the characters
-	protected Automaton automaton;
 	protected final Options options;
+	// states and transitions are put into nba while parsing, letters are
+	// numbered in the order of the transitions in the file
 	protected NBA nba;
 	
 	public ParserBA(Options options, String file) {
 	    this.options = options;
 		this.strCharMap = new TObjectCharHashMap<>();
 		this.charStrMap = new TCharObjectHashMap<>();
-		this.automaton = new Automaton();
 		this.alphabet = new Alphabet();
-		try {
-			FileInputStream inputStream = new FileInputStream(new File(file));
-			JBAParser parser = new JBAParser(inputStream);
-			parser.parse(this);
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
+		parseFile(file);
+		nba.removeUnreachableStates();
 	}
 	
 	protected ParserBA(Options options) {
@@ -76,13 +68,20 @@ public class ParserBA implements Parser {
         this.charStrMap = new TCharObjectHashMap<>();
 	}
 	
-	// share alphabet with other parser
-	public ParserBA(Options options, String file, ParserBA otherParser) {
-	    this.options = options;
-		this.charStrMap = otherParser.charStrMap;
-		this.strCharMap = otherParser.strCharMap;
-		this.automaton = new Automaton();
-		this.alphabet = new Alphabet();
+	// parser for one automaton with the letters and alphabet of owner
+	protected ParserBA(ParserBA owner) {
+	    this.options = owner.options;
+	    this.alphabet = owner.alphabet;
+	    this.strCharMap = owner.strCharMap;
+	    this.charStrMap = owner.charStrMap;
+	}
+	
+	// states are numbered in the order of appearance in the file, the
+	// unreachable ones are removed afterwards
+	protected void parseFile(String file) {
+		this.strStateMap.clear();
+		this.nba = new NBA(alphabet);
+		this.calledAcc = false;
 		try {
 			FileInputStream inputStream = new FileInputStream(new File(file));
 			JBAParser parser = new JBAParser(inputStream);
@@ -94,19 +93,23 @@ public class ParserBA implements Parser {
 
 	@Override
 	public NBA parse() {
-		return nba; //NBAOperations.fromDkNBA(automaton, alphabet);
+		return nba;
+	}
+
+	@Override
+	public String getLabel(NBA nba, int letter) {
+	    return charStrMap.get(nba.getAlphabet().getLetter(letter));
 	}
 
 	@Override
 	public void print(NBA nba, OutputStream out) {
-		PrintStream printer = new PrintStream(out);
 		if(options.dot) {
 		    Function<Integer, String> fun = index -> charStrMap.get(nba.getAlphabet().getLetter(index));
-		    UtilParser.print(nba, out, fun);
+		    UtilParser.print(nba, out, fun, options.mergeTransitions);
 		}else {
-			// first output initial state
-			printer.print("[" + nba.getInitialState() + "]\n");
 			if(nba.getFinalStates().isEmpty()) {
+			    PrintStream printer = new PrintStream(out);
+			    printer.print("[" + nba.getInitialState() + "]\n");
 			    int dead = nba.getInitialState() + 1;
 			    for(int letter = 0; letter < nba.getAlphabetSize(); letter ++) {
                     if(nba.getAlphabet().indexOf(Alphabet.DOLLAR) == letter) continue;
@@ -114,21 +117,10 @@ public class ParserBA implements Parser {
                             + "," + "[" + dead + "]->[" + dead + "]\n");
 			    }
 			    printer.print("[" + dead + "]\n");
+			    printer.flush();
 			    return ;
 			}
-			// transitions
-			for(int stateNr = 0; stateNr < nba.getStateSize(); stateNr ++) {
-			    for(int letter = 0; letter < nba.getAlphabetSize(); letter ++) {
-			        if(nba.getAlphabet().indexOf(Alphabet.DOLLAR) == letter) continue;
-                    for(int succNr : nba.getSuccessors(stateNr, letter)) {
-                        printer.print(charStrMap.get(nba.getAlphabet().getLetter(letter))
-                                + "," + "[" + stateNr + "]->[" + succNr + "]\n");
-                    }
-			    }
-			}
-			for(final int finalNr : nba.getFinalStates()) {
-				printer.print("[" + finalNr + "]\n");
-			}
+			new AutomatonWriter(nba, out, letter -> getLabel(nba, letter)).writeBA();
 		}
 	}
 
@@ -137,22 +129,18 @@ public class ParserBA implements Parser {
 	}
 	
 	protected void setInitial(String state) {
-		State init = getState(state);
-		automaton.setInitialState(init);
+		nba.setInitial(getState(state));
 	}
 	
 	protected void addTransition(String source, String target, String ap) {
-		State st = getState(source);
-		State tg = getState(target);
-		char ch = getCharFromString(ap);
-		st.addTransition(new Transition(ch, tg));
+		int letter = alphabet.indexOf(getCharFromString(ap));
+		nba.getState(getState(source)).addTransition(letter, getState(target));
 	}
 	
 	protected boolean calledAcc = false;
 	
 	protected void setAccepting(String state) {
-		State fin = getState(state);
-		fin.setAccept(true);
+		nba.setFinal(getState(state));
 		calledAcc = true;
 	}
 	
@@ -160,15 +148,17 @@ public class ParserBA implements Parser {
 		
 	}
 	
+	// check whether there is accepting states
 	protected void parseEnd() {
-	    // check whether there is accepting states 
-		nba = NBAOperations.fromDkNBA(automaton, alphabet);
+		if(nba.getStateSize() == 0) {
+			nba.setInitial(nba.createState().getId());
+		}
 		if(! calledAcc) {
-		    for(int i = 0; i < nba.getStateSize(); i ++) {
-		        nba.setFinal(i);
-		    }
+			for(int i = 0; i < nba.getStateSize(); i ++) {
+				nba.setFinal(i);
+			}
 		}
-		automaton = null; // empty this automaton
+		strStateMap.clear();
 	}
 	
 	// we reserve '$' sign for L dollar automaton
@@ -186,12 +176,12 @@ public class ParserBA implements Parser {
 		return ch;
 	}
 	
-	protected State getState(String str) {
-	    State state = strStateMap.get(str);
-		if(state == null) {
-			state = new State();
-			strStateMap.put(str, state);
+	protected int getState(String str) {
+		if(strStateMap.containsKey(str)) {
+			return strStateMap.get(str);
 		}
+		int state = nba.createState().getId();
+		strStateMap.put(str, state);
 		return state;
 	}
 	
@@ -0,0 +1,126 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.parser.bin;
+
+import java.nio.ByteBuffer;
+
+import roll.automata.DFA;
+import roll.automata.NBA;
+import roll.words.Alphabet;
+
+/**
+ * Automaton stored in a mapped binary file, its states and transitions are
+ * read from the buffer on demand
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class BinaryAutomaton {
+    
+    private final ByteBuffer buffer;
+    private final int numOfLetters;
+    private final int numOfStates;
+    private final int initialState;
+    private final int numOfTransitions;
+    private final int finalsPosition;
+    private final int offsetsPosition;
+    private final int successorsPosition;
+    
+    BinaryAutomaton(ByteBuffer buffer, int position, int numOfLetters) {
+        this.buffer = buffer;
+        this.numOfLetters = numOfLetters;
+        this.numOfStates = buffer.getInt(position);
+        this.initialState = buffer.getInt(position + 4);
+        this.numOfTransitions = buffer.getInt(position + 8);
+        this.finalsPosition = position + 12;
+        this.offsetsPosition = finalsPosition + 4 * BinaryFormat.getNumOfFinalWords(numOfStates);
+        this.successorsPosition = offsetsPosition + 4 * (numOfStates * numOfLetters + 1);
+    }
+    
+    // position of the next automaton in the buffer
+    int getEndPosition() {
+        return successorsPosition + 4 * numOfTransitions;
+    }
+    
+    public int getStateSize() {
+        return numOfStates;
+    }
+    
+    public int getInitialState() {
+        return initialState;
+    }
+    
+    public int getNumOfTransitions() {
+        return numOfTransitions;
+    }
+    
+    public boolean isFinal(int state) {
+        assert state >= 0 && state < numOfStates;
+        int bits = buffer.getInt(finalsPosition + 4 * (state >>> 5));
+        return (bits & (1 << (state & 31))) != 0;
+    }
+    
+    public int getNumOfSuccessors(int state, int letter) {
+        int index = state * numOfLetters + letter;
+        return buffer.getInt(offsetsPosition + 4 * (index + 1)) - buffer.getInt(offsetsPosition + 4 * index);
+    }
+    
+    // i-th successor of state for letter
+    public int getSuccessor(int state, int letter, int i) {
+        assert i >= 0 && i < getNumOfSuccessors(state, letter);
+        int offset = buffer.getInt(offsetsPosition + 4 * (state * numOfLetters + letter));
+        return buffer.getInt(successorsPosition + 4 * (offset + i));
+    }
+    
+    // letters of alphabet are given by letterMap
+    public NBA toNBA(Alphabet alphabet, int[] letterMap) {
+        NBA nba = new NBA(alphabet);
+        for(int state = 0; state < numOfStates; state ++) {
+            nba.createState();
+        }
+        int offset = buffer.getInt(offsetsPosition);
+        for(int state = 0; state < numOfStates; state ++) {
+            for(int letter = 0; letter < numOfLetters; letter ++) {
+                int next = buffer.getInt(offsetsPosition + 4 * (state * numOfLetters + letter + 1));
+                for(; offset < next; offset ++) {
+                    nba.getState(state).addTransition(letterMap[letter], buffer.getInt(successorsPosition + 4 * offset));
+                }
+            }
+            if(isFinal(state)) nba.setFinal(state);
+        }
+        nba.setInitial(initialState);
+        return nba;
+    }
+    
+    public DFA toDFA(Alphabet alphabet, int[] letterMap) {
+        DFA dfa = new DFA(alphabet);
+        for(int state = 0; state < numOfStates; state ++) {
+            dfa.createState();
+        }
+        for(int state = 0; state < numOfStates; state ++) {
+            for(int letter = 0; letter < numOfLetters; letter ++) {
+                if(getNumOfSuccessors(state, letter) > 0) {
+                    dfa.getState(state).addTransition(letterMap[letter], getSuccessor(state, letter, 0));
+                }
+            }
+            if(isFinal(state)) dfa.setFinal(state);
+        }
+        dfa.setInitial(initialState);
+        return dfa;
+    }
+
+}
@@ -0,0 +1,172 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.parser.bin;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import roll.automata.DFA;
+import roll.automata.FDFA;
+import roll.automata.NBA;
+import roll.words.Alphabet;
+
+/**
+ * Binary automata file mapped into memory, see {@link BinaryFormat} for
+ * the layout. Only the header and the positions of the automata are read
+ * when the file is opened.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class BinaryFile {
+    
+    private final ByteBuffer buffer;
+    private final int kind;
+    private final char[] letters;
+    private final String[] labels;
+    private final List<BinaryAutomaton> automata;
+    
+    public BinaryFile(String file) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary file is too large: " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.buffer = mapped;
+        }
+        if(buffer.capacity() < 8 || buffer.getInt(0) != BinaryFormat.MAGIC) {
+            throw new IOException("Not a binary automaton file: " + file);
+        }
+        if(buffer.getInt(4) != BinaryFormat.VERSION) {
+            throw new IOException("Unsupported binary format version " + buffer.getInt(4) + ": " + file);
+        }
+        try {
+            this.kind = buffer.getInt(8);
+            int numOfAutomata = buffer.getInt(12);
+            int numOfLetters = buffer.getInt(16);
+            int position = 20;
+            this.letters = new char[numOfLetters];
+            for(int letter = 0; letter < numOfLetters; letter ++) {
+                letters[letter] = (char) buffer.getInt(position);
+                position += 4;
+            }
+            int numOfLabelBytes = buffer.getInt(position);
+            int offsetsPosition = position + 4;
+            int labelsPosition = offsetsPosition + 4 * (numOfLetters + 1);
+            this.labels = new String[numOfLetters];
+            for(int letter = 0; letter < numOfLetters; letter ++) {
+                int begin = buffer.getInt(offsetsPosition + 4 * letter);
+                int end = buffer.getInt(offsetsPosition + 4 * (letter + 1));
+                byte[] bytes = new byte[end - begin];
+                for(int i = 0; i < bytes.length; i ++) {
+                    bytes[i] = buffer.get(labelsPosition + begin + i);
+                }
+                labels[letter] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            position = labelsPosition + ((numOfLabelBytes + 3) & ~3);
+            this.automata = new ArrayList<>(numOfAutomata);
+            for(int i = 0; i < numOfAutomata; i ++) {
+                BinaryAutomaton automaton = new BinaryAutomaton(buffer, position, numOfLetters);
+                automata.add(automaton);
+                position = automaton.getEndPosition();
+            }
+        }catch(IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Truncated binary automaton file: " + file, e);
+        }
+    }
+    
+    public int getKind() {
+        return kind;
+    }
+    
+    public int getNumOfLetters() {
+        return letters.length;
+    }
+    
+    public char getLetter(int letter) {
+        return letters[letter];
+    }
+    
+    public String getLabel(int letter) {
+        return labels[letter];
+    }
+    
+    public int getNumOfAutomata() {
+        return automata.size();
+    }
+    
+    public BinaryAutomaton getAutomaton(int index) {
+        return automata.get(index);
+    }
+    
+    public Alphabet getAlphabet() {
+        Alphabet alphabet = new Alphabet();
+        for(char letter : letters) {
+            alphabet.addLetter(letter);
+        }
+        return alphabet;
+    }
+    
+    private int[] getIdentityMap() {
+        int[] letterMap = new int[letters.length];
+        for(int letter = 0; letter < letterMap.length; letter ++) {
+            letterMap[letter] = letter;
+        }
+        return letterMap;
+    }
+    
+    private void checkKind(int expected) {
+        if(kind != expected) {
+            throw new UnsupportedOperationException("Binary file contains another kind of automaton");
+        }
+    }
+    
+    public NBA toNBA() {
+        return toNBA(getAlphabet(), getIdentityMap());
+    }
+    
+    public NBA toNBA(Alphabet alphabet, int[] letterMap) {
+        checkKind(BinaryFormat.NBA);
+        return automata.get(0).toNBA(alphabet, letterMap);
+    }
+    
+    public DFA toDFA() {
+        checkKind(BinaryFormat.DFA);
+        return automata.get(0).toDFA(getAlphabet(), getIdentityMap());
+    }
+    
+    public FDFA toFDFA() {
+        checkKind(BinaryFormat.FDFA);
+        Alphabet alphabet = getAlphabet();
+        int[] letterMap = getIdentityMap();
+        DFA leadingDFA = automata.get(0).toDFA(alphabet, letterMap);
+        List<DFA> progressDFAs = new ArrayList<>();
+        for(int i = 1; i < automata.size(); i ++) {
+            progressDFAs.add(automata.get(i).toDFA(alphabet, letterMap));
+        }
+        return new FDFA(leadingDFA, progressDFAs);
+    }
+
+}
@@ -0,0 +1,193 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.parser.bin;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import roll.automata.DFA;
+import roll.automata.FASimple;
+import roll.automata.FDFA;
+import roll.automata.NBA;
+import roll.automata.NFA;
+import roll.util.sets.ISet;
+import roll.words.Alphabet;
+
+/**
+ * Versioned binary format for NBAs, DFAs and FDFAs, all numbers are
+ * big-endian ints so that the file can be mapped into memory and read
+ * without decoding:
+ * 
+ *   header     : MAGIC VERSION kind numOfAutomata
+ *   alphabet   : numOfLetters char[numOfLetters] numOfLabelBytes
+ *                labelOffsets[numOfLetters + 1] labels (UTF-8, padded to ints)
+ *   automaton  : numOfStates initial numOfTransitions finals (bitmap)
+ *                offsets[numOfStates * numOfLetters + 1] successors[numOfTransitions]
+ * 
+ * the successors of state s for letter a are the ones from offsets[s * numOfLetters + a]
+ * to offsets[s * numOfLetters + a + 1], an FDFA is stored as the leading DFA
+ * followed by the progress DFAs.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public final class BinaryFormat {
+    
+    public static final int MAGIC = 0x524F4C4C; // "ROLL"
+    public static final int VERSION = 1;
+    
+    public static final int NBA = 0;
+    public static final int DFA = 1;
+    public static final int FDFA = 2;
+    
+    private BinaryFormat() {
+    }
+    
+    public static void write(OutputStream out, NBA nba, Function<Integer, String> labels) throws IOException {
+        List<FASimple> automata = new ArrayList<>();
+        automata.add(nba);
+        write(out, NBA, nba.getAlphabet(), automata, labels);
+    }
+    
+    public static void write(OutputStream out, DFA dfa, Function<Integer, String> labels) throws IOException {
+        List<FASimple> automata = new ArrayList<>();
+        automata.add(dfa);
+        write(out, DFA, dfa.getAlphabet(), automata, labels);
+    }
+    
+    public static void write(OutputStream out, FDFA fdfa, Function<Integer, String> labels) throws IOException {
+        List<FASimple> automata = new ArrayList<>();
+        DFA leadingDFA = fdfa.getLeadingDFA();
+        automata.add(leadingDFA);
+        for(int state = 0; state < leadingDFA.getStateSize(); state ++) {
+            automata.add(fdfa.getProgressDFA(state));
+        }
+        write(out, FDFA, fdfa.getAlphabet(), automata, labels);
+    }
+    
+    // labels are the letters themselves
+    public static Function<Integer, String> getDefaultLabels(Alphabet alphabet) {
+        return letter -> alphabet.getLetter(letter).toString();
+    }
+    
+    private static void write(OutputStream stream, int kind, Alphabet alphabet, List<FASimple> automata
+            , Function<Integer, String> labels) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(kind);
+        out.writeInt(automata.size());
+        // alphabet
+        int numOfLetters = alphabet.getLetterSize();
+        out.writeInt(numOfLetters);
+        for(int letter = 0; letter < numOfLetters; letter ++) {
+            out.writeInt(alphabet.getLetter(letter));
+        }
+        byte[][] labelBytes = new byte[numOfLetters][];
+        int numOfLabelBytes = 0;
+        for(int letter = 0; letter < numOfLetters; letter ++) {
+            labelBytes[letter] = labels.apply(letter).getBytes(StandardCharsets.UTF_8);
+            numOfLabelBytes += labelBytes[letter].length;
+        }
+        out.writeInt(numOfLabelBytes);
+        int offset = 0;
+        out.writeInt(offset);
+        for(int letter = 0; letter < numOfLetters; letter ++) {
+            offset += labelBytes[letter].length;
+            out.writeInt(offset);
+        }
+        for(int letter = 0; letter < numOfLetters; letter ++) {
+            out.write(labelBytes[letter]);
+        }
+        for(int pad = numOfLabelBytes; pad % 4 != 0; pad ++) {
+            out.writeByte(0);
+        }
+        for(FASimple automaton : automata) {
+            writeAutomaton(out, automaton, numOfLetters);
+        }
+        out.flush();
+    }
+    
+    private static void writeAutomaton(DataOutputStream out, FASimple automaton, int numOfLetters)
+            throws IOException {
+        int numOfStates = automaton.getStateSize();
+        if((long)numOfStates * numOfLetters >= Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Automaton is too large for binary format");
+        }
+        long numOfTransitions = 0;
+        for(int state = 0; state < numOfStates; state ++) {
+            for(int letter = 0; letter < numOfLetters; letter ++) {
+                numOfTransitions += getSuccessors(automaton, state, letter).length;
+            }
+        }
+        if(numOfTransitions >= Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Automaton is too large for binary format");
+        }
+        out.writeInt(numOfStates);
+        out.writeInt(automaton.getInitialState());
+        out.writeInt((int)numOfTransitions);
+        // final states
+        for(int word = 0; word < getNumOfFinalWords(numOfStates); word ++) {
+            int bits = 0;
+            for(int bit = 0; bit < 32 && word * 32 + bit < numOfStates; bit ++) {
+                if(automaton.isFinal(word * 32 + bit)) bits |= 1 << bit;
+            }
+            out.writeInt(bits);
+        }
+        // offsets and successors
+        int offset = 0;
+        out.writeInt(offset);
+        for(int state = 0; state < numOfStates; state ++) {
+            for(int letter = 0; letter < numOfLetters; letter ++) {
+                offset += getSuccessors(automaton, state, letter).length;
+                out.writeInt(offset);
+            }
+        }
+        for(int state = 0; state < numOfStates; state ++) {
+            for(int letter = 0; letter < numOfLetters; letter ++) {
+                for(int succ : getSuccessors(automaton, state, letter)) {
+                    out.writeInt(succ);
+                }
+            }
+        }
+    }
+    
+    static int getNumOfFinalWords(int numOfStates) {
+        return (numOfStates + 31) >>> 5;
+    }
+    
+    private static int[] getSuccessors(FASimple automaton, int state, int letter) {
+        if(automaton instanceof DFA) {
+            int succ = ((DFA)automaton).getSuccessor(state, letter);
+            return succ < 0 ? new int[0] : new int[] {succ};
+        }
+        ISet succs = ((NFA)automaton).getSuccessors(state, letter);
+        int[] result = new int[succs.cardinality()];
+        int index = 0;
+        for(int succ : succs) {
+            result[index ++] = succ;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,80 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.parser.bin;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import roll.automata.NBA;
+import roll.main.Options;
+import roll.parser.PairParser;
+import roll.words.Alphabet;
+
+/**
+ * Parser for two NBAs in binary format, letters with the same label in
+ * both files are the same letter
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class PairParserBinary extends ParserBinary implements PairParser {
+    
+    protected NBA A;
+    protected NBA B;
+    private final Alphabet alphabet = new Alphabet();
+    private final Map<String, Character> labelCharMap = new HashMap<>();
+    
+    public PairParserBinary(Options options, String fileA, String fileB) {
+        super(options);
+        BinaryFile binA = open(fileA);
+        BinaryFile binB = open(fileB);
+        this.A = binA.toNBA(alphabet, getLetterMap(binA));
+        this.B = binB.toNBA(alphabet, getLetterMap(binB));
+        this.nba = B;
+    }
+    
+    private int[] getLetterMap(BinaryFile binFile) {
+        int[] letterMap = new int[binFile.getNumOfLetters()];
+        for(int letter = 0; letter < letterMap.length; letter ++) {
+            String label = binFile.getLabel(letter);
+            Character ch = labelCharMap.get(label);
+            if(ch == null) {
+                // keep the letter of the file if it is not used yet
+                ch = binFile.getLetter(letter);
+                while(charLabelMap.containsKey(ch) || ch == Alphabet.DOLLAR) {
+                    ch ++;
+                }
+                labelCharMap.put(label, ch);
+                charLabelMap.put(ch, label);
+                alphabet.addLetter(ch);
+            }
+            letterMap[letter] = alphabet.indexOf(ch);
+        }
+        return letterMap;
+    }
+
+    @Override
+    public NBA getA() {
+        return A;
+    }
+
+    @Override
+    public NBA getB() {
+        return B;
+    }
+
+}
@@ -0,0 +1,91 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.parser.bin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import gnu.trove.map.TCharObjectMap;
+import gnu.trove.map.hash.TCharObjectHashMap;
+import roll.automata.NBA;
+import roll.main.Options;
+import roll.parser.AutomatonWriter;
+import roll.parser.Parser;
+import roll.parser.UtilParser;
+
+/**
+ * Parser for NBAs in the binary format of ROLL
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class ParserBinary implements Parser {
+    
+    protected final Options options;
+    protected NBA nba;
+    // char -> label
+    protected TCharObjectMap<String> charLabelMap = new TCharObjectHashMap<>();
+    
+    public ParserBinary(Options options, String file) {
+        this.options = options;
+        BinaryFile binFile = open(file);
+        for(int letter = 0; letter < binFile.getNumOfLetters(); letter ++) {
+            charLabelMap.put(binFile.getLetter(letter), binFile.getLabel(letter));
+        }
+        this.nba = binFile.toNBA();
+    }
+    
+    protected ParserBinary(Options options) {
+        this.options = options;
+    }
+    
+    protected BinaryFile open(String file) {
+        try {
+            return new BinaryFile(file);
+        }catch(IOException e) {
+            throw new UncheckedIOException("Failed to read " + file, e);
+        }
+    }
+
+    @Override
+    public NBA parse() {
+        return nba;
+    }
+    
+    @Override
+    public String getLabel(NBA fa, int letter) {
+        char ch = fa.getAlphabet().getLetter(letter);
+        String label = charLabelMap.get(ch);
+        return label == null ? String.valueOf(ch) : label;
+    }
+
+    // binary files are written with BinaryFormat, here we print the BA format
+    @Override
+    public void print(NBA fa, OutputStream out) {
+        if(options.dot) {
+            UtilParser.print(fa, out, letter -> getLabel(fa, letter), options.mergeTransitions);
+            return;
+        }
+        new AutomatonWriter(fa, out, letter -> getLabel(fa, letter)).writeBA();
+    }
+    
+    @Override
+    public void close() {
+    }
+
+}
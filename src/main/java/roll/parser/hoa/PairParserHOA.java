@@ -16,25 +16,7 @@
 
 package roll.parser.hoa;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.util.List;
-import java.util.Set;
-
-import dk.brics.automaton.Automaton;
-import dk.brics.automaton.State;
-import dk.brics.automaton.Transition;
-import jhoafparser.ast.AtomAcceptance;
-import jhoafparser.ast.AtomLabel;
-import jhoafparser.ast.BooleanExpression;
-import jhoafparser.consumer.HOAConsumerException;
-import jhoafparser.parser.HOAFParser;
-import jhoafparser.parser.generated.ParseException;
-import net.sf.javabdd.BDD;
 import roll.automata.NBA;
-import roll.automata.operations.NBAOperations;
-import roll.bdd.BDDManager;
 import roll.main.Options;
 import roll.parser.PairParser;
 
@@ -47,38 +29,27 @@ import roll.parser.PairParser;
 public class PairParserHOA extends ParserHOA implements PairParser {
     protected NBA A;
     protected NBA B;
+    // A and B only share the alphabet, they are parsed one after the other
+    // since the parser of jhoafparser keeps static state
     public PairParserHOA(Options options, String fileA, String fileB) {
         super(options);
-        try {
-            InputStream fileInputStream = new FileInputStream(fileA);
-            this.automaton = new Automaton();
-            HOAFParser.parseHOA(fileInputStream, this);
-            this.A = nba;
-            fileInputStream = new FileInputStream(fileB);
-            this.indexStateMap.clear();
-            this.aliasBddMap.clear();
-            this.automaton = new Automaton();
-            HOAFParser.parseHOA(fileInputStream, this);
-            this.B = nba;
-            // now check if every possible combination of AP are there
-            BDD leftLabels = atomRemaining.not();
-            // compute the left labels
-            if(! leftLabels.isZero()) {
-                BDD oneSat = leftLabels.fullSatOne();
-                valsRemaining = bdd.toOneFullValuation(oneSat);
-                oneSat.free();
-                // add those letters which did not appear before
-                getValFromAtom(valsRemaining);
-            }
-            atomRemaining.free();
-            atomRemaining = leftLabels;
-        } catch (ParseException e) {
-            e.printStackTrace();
-        } catch(FileNotFoundException e) {
-            e.printStackTrace();
+        ParserHOA parserA = new ParserHOA(this);
+        ParserHOA parserB = new ParserHOA(this);
+        boolean parsed = parserA.parseFile(fileA) && parserB.parseFile(fileB);
+        if(! parsed) return;
+        if(options.minterms) {
+            // both automata share the minterms of their guards
+            buildMinterms(parserA, parserB);
+        }else {
+            addRemainingLetter();
         }
+        parserA.nba.removeUnreachableStates();
+        parserB.nba.removeUnreachableStates();
+        this.A = parserA.nba;
+        this.B = parserB.nba;
+        this.nba = B;
     }
-//  
+
     @Override
     public NBA parse() {
         return nba;
@@ -93,157 +64,5 @@ public class PairParserHOA extends ParserHOA implements PairParser {
     public NBA getB() {
         return B;
     }
-    
-    // --------------------------- following are parts for HANOI parser
-    // initialize bdd manager from atomic proposition set
-    @Override
-    public void setAPs(List<String> aps) throws HOAConsumerException {
-        if(apset == null) {
-            apset = new APSet(aps);
-            bdd = new BDDManager();
-            bdd.setNumVar(apset.size());
-            atomRemaining = bdd.getZero();
-        }else {
-            assert apset != null ;
-            if(apset.size() != aps.size()) {
-                throw new UnsupportedOperationException("Alphabets not the same between A and B");
-            }
-            for(int i = 0; i < aps.size(); i ++) {
-                if(!apset.getAP(i).equals(aps.get(i))) {
-                    throw new UnsupportedOperationException("Alphabets not the same between A and B");
-                }
-            }
-        }
-        
-        options.log.verbose("alphabet: " + apset + " size: 2^" + apset.size());
-    }
-
-
-    @Override
-    public void notifyBodyStart() throws HOAConsumerException {
-        options.log.verbose("Start parsing body...");
-    }
-
-    @Override
-    public void addState(int id, String info, BooleanExpression<AtomLabel> labelExpr, List<Integer> accSignature)
-            throws HOAConsumerException {
-        // only need to consider the labels of this state
-        if(accSignature != null && accSignature.size() > 0) {
-            indexStateMap.get(id).setAccept(true);
-        }       
-    }
-
-
-    // add support for alias of transitions
-    @Override
-    public void addEdgeWithLabel(int stateId, BooleanExpression<AtomLabel> labelExpr, List<Integer> conjSuccessors,
-            List<Integer> accSignature) throws HOAConsumerException {
-        if(conjSuccessors.size() != 1) {
-            throw new UnsupportedOperationException("successor conjunction does not allowed");
-        }
-        
-        assert labelExpr != null;
-        
-        int targetId = conjSuccessors.get(0);
-//      System.out.println(labelExpr);
-        BDD expr = null;
-        
-        if(labelExpr.getAtom() != null && labelExpr.getAtom().isAlias()) {
-            expr = aliasBddMap.get(labelExpr.getAtom().getAliasName()).id();
-        }else {
-            expr = bdd.fromBoolExpr(labelExpr);
-        }
-        Set<Valuation> vals = null;
-        if(apset.size() <= VAR_NUM_BOUND_TO_USE_BDD) {
-            vals = bdd.toValuationSet(expr, apset.size());
-        }else {
-            vals = bdd.toValuationSet(expr);
-        }
-        // record every transition label
-        atomRemaining = atomRemaining.orWith(expr);
-//      System.out.println(vals);       
-        addTransition(stateId, vals, targetId);
-        
-    }
-    
-
-    @Override
-    public void notifyEnd() throws HOAConsumerException {
-        nba = NBAOperations.fromDkNBA(automaton, alphabet);
-//        System.out.println(automaton.toDot());
-        automaton = null;
-    }
-    
-    protected void addTransition(int sourceId, Set<Valuation> vals, int targetId) {
-        State source = indexStateMap.get(sourceId); 
-        State target = indexStateMap.get(targetId);
-        for(Valuation val : vals) {
-            source.addTransition(new Transition(getValFromAtom(val), target));
-        }
-    }
-    
-    // ------------ donot care
-
-    @Override
-    public void notifyEndOfState(int stateId) throws HOAConsumerException {
-        // TODO Auto-generated method stub
-        
-    }
-
-    @Override
-    public boolean parserResolvesAliases() {
-        return false;
-    }
-
-    @Override
-    public void notifyHeaderStart(String version) throws HOAConsumerException {     
-    }
-
-    @Override
-    public void notifyAbort() {
-        // TODO Auto-generated method stub
-        
-    }
-
-    @Override
-    public void notifyWarning(String warning) throws HOAConsumerException {
-        
-    }
-
-    @Override
-    public void provideAcceptanceName(String name, List<Object> extraInfo) throws HOAConsumerException {
-        // do not care
-    }
-
-    @Override
-    public void setName(String name) throws HOAConsumerException {
-        // do not care
-    }
-
-    @Override
-    public void setTool(String name, String version) throws HOAConsumerException {
-        // do not care
-    }
-
-    @Override
-    public void addProperties(List<String> properties) throws HOAConsumerException {
-        // do not care
-    }
-
-    @Override
-    public void addMiscHeader(String name, List<Object> content) throws HOAConsumerException {
-        // do not care
-    }
-    @Override
-    public void setAcceptanceCondition(int numberOfSets, BooleanExpression<AtomAcceptance> accExpr)
-            throws HOAConsumerException {
-        // TODO Auto-generated method stub
-    }
-    
-    @Override
-    public void addEdgeImplicit(int stateId, List<Integer> conjSuccessors, List<Integer> accSignature)
-            throws HOAConsumerException {
-        
-    }
 
 }
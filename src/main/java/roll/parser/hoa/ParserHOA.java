@@ -20,16 +20,16 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.function.IntFunction;
 
-import dk.brics.automaton.Automaton;
-import dk.brics.automaton.State;
-import dk.brics.automaton.Transition;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TCharArrayList;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TCharObjectMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.TObjectCharMap;
@@ -45,9 +45,9 @@ import jhoafparser.parser.HOAFParser;
 import jhoafparser.parser.generated.ParseException;
 import net.sf.javabdd.BDD;
 import roll.automata.NBA;
-import roll.automata.operations.NBAOperations;
 import roll.bdd.BDDManager;
 import roll.main.Options;
+import roll.parser.AutomatonWriter;
 import roll.parser.Parser;
 import roll.parser.UtilParser;
 import roll.words.Alphabet;
@@ -60,8 +60,9 @@ import roll.words.Alphabet;
  * */
 public class ParserHOA implements Parser, HOAConsumer{
 
-    // this class only allow the characters
-    protected Automaton automaton;
+    // parser owning the alphabet and the BDDs, other than this parser if
+    // the automata of a pair parser are parsed concurrently
+    protected final ParserHOA owner;
     
     // left labels
     protected BDD atomRemaining = null;
@@ -75,47 +76,82 @@ public class ParserHOA implements Parser, HOAConsumer{
     protected TCharObjectMap<Valuation> charValMap = new TCharObjectHashMap<>();
     // valuation -> char
     protected TObjectCharMap<Valuation> valCharMap = new TObjectCharHashMap<>();
-    // int -> state
-    protected TIntObjectMap<State> indexStateMap = new TIntObjectHashMap<>();
     
     // we allow alias in the given HANOI file
     protected Map<String, BDD> aliasBddMap = new HashMap<>();
     
+    // minterm mode, edges are labelled by the distinct guards until all
+    // automata are parsed, the letters are then the minterms of the guards
+    protected List<BDD> guards = new ArrayList<>();
+    // hash code -> indices of guards
+    protected TIntObjectMap<TIntList> guardIndices = new TIntObjectHashMap<>();
+    protected List<GuardedEdge> edges = new ArrayList<>();
+    // char -> minterm
+    protected TCharObjectMap<BDD> charMintermMap = new TCharObjectHashMap<>();
+    
     // if there are more than VAR_NUM_BOUND_TO_USE_BDD atomic propositions, then use bdd
     protected final int VAR_NUM_BOUND_TO_USE_BDD = 7;
+    // states and transitions are put into nba while parsing
     protected NBA nba;
     protected final Options options;
     protected final Alphabet alphabet;
     
     public ParserHOA(Options options, String file) {
         this.options = options;
-        this.automaton = new Automaton();
         this.alphabet = new Alphabet();
+        this.owner = this;
+        if(! parseFile(file)) return;
+        if(options.minterms) {
+            buildMinterms(this);
+        }else {
+            addRemainingLetter();
+        }
+        nba.removeUnreachableStates();
+    }
+    
+    protected ParserHOA(Options options) {
+        this.options = options;
+        this.alphabet = new Alphabet();
+        this.owner = this;
+    }
+    
+    // parser for one automaton with the alphabet and BDDs of owner
+    protected ParserHOA(ParserHOA owner) {
+        this.options = owner.options;
+        this.alphabet = owner.alphabet;
+        this.owner = owner;
+    }
+    
+    protected boolean parseFile(String file) {
         try {
             InputStream fileInputStream = new FileInputStream(file);
-            HOAFParser.parseHOA(fileInputStream, this);
-            // now check if every possible combination of AP are there
-            BDD leftLabels = atomRemaining.not();
-            // compute the left labels
-            if(! leftLabels.isZero()) {
-                BDD oneSat = leftLabels.fullSatOne();
-                valsRemaining = bdd.toOneFullValuation(oneSat);
-                oneSat.free();
-                // add those letters which did not appear before
-                getValFromAtom(valsRemaining);
+            // HOAFParser keeps static state
+            synchronized(HOAFParser.class) {
+                HOAFParser.parseHOA(fileInputStream, this);
             }
-            atomRemaining.free();
-            atomRemaining = leftLabels;
+            return true;
         } catch (ParseException e) {
             e.printStackTrace();
         } catch(FileNotFoundException e) {
             e.printStackTrace();
         }
+        return false;
     }
     
-    protected ParserHOA(Options options) {
-        this.options = options;
-        this.alphabet = new Alphabet();
+    // the valuations not in any guard are represented by one letter
+    protected void addRemainingLetter() {
+        // now check if every possible combination of AP are there
+        BDD leftLabels = atomRemaining.not();
+        // compute the left labels
+        if(! leftLabels.isZero()) {
+            BDD oneSat = leftLabels.fullSatOne();
+            valsRemaining = bdd.toOneFullValuation(oneSat);
+            oneSat.free();
+            // add those letters which did not appear before
+            getValFromAtom(valsRemaining);
+        }
+        atomRemaining.free();
+        atomRemaining = leftLabels;
     }
 
     @Override
@@ -123,53 +159,42 @@ public class ParserHOA implements Parser, HOAConsumer{
         return nba;
     }
 
-    // we do not merge transitions which share the same source and target states
+    @Override
+    public String getLabel(NBA nba, int letter) {
+        BDD labelDD = getBDDFromLabel(nba.getAlphabet().getLetter(letter));
+        String label = bdd.toString(labelDD);
+        labelDD.free();
+        return label;
+    }
+
+    // transitions which share the same source and target states are merged if required
     @Override
     public void print(NBA nba, OutputStream stream) {
-        PrintStream out = new PrintStream(stream);
-        
+        final int dollar = nba.getAlphabet().indexOf(Alphabet.DOLLAR);
+        IntFunction<String> label = letter -> letter == dollar ? null : getLabel(nba, letter);
         if(options.dot) {
-            TIntObjectMap<String> map = new TIntObjectHashMap<>();
-            for(int letter = 0; letter < nba.getAlphabetSize(); letter ++) {
-                if(nba.getAlphabet().indexOf(Alphabet.DOLLAR) == letter) continue;
-                BDD labelDD = getBDDFromLabel(nba.getAlphabet().getLetter(letter));
-                map.put(letter, bdd.toString(labelDD));
-                labelDD.free();
-            }
-            Function<Integer, String> fun = index -> map.get(index);
-            UtilParser.print(nba, stream, fun);
-        }else {
-            out.println("HOA: v1");
-            out.println("tool: \"ROLL\"");
-            out.println("properties: explicit-labels state-acc trans-labels ");
-            
-            out.println("States: " + nba.getStateSize());
-            out.println("Start: " + nba.getInitialState());
-            out.println("acc-name: Buchi");
-            out.println("Acceptance: 1 Inf(0)");
-            out.print("AP: " + apset.size());
-            for(int index = 0; index < apset.size(); index ++) {
-                out.print(" \"" + apset.getAP(index) + "\"");
-            }
-            out.println();
-            out.println("--BODY--");
-            
-            for (int stateNr = 0; stateNr < nba.getStateSize(); stateNr ++) {
-                out.print("State: " + stateNr);
-                if(nba.isFinal(stateNr)) out.print(" {0}");
-                out.println();
-                for (int letter = 0; letter < nba.getAlphabetSize(); letter ++) {
-                    if(nba.getAlphabet().indexOf(Alphabet.DOLLAR) == letter) continue;
-                    BDD labelDD = getBDDFromLabel(nba.getAlphabet().getLetter(letter));
-                    for(int succNr : nba.getSuccessors(stateNr, letter)) {
-                        out.println("[" + bdd.toString(labelDD) + "]  " + succNr);
-                    }
-                    labelDD.free();
-                }
-            }   
-            out.println("--END--");
+            UtilParser.print(nba, stream, label::apply, options.mergeTransitions);
+            return;
         }
-
+        List<String> aps = new ArrayList<>();
+        for(int index = 0; index < apset.size(); index ++) {
+            aps.add(apset.getAP(index));
+        }
+        AutomatonWriter writer = options.mergeTransitions
+                ? new AutomatonWriter(nba, stream, label, letters -> getGuard(nba, letters))
+                : new AutomatonWriter(nba, stream, label);
+        writer.writeHOA(aps);
+    }
+    
+    // disjunction of the labels of the letters
+    private String getGuard(NBA nba, TIntList letters) {
+        BDD guard = bdd.getZero();
+        for(int i = 0; i < letters.size(); i ++) {
+            guard = guard.orWith(getBDDFromLabel(nba.getAlphabet().getLetter(letters.get(i))));
+        }
+        String label = bdd.toString(guard);
+        guard.free();
+        return label;
     }
 
     @Override
@@ -178,6 +203,12 @@ public class ParserHOA implements Parser, HOAConsumer{
         for(BDD dd : aliasBddMap.values()) {
             dd.free();
         }
+        for(BDD dd : guards) {
+            dd.free();
+        }
+        for(BDD dd : charMintermMap.valueCollection()) {
+            dd.free();
+        }
         bdd.close();
     }
     
@@ -197,8 +228,19 @@ public class ParserHOA implements Parser, HOAConsumer{
         return ch;
     }
     
+    protected char getLetterFromMinterm(BDD minterm) {
+        char ch = (char) charMintermMap.size();
+        if(ch >= '$' )   ch ++; // reserve '$' sign
+        charMintermMap.put(ch, minterm);
+        alphabet.addLetter(ch);
+        return ch;
+    }
+    
     // get the original evaluation w.r.t. the label on transition
     protected BDD getBDDFromLabel(char ch) {
+        if(options.minterms) {
+            return charMintermMap.get(ch).id();
+        }
         Valuation valuation = charValMap.get(ch);
         if(valuation == valsRemaining) {
             return atomRemaining.id();
@@ -208,11 +250,16 @@ public class ParserHOA implements Parser, HOAConsumer{
     }
 
 
+    protected int ensureState(int stateId) {
+        while(nba.getStateSize() <= stateId) {
+            nba.createState();
+        }
+        return stateId;
+    }
+
     @Override
     public void setNumberOfStates(int numberOfStates) throws HOAConsumerException {
-        for(int stateNr = 0; stateNr < numberOfStates; stateNr ++) {
-            indexStateMap.put(stateNr, new State());
-        }
+        if(numberOfStates > 0) ensureState(numberOfStates - 1);
     }
 
     // adding multiple states in alternating automaton is allowed, 
@@ -223,23 +270,39 @@ public class ParserHOA implements Parser, HOAConsumer{
             throw new UnsupportedOperationException( "only allow one initial state one time");
         }
         int initNr = stateConjunction.get(0);
-        automaton.setInitialState(indexStateMap.get(initNr));
+        nba.setInitial(ensureState(initNr));
     }
 
     // allow alias for transition label
     @Override
     public void addAlias(String name, BooleanExpression<AtomLabel> labelExpr) throws HOAConsumerException {
-        aliasBddMap.put(name, bdd.fromBoolExpr(labelExpr));
+        synchronized(owner) {
+            aliasBddMap.put(name, owner.bdd.fromBoolExpr(labelExpr));
+        }
     }
 
-    // initialize bdd manager from atomic proposition set
+    // initialize bdd manager from atomic proposition set, the automata
+    // sharing the owner should have the same atomic propositions
     @Override
     public void setAPs(List<String> aps) throws HOAConsumerException {
-        apset = new APSet(aps);
-        bdd = new BDDManager();
-        bdd.setNumVar(apset.size());
-        atomRemaining = bdd.getZero();
-        options.log.verbose("alphabet: " + apset + " size: 2^" + apset.size());
+        synchronized(owner) {
+            if(owner.apset == null) {
+                owner.apset = new APSet(aps);
+                owner.bdd = new BDDManager();
+                owner.bdd.setNumVar(owner.apset.size());
+                owner.atomRemaining = owner.bdd.getZero();
+            }else {
+                if(owner.apset.size() != aps.size()) {
+                    throw new UnsupportedOperationException("Alphabets not the same between A and B");
+                }
+                for(int i = 0; i < aps.size(); i ++) {
+                    if(!owner.apset.getAP(i).equals(aps.get(i))) {
+                        throw new UnsupportedOperationException("Alphabets not the same between A and B");
+                    }
+                }
+            }
+            options.log.verbose("alphabet: " + owner.apset + " size: 2^" + owner.apset.size());
+        }
     }
 
 
@@ -251,9 +314,10 @@ public class ParserHOA implements Parser, HOAConsumer{
     @Override
     public void addState(int id, String info, BooleanExpression<AtomLabel> labelExpr, List<Integer> accSignature)
             throws HOAConsumerException {
+        ensureState(id);
         // only need to consider the labels of this state
         if(accSignature != null && accSignature.size() > 0) {
-            indexStateMap.get(id).setAccept(true);
+            nba.setFinal(id);
         }       
     }
 
@@ -268,41 +332,121 @@ public class ParserHOA implements Parser, HOAConsumer{
         
         assert labelExpr != null;
         
-        int targetId = conjSuccessors.get(0);
-//      System.out.println(labelExpr);
-        BDD expr = null;
-        
-        if(labelExpr.getAtom() != null && labelExpr.getAtom().isAlias()) {
-            expr = aliasBddMap.get(labelExpr.getAtom().getAliasName()).id();
-        }else {
-            expr = bdd.fromBoolExpr(labelExpr);
-        }
-        Set<Valuation> vals = null;
-        if(apset.size() <= VAR_NUM_BOUND_TO_USE_BDD) {
-            vals = bdd.toValuationSet(expr, apset.size());
-        }else {
-            vals = bdd.toValuationSet(expr);
+        int sourceId = ensureState(stateId);
+        int targetId = ensureState(conjSuccessors.get(0));
+        int[] letters;
+        // only the guards and letters are shared with the other automaton
+        synchronized(owner) {
+            BDD expr = null;
+            if(labelExpr.getAtom() != null && labelExpr.getAtom().isAlias()) {
+                expr = aliasBddMap.get(labelExpr.getAtom().getAliasName()).id();
+            }else {
+                expr = owner.bdd.fromBoolExpr(labelExpr);
+            }
+            if(options.minterms) {
+                edges.add(new GuardedEdge(sourceId, owner.getGuardIndex(expr), targetId));
+                return;
+            }
+            Set<Valuation> vals = null;
+            if(owner.apset.size() <= VAR_NUM_BOUND_TO_USE_BDD) {
+                vals = owner.bdd.toValuationSet(expr, owner.apset.size());
+            }else {
+                vals = owner.bdd.toValuationSet(expr);
+            }
+            // record every transition label
+            owner.atomRemaining = owner.atomRemaining.orWith(expr);
+            letters = new int[vals.size()];
+            int index = 0;
+            for(Valuation val : vals) {
+                letters[index ++] = alphabet.indexOf(owner.getValFromAtom(val));
+            }
         }
-        // record every transition label
-        atomRemaining = atomRemaining.orWith(expr);
-//      System.out.println(vals);       
-        addTransition(stateId, vals, targetId);
-        
+        addTransition(sourceId, letters, targetId);
     }
     
 
     @Override
     public void notifyEnd() throws HOAConsumerException {
-        nba = NBAOperations.fromDkNBA(automaton, alphabet);
-//        System.out.println(automaton.toDot());
-        automaton = null;
+        // the transitions are already in nba
     }
     
-    protected void addTransition(int sourceId, Set<Valuation> vals, int targetId) {
-        State source = indexStateMap.get(sourceId); 
-        State target = indexStateMap.get(targetId);
-        for(Valuation val : vals) {
-            source.addTransition(new Transition(getValFromAtom(val), target));
+    protected void addTransition(int sourceId, int[] letters, int targetId) {
+        for(int letter : letters) {
+            nba.getState(sourceId).addTransition(letter, targetId);
+        }
+    }
+    
+    protected int getGuardIndex(BDD guard) {
+        TIntList indices = guardIndices.get(guard.hashCode());
+        if(indices == null) {
+            indices = new TIntArrayList();
+            guardIndices.put(guard.hashCode(), indices);
+        }
+        for(int i = 0; i < indices.size(); i ++) {
+            if(guards.get(indices.get(i)).equals(guard)) {
+                guard.free();
+                return indices.get(i);
+            }
+        }
+        indices.add(guards.size());
+        guards.add(guard);
+        return guards.size() - 1;
+    }
+    
+    // the coarsest partition of valuations such that every guard is a union
+    // of minterms, then each minterm is a letter
+    protected void buildMinterms(ParserHOA... parsers) {
+        List<BDD> minterms = new ArrayList<>();
+        minterms.add(bdd.getOne());
+        for(BDD guard : guards) {
+            List<BDD> refined = new ArrayList<>();
+            for(BDD minterm : minterms) {
+                BDD inside = minterm.and(guard);
+                if(inside.isZero() || inside.equals(minterm)) {
+                    inside.free();
+                    refined.add(minterm);
+                    continue;
+                }
+                refined.add(inside);
+                refined.add(minterm.andWith(inside.not()));
+            }
+            minterms = refined;
+        }
+        options.log.verbose("alphabet: " + minterms.size() + " minterms for " + guards.size() + " guards");
+        TCharArrayList letters = new TCharArrayList();
+        for(BDD minterm : minterms) {
+            letters.add(getLetterFromMinterm(minterm));
+        }
+        List<TCharArrayList> guardLetters = new ArrayList<>();
+        for(BDD guard : guards) {
+            TCharArrayList chars = new TCharArrayList();
+            for(int i = 0; i < minterms.size(); i ++) {
+                BDD inside = minterms.get(i).and(guard);
+                if(! inside.isZero()) chars.add(letters.get(i));
+                inside.free();
+            }
+            guardLetters.add(chars);
+        }
+        for(ParserHOA parser : parsers) {
+            for(GuardedEdge edge : parser.edges) {
+                TCharArrayList chars = guardLetters.get(edge.guard);
+                for(int j = 0; j < chars.size(); j ++) {
+                    parser.nba.getState(edge.source).addTransition(alphabet.indexOf(chars.get(j)), edge.target);
+                }
+            }
+            parser.edges.clear();
+        }
+    }
+    
+    protected static class GuardedEdge {
+        final int source;
+        final int guard;
+        final int target;
+        
+        GuardedEdge(int source, int guard, int target) {
+            this.source = source;
+            this.guard = guard;
+            this.target = target;
         }
     }
     
@@ -320,7 +464,8 @@ public class ParserHOA implements Parser, HOAConsumer{
     }
 
     @Override
-    public void notifyHeaderStart(String version) throws HOAConsumerException {     
+    public void notifyHeaderStart(String version) throws HOAConsumerException {
+        nba = new NBA(alphabet);
     }
 
     @Override
@@ -0,0 +1,138 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and heap budget of the current thread.
+ * 
+ * A watchdog interrupts the thread once the deadline has passed or the heap
+ * still in use after the last garbage collection exceeds the limit; long
+ * loops stop cooperatively by checkInterrupted(), as the portfolio checkers
+ * already do.
+ * The heap is measured for the whole JVM, not per thread, so a heap budget
+ * is only meaningful while a single check runs at a time.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class Budget implements AutoCloseable {
+    
+    // how often the watchdog looks at the budgets
+    private static final long PERIOD = 10;
+    
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "roll-budget");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    
+    private final Thread thread;
+    private final long deadline;
+    private final long maxHeap;
+    private final ScheduledFuture<?> task;
+    private boolean closed;
+    private String exceeded;
+    // whether the interrupt of the thread came from the watchdog
+    private boolean interrupted;
+    
+    /**
+     * @param nanos  time in nanoseconds from now, at most 0 for no time limit
+     * @param maxHeap  bytes of heap in use, at most 0 for no heap limit
+     * */
+    public Budget(long nanos, long maxHeap) {
+        this.thread = Thread.currentThread();
+        this.deadline = nanos > 0 ? System.nanoTime() + nanos : Long.MAX_VALUE;
+        this.maxHeap = maxHeap > 0 ? maxHeap : Long.MAX_VALUE;
+        if(nanos > 0 || maxHeap > 0) {
+            this.task = WATCHDOG.scheduleAtFixedRate(this::watch, PERIOD, PERIOD, TimeUnit.MILLISECONDS);
+        }else {
+            this.task = null;
+        }
+    }
+    
+    private synchronized void watch() {
+        if(closed || exceeded != null) return;
+        if(System.nanoTime() >= deadline) {
+            exceeded = "time";
+        }else if(maxHeap != Long.MAX_VALUE && MEMORY.getHeapMemoryUsage().getUsed() > maxHeap
+               && getLiveHeap() > maxHeap) {
+            exceeded = "memory";
+        }
+        if(exceeded != null) {
+            // an interrupt from elsewhere, like a shutdown, stays with the thread
+            interrupted = ! thread.isInterrupted();
+            thread.interrupt();
+            task.cancel(false);
+        }
+    }
+    
+    // the heap in use includes garbage, what survived the last collections does not
+    private static long getLiveHeap() {
+        long result = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if(usage != null) result += usage.getUsed();
+        }
+        return result;
+    }
+    
+    // cooperative cancellation of long loops when running under a budget
+    public static void checkInterrupted(String what) {
+        if(Thread.currentThread().isInterrupted()) {
+            throw new CancellationException(what + " is cancelled");
+        }
+    }
+    
+    // "time" or "memory" once the budget is exceeded, null otherwise
+    public synchronized String getExceeded() {
+        return exceeded;
+    }
+    
+    public boolean isExceeded() {
+        return getExceeded() != null;
+    }
+    
+    // the interrupt of an exceeded budget does not leak to the next one
+    @Override
+    public void close() {
+        boolean clear;
+        synchronized(this) {
+            if(closed) return;
+            closed = true;
+            if(task != null) task.cancel(false);
+            clear = interrupted;
+        }
+        if(clear && thread == Thread.currentThread()) {
+            Thread.interrupted();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.util;
+
+/**
+ * Histogram of non-negative values with logarithmic buckets, every power of two
+ * is split into four sub-buckets, so a percentile is within 25% of the real value.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class Histogram {
+    
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int NUM_OF_BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+    
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long max;
+    
+    public Histogram() {
+        this.counts = new long[NUM_OF_BUCKETS];
+    }
+    
+    private static int getBucket(long value) {
+        if(value < SUB_BUCKETS) return (int)value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exp - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+    
+    // the largest value falls in bucket
+    private static long getUpperBound(int bucket) {
+        if(bucket < SUB_BUCKETS) return bucket;
+        int exp = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long)(SUB_BUCKETS + sub + 1) << exp) - 1;
+    }
+    
+    public synchronized void record(long value) {
+        if(value < 0) value = 0;
+        counts[getBucket(value)] ++;
+        count ++;
+        total += value;
+        if(value > max) max = value;
+    }
+    
+    public synchronized long getCount() {
+        return count;
+    }
+    
+    public synchronized long getTotal() {
+        return total;
+    }
+    
+    public synchronized long getMax() {
+        return max;
+    }
+    
+    public synchronized double getMean() {
+        return count == 0 ? 0 : total / (double)count;
+    }
+    
+    // p in [0, 1], e.g., 0.99 for p99
+    public synchronized long getPercentile(double p) {
+        if(count == 0) return 0;
+        long rank = (long)Math.ceil(p * count);
+        if(rank < 1) rank = 1;
+        long seen = 0;
+        for(int bucket = 0; bucket < NUM_OF_BUCKETS; bucket ++) {
+            seen += counts[bucket];
+            if(seen >= rank) {
+                return Math.min(getUpperBound(bucket), max);
+            }
+        }
+        return max;
+    }
+    
+    public synchronized void clear() {
+        for(int bucket = 0; bucket < NUM_OF_BUCKETS; bucket ++) {
+            counts[bucket] = 0;
+        }
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+}
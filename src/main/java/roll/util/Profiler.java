@@ -0,0 +1,319 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package roll.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import roll.main.Log;
+
+/**
+ * Hierarchical profiler with nanosecond resolution. A phase is opened by
+ * {@link #start(String)} and closed when leaving the try-with-resources block,
+ * the phases opened in between become its children, so the time of a phase
+ * is reported both in total and exclusive of its children.
+ * For every phase we keep a latency histogram, the histograms of the stem and
+ * loop lengths of the queries in it and optionally the bytes it allocated.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class Profiler {
+    
+    // phase names used by the learners and teachers
+    public static final String MEMBERSHIP = "MQ";
+    public static final String EQUIVALENCE = "EQ";
+    public static final String LEARNER = "learner";
+    public static final String LEADING = "leading";
+    public static final String PROGRESS = "progress";
+    public static final String TRANSLATOR = "translator";
+    public static final String POSITIVE_CE = "positive CE";
+    public static final String NEGATIVE_CE = "negative CE";
+    
+    private final Node root;
+    // per name totals, nested phases of the same name only count once
+    private final ConcurrentHashMap<String, Node> flat;
+    private final ThreadLocal<Phase> current;
+    
+    private volatile boolean trackAllocations;
+    private final com.sun.management.ThreadMXBean threadBean;
+    
+    public Profiler() {
+        this.root = new Node("total");
+        this.flat = new ConcurrentHashMap<>();
+        this.current = new ThreadLocal<>();
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean) {
+            this.threadBean = (com.sun.management.ThreadMXBean)bean;
+        }else {
+            this.threadBean = null;
+        }
+    }
+    
+    // allocation counters cost a native call on each phase, only on demand
+    public void setTrackAllocations(boolean track) {
+        if(track && threadBean != null && threadBean.isThreadAllocatedMemorySupported()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+            trackAllocations = true;
+        }else {
+            trackAllocations = false;
+        }
+    }
+    
+    public boolean isTrackingAllocations() {
+        return trackAllocations;
+    }
+    
+    private long getAllocatedBytes() {
+        if(! trackAllocations) return 0;
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+    public Phase start(String name) {
+        return start(name, null);
+    }
+    
+    // the listener gets the closed phase, e.g., to add its time to the statistics
+    public Phase start(String name, Consumer<Phase> listener) {
+        Phase parent = current.get();
+        Node parentNode = parent == null ? root : parent.node;
+        Phase phase = new Phase(this, parent, parentNode.getChild(name), listener);
+        current.set(phase);
+        return phase;
+    }
+    
+    public Node getRoot() {
+        return root;
+    }
+    
+    // node which sums up all phases with given name
+    public Node getPhase(String name) {
+        return flat.get(name);
+    }
+    
+    public long getNanos(String name) {
+        Node node = flat.get(name);
+        return node == null ? 0 : node.getTotalNanos();
+    }
+    
+    public long getMillis(String name) {
+        return getNanos(name) / 1000000;
+    }
+    
+    private void finish(Phase phase, long nanos, long bytes) {
+        phase.node.record(nanos, bytes);
+        phase.nanos = nanos;
+        boolean nested = false;
+        for(Phase p = phase.parent; p != null; p = p.parent) {
+            if(p.node.name.equals(phase.node.name)) {
+                nested = true;
+                break;
+            }
+        }
+        if(! nested) {
+            phase.millis = getFlatNode(phase.node.name).record(nanos, bytes);
+        }
+        current.set(phase.parent);
+    }
+    
+    private void recordSize(Phase phase, int stem, int loop) {
+        phase.node.stems.record(stem);
+        phase.node.loops.record(loop);
+        Node node = getFlatNode(phase.node.name);
+        node.stems.record(stem);
+        node.loops.record(loop);
+    }
+    
+    private Node getFlatNode(String name) {
+        Node node = flat.get(name);
+        if(node == null) {
+            node = new Node(name);
+            Node prev = flat.putIfAbsent(name, node);
+            if(prev != null) node = prev;
+        }
+        return node;
+    }
+    
+    public void print(Log log) {
+        // printed like the statistics, also without verbose mode
+        log.print("\nprofile (time in us, exclusive time is spent outside of sub-phases):\n");
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-36s %10s %12s %12s %10s %10s %10s", "phase", "count"
+                , "total", "exclusive", "p50", "p99", "max"));
+        if(trackAllocations) builder.append(String.format(" %12s", "alloc(KB)"));
+        log.print(builder.toString() + "\n");
+        for(Node child : root.getChildren()) {
+            print(log, child, 0);
+        }
+        for(Node node : flat.values()) {
+            if(node.stems.getCount() == 0) continue;
+            log.print(String.format("%-36s stem p50=%d p99=%d max=%d, loop p50=%d p99=%d max=%d"
+                    , node.name + " lengths", node.stems.getPercentile(0.5), node.stems.getPercentile(0.99)
+                    , node.stems.getMax(), node.loops.getPercentile(0.5), node.loops.getPercentile(0.99)
+                    , node.loops.getMax()) + "\n");
+        }
+    }
+    
+    private void print(Log log, Node node, int depth) {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < depth; i ++) {
+            builder.append("  ");
+        }
+        builder.append(node.name);
+        Histogram latency = node.latency;
+        builder = new StringBuilder(String.format("%-36s %10d %12d %12d %10d %10d %10d", builder.toString()
+                , latency.getCount(), latency.getTotal() / 1000, node.getSelfNanos() / 1000
+                , latency.getPercentile(0.5) / 1000, latency.getPercentile(0.99) / 1000, latency.getMax() / 1000));
+        if(trackAllocations) builder.append(String.format(" %12d", node.getAllocatedBytes() / 1024));
+        log.print(builder.toString() + "\n");
+        for(Node child : node.getChildren()) {
+            print(log, child, depth + 1);
+        }
+    }
+    
+    public static class Phase implements AutoCloseable {
+        
+        private final Profiler profiler;
+        private final Phase parent;
+        private final Node node;
+        private final Consumer<Phase> listener;
+        private final long startBytes;
+        private final long start;
+        private boolean closed;
+        private long nanos;
+        private long millis;
+        
+        private Phase(Profiler profiler, Phase parent, Node node, Consumer<Phase> listener) {
+            this.profiler = profiler;
+            this.parent = parent;
+            this.node = node;
+            this.listener = listener;
+            this.startBytes = profiler.getAllocatedBytes();
+            this.start = System.nanoTime();
+        }
+        
+        // stem and loop length of the query answered in this phase
+        public void recordSize(int stem, int loop) {
+            profiler.recordSize(this, stem, loop);
+        }
+        
+        // duration of the closed phase
+        public long getNanos() {
+            return nanos;
+        }
+        
+        // milliseconds the phase adds to the total of its name, summing up
+        // these never loses the fractions of short phases
+        public long getMillis() {
+            return millis;
+        }
+        
+        @Override
+        public void close() {
+            if(closed) return;
+            closed = true;
+            long nanos = System.nanoTime() - start;
+            profiler.finish(this, nanos, profiler.getAllocatedBytes() - startBytes);
+            if(listener != null) listener.accept(this);
+        }
+    }
+    
+    public static class Node {
+        
+        private final String name;
+        private final ConcurrentHashMap<String, Node> children;
+        private final Histogram latency;
+        private final Histogram stems;
+        private final Histogram loops;
+        private long allocatedBytes;
+        
+        private Node(String name) {
+            this.name = name;
+            this.children = new ConcurrentHashMap<>();
+            this.latency = new Histogram();
+            this.stems = new Histogram();
+            this.loops = new Histogram();
+        }
+        
+        private Node getChild(String name) {
+            Node child = children.get(name);
+            if(child == null) {
+                child = new Node(name);
+                Node prev = children.putIfAbsent(name, child);
+                if(prev != null) child = prev;
+            }
+            return child;
+        }
+        
+        // returns the increment of the total time in milliseconds
+        private synchronized long record(long nanos, long bytes) {
+            long millis = latency.getTotal() / 1000000;
+            latency.record(nanos);
+            allocatedBytes += bytes;
+            return latency.getTotal() / 1000000 - millis;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public List<Node> getChildren() {
+            List<Node> result = new ArrayList<>(children.values());
+            result.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+            return result;
+        }
+        
+        public long getCount() {
+            return latency.getCount();
+        }
+        
+        public long getTotalNanos() {
+            return latency.getTotal();
+        }
+        
+        // time not spent in any sub-phase
+        public long getSelfNanos() {
+            long nanos = getTotalNanos();
+            for(Node child : children.values()) {
+                nanos -= child.getTotalNanos();
+            }
+            return nanos;
+        }
+        
+        public synchronized long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+        
+        public Histogram getLatency() {
+            return latency;
+        }
+        
+        public Histogram getStemLengths() {
+            return stems;
+        }
+        
+        public Histogram getLoopLengths() {
+            return loops;
+        }
+    }
+
+}
@@ -27,8 +27,9 @@ public class Timer {
     public Timer() {
     }
     
+    // monotonic clock, wall clock adjustments do not affect the elapsed time
     public void start() {
-        time = System.currentTimeMillis();
+        time = System.nanoTime();
     }
     
     public long getCurrentTime() {
@@ -36,10 +37,14 @@ public class Timer {
     }
     
     public void stop() {
-        time = System.currentTimeMillis() - time;
+        time = System.nanoTime() - time;
     }
     
     public long getTimeElapsed() {
+        return time / 1000000;
+    }
+    
+    public long getNanoTimeElapsed() {
         return time;
     }
 
@@ -0,0 +1,208 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.util.offheap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Growable array of primitive elements stored outside of the Java heap,
+ * large arrays are split into chunks of 4MB mapped from one temporary file,
+ * which are neither limited by the heap nor by the direct memory of the JVM.
+ * Small arrays stay on the heap since allocating direct buffers is expensive.
+ * 
+ * The file is unlinked as soon as it is open, close() unmaps the chunks and
+ * closes the file; arrays which are not closed are released by the garbage
+ * collector.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+abstract class OffHeapArray implements Closeable {
+    
+    protected static final int CHUNK_BYTES = 1 << 22;
+    private static final int DIRECT_BYTES = 1 << 16;
+    private static final int INIT_CAPACITY = 1 << 8;
+    
+    protected final int shift;      // log2 of the number of elements per chunk
+    protected final int mask;
+    private final int elemBytes;
+    protected final List<ByteBuffer> chunks;
+    protected long capacity;
+    protected long size;
+    // file of the mapped chunks, opened with the first chunk
+    private RandomAccessFile file;
+    // only kept if the file could not be unlinked while open
+    private File path;
+    
+    protected OffHeapArray(int elemBytes) {
+        this.elemBytes = elemBytes;
+        this.shift = Integer.numberOfTrailingZeros(CHUNK_BYTES / elemBytes);
+        this.mask = (1 << shift) - 1;
+        this.chunks = new ArrayList<>();
+        this.capacity = INIT_CAPACITY;
+        this.chunks.add(allocate(INIT_CAPACITY * elemBytes));
+    }
+    
+    private static ByteBuffer allocate(int bytes) {
+        ByteBuffer buffer = bytes < DIRECT_BYTES ? ByteBuffer.allocate(bytes)
+                : ByteBuffer.allocateDirect(bytes);
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+    
+    // chunk at the given position of the file, direct memory if there is no file;
+    // an interrupt closes the file, the check is cancelled rather than moved to direct memory
+    private ByteBuffer allocateChunk(int chunkNr) {
+        try {
+            if(file == null) {
+                File temp = File.createTempFile("roll", ".array");
+                file = new RandomAccessFile(temp, "rw");
+                if(! temp.delete()) path = temp;
+            }
+            // the file grows with the mapped region
+            ByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE
+                    , (long)chunkNr * CHUNK_BYTES, CHUNK_BYTES);
+            return buffer.order(ByteOrder.nativeOrder());
+        }catch(ClosedByInterruptException e) {
+            closeFile();
+            throw new CancellationException("mapping a chunk is interrupted");
+        }catch(IOException e) {
+            return allocate(CHUNK_BYTES);
+        }
+    }
+    
+    public long size() {
+        return size;
+    }
+    
+    // drop the elements from index newSize on
+    public void setSize(long newSize) {
+        assert newSize <= size;
+        size = newSize;
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    public void ensureCapacity(long minCapacity) {
+        if(minCapacity <= capacity) return;
+        long chunkElems = 1L << shift;
+        if(capacity < chunkElems) {
+            // double the first buffer until it becomes a full chunk
+            long newCapacity = capacity;
+            while(newCapacity < minCapacity && newCapacity < chunkElems) newCapacity <<= 1;
+            ByteBuffer buffer = newCapacity == chunkElems ? allocateChunk(0)
+                    : allocate((int)(newCapacity * elemBytes));
+            ByteBuffer old = chunks.get(0);
+            old.clear();
+            buffer.put(old);
+            buffer.clear();
+            chunks.set(0, buffer);
+            unmap(old);
+            capacity = newCapacity;
+        }
+        while(capacity < minCapacity) {
+            chunks.add(allocateChunk(chunks.size()));
+            capacity += chunkElems;
+        }
+    }
+    
+    protected final int offset(long index) {
+        return (int)(index & mask) * elemBytes;
+    }
+    
+    protected final ByteBuffer chunk(long index) {
+        return chunks.get((int)(index >>> shift));
+    }
+
+    // the array can not be used any more
+    @Override
+    public void close() {
+        for(ByteBuffer chunk : chunks) {
+            unmap(chunk);
+        }
+        chunks.clear();
+        capacity = 0;
+        size = 0;
+        closeFile();
+    }
+    
+    private void closeFile() {
+        if(file != null) {
+            try {
+                file.close();
+            }catch(IOException e) {
+                // nothing is written back
+            }
+            file = null;
+        }
+        if(path != null) {
+            path.delete();
+            path = null;
+        }
+    }
+    
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            // only available since Java 9
+            Class<?> clazz = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = clazz.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        }catch(ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+    
+    // release the memory of a direct or mapped buffer now instead of at garbage collection
+    private static void unmap(ByteBuffer buffer) {
+        if(! buffer.isDirect()) return;
+        try {
+            if(INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            }else {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if(cleaner != null) cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        }catch(ReflectiveOperationException | RuntimeException e) {
+            // left to the garbage collector
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.util.offheap;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class OffHeapIntArray extends OffHeapArray {
+    
+    public OffHeapIntArray() {
+        super(Integer.BYTES);
+    }
+    
+    // array of given size filled with value
+    public OffHeapIntArray(long size, int value) {
+        this();
+        ensureCapacity(size);
+        // new buffers are filled with zeros
+        for(long i = 0; value != 0 && i < size; i ++) {
+            set(i, value);
+        }
+        this.size = size;
+    }
+    
+    public int get(long index) {
+        assert index < size;
+        return chunk(index).getInt(offset(index));
+    }
+    
+    public void set(long index, int value) {
+        chunk(index).putInt(offset(index), value);
+    }
+    
+    public void add(int value) {
+        ensureCapacity(size + 1);
+        set(size, value);
+        size ++;
+    }
+    
+    public int getLast() {
+        return get(size - 1);
+    }
+    
+    public int removeLast() {
+        int value = get(size - 1);
+        size --;
+        return value;
+    }
+
+}
@@ -0,0 +1,50 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.util.offheap;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class OffHeapLongArray extends OffHeapArray {
+    
+    public OffHeapLongArray() {
+        super(Long.BYTES);
+    }
+    
+    public long get(long index) {
+        assert index < size;
+        return chunk(index).getLong(offset(index));
+    }
+    
+    public void set(long index, long value) {
+        chunk(index).putLong(offset(index), value);
+    }
+    
+    public void add(long value) {
+        ensureCapacity(size + 1);
+        set(size, value);
+        size ++;
+    }
+    
+    public long removeLast() {
+        long value = get(size - 1);
+        size --;
+        return value;
+    }
+
+}
@@ -0,0 +1,127 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package roll.util.offheap;
+
+import java.io.Closeable;
+
+/**
+ * Maps non-negative long keys to dense ids 0, 1, 2, ... with an open
+ * addressing table in off-heap memory. The table only keeps the ids,
+ * keys are kept by id so that they can be recovered from the ids.
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class OffHeapLongIndex implements Closeable {
+    
+    private static final int MAX_CAPACITY = 1 << 30;
+    
+    private final OffHeapLongArray keys;   // id -> key
+    private OffHeapIntArray table;         // slot -> id + 1, 0 for empty slot
+    private int capacity;
+    private int size;
+    
+    public OffHeapLongIndex() {
+        this.keys = new OffHeapLongArray();
+        this.capacity = 1 << 8;
+        this.table = new OffHeapIntArray(capacity, 0);
+    }
+    
+    public static long getKey(int fst, int snd) {
+        return ((long)fst << 32) | (snd & 0xFFFFFFFFL);
+    }
+    
+    public static int getFirst(long key) {
+        return (int)(key >>> 32);
+    }
+    
+    public static int getSecond(long key) {
+        return (int)key;
+    }
+    
+    private static int hash(long key) {
+        // finalizer of MurmurHash3
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int)key;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public long getKey(int id) {
+        return keys.get(id);
+    }
+    
+    // id of key, -1 if key is not in the index
+    public int get(long key) {
+        int slot = hash(key) & (capacity - 1);
+        while(true) {
+            int id = table.get(slot) - 1;
+            if(id < 0) return -1;
+            if(keys.get(id) == key) return id;
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+    
+    // id of key, a new id equal to size() - 1 if key was not in the index
+    public int getOrAdd(long key) {
+        int slot = hash(key) & (capacity - 1);
+        while(true) {
+            int id = table.get(slot) - 1;
+            if(id < 0) break;
+            if(keys.get(id) == key) return id;
+            slot = (slot + 1) & (capacity - 1);
+        }
+        int id = size;
+        keys.add(key);
+        table.set(slot, id + 1);
+        size ++;
+        // keep load factor below 1/2
+        if(2L * size > capacity) {
+            resize();
+        }
+        return id;
+    }
+    
+    private void resize() {
+        if(capacity >= MAX_CAPACITY) {
+            throw new UnsupportedOperationException("Too many states in the index");
+        }
+        capacity <<= 1;
+        table.close();
+        table = new OffHeapIntArray(capacity, 0);
+        for(int id = 0; id < size; id ++) {
+            int slot = hash(keys.get(id)) & (capacity - 1);
+            while(table.get(slot) != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            table.set(slot, id + 1);
+        }
+    }
+
+    @Override
+    public void close() {
+        keys.close();
+        table.close();
+    }
+
+}
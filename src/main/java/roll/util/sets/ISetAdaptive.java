@@ -0,0 +1,392 @@
+/*
+ * Written by Yong Li (liyong@ios.ac.cn)
+ * This file is part of the Buchi.
+ * 
+ * Buchi is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Buchi is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Buchi. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package roll.util.sets;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set which chooses its representation by the number and the range of its
+ * elements: an inline array for at most 4 elements, a sorted array for sparse
+ * sets, a bit set for dense sets and Roaring-style containers for large sparse
+ * sets. The representation is switched when the set changes.
+ * */
+public class ISetAdaptive implements ISet {
+    
+    private static final int INLINE_SIZE = 4;
+    private static final int SORTED_MAX = 4096;
+    
+    private static final int ARRAY = 0;
+    private static final int BITS = 1;
+    private static final int ROARING = 2;
+    
+    // exactly one of them is used
+    private int[] array;           // sorted elements
+    private BitSet bits;
+    private ISetRoaring roaring;
+    // number of elements in array or bits
+    private int size;
+    
+    public ISetAdaptive() {
+        array = new int[INLINE_SIZE];
+    }
+    
+    // representation for a set with card elements and largest element max
+    private static int choose(int card, int max) {
+        if(card <= INLINE_SIZE) return ARRAY;
+        // bit set is not larger than the sorted array
+        if(max / 32 < card) return BITS;
+        if(card > SORTED_MAX) return ROARING;
+        return ARRAY;
+    }
+    
+    private int mode() {
+        if(array != null) return ARRAY;
+        if(bits != null) return BITS;
+        return ROARING;
+    }
+    
+    private int max() {
+        switch(mode()) {
+        case ARRAY:
+            return size == 0 ? -1 : array[size - 1];
+        case BITS:
+            return bits.length() - 1;
+        default:
+            return roaring.max();
+        }
+    }
+    
+    private void convert(int target) {
+        int current = mode();
+        if(current == target) return;
+        int card = cardinality();
+        if(target == ARRAY) {
+            int[] elems = new int[Math.max(INLINE_SIZE, card)];
+            int num = 0;
+            for(final int elem : this) {
+                elems[num ++] = elem;
+            }
+            array = elems;
+        }else if(target == BITS) {
+            BitSet elems = new BitSet(max() + 1);
+            for(final int elem : this) {
+                elems.set(elem);
+            }
+            array = null;
+            bits = elems;
+        }else {
+            ISetRoaring elems = new ISetRoaring();
+            for(final int elem : this) {
+                elems.set(elem);
+            }
+            array = null;
+            bits = null;
+            roaring = elems;
+        }
+        if(current == BITS) bits = null;
+        if(current == ROARING) roaring = null;
+        size = card;
+    }
+    
+    // choose representation again after bulk operations
+    private void adapt() {
+        convert(choose(cardinality(), max()));
+    }
+
+    @Override
+    public ISet clone() {
+        ISetAdaptive copy = new ISetAdaptive();
+        switch(mode()) {
+        case ARRAY:
+            copy.array = Arrays.copyOf(array, Math.max(INLINE_SIZE, size));
+            break;
+        case BITS:
+            copy.array = null;
+            copy.bits = (BitSet) bits.clone();
+            break;
+        default:
+            copy.array = null;
+            copy.roaring = (ISetRoaring) roaring.clone();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public void andNot(ISet set) {
+        if(set == this) {
+            clear();
+            return;
+        }
+        int mode = mode();
+        ISetAdaptive other = set instanceof ISetAdaptive ? (ISetAdaptive)set : null;
+        if(mode == ARRAY) {
+            int num = 0;
+            for(int i = 0; i < size; i ++) {
+                if(! set.get(array[i])) array[num ++] = array[i];
+            }
+            size = num;
+        }else if(mode == BITS && other != null && other.mode() == BITS) {
+            bits.andNot(other.bits);
+            size = bits.cardinality();
+        }else if(mode == ROARING && other != null && other.mode() == ROARING) {
+            roaring.andNot(other.roaring);
+        }else {
+            UtilISet.andNot(this, set);
+        }
+        adapt();
+    }
+
+    @Override
+    public void and(ISet set) {
+        if(set == this) return;
+        int mode = mode();
+        ISetAdaptive other = set instanceof ISetAdaptive ? (ISetAdaptive)set : null;
+        if(mode == ARRAY) {
+            int num = 0;
+            for(int i = 0; i < size; i ++) {
+                if(set.get(array[i])) array[num ++] = array[i];
+            }
+            size = num;
+        }else if(mode == BITS && other != null && other.mode() == BITS) {
+            bits.and(other.bits);
+            size = bits.cardinality();
+        }else if(mode == ROARING && other != null && other.mode() == ROARING) {
+            roaring.and(other.roaring);
+        }else {
+            UtilISet.and(this, set);
+        }
+        adapt();
+    }
+
+    @Override
+    public void or(ISet set) {
+        if(set == this) return;
+        ISetAdaptive other = set instanceof ISetAdaptive ? (ISetAdaptive)set : null;
+        if(other == null) {
+            UtilISet.or(this, set);
+            adapt();
+            return;
+        }
+        int mode = mode(), otherMode = other.mode();
+        if(mode == ARRAY && otherMode == ARRAY) {
+            // merge two sorted arrays
+            int[] elems = new int[Math.max(INLINE_SIZE, size + other.size)];
+            int i = 0, j = 0, num = 0;
+            while(i < size || j < other.size) {
+                if(j >= other.size || (i < size && array[i] < other.array[j])) {
+                    elems[num ++] = array[i ++];
+                }else if(i >= size || other.array[j] < array[i]) {
+                    elems[num ++] = other.array[j ++];
+                }else {
+                    elems[num ++] = array[i ++];
+                    j ++;
+                }
+            }
+            array = elems;
+            size = num;
+        }else if(otherMode == BITS) {
+            // the union is at least as dense as the operand
+            convert(BITS);
+            bits.or(other.bits);
+            size = bits.cardinality();
+        }else if(mode == ROARING && otherMode == ROARING) {
+            roaring.or(other.roaring);
+        }else {
+            UtilISet.or(this, set);
+        }
+        adapt();
+    }
+
+    @Override
+    public boolean get(int value) {
+        switch(mode()) {
+        case ARRAY:
+            return Arrays.binarySearch(array, 0, size, value) >= 0;
+        case BITS:
+            return value >= 0 && bits.get(value);
+        default:
+            return roaring.get(value);
+        }
+    }
+
+    @Override
+    public void set(int value) {
+        switch(mode()) {
+        case ARRAY:
+            int index = Arrays.binarySearch(array, 0, size, value);
+            if(index >= 0) return;
+            if(size == array.length) {
+                int mode = choose(size + 1, Math.max(value, max()));
+                if(mode != ARRAY) {
+                    convert(mode);
+                    set(value);
+                    return;
+                }
+                array = Arrays.copyOf(array, 2 * size);
+            }
+            index = -index - 1;
+            System.arraycopy(array, index, array, index + 1, size - index);
+            array[index] = value;
+            size ++;
+            break;
+        case BITS:
+            if(bits.get(value)) return;
+            // avoid a large bit set for a far element
+            if(value > bits.length() && choose(size + 1, value) != BITS) {
+                convert(choose(size + 1, value));
+                set(value);
+                return;
+            }
+            bits.set(value);
+            size ++;
+            break;
+        default:
+            roaring.set(value);
+        }
+    }
+
+    @Override
+    public void clear(int value) {
+        switch(mode()) {
+        case ARRAY:
+            int index = Arrays.binarySearch(array, 0, size, value);
+            if(index < 0) return;
+            System.arraycopy(array, index + 1, array, index, size - index - 1);
+            size --;
+            break;
+        case BITS:
+            if(value < 0 || !bits.get(value)) return;
+            bits.clear(value);
+            size --;
+            if(size <= INLINE_SIZE) convert(ARRAY);
+            break;
+        default:
+            roaring.clear(value);
+            if(roaring.cardinality() <= INLINE_SIZE) convert(ARRAY);
+        }
+    }
+
+    @Override
+    public void clear() {
+        array = new int[INLINE_SIZE];
+        bits = null;
+        roaring = null;
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cardinality() == 0;
+    }
+
+    @Override
+    public int cardinality() {
+        return roaring != null ? roaring.cardinality() : size;
+    }
+    
+    @Override
+    public boolean overlap(ISet set) {
+        if(bits != null && set instanceof ISetAdaptive && ((ISetAdaptive)set).bits != null) {
+            return bits.intersects(((ISetAdaptive)set).bits);
+        }
+        return ISet.super.overlap(set);
+    }
+
+    @Override
+    public boolean subsetOf(ISet set) {
+        if(bits != null && set instanceof ISetAdaptive && ((ISetAdaptive)set).bits != null) {
+            BitSet temp = (BitSet) bits.clone();
+            temp.andNot(((ISetAdaptive)set).bits);
+            return temp.isEmpty();
+        }
+        return UtilISet.subsetOf(this, set);
+    }
+
+    @Override
+    public boolean contentEq(ISet set) {
+        if(bits != null && set instanceof ISetAdaptive && ((ISetAdaptive)set).bits != null) {
+            return bits.equals(((ISetAdaptive)set).bits);
+        }
+        return UtilISet.contentEq(this, set);
+    }
+
+    // the set itself, its representation is internal
+    @Override
+    public Object get() {
+        return this;
+    }
+    
+    @Override
+    public int hashCode() {
+        return UtilISet.hashCode(this);
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ISet && contentEq((ISet)obj);
+    }
+    
+    @Override
+    public String toString() {
+        return UtilISet.toString(this);
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        switch(mode()) {
+        case ARRAY:
+            return new Iterator<Integer>() {
+                int index = 0;
+                @Override
+                public boolean hasNext() {
+                    return index < size;
+                }
+                @Override
+                public Integer next() {
+                    if(index >= size) throw new NoSuchElementException();
+                    return array[index ++];
+                }
+            };
+        case BITS:
+            final BitSet elems = bits;
+            return new Iterator<Integer>() {
+                int index = elems.nextSetBit(0);
+                @Override
+                public boolean hasNext() {
+                    return index >= 0;
+                }
+                @Override
+                public Integer next() {
+                    if(index < 0) throw new NoSuchElementException();
+                    int value = index;
+                    index = elems.nextSetBit(index + 1);
+                    return value;
+                }
+            };
+        default:
+            return roaring.iterator();
+        }
+    }
+
+}
@@ -40,7 +40,8 @@ public class ISetBits implements ISet {
 	@Override
 	public void andNot(ISet set) {
 		if(! (set instanceof ISetBits)) {
-		    throw new UnsupportedOperationException("OPERAND should be BitSet");
+		    UtilISet.andNot(this, set);
+		    return;
 		}
 		BitSet bits = (BitSet) set.get();
 		this.mSet.andNot(bits);
@@ -49,7 +50,8 @@ public class ISetBits implements ISet {
 	@Override
 	public void and(ISet set) {
 		if(! (set instanceof ISetBits)) {
-		    throw new UnsupportedOperationException("OPERAND should be BitSet");
+		    UtilISet.and(this, set);
+		    return;
 		}
 		BitSet bits = (BitSet) set.get();
 		this.mSet.and(bits);
@@ -58,7 +60,8 @@ public class ISetBits implements ISet {
 	@Override
 	public void or(ISet set) {
 		if(! (set instanceof ISetBits)) {
-			throw new UnsupportedOperationException("OPERAND should be BitSet");
+			UtilISet.or(this, set);
+			return;
 		}
 		BitSet bits = (BitSet) set.get();
 		this.mSet.or(bits);		
@@ -97,7 +100,7 @@ public class ISetBits implements ISet {
 	@Override
 	public boolean overlap(ISet set) {
 		if(! (set instanceof ISetBits)) {
-		    throw new UnsupportedOperationException("OPERAND should be BitSet");
+		    return ISet.super.overlap(set);
 		}
 		ISetBits temp = (ISetBits) set;
 		return temp.mSet.intersects(this.mSet);
@@ -107,7 +110,7 @@ public class ISetBits implements ISet {
 	@Override
 	public boolean subsetOf(ISet set) {
 		if(! (set instanceof ISetBits)) {
-		    throw new UnsupportedOperationException("OPERAND should be BitSet");
+		    return UtilISet.subsetOf(this, set);
 		}
 		BitSet temp = (BitSet) this.mSet.clone();
 		BitSet bits = (BitSet) set.get();
@@ -118,7 +121,7 @@ public class ISetBits implements ISet {
 	@Override
 	public boolean contentEq(ISet set) {
 		if(! (set instanceof ISetBits)) {
-			throw new UnsupportedOperationException("OPERAND should be BitSet");
+			return UtilISet.contentEq(this, set);
 		}
 		BitSet bits = (BitSet) set.get();
 		return this.mSet.equals(bits);
@@ -134,9 +137,16 @@ public class ISetBits implements ISet {
 		return mSet.toString();
 	}
 	
+	// same value as the other representations of the set
+	@Override
+	public int hashCode() {
+		return UtilISet.hashCode(this);
+	}
+	
+	@Override
 	public boolean equals(Object obj) {
 		if(! (obj instanceof ISetBits)) {
-		    throw new UnsupportedOperationException("OPERAND should be BitSet");
+		    return obj instanceof ISet && UtilISet.contentEq(this, (ISet)obj);
 		}
 		ISetBits bits = (ISetBits)obj;
 		return this.contentEq(bits);
@@ -0,0 +1,463 @@
+/*
+ * Written by Yong Li (liyong@ios.ac.cn)
+ * This file is part of the Buchi.
+ * 
+ * Buchi is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Buchi is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Buchi. If not, see <http://www.gnu.org/licenses/>.
+ * 
+ */
+
+package roll.util.sets;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Roaring-style set for sparse elements over a huge universe, elements are
+ * grouped by their high 16 bits, each group is stored in a sorted array if it
+ * has at most 4096 elements and in a bitmap of 2^16 bits otherwise.
+ * */
+public class ISetRoaring implements ISet {
+    
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+    
+    private int[] keys;
+    private Container[] containers;
+    private int numKeys;
+    private int size;
+    
+    public ISetRoaring() {
+        keys = new int[4];
+        containers = new Container[4];
+    }
+    
+    private static int high(int value) {
+        return value >>> 16;
+    }
+    
+    private static int low(int value) {
+        return value & 0xFFFF;
+    }
+    
+    private int findKey(int key) {
+        return Arrays.binarySearch(keys, 0, numKeys, key);
+    }
+    
+    private void insertKey(int index, int key, Container container) {
+        if(numKeys == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * numKeys);
+            containers = Arrays.copyOf(containers, 2 * numKeys);
+        }
+        System.arraycopy(keys, index, keys, index + 1, numKeys - index);
+        System.arraycopy(containers, index, containers, index + 1, numKeys - index);
+        keys[index] = key;
+        containers[index] = container;
+        numKeys ++;
+    }
+    
+    private void removeKey(int index) {
+        System.arraycopy(keys, index + 1, keys, index, numKeys - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, numKeys - index - 1);
+        numKeys --;
+        containers[numKeys] = null;
+    }
+
+    @Override
+    public ISet clone() {
+        ISetRoaring copy = new ISetRoaring();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, numKeys));
+        copy.containers = new Container[copy.keys.length];
+        for(int i = 0; i < numKeys; i ++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.numKeys = numKeys;
+        copy.size = size;
+        return copy;
+    }
+    
+    // combine the containers with the same key
+    private void combine(ISetRoaring other, int op) {
+        int[] newKeys = new int[numKeys + other.numKeys];
+        Container[] newContainers = new Container[newKeys.length];
+        int num = 0, i = 0, j = 0, card = 0;
+        while(i < numKeys || j < other.numKeys) {
+            int key;
+            Container result;
+            if(j >= other.numKeys || (i < numKeys && keys[i] < other.keys[j])) {
+                key = keys[i];
+                result = op == OP_AND ? null : containers[i];
+                i ++;
+            }else if(i >= numKeys || other.keys[j] < keys[i]) {
+                key = other.keys[j];
+                result = op == OP_OR ? other.containers[j].copy() : null;
+                j ++;
+            }else {
+                key = keys[i];
+                result = Container.combine(containers[i], other.containers[j], op);
+                i ++;
+                j ++;
+            }
+            if(result != null && result.card > 0) {
+                newKeys[num] = key;
+                newContainers[num] = result;
+                card += result.card;
+                num ++;
+            }
+        }
+        keys = num < 4 ? Arrays.copyOf(newKeys, 4) : newKeys;
+        containers = num < 4 ? Arrays.copyOf(newContainers, 4) : newContainers;
+        numKeys = num;
+        size = card;
+    }
+
+    @Override
+    public void andNot(ISet set) {
+        if(set instanceof ISetRoaring && set != this) {
+            combine((ISetRoaring)set, OP_ANDNOT);
+        }else {
+            UtilISet.andNot(this, set);
+        }
+    }
+
+    @Override
+    public void and(ISet set) {
+        if(set instanceof ISetRoaring) {
+            combine((ISetRoaring)set, OP_AND);
+        }else {
+            UtilISet.and(this, set);
+        }
+    }
+
+    @Override
+    public void or(ISet set) {
+        if(set instanceof ISetRoaring) {
+            combine((ISetRoaring)set, OP_OR);
+        }else {
+            UtilISet.or(this, set);
+        }
+    }
+
+    @Override
+    public boolean get(int value) {
+        int index = findKey(high(value));
+        return index >= 0 && containers[index].contains(low(value));
+    }
+
+    @Override
+    public void set(int value) {
+        int index = findKey(high(value));
+        if(index < 0) {
+            index = -index - 1;
+            insertKey(index, high(value), new ArrayContainer());
+        }
+        Container container = containers[index];
+        if(container.add(low(value))) {
+            size ++;
+            if(container.card > ARRAY_MAX && container instanceof ArrayContainer) {
+                containers[index] = container.toBitmap();
+            }
+        }
+    }
+
+    @Override
+    public void clear(int value) {
+        int index = findKey(high(value));
+        if(index < 0) return;
+        Container container = containers[index];
+        if(container.remove(low(value))) {
+            size --;
+            if(container.card == 0) {
+                removeKey(index);
+            }else if(container.card <= ARRAY_MAX && container instanceof BitmapContainer) {
+                containers[index] = container.toArray();
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(containers, null);
+        numKeys = 0;
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int cardinality() {
+        return size;
+    }
+    
+    // the largest element, -1 if empty
+    public int max() {
+        if(numKeys == 0) return -1;
+        return (keys[numKeys - 1] << 16) | containers[numKeys - 1].last();
+    }
+
+    @Override
+    public boolean subsetOf(ISet set) {
+        return UtilISet.subsetOf(this, set);
+    }
+
+    @Override
+    public boolean contentEq(ISet set) {
+        return UtilISet.contentEq(this, set);
+    }
+
+    @Override
+    public Object get() {
+        return this;
+    }
+    
+    @Override
+    public int hashCode() {
+        return UtilISet.hashCode(this);
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ISet && contentEq((ISet)obj);
+    }
+    
+    @Override
+    public String toString() {
+        return UtilISet.toString(this);
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            int index = 0;
+            int next = numKeys > 0 ? containers[0].next(0) : -1;
+            
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if(next < 0) throw new NoSuchElementException();
+                int value = (keys[index] << 16) | next;
+                next = containers[index].next(next + 1);
+                if(next < 0 && index + 1 < numKeys) {
+                    index ++;
+                    next = containers[index].next(0);
+                }
+                return value;
+            }
+        };
+    }
+    
+    private static final int OP_AND = 0;
+    private static final int OP_OR = 1;
+    private static final int OP_ANDNOT = 2;
+    
+    private static abstract class Container {
+        int card;
+        abstract boolean contains(int low);
+        abstract boolean add(int low);
+        abstract boolean remove(int low);
+        // smallest element not less than low, -1 if none
+        abstract int next(int low);
+        abstract int last();
+        abstract Container copy();
+        abstract BitmapContainer toBitmap();
+        abstract ArrayContainer toArray();
+        
+        static Container combine(Container a, Container b, int op) {
+            if(a instanceof ArrayContainer && b instanceof ArrayContainer) {
+                return ArrayContainer.combine((ArrayContainer)a, (ArrayContainer)b, op);
+            }
+            BitmapContainer result = a.toBitmap();
+            if(result == a) result = (BitmapContainer) a.copy();
+            long[] words = b.toBitmap().words;
+            for(int i = 0; i < BITMAP_WORDS; i ++) {
+                if(op == OP_AND) result.words[i] &= words[i];
+                else if(op == OP_OR) result.words[i] |= words[i];
+                else result.words[i] &= ~words[i];
+            }
+            result.card = 0;
+            for(long word : result.words) {
+                result.card += Long.bitCount(word);
+            }
+            return result.card <= ARRAY_MAX ? result.toArray() : result;
+        }
+    }
+    
+    private static class ArrayContainer extends Container {
+        char[] content = new char[4];
+        
+        @Override
+        boolean contains(int low) {
+            return Arrays.binarySearch(content, 0, card, (char)low) >= 0;
+        }
+
+        @Override
+        boolean add(int low) {
+            int index = Arrays.binarySearch(content, 0, card, (char)low);
+            if(index >= 0) return false;
+            index = -index - 1;
+            if(card == content.length) {
+                content = Arrays.copyOf(content, 2 * card);
+            }
+            System.arraycopy(content, index, content, index + 1, card - index);
+            content[index] = (char)low;
+            card ++;
+            return true;
+        }
+
+        @Override
+        boolean remove(int low) {
+            int index = Arrays.binarySearch(content, 0, card, (char)low);
+            if(index < 0) return false;
+            System.arraycopy(content, index + 1, content, index, card - index - 1);
+            card --;
+            return true;
+        }
+
+        @Override
+        int next(int low) {
+            if(low > 0xFFFF) return -1;
+            int index = Arrays.binarySearch(content, 0, card, (char)low);
+            if(index < 0) index = -index - 1;
+            return index < card ? content[index] : -1;
+        }
+        
+        @Override
+        int last() {
+            return content[card - 1];
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer copy = new ArrayContainer();
+            copy.content = Arrays.copyOf(content, Math.max(4, card));
+            copy.card = card;
+            return copy;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for(int i = 0; i < card; i ++) {
+                bitmap.words[content[i] >>> 6] |= 1L << content[i];
+            }
+            bitmap.card = card;
+            return bitmap;
+        }
+        
+        @Override
+        ArrayContainer toArray() {
+            return this;
+        }
+        
+        // merge two sorted arrays
+        static ArrayContainer combine(ArrayContainer a, ArrayContainer b, int op) {
+            ArrayContainer result = new ArrayContainer();
+            result.content = new char[Math.max(4, op == OP_OR ? a.card + b.card : a.card)];
+            int i = 0, j = 0, num = 0;
+            while(i < a.card || j < b.card) {
+                if(j >= b.card || (i < a.card && a.content[i] < b.content[j])) {
+                    if(op != OP_AND) result.content[num ++] = a.content[i];
+                    i ++;
+                }else if(i >= a.card || b.content[j] < a.content[i]) {
+                    if(op == OP_OR) result.content[num ++] = b.content[j];
+                    j ++;
+                }else {
+                    if(op != OP_ANDNOT) result.content[num ++] = a.content[i];
+                    i ++;
+                    j ++;
+                }
+            }
+            result.card = num;
+            return result;
+        }
+    }
+    
+    private static class BitmapContainer extends Container {
+        long[] words = new long[BITMAP_WORDS];
+        
+        @Override
+        boolean contains(int low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        boolean add(int low) {
+            if(contains(low)) return false;
+            words[low >>> 6] |= 1L << low;
+            card ++;
+            return true;
+        }
+
+        @Override
+        boolean remove(int low) {
+            if(! contains(low)) return false;
+            words[low >>> 6] &= ~(1L << low);
+            card --;
+            return true;
+        }
+
+        @Override
+        int next(int low) {
+            if(low > 0xFFFF) return -1;
+            int index = low >>> 6;
+            long word = words[index] & (-1L << low);
+            while(true) {
+                if(word != 0) return (index << 6) + Long.numberOfTrailingZeros(word);
+                if(++ index == BITMAP_WORDS) return -1;
+                word = words[index];
+            }
+        }
+        
+        @Override
+        int last() {
+            for(int index = BITMAP_WORDS - 1; index >= 0; index --) {
+                if(words[index] != 0) return (index << 6) + 63 - Long.numberOfLeadingZeros(words[index]);
+            }
+            return -1;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer copy = new BitmapContainer();
+            copy.words = words.clone();
+            copy.card = card;
+            return copy;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        @Override
+        ArrayContainer toArray() {
+            ArrayContainer array = new ArrayContainer();
+            array.content = new char[Math.max(4, card)];
+            int num = 0;
+            for(int low = next(0); low >= 0; low = next(low + 1)) {
+                array.content[num ++] = (char)low;
+            }
+            array.card = num;
+            return array;
+        }
+    }
+
+}
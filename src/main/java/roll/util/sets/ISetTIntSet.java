@@ -47,7 +47,8 @@ public class ISetTIntSet implements ISet {
 	@Override
 	public void andNot(ISet set) {
 		if(! (set instanceof ISetTIntSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TIntSet");
+		    UtilISet.andNot(this, set);
+		    return;
 		}
 		ISetTIntSet temp = (ISetTIntSet)set;
 		this.mSet.removeAll(temp.mSet);
@@ -56,7 +57,8 @@ public class ISetTIntSet implements ISet {
 	@Override
 	public void and(ISet set) {
 		if(! (set instanceof ISetTIntSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TIntSet");
+		    UtilISet.and(this, set);
+		    return;
 		}
 		ISetTIntSet temp = (ISetTIntSet)set;
 		this.mSet.retainAll(temp.mSet);
@@ -65,7 +67,8 @@ public class ISetTIntSet implements ISet {
 	@Override
 	public void or(ISet set) {
 		if(! (set instanceof ISetTIntSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TIntSet");
+		    UtilISet.or(this, set);
+		    return;
 		}
 		ISetTIntSet temp = (ISetTIntSet)set;
 		this.mSet.addAll(temp.mSet);
@@ -109,7 +112,7 @@ public class ISetTIntSet implements ISet {
 	@Override
 	public boolean subsetOf(ISet set) {
 		if(! (set instanceof ISetTIntSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TIntSet");
+		    return UtilISet.subsetOf(this, set);
 		}
 		ISetTIntSet temp = (ISetTIntSet)set;
 		return temp.mSet.containsAll(this.mSet);
@@ -118,7 +121,7 @@ public class ISetTIntSet implements ISet {
 	@Override
 	public boolean contentEq(ISet set) {
 		if(! (set instanceof ISetTIntSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TIntSet");
+		    return UtilISet.contentEq(this, set);
 		}
 		ISetTIntSet temp = (ISetTIntSet)set;
 		return this.mSet.equals(temp.mSet);
@@ -129,9 +132,16 @@ public class ISetTIntSet implements ISet {
 		return mSet;
 	}
 	
+	// same value as the other representations of the set
+	@Override
+	public int hashCode() {
+		return UtilISet.hashCode(this);
+	}
+	
+	@Override
 	public boolean equals(Object obj) {
 		if(! (obj instanceof ISetTIntSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TIntSet");
+		    return obj instanceof ISet && UtilISet.contentEq(this, (ISet)obj);
 		}
 		ISetTIntSet temp = (ISetTIntSet)obj;
 		return this.contentEq(temp);
@@ -41,7 +41,8 @@ public class ISetTreeSet implements ISet {
 	@Override
 	public void andNot(ISet set) {
 		if(! (set instanceof ISetTreeSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TreeSet");
+		    UtilISet.andNot(this, set);
+		    return;
 		}
 		ISetTreeSet temp = (ISetTreeSet)set;
 		this.mSet.removeAll(temp.mSet);
@@ -50,7 +51,8 @@ public class ISetTreeSet implements ISet {
 	@Override
 	public void and(ISet set) {
 		if(! (set instanceof ISetTreeSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TreeSet");
+		    UtilISet.and(this, set);
+		    return;
 		}
 		ISetTreeSet temp = (ISetTreeSet)set;
 		this.mSet.retainAll(temp.mSet);
@@ -59,7 +61,8 @@ public class ISetTreeSet implements ISet {
 	@Override
 	public void or(ISet set) {
 		if(! (set instanceof ISetTreeSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TreeSet");
+		    UtilISet.or(this, set);
+		    return;
 		}
 		ISetTreeSet temp = (ISetTreeSet)set;
 		this.mSet.addAll(temp.mSet);
@@ -103,7 +106,7 @@ public class ISetTreeSet implements ISet {
 	@Override
 	public boolean subsetOf(ISet set) {
 		if(! (set instanceof ISetTreeSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TreeSet");
+		    return UtilISet.subsetOf(this, set);
 		}
 		ISetTreeSet temp = (ISetTreeSet)set;
 		return temp.mSet.containsAll(this.mSet);
@@ -112,7 +115,7 @@ public class ISetTreeSet implements ISet {
 	@Override
 	public boolean contentEq(ISet set) {
 		if(! (set instanceof ISetTreeSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TreeSet");
+		    return UtilISet.contentEq(this, set);
 		}
 		ISetTreeSet temp = (ISetTreeSet)set;
 		return this.mSet.equals(temp.mSet);
@@ -123,9 +126,16 @@ public class ISetTreeSet implements ISet {
 		return mSet;
 	}
 	
+	// same value as the other representations of the set
+	@Override
+	public int hashCode() {
+		return UtilISet.hashCode(this);
+	}
+	
+	@Override
 	public boolean equals(Object obj) {
 		if(! (obj instanceof ISetTreeSet)) {
-		    throw new UnsupportedOperationException("OPERAND should be TreeSet");
+		    return obj instanceof ISet && UtilISet.contentEq(this, (ISet)obj);
 		}
 		ISetTreeSet temp = (ISetTreeSet)obj;
 		return this.contentEq(temp);
@@ -19,13 +19,89 @@
 
 package roll.util.sets;
 
+import gnu.trove.list.array.TIntArrayList;
+
 public class UtilISet {
     private UtilISet() {
         
     }
     
     public static ISet newISet() {
-        return new ISetBits();
+        return new ISetAdaptive();
+    }
+    
+    // set algebra for operands with different representations
+    
+    public static void or(ISet target, ISet set) {
+        if(target == set) return;
+        for(final int elem : set) {
+            target.set(elem);
+        }
+    }
+    
+    public static void and(ISet target, ISet set) {
+        if(target == set) return;
+        TIntArrayList removed = new TIntArrayList();
+        for(final int elem : target) {
+            if(! set.get(elem)) removed.add(elem);
+        }
+        for(int i = 0; i < removed.size(); i ++) {
+            target.clear(removed.getQuick(i));
+        }
+    }
+    
+    public static void andNot(ISet target, ISet set) {
+        if(target == set) {
+            target.clear();
+            return;
+        }
+        TIntArrayList removed = new TIntArrayList();
+        // iterate over the smaller one
+        if(set.cardinality() <= target.cardinality()) {
+            for(final int elem : set) {
+                if(target.get(elem)) removed.add(elem);
+            }
+        }else {
+            for(final int elem : target) {
+                if(set.get(elem)) removed.add(elem);
+            }
+        }
+        for(int i = 0; i < removed.size(); i ++) {
+            target.clear(removed.getQuick(i));
+        }
+    }
+    
+    public static boolean subsetOf(ISet a, ISet b) {
+        if(a.cardinality() > b.cardinality()) return false;
+        for(final int elem : a) {
+            if(! b.get(elem)) return false;
+        }
+        return true;
+    }
+    
+    public static boolean contentEq(ISet a, ISet b) {
+        return a.cardinality() == b.cardinality() && subsetOf(a, b);
+    }
+    
+    // same value for equal sets in any representation
+    public static int hashCode(ISet set) {
+        int hashCode = 0;
+        for(final int elem : set) {
+            hashCode += elem * 0x9E3779B1;
+        }
+        return hashCode;
+    }
+    
+    public static String toString(ISet set) {
+        StringBuilder builder = new StringBuilder("{");
+        boolean first = true;
+        for(final int elem : set) {
+            if(! first) builder.append(", ");
+            builder.append(elem);
+            first = false;
+        }
+        builder.append("}");
+        return builder.toString();
     }
 
 }
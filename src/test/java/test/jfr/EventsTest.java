@@ -0,0 +1,142 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package test.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import roll.automata.DFA;
+import roll.automata.NBA;
+import roll.automata.operations.NBAGenerator;
+import roll.automata.operations.NBAIntersectionCheck;
+import roll.jfr.Events;
+import roll.learner.LearnerDFA;
+import roll.learner.dfa.table.LearnerDFATableLStar;
+import roll.main.Options;
+import roll.oracle.dfa.dk.TeacherDFADK;
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class EventsTest {
+    
+    private DFA getDFA() {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        DFA dfa = new DFA(alphabet);
+        for(int state = 0; state < 3; state ++) {
+            dfa.createState();
+        }
+        // number of a's is a multiple of 3
+        for(int state = 0; state < 3; state ++) {
+            dfa.getState(state).addTransition(0, (state + 1) % 3);
+            dfa.getState(state).addTransition(1, state);
+        }
+        dfa.setFinal(0);
+        dfa.setInitial(0);
+        return dfa;
+    }
+    
+    private void run() {
+        Options options = new Options();
+        DFA target = getDFA();
+        TeacherDFADK teacher = new TeacherDFADK(options, target);
+        LearnerDFA learner = new LearnerDFATableLStar(options, target.getAlphabet(), teacher);
+        learner.startLearning();
+        while(true) {
+            Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(learner.getHypothesis());
+            if(ceQuery.getQueryAnswer().get()) break;
+            ceQuery.answerQuery(null);
+            learner.refineHypothesis(ceQuery);
+        }
+        NBA A = NBAGenerator.getRandomNBA(4, 2, 1);
+        NBA B = NBAGenerator.getRandomNBA(4, 2, 2);
+        new NBAIntersectionCheck(A, B);
+    }
+    
+    @Test
+    public void testDisabled() throws IOException {
+        assertTrue(Events.AVAILABLE);
+        File file = File.createTempFile("roll", ".jfr");
+        file.deleteOnExit();
+        try(Recording recording = new Recording()) {
+            recording.start();
+            run();
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+        for(RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+            assertFalse(event.getEventType().getName().startsWith("roll."));
+        }
+    }
+    
+    @Test
+    public void testEvents() throws IOException {
+        File file = File.createTempFile("roll", ".jfr");
+        file.deleteOnExit();
+        try(Recording recording = new Recording()) {
+            recording.enable("roll.MembershipQuery");
+            recording.enable("roll.EquivalenceQuery");
+            recording.enable("roll.EmptinessCheck");
+            recording.start();
+            run();
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+        Map<String, Integer> counts = new HashMap<>();
+        RecordedEvent lastEQ = null;
+        for(RecordedEvent event : events) {
+            String name = event.getEventType().getName();
+            counts.merge(name, 1, Integer::sum);
+            if(name.equals("roll.EquivalenceQuery")) {
+                if(lastEQ == null || lastEQ.getInt("round") < event.getInt("round")) {
+                    lastEQ = event;
+                }
+            }else if(name.equals("roll.MembershipQuery")) {
+                assertTrue(event.getInt("stemLength") >= 0);
+            }else if(name.equals("roll.EmptinessCheck")) {
+                assertEquals("NBAIntersectionCheck", event.getString("checker"));
+                assertTrue(event.getInt("states") > 0);
+            }
+        }
+        assertTrue(counts.get("roll.MembershipQuery") > 0);
+        assertEquals(1, (int)counts.get("roll.EmptinessCheck"));
+        // the last equivalence query accepts the target
+        assertTrue(lastEQ.getBoolean("equivalent"));
+        assertEquals(3, lastEQ.getInt("hypothesisStates"));
+    }
+
+}
@@ -0,0 +1,60 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.learner;
+
+import roll.automata.DFA;
+import roll.learner.LearnerDFA;
+import roll.learner.dfa.table.LearnerDFATableLStar;
+import roll.main.Options;
+import roll.oracle.Teacher;
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+
+/**
+ * Fixtures shared by the learner and teacher tests
+ * 
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class UtilLearner {
+    
+    // the alphabet {a, b}
+    public static Alphabet getAlphabet() {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        return alphabet;
+    }
+    
+    // learns with L* until the teacher accepts the hypothesis
+    public static DFA learn(Options options, Alphabet alphabet, Teacher<DFA, Query<HashableValue>, HashableValue> teacher) {
+        LearnerDFA learner = new LearnerDFATableLStar(options, alphabet, teacher);
+        learner.startLearning();
+        while(true) {
+            DFA model = learner.getHypothesis();
+            Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(model);
+            boolean isEq = ceQuery.getQueryAnswer().get();
+            if(isEq) {
+                return model;
+            }
+            ceQuery.answerQuery(null);
+            learner.refineHypothesis(ceQuery);
+        }
+    }
+
+}
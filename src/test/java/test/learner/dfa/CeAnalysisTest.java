@@ -0,0 +1,114 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.learner.dfa;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import roll.automata.DFA;
+import roll.learner.LearnerDFA;
+import roll.learner.dfa.table.LearnerDFATableColumn;
+import roll.main.CLParser;
+import roll.main.Options;
+import roll.main.UsageException;
+import roll.oracle.dfa.dk.TeacherDFADK;
+import roll.query.Query;
+import roll.query.QuerySimple;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class CeAnalysisTest {
+    
+    private static final int NUM_OF_STATES = 8;
+    
+    // the number of a's modulo 8 is 7
+    private DFA getDFA() {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        DFA dfa = new DFA(alphabet);
+        for(int state = 0; state < NUM_OF_STATES; state ++) {
+            dfa.createState();
+        }
+        for(int state = 0; state < NUM_OF_STATES; state ++) {
+            dfa.getState(state).addTransition(0, (state + 1) % NUM_OF_STATES);
+            dfa.getState(state).addTransition(1, state);
+        }
+        dfa.setInitial(0);
+        dfa.setFinal(NUM_OF_STATES - 1);
+        return dfa;
+    }
+    
+    @Test
+    public void testStrategies() {
+        Map<Options.CeAnalysis, Integer> numOfProbes = new HashMap<>();
+        for(Options.CeAnalysis analysis : Options.CeAnalysis.values()) {
+            Options options = new Options();
+            options.ceAnalysis = analysis;
+            DFA machine = getDFA();
+            TeacherDFADK teacher = new TeacherDFADK(options, machine);
+            LearnerDFA learner = new LearnerDFATableColumn(options, machine.getAlphabet(), teacher);
+            learner.startLearning();
+            
+            // a long counterexample a^63 for the one-state hypothesis
+            int[] letters = new int[63];
+            Word wordCE = machine.getAlphabet().getArrayWord(letters);
+            Query<HashableValue> ceQuery = new QuerySimple<>(wordCE);
+            int numOfMQ = options.stats.numOfMembershipQuery;
+            learner.refineHypothesis(ceQuery);
+            numOfProbes.put(analysis, options.stats.numOfMembershipQuery - numOfMQ);
+            
+            while(true) {
+                Query<HashableValue> query = teacher.answerEquivalenceQuery(learner.getHypothesis());
+                if(query.getQueryAnswer().get()) break;
+                query.answerQuery(null);
+                learner.refineHypothesis(query);
+            }
+            assertEquals(analysis.toString(), NUM_OF_STATES, learner.getHypothesis().getStateSize());
+        }
+        // only ALL asks every position of the counterexample
+        for(Options.CeAnalysis analysis : Options.CeAnalysis.values()) {
+            if(analysis == Options.CeAnalysis.ALL) continue;
+            assertTrue(analysis.toString(), numOfProbes.get(analysis) < numOfProbes.get(Options.CeAnalysis.ALL));
+        }
+        assertTrue(numOfProbes.get(Options.CeAnalysis.BINARY) < 63 / 2);
+    }
+    
+    @Test
+    public void testOption() {
+        CLParser parser = new CLParser(new ByteArrayOutputStream());
+        parser.prepareOptions(new String[] {"-test", "1", "2", "-ce", "Binary"});
+        assertEquals(Options.CeAnalysis.BINARY, parser.getOptions().ceAnalysis);
+    }
+    
+    // a typo prints the usage instead of a stack trace
+    @Test(expected = UsageException.class)
+    public void testUnknownOption() {
+        new CLParser(new ByteArrayOutputStream()).prepareOptions(new String[] {"-test", "1", "2", "-ce", "binray"});
+    }
+
+}
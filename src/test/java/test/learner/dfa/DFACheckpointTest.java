@@ -0,0 +1,100 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.learner.dfa;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static test.learner.UtilLearner.getAlphabet;
+
+import roll.automata.DFA;
+import roll.automata.operations.DFAGenerator;
+import roll.main.Options;
+import roll.oracle.Teacher;
+import roll.oracle.TeacherCheckpoint;
+import roll.oracle.dfa.dk.TeacherDFADK;
+import roll.query.Query;
+import roll.table.HashableValue;
+import test.learner.UtilLearner;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class DFACheckpointTest {
+    
+    private DFA learn(Options options, DFA target) {
+        Teacher<DFA, Query<HashableValue>, HashableValue> teacher = TeacherCheckpoint.prepare(options
+                , target.getAlphabet(), new TeacherDFADK(options, target));
+        // answers are restored before learning
+        if(options.resume && new File(options.checkpointFile).exists()) {
+            assertTrue(options.stats.numOfMembershipQuery > 0);
+        }
+        return UtilLearner.learn(options, target.getAlphabet(), teacher);
+    }
+    
+    @Test
+    public void testResume() throws IOException {
+        for(int i = 0; i < 10; i ++) {
+            DFA target = DFAGenerator.getRandomDFA(getAlphabet(), 4 + i, 20 + i);
+            File file = File.createTempFile("roll", ".ckpt");
+            file.delete();
+            file.deleteOnExit();
+            Options options = new Options();
+            options.checkpointFile = file.getPath();
+            DFA model = learn(options, target);
+            // resume from the last round, no recorded query is asked again
+            Options resumed = new Options();
+            resumed.checkpointFile = file.getPath();
+            resumed.resume = true;
+            DFA result = learn(resumed, target);
+            assertEquals(model.getStateSize(), result.getStateSize());
+            assertEquals(options.stats.numOfMembershipQuery, resumed.stats.numOfMembershipQuery);
+            assertEquals(options.stats.numOfEquivalenceQuery, resumed.stats.numOfEquivalenceQuery);
+        }
+    }
+
+    @Test
+    public void testTruncatedLog() throws IOException {
+        DFA target = DFAGenerator.getRandomDFA(getAlphabet(), 12, 11);
+        File file = File.createTempFile("roll", ".ckpt");
+        file.delete();
+        file.deleteOnExit();
+        Options options = new Options();
+        options.checkpointFile = file.getPath();
+        DFA model = learn(options, target);
+        // a crash while appending the last round
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        Options resumed = new Options();
+        resumed.checkpointFile = file.getPath();
+        resumed.resume = true;
+        assertEquals(model.getStateSize(), learn(resumed, target).getStateSize());
+        // the log has been compacted and is complete again
+        Options again = new Options();
+        again.checkpointFile = file.getPath();
+        again.resume = true;
+        assertEquals(model.getStateSize(), learn(again, target).getStateSize());
+        assertEquals(resumed.stats.numOfMembershipQuery, again.stats.numOfMembershipQuery);
+    }
+
+}
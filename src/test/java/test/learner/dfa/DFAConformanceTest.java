@@ -0,0 +1,129 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.learner.dfa;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import dk.brics.automaton.Automaton;
+import roll.automata.DFA;
+import roll.automata.operations.DFAGenerator;
+import roll.automata.operations.DFAOperations;
+import roll.learner.LearnerDFA;
+import roll.learner.dfa.table.LearnerDFATableColumn;
+import roll.learner.dfa.tree.LearnerDFATreeKV;
+import roll.main.Options;
+import roll.oracle.MembershipOracle;
+import roll.oracle.dfa.conformance.TeacherDFAConformance;
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.table.HashableValueBoolean;
+import roll.words.Alphabet;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class DFAConformanceTest {
+    
+    private boolean learn(DFA target, Options options, boolean table) {
+        Alphabet alphabet = target.getAlphabet();
+        // only membership queries to the target
+        MembershipOracle<HashableValue> mqOracle = query -> new HashableValueBoolean(
+                target.getAcc().isAccepting(query.getQueriedWord(), alphabet.getEmptyWord()));
+        TeacherDFAConformance teacher = new TeacherDFAConformance(options, alphabet, mqOracle);
+        LearnerDFA learner = table ? new LearnerDFATableColumn(options, alphabet, teacher)
+                : new LearnerDFATreeKV(options, alphabet, teacher);
+        learner.startLearning();
+        while(true) {
+            DFA hypothesis = learner.getHypothesis();
+            Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(hypothesis);
+            if(ceQuery.getQueryAnswer().get()) {
+                break;
+            }
+            ceQuery.answerQuery(null);
+            learner.refineHypothesis(ceQuery);
+        }
+        Automaton dkTarget = DFAOperations.toDkDFA(target);
+        Automaton dkHypo = DFAOperations.toDkDFA(learner.getHypothesis());
+        return dkTarget.equals(dkHypo);
+    }
+    
+    @Test
+    public void test() {
+        Alphabet input = new Alphabet();
+        input.addLetter('a');
+        input.addLetter('b');
+        
+        for(Options.Conformance method : Options.Conformance.values()) {
+            for(int numThreads : new int[] {1, 4}) {
+                for(int i = 0; i < 10; i ++) {
+                    DFA target = DFAGenerator.getRandomDFA(input, 4, 20 + i);
+                    Options options = new Options();
+                    options.conformance = method;
+                    // complete test suite for targets with at most 4 states
+                    options.numOfExtraStates = 3;
+                    options.numOfTestThreads = numThreads;
+                    assertTrue(learn(target, options, i % 2 == 0));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testExtraStates() {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        // the number of a's modulo 4 is 3
+        DFA target = new DFA(alphabet);
+        for(int state = 0; state < 4; state ++) {
+            target.createState();
+        }
+        for(int state = 0; state < 4; state ++) {
+            target.getState(state).addTransition(0, (state + 1) % 4);
+            target.getState(state).addTransition(1, state);
+        }
+        target.setInitial(0);
+        target.setFinal(3);
+        // the one-state hypothesis rejecting everything
+        DFA hypothesis = new DFA(alphabet);
+        hypothesis.createState();
+        hypothesis.getState(0).addTransition(0, 0);
+        hypothesis.getState(0).addTransition(1, 0);
+        hypothesis.setInitial(0);
+        
+        MembershipOracle<HashableValue> mqOracle = query -> new HashableValueBoolean(
+                target.getAcc().isAccepting(query.getQueriedWord(), alphabet.getEmptyWord()));
+        for(Options.Conformance method : Options.Conformance.values()) {
+            Options options = new Options();
+            options.conformance = method;
+            // aaa is only tested with two extra states
+            options.numOfExtraStates = 1;
+            Query<HashableValue> ceQuery = new TeacherDFAConformance(options, alphabet, mqOracle)
+                    .answerEquivalenceQuery(hypothesis);
+            assertTrue(ceQuery.getQueryAnswer().get());
+            options.numOfExtraStates = 2;
+            ceQuery = new TeacherDFAConformance(options, alphabet, mqOracle).answerEquivalenceQuery(hypothesis);
+            assertFalse(ceQuery.getQueryAnswer().get());
+            assertEquals("aaa", ceQuery.getQueriedWord().toStringWithAlphabet());
+            assertEquals(0, options.stats.numOfMembershipQuery);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.learner.dfa;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import roll.automata.DFA;
+import roll.learner.LearnerDFA;
+import roll.learner.dfa.table.LearnerDFATableColumn;
+import roll.main.CLParser;
+import roll.main.Options;
+import roll.oracle.dfa.dk.TeacherDFADK;
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class DFACounterexamplesTest {
+    
+    // the number of b's modulo 4 is 3
+    private DFA getDFA() {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        DFA dfa = new DFA(alphabet);
+        for(int state = 0; state < 4; state ++) {
+            dfa.createState();
+        }
+        for(int state = 0; state < 4; state ++) {
+            dfa.getState(state).addTransition(0, state);
+            dfa.getState(state).addTransition(1, (state + 1) % 4);
+        }
+        dfa.setInitial(0);
+        dfa.setFinal(3);
+        return dfa;
+    }
+    
+    private boolean accepts(DFA dfa, Word word) {
+        int state = dfa.getInitialState();
+        for(int i = 0; i < word.length(); i ++) {
+            state = dfa.getSuccessor(state, word.getLetter(i));
+        }
+        return dfa.isFinal(state);
+    }
+    
+    @Test
+    public void testSeveralCounterexamples() {
+        Options options = new Options();
+        options.numOfCounterexamples = 3;
+        DFA machine = getDFA();
+        TeacherDFADK teacher = new TeacherDFADK(options, machine);
+        LearnerDFA learner = new LearnerDFATableColumn(options, machine.getAlphabet(), teacher);
+        learner.startLearning();
+        int maxNumOfCounterexamples = 0;
+        while(true) {
+            DFA hypothesis = learner.getHypothesis();
+            List<Query<HashableValue>> ceQueries = teacher.answerEquivalenceQueries(hypothesis, options.numOfCounterexamples);
+            assertTrue(ceQueries.size() >= 1 && ceQueries.size() <= options.numOfCounterexamples);
+            if(ceQueries.get(0).getQueryAnswer().get()) break;
+            maxNumOfCounterexamples = Math.max(maxNumOfCounterexamples, ceQueries.size());
+            for(Query<HashableValue> ceQuery : ceQueries) {
+                Word word = ceQuery.getPrefix().concat(ceQuery.getSuffix());
+                assertTrue(accepts(machine, word) != accepts(hypothesis, word));
+                ceQuery.answerQuery(null);
+            }
+            learner.refineHypothesis(ceQueries);
+        }
+        assertEquals(4, learner.getHypothesis().getStateSize());
+        assertEquals(3, maxNumOfCounterexamples);
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testNoCounterexample() {
+        new CLParser().prepareOptions(new String[] {"-test", "1", "2", "-mce", "0"});
+    }
+
+}
@@ -0,0 +1,116 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.learner.dfa;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import roll.automata.DFA;
+import roll.automata.operations.DFAGenerator;
+import roll.learner.dfa.tree.LearnerDFATreeColumn;
+import roll.learner.dfa.tree.ValueNode;
+import roll.main.Options;
+import roll.oracle.MembershipOracle;
+import roll.oracle.dfa.dk.TeacherDFADK;
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.tree.Node;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class DFATreeSiftTest {
+    
+    // counts the membership queries asked
+    private static class CountingOracle implements MembershipOracle<HashableValue> {
+        final MembershipOracle<HashableValue> oracle;
+        int numOfQueries;
+        
+        CountingOracle(MembershipOracle<HashableValue> oracle) {
+            this.oracle = oracle;
+        }
+        
+        @Override
+        public HashableValue answerMembershipQuery(Query<HashableValue> query) {
+            numOfQueries ++;
+            return oracle.answerMembershipQuery(query);
+        }
+    }
+    
+    private static class LearnerUnderTest extends LearnerDFATreeColumn {
+        
+        LearnerUnderTest(Options options, Alphabet alphabet, MembershipOracle<HashableValue> oracle) {
+            super(options, alphabet, oracle);
+        }
+        
+        @Override
+        protected void constructHypothesis() {
+            super.constructHypothesis();
+            // replaced leaves do not keep answers
+            for(Node<?> node : siftAnswers.keySet()) {
+                assertFalse(node.isLeaf());
+            }
+        }
+        
+        List<Node<ValueNode>> siftWords(List<Word> words) {
+            return sift(words);
+        }
+    }
+    
+    @Test
+    public void testCachedAnswers() {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        alphabet.addLetter('c');
+        for(long seed = 0; seed < 10; seed ++) {
+            Options options = new Options();
+            DFA machine = DFAGenerator.getRandomDFA(alphabet, 12, seed);
+            TeacherDFADK teacher = new TeacherDFADK(options, machine);
+            CountingOracle oracle = new CountingOracle(teacher);
+            LearnerUnderTest learner = new LearnerUnderTest(options, alphabet, oracle);
+            learner.startLearning();
+            while(true) {
+                Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(learner.getHypothesis());
+                if(ceQuery.getQueryAnswer().get()) break;
+                ceQuery.answerQuery(null);
+                learner.refineHypothesis(ceQuery);
+            }
+            // all words of length at most 3
+            List<Word> words = new ArrayList<>();
+            words.add(alphabet.getEmptyWord());
+            for(int from = 0; from < words.size() && words.get(from).length() < 3; from ++) {
+                for(int letter = 0; letter < alphabet.getLetterSize(); letter ++) {
+                    words.add(words.get(from).append(letter));
+                }
+            }
+            List<Node<ValueNode>> nodes = learner.siftWords(words);
+            int numOfQueries = oracle.numOfQueries;
+            // sifting again reuses all answers
+            assertEquals(nodes, learner.siftWords(words));
+            assertEquals(numOfQueries, oracle.numOfQueries);
+        }
+    }
+
+}
@@ -16,8 +16,20 @@
 
 package test.learner.nba;
 
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
 import roll.automata.NBA;
 import roll.automata.operations.NBAIntersectionCheck;
+import roll.automata.operations.NBAIntersectionCheckBDD;
+import roll.automata.operations.NBAIntersectionCheckCNDFS;
+import roll.automata.operations.NBAOperations;
+import roll.util.Pair;
+import roll.words.Alphabet;
+import roll.words.Word;
 
 /**
  * @author Yong Li (liyong@ios.ac.cn)
@@ -36,5 +48,142 @@ public class NBAIntersectTest {
             System.out.println(checker.getCounterexample());
         }
     }
+    
+    private static NBA getRandomNBA(Alphabet alphabet, int numOfStates, Random r) {
+        NBA nba = new NBA(alphabet);
+        for(int i = 0; i < numOfStates; i ++) {
+            nba.createState();
+        }
+        for(int i = 0; i < numOfStates; i ++) {
+            for(int letter = 0; letter < alphabet.getLetterSize(); letter ++) {
+                int numOfSuccs = r.nextInt(3);
+                for(int j = 0; j < numOfSuccs; j ++) {
+                    nba.getState(i).addTransition(letter, r.nextInt(numOfStates));
+                }
+            }
+            if(r.nextInt(5) == 0) nba.setFinal(i);
+        }
+        nba.setInitial(0);
+        return nba;
+    }
+    
+    @Test
+    public void testParallel() {
+        Alphabet alphabet = NBAStore.getNBA1().getAlphabet();
+        Random r = new Random(0);
+        for(int i = 0; i < 200; i ++) {
+            NBA A = getRandomNBA(alphabet, 2 + i % 8, r);
+            NBA B = getRandomNBA(alphabet, 3 + i % 8, r);
+            try(NBAIntersectionCheck seq = new NBAIntersectionCheck(A, B, true);
+                NBAIntersectionCheck par = new NBAIntersectionCheck(A, B, true, 4)) {
+                Assert.assertEquals(seq.isEmpty(), par.isEmpty());
+                if(! par.isEmpty()) {
+                    par.computePath();
+                    Pair<Word, Word> ce = par.getCounterexample();
+                    Assert.assertTrue(NBAOperations.accepts(A, ce.getLeft(), ce.getRight()));
+                    Assert.assertTrue(NBAOperations.accepts(B, ce.getLeft(), ce.getRight()));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testCounterexamples() {
+        Alphabet alphabet = NBAStore.getNBA1().getAlphabet();
+        Random r = new Random(2);
+        for(int i = 0; i < 200; i ++) {
+            NBA A = getRandomNBA(alphabet, 2 + i % 8, r);
+            NBA B = getRandomNBA(alphabet, 3 + i % 8, r);
+            try(NBAIntersectionCheck one = new NBAIntersectionCheck(A, B, true);
+                NBAIntersectionCheck some = new NBAIntersectionCheck(A, B, true, 1, 3)) {
+                Assert.assertEquals(one.isEmpty(), some.isEmpty());
+                if(one.isEmpty()) continue;
+                one.computePath();
+                some.computePath();
+                // the first lasso is the one of the single check
+                Assert.assertEquals(one.getCounterexample(), some.getCounterexample());
+                List<Pair<Word, Word>> ces = some.getCounterexamples();
+                Assert.assertTrue(ces.size() >= 1 && ces.size() <= 3);
+                Assert.assertEquals(some.getCounterexample(), ces.get(0));
+                for(Pair<Word, Word> ce : ces) {
+                    Assert.assertTrue(NBAOperations.accepts(A, ce.getLeft(), ce.getRight()));
+                    Assert.assertTrue(NBAOperations.accepts(B, ce.getLeft(), ce.getRight()));
+                }
+            }
+        }
+        // two accepting SCCs after the first letter
+        NBA A = new NBA(alphabet);
+        for(int i = 0; i < 3; i ++) {
+            A.createState();
+        }
+        A.getState(0).addTransition(0, 1);
+        A.getState(0).addTransition(1, 2);
+        A.getState(1).addTransition(0, 1);
+        A.getState(2).addTransition(1, 2);
+        A.setFinal(1);
+        A.setFinal(2);
+        A.setInitial(0);
+        NBA B = new NBA(alphabet);
+        B.createState();
+        B.getState(0).addTransition(0, 0);
+        B.getState(0).addTransition(1, 0);
+        B.setFinal(0);
+        B.setInitial(0);
+        try(NBAIntersectionCheck checker = new NBAIntersectionCheck(A, B, true, 1, 3)) {
+            Assert.assertEquals(2, checker.getCounterexamples().size());
+        }
+    }
+    
+    // cycle of the given length on the first letter, accepting at 0 if final
+    private static NBA getCounter(Alphabet alphabet, int length, boolean isFinal) {
+        NBA nba = new NBA(alphabet);
+        for(int i = 0; i < length; i ++) {
+            nba.createState();
+        }
+        for(int i = 0; i < length; i ++) {
+            nba.getState(i).addTransition(0, (i + 1) % length);
+        }
+        if(isFinal) nba.setFinal(0);
+        nba.setInitial(0);
+        return nba;
+    }
+    
+    @Test
+    public void testParallelLargeProduct() {
+        Alphabet alphabet = NBAStore.getNBA1().getAlphabet();
+        NBA A = getCounter(alphabet, 101, true);
+        // the state table grows beyond its initial capacity
+        NBAIntersectionCheckCNDFS checker = new NBAIntersectionCheckCNDFS(A, getCounter(alphabet, 103, false), 4);
+        Assert.assertTrue(checker.isEmpty());
+        Assert.assertTrue(checker.getNumOfStates() >= 101 * 103);
+        NBA B = getCounter(alphabet, 103, true);
+        checker = new NBAIntersectionCheckCNDFS(A, B, 4);
+        Assert.assertFalse(checker.isEmpty());
+        Pair<Word, Word> ce = checker.getCounterexample();
+        Assert.assertTrue(NBAOperations.accepts(A, ce.getLeft(), ce.getRight()));
+        Assert.assertTrue(NBAOperations.accepts(B, ce.getLeft(), ce.getRight()));
+    }
+    
+    @Test
+    public void testSymbolic() {
+        Alphabet alphabet = NBAStore.getNBA1().getAlphabet();
+        Random r = new Random(1);
+        for(int i = 0; i < 200; i ++) {
+            NBA A = getRandomNBA(alphabet, 2 + i % 8, r);
+            NBA B = getRandomNBA(alphabet, 3 + i % 8, r);
+            NBAIntersectionCheck explicit = new NBAIntersectionCheck(A, B);
+            NBAIntersectionCheckBDD symbolic = new NBAIntersectionCheckBDD(A, B, true);
+            Assert.assertEquals(explicit.isEmpty(), symbolic.isEmpty());
+            if(symbolic.isEmpty()) {
+                Assert.assertNull(symbolic.getCounterexample());
+            }else {
+                // the lasso is built before the manager is released
+                Pair<Word, Word> ce = symbolic.getCounterexample();
+                Assert.assertNotNull(ce);
+                Assert.assertTrue(NBAOperations.accepts(A, ce.getLeft(), ce.getRight()));
+                Assert.assertTrue(NBAOperations.accepts(B, ce.getLeft(), ce.getRight()));
+            }
+        }
+    }
 
 }
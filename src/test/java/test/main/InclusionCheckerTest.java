@@ -0,0 +1,173 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package test.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import roll.main.CLParser;
+import roll.main.Options;
+import roll.main.inclusion.InclusionBatch;
+import roll.main.inclusion.InclusionChecker;
+import roll.main.inclusion.InclusionResult;
+import roll.util.Pair;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class InclusionCheckerTest {
+    
+    // accepts a b^w
+    private static final String A1 = "[0]\na,[0]->[1]\na,[0]->[2]\na,[1]->[1]\nb,[2]->[2]\n[1]\n";
+    // accepts b^w as well
+    private static final String A2 = "[0]\na,[0]->[1]\na,[0]->[2]\na,[1]->[1]\nb,[0]->[2]\nb,[2]->[2]\n[1]\n[2]\n";
+    // the only final state is dead
+    private static final String EMPTY = "[0]\na,[0]->[1]\nb,[0]->[0]\n[1]\n";
+    
+    private String write(File dir, String name, String content) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        file.deleteOnExit();
+        return file.getPath();
+    }
+    
+    private File prepare() throws IOException {
+        File dir = Files.createTempDirectory("roll").toFile();
+        dir.deleteOnExit();
+        write(dir, "A1.ba", A1);
+        write(dir, "A2.ba", A2);
+        write(dir, "E.ba", EMPTY);
+        return dir;
+    }
+    
+    private void assertNotIncluded(InclusionResult result) {
+        assertEquals(InclusionResult.Verdict.NOT_INCLUDED, result.getVerdict());
+        assertNotNull(result.getCounterexample());
+        // only b^w is in A2 but not in A1
+        for(String label : result.getCounterexampleLabels().getRight()) {
+            assertEquals("b", label);
+        }
+        assertFalse(result.getCounterexampleLabels().getRight().isEmpty());
+    }
+    
+    @Test
+    public void testChecks() throws IOException {
+        File dir = prepare();
+        Options options = new Options();
+        options.algorithm = Options.Algorithm.SYNTACTIC;
+        InclusionChecker checker = new InclusionChecker(options);
+        // the same checker for several checks in a row
+        for(int i = 0; i < 3; i ++) {
+            InclusionResult result = checker.check(new File(dir, "E.ba").getPath(), new File(dir, "A1.ba").getPath());
+            assertTrue(result.isIncluded());
+            assertEquals("preprocess", result.getStage());
+            assertNull(result.getCounterexample());
+            assertNotIncluded(checker.check(new File(dir, "A2.ba").getPath(), new File(dir, "A1.ba").getPath()));
+        }
+        // the given options are left untouched
+        assertNull(options.inputA);
+        assertEquals(0, options.stats.numOfMembershipQuery);
+    }
+    
+    @Test
+    public void testConcurrentChecks() throws Exception {
+        File dir = prepare();
+        InclusionChecker checker = new InclusionChecker(new Options());
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<InclusionResult>> results = new ArrayList<>();
+        for(int i = 0; i < 16; i ++) {
+            results.add(pool.submit(() -> checker.check(new File(dir, "A2.ba").getPath(), new File(dir, "A1.ba").getPath())));
+        }
+        for(Future<InclusionResult> result : results) {
+            assertNotIncluded(result.get());
+        }
+        pool.shutdown();
+    }
+    
+    @Test
+    public void testBudget() throws IOException {
+        File dir = prepare();
+        Options options = new Options();
+        options.timeBudget = 1;
+        InclusionChecker checker = new InclusionChecker(options);
+        // only RABIT or learning could prove it, both come after the budget
+        InclusionResult result = checker.check(new File(dir, "A1.ba").getPath(), new File(dir, "A2.ba").getPath());
+        assertEquals(InclusionResult.Verdict.UNKNOWN, result.getVerdict());
+        assertFalse(result.isIncluded());
+        assertNull(result.getCounterexample());
+        assertNotNull(result.getStatistics());
+        // the budget leaves the interrupt flag of the caller alone
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+    
+    @Test
+    public void testManifest() throws IOException {
+        File dir = prepare();
+        String manifest = write(dir, "pairs.txt", "# pairs to check\nA2.ba A1.ba\n\n" 
+                + new File(dir, "E.ba").getAbsolutePath() + "\tA1.ba\n");
+        List<Pair<String, String>> pairs = InclusionBatch.readManifest(manifest);
+        assertEquals(2, pairs.size());
+        assertEquals(new File(dir, "A2.ba").getPath(), pairs.get(0).getLeft());
+        assertEquals(new File(dir, "A1.ba").getPath(), pairs.get(1).getRight());
+        assertEquals(new File(dir, "E.ba").getAbsolutePath(), pairs.get(1).getLeft());
+    }
+    
+    @Test
+    public void testBatch() throws IOException {
+        File dir = prepare();
+        String manifest = write(dir, "pairs.txt", "E.ba A1.ba\nA2.ba A1.ba\nX.ba A1.ba\n");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        Options options = new Options(log);
+        options.algorithm = Options.Algorithm.SYNTACTIC;
+        options.batchFile = manifest;
+        InclusionBatch.execute(options);
+        // the missing file fails on its own
+        assertTrue(log.toString().contains("Checked 3 pairs: 1 included, 1 not included, 0 unknown, 1 failed"));
+    }
+    
+    @Test(expected = IOException.class)
+    public void testInvalidManifest() throws IOException {
+        File dir = prepare();
+        InclusionBatch.readManifest(write(dir, "pairs.txt", "A2.ba A1.ba E.ba\n"));
+    }
+    
+    // the heap budget is measured for the whole JVM
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSharedHeapBudget() {
+        CLParser parser = new CLParser(System.out);
+        parser.prepareOptions(new String[] {"-batch", "pairs.txt", "-jobs", "2", "-memout", "512"});
+    }
+
+}
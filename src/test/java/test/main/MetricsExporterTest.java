@@ -0,0 +1,98 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package test.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import roll.automata.NBA;
+import roll.automata.operations.NBAGenerator;
+import roll.main.MetricsExporter;
+import roll.main.Options;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class MetricsExporterTest {
+    
+    private List<String> export(String suffix) throws IOException {
+        File file = File.createTempFile("roll", suffix);
+        file.deleteOnExit();
+        Options options = new Options();
+        options.metricsFile = file.getAbsolutePath();
+        NBA nba = NBAGenerator.getRandomNBA(4, 2, 1);
+        MetricsExporter metrics = MetricsExporter.prepare(options);
+        options.stats.numOfMembershipQuery = 10;
+        options.stats.numOfEquivalenceQuery = 1;
+        metrics.record(nba, null);
+        options.stats.numOfMembershipQuery = 25;
+        options.stats.numOfEquivalenceQuery = 2;
+        options.stats.numOfStoredAnswers = 25;
+        metrics.record(nba, null);
+        metrics.close();
+        assertEquals(2, metrics.getNumOfRounds());
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    public void testJSON() throws IOException {
+        List<String> lines = export(".jsonl");
+        assertEquals(2, lines.size());
+        String first = lines.get(0);
+        assertTrue(first.startsWith("{\"round\":1,"));
+        assertTrue(first.contains("\"hypothesisStates\":4,"));
+        assertTrue(first.contains("\"leadingStates\":-1,"));
+        assertTrue(first.contains("\"membershipQueries\":10,\"roundMembershipQueries\":10,"));
+        String second = lines.get(1);
+        assertTrue(second.contains("\"membershipQueries\":25,\"roundMembershipQueries\":15,"));
+        assertTrue(second.contains("\"roundEquivalenceQueries\":1,"));
+        assertTrue(second.contains("\"storeHitRate\":0.5,"));
+        assertTrue(second.endsWith("}"));
+    }
+    
+    @Test
+    public void testCSV() throws IOException {
+        List<String> lines = export(".csv");
+        assertEquals(3, lines.size());
+        String[] header = lines.get(0).split(",");
+        assertEquals("round", header[0]);
+        String[] second = lines.get(2).split(",");
+        assertEquals(header.length, second.length);
+        assertEquals("2", second[0]);
+        assertEquals("4", second[2]);
+    }
+    
+    @Test
+    public void testDisabled() {
+        Options options = new Options();
+        MetricsExporter metrics = MetricsExporter.prepare(options);
+        metrics.record(null, null);
+        metrics.close();
+        assertEquals(0, metrics.getNumOfRounds());
+    }
+
+}
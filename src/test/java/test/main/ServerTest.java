@@ -0,0 +1,150 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package test.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import roll.main.Client;
+import roll.main.Options;
+import roll.main.Server;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class ServerTest {
+    
+    // accepts a b^w
+    private static final String A1 = "[0]\na,[0]->[1]\na,[0]->[2]\na,[1]->[1]\nb,[2]->[2]\n[1]\n";
+    // accepts b^w as well
+    private static final String A2 = "[0]\na,[0]->[1]\na,[0]->[2]\na,[1]->[1]\nb,[0]->[2]\nb,[2]->[2]\n[1]\n[2]\n";
+    
+    private String write(File dir, String name, String content) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        file.deleteOnExit();
+        return file.getPath();
+    }
+    
+    // the reply to the raw request, which ends the connection
+    private String send(Server server, File token, String request) throws IOException {
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            PrintStream out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+            out.print(Server.TOKEN + " " + new String(Files.readAllBytes(token.toPath()), StandardCharsets.UTF_8).trim() + "\n");
+            out.print(request + "\n");
+            out.flush();
+            socket.shutdownOutput();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line = in.readLine();
+            return line == null ? "" : line;
+        }
+    }
+    
+    @Test
+    public void testJobs() throws Exception {
+        File dir = Files.createTempDirectory("roll").toFile();
+        dir.deleteOnExit();
+        String a1 = write(dir, "A1.ba", A1);
+        String a2 = write(dir, "A2.ba", A2);
+        Options options = new Options(new ByteArrayOutputStream());
+        options.numOfJobs = 2;
+        options.tokenFile = new File(dir, "server.token").getPath();
+        Server server = new Server(options, 0);
+        File token = server.getTokenFile();
+        token.deleteOnExit();
+        Thread thread = new Thread(() -> server.serve());
+        thread.start();
+        
+        // the server only knows the sent automata
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        Client client = new Client(server.getPort(), token, new PrintStream(log));
+        assertTrue(client.run("-learn", a1, "-sameq", "0.1", "0.1", "-table", "-syntactic", "-under", "-out", "H.ba"));
+        List<String> hypothesis = client.getOutputs().get("H.ba");
+        assertNotNull(hypothesis);
+        assertEquals("[0]", hypothesis.get(0));
+        assertTrue(log.toString().contains("#MQ"));
+        
+        // jobs of several clients at the same time
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for(int i = 0; i < 6; i ++) {
+            results.add(pool.submit(() -> new Client(server.getPort(), token, new PrintStream(new ByteArrayOutputStream()))
+                    .run("-include", a2, a1, "-table", "-syntactic")));
+        }
+        for(Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        pool.shutdown();
+        
+        // a failed job is reported and the server goes on
+        assertFalse(client.run("-learn", new File(dir, "none.ba").getPath(), "-table"));
+        assertNotNull(client.getError());
+        assertFalse(client.run("-play", "-table"));
+        assertTrue(client.getError().contains("PLAYING"));
+        
+        // jobs only touch the files sent with them
+        assertFalse(client.run("-include", a2, a1, "-trace", new File(dir, "trace.bin").getPath()));
+        assertTrue(client.getError().contains("-trace"));
+        assertFalse(new File(dir, "trace.bin").exists());
+        assertFalse(client.run("-learn", a1.replace(".ba", ".hoa"), "-table"));
+        assertTrue(client.getError().contains("not sent"));
+        
+        // clients without the token are rejected
+        File wrong = new File(dir, "wrong.token");
+        Files.write(wrong.toPath(), "0000".getBytes(StandardCharsets.UTF_8));
+        wrong.deleteOnExit();
+        Client stranger = new Client(server.getPort(), wrong, new PrintStream(new ByteArrayOutputStream()));
+        assertFalse(stranger.run("-include", a2, a1, "-table", "-syntactic"));
+        assertTrue(stranger.getError().contains("token"));
+        stranger.shutdown();
+        assertTrue(client.run("-include", a2, a1, "-table", "-syntactic"));
+        
+        // malformed and truncated files are rejected
+        assertTrue(send(server, token, Server.FILE + " x A1.ba").startsWith(Server.REPLY_END + " ERROR"));
+        assertTrue(send(server, token, Server.FILE + " 2").startsWith(Server.REPLY_END + " ERROR"));
+        assertTrue(send(server, token, Server.FILE + " 3 A1.ba\n[0]").contains("ends after 1 of 3 lines"));
+        
+        client.shutdown();
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+        server.close();
+        assertFalse(token.exists());
+    }
+
+}
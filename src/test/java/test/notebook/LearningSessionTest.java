@@ -0,0 +1,87 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+
+package test.notebook;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import roll.automata.DFA;
+import roll.notebook.LearningSession;
+import roll.notebook.ROLLNotebook;
+import roll.notebook.Triple;
+import test.notebookTest;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class LearningSessionTest {
+    
+    @Test
+    public void testRounds() {
+        DFA target = notebookTest.dfaExample();
+        LearningSession session = ROLLNotebook.learningSession("lstar", "table", target);
+        assertTrue(session.getRounds().isEmpty());
+        // nothing is learned before it is asked for
+        LearningSession.Round first = session.next();
+        assertEquals(0, first.getIndex());
+        assertNull(first.getCounterexample());
+        assertEquals(1, session.getRounds().size());
+        
+        List<LearningSession.Round> rounds = session.stream().collect(Collectors.toList());
+        assertTrue(session.isFinished());
+        assertFalse(session.hasNext());
+        assertSame(first, rounds.get(0));
+        assertEquals(session.getRounds(), rounds);
+        for(int i = 1; i < rounds.size(); i ++) {
+            assertEquals(i, rounds.get(i).getIndex());
+            assertNotNull(rounds.get(i).getCounterexample());
+        }
+        // the last hypothesis is the target
+        DFA hypothesis = (DFA) rounds.get(rounds.size() - 1).getHypothesis();
+        assertEquals(target.getStateSize(), hypothesis.getStateSize());
+        // earlier rounds are kept as they were
+        assertSame(first, session.getRound(0));
+        assertTrue(first.render().join().getLeft().startsWith("<pre>"));
+    }
+    
+    @Test
+    public void testTreeLearner() {
+        LearningSession session = ROLLNotebook.learningSession("kv", "tree", notebookTest.dfaExample());
+        // later rounds are learned on demand
+        LearningSession.Round round = session.getRound(1);
+        assertEquals(2, session.getRounds().size());
+        Triple triple = round.toTriple();
+        assertTrue(triple.getLeft().contains("<svg"));
+        assertTrue(triple.getMiddle().contains("<svg"));
+        assertSame(round.getCounterexample(), triple.getRight());
+        assertEquals(ROLLNotebook.learningSeq("kv", "tree", notebookTest.dfaExample()).size()
+                , session.stream().count());
+    }
+
+}
@@ -0,0 +1,109 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+
+package test.notebook;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import roll.notebook.SVGRenderer;
+import test.notebookTest;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class SVGRendererTest {
+    
+    // answers every graph on its own line at once, and counts the graphs
+    private static final String FAKE_DOT = "#!/bin/sh\nn=0\nwhile IFS= read -r line; do\n"
+            + "  case \"$line\" in\n    *\"}\"*) n=$((n+1)); echo \"<svg id=\\\"$n\\\">\"; echo \"</svg>\";;\n"
+            + "  esac\ndone\n";
+    
+    @Test
+    public void testLayoutWithoutDot() {
+        String dot = notebookTest.nbaExample().toDot();
+        try(SVGRenderer renderer = new SVGRenderer("roll-no-such-dot", 2, 4)) {
+            CompletableFuture<String> svg = renderer.renderAsync(dot);
+            // the same graph is rendered once
+            assertSame(svg, renderer.renderAsync(dot));
+            assertTrue(svg.join().startsWith("<svg"));
+            assertTrue(svg.join().endsWith("</svg>"));
+            // one state and two accepting states drawn by double circles
+            assertEquals(5, svg.join().split("<circle").length - 1);
+            assertTrue(svg.join().contains(">a</text>"));
+            assertTrue(svg.join().contains(">b</text>"));
+        }
+    }
+    
+    @Test
+    public void testCache() {
+        try(SVGRenderer renderer = new SVGRenderer("roll-no-such-dot", 1, 2)) {
+            CompletableFuture<String> first = renderer.renderAsync("digraph { 0 -> 1 }");
+            CompletableFuture<String> second = renderer.renderAsync("digraph { 0 -> 2 }");
+            assertSame(first, renderer.renderAsync("digraph { 0 -> 1 }"));
+            renderer.renderAsync("digraph { 0 -> 3 }");
+            // the least recently used graph is evicted
+            assertSame(first, renderer.renderAsync("digraph { 0 -> 1 }"));
+            assertNotSame(second, renderer.renderAsync("digraph { 0 -> 2 }"));
+        }
+    }
+    
+    @Test
+    public void testLongLivedProcess() throws IOException {
+        File dot = File.createTempFile("roll-dot", ".sh");
+        dot.deleteOnExit();
+        Files.write(dot.toPath(), FAKE_DOT.getBytes(StandardCharsets.UTF_8));
+        dot.setExecutable(true);
+        try(SVGRenderer renderer = new SVGRenderer(dot.getPath(), 1, 16)) {
+            // the empty probe graph is the first one of the process
+            assertEquals("<svg id=\"2\"></svg>", renderer.render("digraph {\n 0 -> 1\n}"));
+            assertEquals("<svg id=\"3\"></svg>", renderer.render("digraph {\n 1 -> 0\n}"));
+            assertEquals("<svg id=\"2\"></svg>", renderer.render("digraph {\n 0 -> 1\n}"));
+        }
+    }
+    
+    @Test
+    public void testRetryDot() throws IOException, InterruptedException {
+        File dot = File.createTempFile("roll-dot", ".sh");
+        dot.deleteOnExit();
+        dot.delete();
+        try(SVGRenderer renderer = new SVGRenderer(dot.getPath(), 1, 16, 50)) {
+            // laid out in Java while dot is missing
+            assertFalse(renderer.render("digraph {\n 0 -> 1\n}").startsWith("<svg id="));
+            Files.write(dot.toPath(), FAKE_DOT.getBytes(StandardCharsets.UTF_8));
+            dot.setExecutable(true);
+            Thread.sleep(100);
+            assertEquals("<svg id=\"2\"></svg>", renderer.render("digraph {\n 1 -> 0\n}"));
+            // the graph laid out in Java is not kept once dot is back
+            assertEquals("<svg id=\"3\"></svg>", renderer.render("digraph {\n 0 -> 1\n}"));
+        }
+    }
+
+}
@@ -0,0 +1,185 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.oracle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static test.learner.UtilLearner.getAlphabet;
+
+import roll.automata.NBA;
+import roll.automata.operations.NBAGenerator;
+import roll.automata.operations.NBAOperations;
+import roll.main.CLParser;
+import roll.main.Options;
+import roll.oracle.MembershipStore;
+import roll.oracle.Teacher;
+import roll.oracle.TeacherMembershipStore;
+import roll.oracle.nba.TeacherNBA;
+import roll.query.Query;
+import roll.query.QuerySimple;
+import roll.table.HashableValue;
+import roll.table.HashableValueBoolean;
+import roll.words.Alphabet;
+import roll.words.Word;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class MembershipStoreTest {
+    
+    private File getTempFile() throws IOException {
+        File file = File.createTempFile("roll", ".store");
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+    
+    @Test
+    public void testPersistence() throws IOException {
+        File file = getTempFile();
+        Alphabet alphabet = getAlphabet();
+        Word a = alphabet.getWordFromString("a");
+        Word ab = alphabet.getWordFromString("ab");
+        Word ba = alphabet.getWordFromString("ba");
+        try(MembershipStore store = new MembershipStore(file.getPath(), 1 << 16)) {
+            store.put(1, a, ba, new HashableValueBoolean(true));
+            store.put(2, a, ba, new HashableValueBoolean(false));
+            // a(ba)^w and ab(ab)^w are the same omega word
+            assertTrue(store.get(1, ab, ab).isAccepting());
+            assertFalse(store.get(2, ab, ab).isAccepting());
+            assertNull(store.get(3, a, ba));
+            assertNull(store.get(1, ab, ba));
+        }
+        try(MembershipStore store = new MembershipStore(file.getPath(), 1 << 16)) {
+            assertEquals(2, store.getNumOfAnswers());
+            assertTrue(store.get(1, a, ba).isAccepting());
+        }
+    }
+    
+    @Test
+    public void testEviction() throws IOException {
+        File file = getTempFile();
+        Alphabet alphabet = getAlphabet();
+        try(MembershipStore store = new MembershipStore(file.getPath(), 1 << 10)) {
+            for(int i = 0; i < 1000; i ++) {
+                store.put(i, alphabet.getEmptyWord(), alphabet.getWordFromString("a"), new HashableValueBoolean(i % 2 == 0));
+            }
+            assertTrue(store.getNumOfEvictions() > 0);
+            assertTrue(store.getNumOfAnswers() > 0);
+            // only the older answers are evicted
+            for(int i = 1000 - store.getNumOfAnswers(); i < 1000; i ++) {
+                HashableValue answer = store.get(i, alphabet.getEmptyWord(), alphabet.getWordFromString("aa"));
+                assertEquals(i % 2 == 0, answer.isAccepting());
+            }
+            assertNull(store.get(0, alphabet.getEmptyWord(), alphabet.getWordFromString("a")));
+        }
+    }
+    
+    @Test
+    public void testSharedFile() throws Exception {
+        File file = getTempFile();
+        Alphabet alphabet = getAlphabet();
+        Word a = alphabet.getWordFromString("a");
+        // two stores on the same file behave like two processes
+        try(MembershipStore writer = new MembershipStore(file.getPath(), 1 << 12);
+            MembershipStore reader = new MembershipStore(file.getPath(), 1 << 12)) {
+            Thread thread = new Thread(() -> {
+                for(int i = 0; i < 20000; i ++) {
+                    try {
+                        writer.put(i, alphabet.getEmptyWord(), a, new HashableValueBoolean(i % 3 == 0));
+                    }catch(IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            thread.start();
+            while(thread.isAlive()) {
+                for(int i = 0; i < 20000; i += 7) {
+                    HashableValue answer = reader.get(i, alphabet.getEmptyWord(), a);
+                    if(answer != null) assertEquals(i % 3 == 0, answer.isAccepting());
+                }
+            }
+            thread.join();
+            assertTrue(reader.getNumOfEvictions() > 0);
+            assertTrue(reader.get(19999, alphabet.getEmptyWord(), a) != null);
+        }
+    }
+    
+    @Test
+    public void testStoreSize() {
+        CLParser parser = new CLParser();
+        parser.prepareOptions(new String[] {"-test", "1", "2", "-storesize", "1024"});
+        assertEquals(1 << 30, parser.getOptions().membershipStoreSize);
+        for(String size : new String[] {"0", "2048", "4294967296"}) {
+            try {
+                new CLParser().prepareOptions(new String[] {"-test", "1", "2", "-storesize", size});
+                fail("-storesize " + size + " accepted");
+            }catch(UnsupportedOperationException e) {
+                // expected
+            }
+        }
+    }
+    
+    private class TeacherNBACounter extends TeacherNBA {
+        
+        public TeacherNBACounter(Options options, NBA target) {
+            super(options, target);
+        }
+
+        @Override
+        protected Query<HashableValue> checkEquivalence(NBA hypothesis) {
+            return null;
+        }
+        
+    }
+    
+    @Test
+    public void testWarmRun() throws IOException {
+        File file = getTempFile();
+        NBA target = NBAGenerator.getRandomNBA(5, 2);
+        Alphabet alphabet = target.getAlphabet();
+        String[][] words = { {"a", "b"}, {"", "ab"}, {"ab", "ab"}, {"b", "a"}, {"bb", "ab"} };
+        for(int run = 0; run < 2; run ++) {
+            Options options = new Options();
+            options.membershipStore = file.getPath();
+            try(MembershipStore store = MembershipStore.open(options)) {
+                Teacher<NBA, Query<HashableValue>, HashableValue> teacher = TeacherMembershipStore.prepare(options
+                        , new TeacherNBACounter(options, target), store, MembershipStore.getFingerprint("nba", target));
+                for(String[] word : words) {
+                    Word prefix = alphabet.getWordFromString(word[0]);
+                    Word suffix = alphabet.getWordFromString(word[1]);
+                    HashableValue answer = teacher.answerMembershipQuery(new QuerySimple<>(prefix, suffix));
+                    assertEquals(NBAOperations.accepts(target, prefix, suffix), answer.isAccepting());
+                }
+            }
+            // (ab)^w is asked twice, the second run only asks the store
+            if(run == 0) {
+                assertEquals(4, options.stats.numOfMembershipQuery);
+            }else {
+                assertEquals(0, options.stats.numOfMembershipQuery);
+                assertEquals(words.length, options.stats.numOfStoredAnswers);
+            }
+        }
+    }
+
+}
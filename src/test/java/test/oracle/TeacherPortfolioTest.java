@@ -0,0 +1,84 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.oracle;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static test.learner.UtilLearner.getAlphabet;
+
+import roll.automata.NBA;
+import roll.main.Options;
+import roll.oracle.nba.portfolio.TeacherNBAPortfolio;
+import roll.query.Query;
+import roll.table.HashableValue;
+import roll.words.Alphabet;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class TeacherPortfolioTest {
+    
+    // one accepting state with self loops over the given letters
+    private NBA getNBA(Alphabet alphabet, int... letters) {
+        NBA nba = new NBA(alphabet);
+        nba.createState();
+        for(int letter : letters) {
+            nba.getState(0).addTransition(letter, 0);
+        }
+        nba.setInitial(0);
+        nba.setFinal(0);
+        return nba;
+    }
+    
+    // the sampler draws no lasso at all
+    private Options getOptions() {
+        Options options = new Options();
+        options.epsilon = 0.999;
+        options.delta = 0.9;
+        return options;
+    }
+    
+    @Test
+    public void testSamplerFindsNothing() {
+        Alphabet alphabet = getAlphabet();
+        NBA target = getNBA(alphabet, 0);
+        NBA hypothesis = getNBA(alphabet, 0, 1);
+        try(TeacherNBAPortfolio teacher = new TeacherNBAPortfolio(getOptions(), target)) {
+            Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(hypothesis);
+            // a counterexample from RABIT
+            assertFalse(ceQuery.getQueryAnswer().get());
+            assertFalse(ceQuery.getSuffix().isEmpty());
+        }catch(RuntimeException | LinkageError e) {
+            // RABIT is not available, nothing else gives a counterexample
+        }
+    }
+    
+    @Test
+    public void testEquivalent() {
+        Alphabet alphabet = getAlphabet();
+        NBA target = getNBA(alphabet, 0, 1);
+        try(TeacherNBAPortfolio teacher = new TeacherNBAPortfolio(getOptions(), target)) {
+            for(int round = 0; round < 3; round ++) {
+                Query<HashableValue> ceQuery = teacher.answerEquivalenceQuery(getNBA(alphabet, 0, 1));
+                assertTrue(ceQuery.getQueryAnswer().get());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package test.oracle;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static test.learner.UtilLearner.getAlphabet;
+import static test.learner.UtilLearner.learn;
+
+import roll.automata.DFA;
+import roll.automata.operations.DFAGenerator;
+import roll.main.Options;
+import roll.oracle.TeacherReplay;
+import roll.oracle.TeacherTraceRecorder;
+import roll.oracle.dfa.dk.TeacherDFADK;
+import roll.query.QuerySimple;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class TeacherReplayTest {
+    
+    @Test
+    public void testReplay() throws IOException {
+        for(int i = 0; i < 10; i ++) {
+            DFA target = DFAGenerator.getRandomDFA(getAlphabet(), 4 + i, 20 + i);
+            File file = File.createTempFile("roll", ".trace");
+            file.deleteOnExit();
+            Options options = new Options();
+            TeacherDFADK teacher = new TeacherDFADK(options, target);
+            DFA model;
+            try(TeacherTraceRecorder<DFA> recorder = new TeacherTraceRecorder<>(options
+                    , target.getAlphabet(), teacher, file.getPath())) {
+                model = learn(options, target.getAlphabet(), recorder);
+            }
+            // the same queries are asked without the target
+            Options replayed = new Options();
+            TeacherReplay<DFA> replay = new TeacherReplay<>(replayed, target.getAlphabet(), file.getPath());
+            assertEquals(options.stats.numOfEquivalenceQuery, replay.getNumOfRounds());
+            DFA result = learn(replayed, target.getAlphabet(), replay);
+            assertEquals(model.getStateSize(), result.getStateSize());
+            assertEquals(options.stats.numOfMembershipQuery, replayed.stats.numOfMembershipQuery);
+            assertEquals(options.stats.numOfEquivalenceQuery, replayed.stats.numOfEquivalenceQuery);
+        }
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnknownQuery() throws IOException {
+        DFA target = DFAGenerator.getRandomDFA(getAlphabet(), 3, 1);
+        File file = File.createTempFile("roll", ".trace");
+        file.deleteOnExit();
+        Options options = new Options();
+        new TeacherTraceRecorder<DFA>(options, target.getAlphabet(), new TeacherDFADK(options, target)
+                , file.getPath()).close();
+        TeacherReplay<DFA> replay = new TeacherReplay<>(new Options(), target.getAlphabet(), file.getPath());
+        replay.answerMembershipQuery(new QuerySimple<>(target.getAlphabet().getArrayWord(0, 1)));
+    }
+
+    
+    @Test(expected = IOException.class)
+    public void testInvalidTrace() throws IOException {
+        File file = File.createTempFile("roll", ".trace");
+        file.deleteOnExit();
+        try(FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        }
+        new TeacherReplay<DFA>(new Options(), getAlphabet(), file.getPath());
+    }
+    
+    @Test
+    public void testPrepare() throws IOException {
+        DFA target = DFAGenerator.getRandomDFA(getAlphabet(), 8, 24);
+        File file = File.createTempFile("roll", ".trace");
+        file.deleteOnExit();
+        Options options = new Options();
+        options.traceFile = file.getPath();
+        DFA model;
+        try(TeacherTraceRecorder<DFA> recorder = TeacherTraceRecorder.prepare(options, target.getAlphabet()
+                , new TeacherDFADK(options, target))) {
+            model = learn(options, target.getAlphabet(), recorder);
+        }
+        // the trace is complete once the recorder is closed
+        Options replayed = new Options();
+        replayed.replayFile = file.getPath();
+        try(TeacherTraceRecorder<DFA> replay = TeacherTraceRecorder.prepare(replayed, target.getAlphabet(), null)) {
+            assertEquals(model.getStateSize(), learn(replayed, target.getAlphabet(), replay).getStateSize());
+        }
+        assertEquals(options.stats.numOfMembershipQuery, replayed.stats.numOfMembershipQuery);
+    }
+
+}
@@ -0,0 +1,148 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import roll.automata.NBA;
+import roll.parser.AutomatonWriter;
+import roll.parser.UtilParser;
+import roll.words.Alphabet;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class AutomatonWriterTest {
+    
+    // a b* (a + b)^omega
+    private NBA getNBA() {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        NBA nba = new NBA(alphabet);
+        nba.createState();
+        nba.createState();
+        nba.getState(0).addTransition(0, 1);
+        nba.getState(0).addTransition(1, 0);
+        nba.getState(1).addTransition(0, 1);
+        nba.getState(1).addTransition(1, 1);
+        nba.setInitial(0);
+        nba.setFinal(1);
+        return nba;
+    }
+    
+    @Test
+    public void testDot() {
+        NBA nba = getNBA();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UtilParser.print(nba, out, letter -> "" + nba.getAlphabet().getLetter(letter));
+        assertEquals("//nba \n"
+                + "digraph {\n"
+                + "  0 [label=\"0\", shape = circle];\n"
+                + "  0 -> 1 [label=\"a\"];\n"
+                + "  0 -> 0 [label=\"b\"];\n"
+                + "  1 [label=\"1\", shape = doublecircle];\n"
+                + "  1 -> 1 [label=\"a\"];\n"
+                + "  1 -> 1 [label=\"b\"];\n"
+                + "  2 [label=\"\", shape = plaintext];\n"
+                + "  2 -> 0 [label=\"\"];\n"
+                + "}\n\n", out.toString());
+        
+        out = new ByteArrayOutputStream();
+        UtilParser.print(nba, out, letter -> "" + nba.getAlphabet().getLetter(letter), true);
+        String dot = out.toString();
+        assertTrue(dot.contains("  0 -> 1 [label=\"a\"];\n  0 -> 0 [label=\"b\"];\n"));
+        assertTrue(dot.contains("  1 -> 1 [label=\"a, b\"];\n  2 [label"));
+    }
+    
+    @Test
+    public void testBA() throws IOException {
+        NBA nba = getNBA();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AutomatonWriter(nba, out, letter -> "" + nba.getAlphabet().getLetter(letter)).writeBA();
+        assertEquals("[0]\n"
+                + "a,[0]->[1]\n"
+                + "b,[0]->[0]\n"
+                + "a,[1]->[1]\n"
+                + "b,[1]->[1]\n"
+                + "[1]\n", out.toString());
+        // the automaton itself writes the letters by their indices
+        StringWriter writer = new StringWriter();
+        nba.writeBA(writer);
+        assertEquals(nba.toBA(), writer.toString());
+        assertTrue(writer.toString().contains("a1,[0]->[0]\n"));
+        writer = new StringWriter();
+        nba.writeDot(writer);
+        assertEquals(nba.toDot(), writer.toString());
+    }
+    
+    @Test
+    public void testHOA() {
+        NBA nba = getNBA();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AutomatonWriter(nba, out, letter -> letter == 0 ? "!0" : "0"
+                , letters -> "t").writeHOA(Arrays.asList("p"));
+        assertEquals("HOA: v1\n"
+                + "tool: \"ROLL\"\n"
+                + "properties: explicit-labels state-acc trans-labels \n"
+                + "States: 2\n"
+                + "Start: 0\n"
+                + "acc-name: Buchi\n"
+                + "Acceptance: 1 Inf(0)\n"
+                + "AP: 1 \"p\"\n"
+                + "--BODY--\n"
+                + "State: 0\n"
+                + "[!0]  1\n"
+                + "[0]  0\n"
+                + "State: 1 {0}\n"
+                + "[t]  1\n"
+                + "--END--\n", out.toString());
+    }
+    
+    @Test
+    public void testEncoding() {
+        NBA nba = getNBA();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // labels are written in UTF-8 whatever the platform encoding is
+        new AutomatonWriter(nba, out, letter -> letter == 0 ? "\u03b1" : "\u03b2").writeBA();
+        assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains("\u03b1,[0]->[1]\n"));
+    }
+    
+    @Test(expected = UncheckedIOException.class)
+    public void testFailedWrite() {
+        NBA nba = getNBA();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        new AutomatonWriter(nba, out, letter -> "" + nba.getAlphabet().getLetter(letter)).writeDot();
+    }
+
+}
@@ -19,9 +19,12 @@ package test.parser;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import automata.FiniteAutomaton;
@@ -40,20 +43,26 @@ import roll.words.Alphabet;
 
 public class BAParserTest {
     @Test
-    public void testBAParser() throws FileNotFoundException {
+    public void testBAParser() throws IOException {
         Options options = new Options();
         final String dir = "src/main/resources/ba/";
+        // the printed automata do not go to the resources
+        File out = Files.createTempDirectory("roll").toFile();
+        out.deleteOnExit();
         ParserBA parser = new ParserBA(options, dir + "A4.ba");
         NBA nba = parser.parse();
-        File file = new File(dir + "A4-1.ba");
+        File file = new File(out, "A4-1.ba");
+        file.deleteOnExit();
         parser.print(nba, new PrintStream(new FileOutputStream(file)));
         
         PairParserBA pp = new PairParserBA(options, dir + "A4.ba", dir + "B4.ba");
         NBA A = pp.getA();
-        file = new File(dir + "A3-1.ba");
+        file = new File(out, "A3-1.ba");
+        file.deleteOnExit();
         parser.print(A, new PrintStream(new FileOutputStream(file)));
         NBA B = pp.getB();
-        file = new File(dir + "B3-1.ba");
+        file = new File(out, "B3-1.ba");
+        file.deleteOnExit();
         parser.print(B, new PrintStream(new FileOutputStream(file)));
         System.out.println(B.toString());
         System.out.println("states: " + B.getStateSize());
@@ -155,4 +164,38 @@ public class BAParserTest {
         }
 
     }
+    
+    private static String writeTemp(String content) throws IOException {
+        File file = File.createTempFile("roll", ".ba");
+        file.deleteOnExit();
+        try(PrintStream printer = new PrintStream(new FileOutputStream(file))) {
+            printer.print(content);
+        }
+        return file.getPath();
+    }
+    
+    @Test
+    public void testDeterministicNumbering() throws IOException {
+        // q2 is not reachable
+        String fileA = writeTemp("[q0]\nb,[q0]->[q1]\na,[q2]->[q0]\na,[q1]->[q0]\n[q1]\n[q2]\n");
+        String fileB = writeTemp("[p]\na,[p]->[p]\nb,[p]->[r]\nb,[r]->[p]\n[r]\n");
+        Options options = new Options();
+        PairParserBA first = new PairParserBA(options, fileA, fileB);
+        NBA A = first.getA();
+        NBA B = first.getB();
+        Assert.assertEquals(2, A.getStateSize());
+        Assert.assertEquals(0, A.getInitialState());
+        Assert.assertTrue(A.isFinal(1));
+        Assert.assertEquals("b", first.getLabel(A, 0));
+        Assert.assertEquals("a", first.getLabel(A, 1));
+        Assert.assertEquals(2, B.getStateSize());
+        for(int i = 0; i < 20; i ++) {
+            PairParserBA pp = new PairParserBA(options, fileA, fileB);
+            Assert.assertEquals(A.toString(), pp.getA().toString());
+            Assert.assertEquals(B.toString(), pp.getB().toString());
+            for(int letter = 0; letter < A.getAlphabetSize(); letter ++) {
+                Assert.assertEquals(first.getLabel(A, letter), pp.getLabel(pp.getA(), letter));
+            }
+        }
+    }
 }
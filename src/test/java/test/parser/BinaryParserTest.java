@@ -0,0 +1,189 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.parser;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+import roll.automata.DFA;
+import roll.automata.FDFA;
+import roll.automata.NBA;
+import roll.automata.operations.DFAGenerator;
+import roll.automata.operations.NBAGenerator;
+import roll.main.Options;
+import roll.parser.bin.BinaryFile;
+import roll.parser.bin.BinaryFormat;
+import roll.parser.bin.PairParserBinary;
+import roll.words.Alphabet;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class BinaryParserTest {
+    
+    private File getTempFile() throws IOException {
+        File file = File.createTempFile("roll", ".bin");
+        file.deleteOnExit();
+        return file;
+    }
+    
+    private void assertSameNBA(NBA fst, NBA snd) {
+        assertEquals(fst.getStateSize(), snd.getStateSize());
+        assertEquals(fst.getInitialState(), snd.getInitialState());
+        assertEquals(fst.getFinalStates(), snd.getFinalStates());
+        for(int state = 0; state < fst.getStateSize(); state ++) {
+            for(int letter = 0; letter < fst.getAlphabetSize(); letter ++) {
+                assertEquals(fst.getSuccessors(state, letter), snd.getSuccessors(state, letter));
+            }
+        }
+    }
+    
+    private void assertSameDFA(DFA fst, DFA snd) {
+        assertEquals(fst.getStateSize(), snd.getStateSize());
+        assertEquals(fst.getInitialState(), snd.getInitialState());
+        assertEquals(fst.getFinalStates(), snd.getFinalStates());
+        for(int state = 0; state < fst.getStateSize(); state ++) {
+            for(int letter = 0; letter < fst.getAlphabetSize(); letter ++) {
+                assertEquals(fst.getSuccessor(state, letter), snd.getSuccessor(state, letter));
+            }
+        }
+    }
+    
+    @Test
+    public void testNBA() throws IOException {
+        for(int i = 0; i < 20; i ++) {
+            NBA nba = NBAGenerator.getRandomNBA(2 + i, 3, i);
+            File file = getTempFile();
+            try(OutputStream out = new FileOutputStream(file)) {
+                BinaryFormat.write(out, nba, BinaryFormat.getDefaultLabels(nba.getAlphabet()));
+            }
+            BinaryFile binFile = new BinaryFile(file.getPath());
+            assertEquals(1, binFile.getNumOfAutomata());
+            assertEquals(nba.getAlphabetSize(), binFile.getNumOfLetters());
+            assertSameNBA(nba, binFile.toNBA());
+        }
+    }
+    
+    @Test
+    public void testDFAAndFDFA() throws IOException {
+        Alphabet alphabet = new Alphabet();
+        alphabet.addLetter('a');
+        alphabet.addLetter('b');
+        DFA leadDFA = DFAGenerator.getRandomDFA(alphabet, 5, 0);
+        File file = getTempFile();
+        try(OutputStream out = new FileOutputStream(file)) {
+            BinaryFormat.write(out, leadDFA, BinaryFormat.getDefaultLabels(alphabet));
+        }
+        assertSameDFA(leadDFA, new BinaryFile(file.getPath()).toDFA());
+        
+        List<DFA> proDFAs = new ArrayList<>();
+        for(int state = 0; state < leadDFA.getStateSize(); state ++) {
+            proDFAs.add(DFAGenerator.getRandomDFA(alphabet, 2 + state, state));
+        }
+        FDFA fdfa = new FDFA(leadDFA, proDFAs);
+        try(OutputStream out = new FileOutputStream(file)) {
+            BinaryFormat.write(out, fdfa, BinaryFormat.getDefaultLabels(alphabet));
+        }
+        FDFA result = new BinaryFile(file.getPath()).toFDFA();
+        assertSameDFA(leadDFA, result.getLeadingDFA());
+        for(int state = 0; state < leadDFA.getStateSize(); state ++) {
+            assertSameDFA(fdfa.getProgressDFA(state), result.getProgressDFA(state));
+        }
+    }
+    
+    @Test
+    public void testPairParser() throws IOException {
+        Alphabet alphabetA = new Alphabet();
+        alphabetA.addLetter('a');
+        alphabetA.addLetter('b');
+        NBA A = new NBA(alphabetA);
+        A.createState();
+        A.getState(0).addTransition(0, 0);
+        A.getState(0).addTransition(1, 0);
+        A.setInitial(0);
+        A.setFinal(0);
+        // B uses the letters in the reversed order
+        Alphabet alphabetB = new Alphabet();
+        alphabetB.addLetter('b');
+        alphabetB.addLetter('a');
+        NBA B = new NBA(alphabetB);
+        B.createState();
+        B.getState(0).addTransition(0, 0);
+        B.setInitial(0);
+        B.setFinal(0);
+        File fileA = getTempFile(), fileB = getTempFile();
+        try(OutputStream outA = new FileOutputStream(fileA);
+            OutputStream outB = new FileOutputStream(fileB)) {
+            BinaryFormat.write(outA, A, letter -> "p" + alphabetA.getLetter(letter));
+            BinaryFormat.write(outB, B, letter -> "p" + alphabetB.getLetter(letter));
+        }
+        PairParserBinary parser = new PairParserBinary(new Options(), fileA.getPath(), fileB.getPath());
+        NBA resA = parser.getA(), resB = parser.getB();
+        assertSame(resA.getAlphabet(), resB.getAlphabet());
+        assertEquals(2, resA.getAlphabetSize());
+        int letterB = resB.getAlphabet().indexOf('b');
+        assertEquals("pb", parser.getLabel(resB, letterB));
+        assertTrue(resB.getSuccessors(0, letterB).get(0));
+        assertTrue(resB.getSuccessors(0, 1 - letterB).isEmpty());
+    }
+
+    private void assertRejected(File file) {
+        try {
+            new BinaryFile(file.getPath());
+            fail("Invalid binary file accepted");
+        }catch(IOException e) {
+            assertTrue(e.getMessage().contains(file.getPath()));
+        }
+    }
+    
+    @Test
+    public void testInvalidFiles() throws IOException {
+        File file = getTempFile();
+        try(DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x12345678);
+            out.writeInt(BinaryFormat.VERSION);
+        }
+        assertRejected(file);
+        try(DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(BinaryFormat.MAGIC);
+            out.writeInt(BinaryFormat.VERSION + 1);
+        }
+        assertRejected(file);
+        // header without the letters
+        try(DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(BinaryFormat.MAGIC);
+            out.writeInt(BinaryFormat.VERSION);
+            out.writeInt(BinaryFormat.NBA);
+            out.writeInt(1);
+            out.writeInt(2);
+        }
+        assertRejected(file);
+        new FileOutputStream(file).close();
+        assertRejected(file);
+    }
+
+}
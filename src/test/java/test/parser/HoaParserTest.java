@@ -16,6 +16,10 @@
 
 package test.parser;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
 import org.junit.Test;
 
 import roll.automata.NBA;
@@ -29,20 +33,51 @@ import roll.parser.hoa.ParserHOA;
 
 public class HoaParserTest {
     
+    // one HOA state for every state of the automaton
+    private void assertPrinted(ParserHOA parser, NBA nba) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parser.print(nba, out);
+        String hoa = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(hoa.contains("States: " + nba.getStateSize()));
+        Assert.assertEquals(nba.getStateSize(), hoa.split("State: ").length - 1);
+    }
+    
     @Test
     public void testHOAParser() {
         Options options = new Options();
         final String dir = "src/main/resources/inclusion/";
         ParserHOA parser = new ParserHOA(options, dir + "A.hoa");
         NBA nba = parser.parse();
-        parser.print(nba, System.out);
+        assertPrinted(parser, nba);
 //        HOAParser parser2 = new HOAParser(options, "/home/liyong/workspace-neon/roll-library/src/main/resources/inclusion/A.hoa", parser);
 //        parser2.parse();
         PairParserHOA pairParser = new PairParserHOA(options, dir + "A.hoa", dir + "B.hoa");
         NBA A = pairParser.getA();
-        parser.print(A, System.out);
+        assertPrinted(parser, A);
         NBA B = pairParser.getB();
-        parser.print(B, System.out);
+        assertPrinted(parser, B);
+    }
+    
+    @Test
+    public void testMinterms() {
+        Options options = new Options();
+        options.minterms = true;
+        final String dir = "src/main/resources/hoa/";
+        ParserHOA parser = new ParserHOA(options, dir + "test1.hoa");
+        NBA nba = parser.parse();
+        // three disjoint guards and the rest of the valuations
+        Assert.assertEquals(4, nba.getAlphabetSize());
+        Assert.assertEquals(3, nba.getStateSize());
+        assertPrinted(parser, nba);
+        // written with the atomic propositions of the input, not the minterms
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parser.print(nba, out);
+        Assert.assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains("AP: 3 \"0\" \"1\" \"2\""));
+        parser.close();
+        PairParserHOA pairParser = new PairParserHOA(options, dir + "test1.hoa", dir + "test3.hoa");
+        Assert.assertEquals(pairParser.getA().getAlphabet(), pairParser.getB().getAlphabet());
+        Assert.assertEquals(4, pairParser.getB().getAlphabetSize());
+        pairParser.close();
     }
 
 }
@@ -0,0 +1,79 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+
+package test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import roll.util.Budget;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class BudgetTest {
+    
+    @Test
+    public void testTimeBudget() {
+        long start = System.nanoTime();
+        Budget budget = new Budget(TimeUnit.MILLISECONDS.toNanos(50), 0);
+        // a cooperative loop only stops by the interrupt of the budget
+        while(! Thread.currentThread().isInterrupted()) {
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals("time", budget.getExceeded());
+        budget.close();
+        // the interrupt does not leak out of the budget
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+    
+    @Test
+    public void testNoBudget() throws InterruptedException {
+        try(Budget budget = new Budget(0, 0)) {
+            Thread.sleep(50);
+            assertFalse(budget.isExceeded());
+            assertNull(budget.getExceeded());
+        }
+        Budget budget = new Budget(TimeUnit.SECONDS.toNanos(10), Long.MAX_VALUE);
+        budget.close();
+        assertFalse(budget.isExceeded());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+    
+    @Test
+    public void testOtherInterrupt() {
+        Budget budget = new Budget(TimeUnit.MILLISECONDS.toNanos(20), 0);
+        Thread.currentThread().interrupt();
+        long start = System.nanoTime();
+        while(! budget.isExceeded()) {
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        }
+        budget.close();
+        // an interrupt the watchdog did not raise survives the budget
+        assertTrue(Thread.interrupted());
+    }
+
+}
@@ -0,0 +1,173 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import roll.util.sets.ISet;
+import roll.util.sets.ISetAdaptive;
+import roll.util.sets.ISetBits;
+import roll.util.sets.ISetRoaring;
+import roll.util.sets.ISetTIntSet;
+import roll.util.sets.ISetTreeSet;
+import roll.util.sets.UtilISet;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class ISetAdaptiveTest {
+    
+    private ISet newSet(int type) {
+        switch(type) {
+        case 0: return new ISetAdaptive();
+        case 1: return new ISetRoaring();
+        case 2: return new ISetBits();
+        case 3: return new ISetTIntSet();
+        default: return new ISetTreeSet();
+        }
+    }
+    
+    private void assertContent(TreeSet<Integer> expected, ISet set) {
+        assertEquals(expected.size(), set.cardinality());
+        assertEquals(expected.isEmpty(), set.isEmpty());
+        TreeSet<Integer> actual = new TreeSet<>();
+        for(int elem : set) {
+            assertTrue(set.get(elem));
+            actual.add(elem);
+        }
+        assertEquals(expected, actual);
+    }
+    
+    // random elements from small dense ranges to sparse large ranges
+    private int nextElem(Random random, int round) {
+        switch(round % 4) {
+        case 0: return random.nextInt(8);
+        case 1: return random.nextInt(200);
+        case 2: return random.nextInt(1 << 20);
+        default: return random.nextInt(1 << 17);
+        }
+    }
+
+    @Test
+    public void testUpdates() {
+        Random random = new Random(1);
+        for(int round = 0; round < 40; round ++) {
+            for(int type = 0; type < 2; type ++) {
+                ISet set = newSet(type);
+                TreeSet<Integer> expected = new TreeSet<>();
+                int num = round % 2 == 0 ? 10 : 10000;
+                for(int i = 0; i < num; i ++) {
+                    int elem = nextElem(random, round);
+                    if(random.nextInt(3) == 0) {
+                        set.clear(elem);
+                        expected.remove(elem);
+                    }else {
+                        set.set(elem);
+                        expected.add(elem);
+                    }
+                }
+                assertContent(expected, set);
+                assertContent(expected, set.clone());
+            }
+        }
+    }
+    
+    @Test
+    public void testMixedOperations() {
+        Random random = new Random(2);
+        for(int round = 0; round < 200; round ++) {
+            int typeA = random.nextInt(5), typeB = random.nextInt(5);
+            ISet a = newSet(typeA), b = newSet(typeB);
+            TreeSet<Integer> ea = new TreeSet<>(), eb = new TreeSet<>();
+            int num = random.nextInt(3) == 0 ? 3 : random.nextInt(6000);
+            for(int i = 0; i < num; i ++) {
+                int elem = nextElem(random, round);
+                a.set(elem);
+                ea.add(elem);
+                elem = nextElem(random, round + random.nextInt(2));
+                b.set(elem);
+                eb.add(elem);
+            }
+            assertEquals(ea.containsAll(eb) && eb.containsAll(ea), a.contentEq(b));
+            assertEquals(eb.containsAll(ea), a.subsetOf(b));
+            TreeSet<Integer> inter = new TreeSet<>(ea);
+            inter.retainAll(eb);
+            assertEquals(!inter.isEmpty(), a.overlap(b));
+            
+            ISet and = a.clone();
+            and.and(b);
+            assertContent(inter, and);
+            
+            ISet or = a.clone();
+            or.or(b);
+            TreeSet<Integer> union = new TreeSet<>(ea);
+            union.addAll(eb);
+            assertContent(union, or);
+            
+            ISet andNot = a.clone();
+            andNot.andNot(b);
+            TreeSet<Integer> diff = new TreeSet<>(ea);
+            diff.removeAll(eb);
+            assertContent(diff, andNot);
+            
+            assertTrue(and.subsetOf(a) && a.subsetOf(or));
+            if(typeA < 2) {
+                ISet copy = newSet(typeB);
+                copy.or(a);
+                // hash code does not depend on the representation
+                assertEquals(a.hashCode(), UtilISet.hashCode(copy));
+            }
+        }
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        Random r = new Random(0);
+        for(int round = 0; round < 20; round ++) {
+            ISet[] sets = new ISet[5];
+            for(int type = 0; type < sets.length; type ++) {
+                sets[type] = newSet(type);
+            }
+            int size = r.nextInt(200);
+            for(int i = 0; i < size; i ++) {
+                int elem = r.nextInt(1000);
+                for(ISet set : sets) {
+                    set.set(elem);
+                }
+            }
+            Set<ISet> keys = new HashSet<>();
+            keys.add(sets[0]);
+            for(ISet fst : sets) {
+                assertTrue(keys.contains(fst));
+                for(ISet snd : sets) {
+                    assertEquals(fst, snd);
+                    assertEquals(fst.hashCode(), snd.hashCode());
+                }
+            }
+        }
+    }
+
+}
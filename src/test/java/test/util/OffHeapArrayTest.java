@@ -0,0 +1,123 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+package test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CancellationException;
+
+import org.junit.Test;
+
+import roll.util.offheap.OffHeapIntArray;
+import roll.util.offheap.OffHeapLongArray;
+import roll.util.offheap.OffHeapLongIndex;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class OffHeapArrayTest {
+    
+    // more than one chunk of 4MB
+    private static final int NUM = 3 << 20;
+    
+    @Test
+    public void testIntArrayGrowth() {
+        try(OffHeapIntArray array = new OffHeapIntArray()) {
+            for(int i = 0; i < NUM; i ++) {
+                array.add(i * 7);
+            }
+            assertEquals(NUM, array.size());
+            for(int i = 0; i < NUM; i += 1023) {
+                assertEquals(i * 7, array.get(i));
+            }
+            assertEquals((NUM - 1) * 7, array.getLast());
+            // overwrite across chunk boundaries
+            for(int i = 0; i < NUM; i += 4095) {
+                array.set(i, -i);
+            }
+            for(int i = 0; i < NUM; i += 4095) {
+                assertEquals(-i, array.get(i));
+            }
+            assertEquals((NUM - 1) * 7, array.removeLast());
+            array.setSize(10);
+            assertEquals(10, array.size());
+            assertEquals(9 * 7, array.getLast());
+            array.close();
+            assertEquals(0, array.size());
+        }
+    }
+    
+    @Test
+    public void testFilledArrays() {
+        try(OffHeapIntArray array = new OffHeapIntArray(NUM, -1)) {
+            assertEquals(NUM, array.size());
+            assertEquals(-1, array.get(0));
+            assertEquals(-1, array.get(NUM - 1));
+        }
+        try(OffHeapLongArray array = new OffHeapLongArray()) {
+            for(long i = 0; i < NUM; i ++) {
+                array.add(i << 32);
+            }
+            assertEquals((long)(NUM / 2) << 32, array.get(NUM / 2));
+            assertEquals((long)(NUM - 1) << 32, array.removeLast());
+        }
+    }
+    
+    @Test
+    public void testInterruptedGrowth() {
+        try(OffHeapIntArray array = new OffHeapIntArray()) {
+            array.add(1);
+            Thread.currentThread().interrupt();
+            try {
+                array.ensureCapacity(NUM);
+                fail("mapping should be interrupted");
+            }catch(CancellationException e) {
+                // the interrupt is kept for the caller
+                assertTrue(Thread.interrupted());
+            }
+            // the array grows again once the interrupt is cleared
+            array.ensureCapacity(NUM);
+            array.add(2);
+            assertEquals(1, array.get(0));
+            assertEquals(2, array.getLast());
+        }finally {
+            Thread.interrupted();
+        }
+    }
+    
+    @Test
+    public void testLongIndex() {
+        try(OffHeapLongIndex index = new OffHeapLongIndex()) {
+            for(int i = 0; i < 1 << 20; i ++) {
+                assertEquals(i, index.getOrAdd(OffHeapLongIndex.getKey(i, i % 13)));
+            }
+            assertEquals(1 << 20, index.size());
+            for(int i = 0; i < 1 << 20; i += 97) {
+                long key = OffHeapLongIndex.getKey(i, i % 13);
+                assertEquals(i, index.get(key));
+                assertEquals(i, index.getOrAdd(key));
+                assertEquals(key, index.getKey(i));
+            }
+            assertEquals(-1, index.get(OffHeapLongIndex.getKey(1, 2)));
+            assertEquals(1 << 20, index.size());
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+/* Copyright (c) 2016, 2017                                               */
+/*       Institute of Software, Chinese Academy of Sciences               */
+/* This file is part of ROLL, a Regular Omega Language Learning library.  */
+/* ROLL is free software: you can redistribute it and/or modify           */
+/* it under the terms of the GNU General Public License as published by   */
+/* the Free Software Foundation, either version 3 of the License, or      */
+/* (at your option) any later version.                                    */
+
+/* This program is distributed in the hope that it will be useful,        */
+/* but WITHOUT ANY WARRANTY; without even the implied warranty of         */
+/* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          */
+/* GNU General Public License for more details.                           */
+
+/* You should have received a copy of the GNU General Public License      */
+/* along with this program.  If not, see <http://www.gnu.org/licenses/>.  */
+
+
+package test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import roll.util.Histogram;
+import roll.util.Profiler;
+
+/**
+ * @author Yong Li (liyong@ios.ac.cn)
+ * */
+
+public class ProfilerTest {
+    
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        for(int value = 1; value <= 1000; value ++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getTotal());
+        assertEquals(1000, histogram.getMax());
+        // percentiles are the upper bounds of the buckets, at most 25% larger
+        long p50 = histogram.getPercentile(0.5);
+        long p99 = histogram.getPercentile(0.99);
+        assertTrue(p50 >= 500 && p50 <= 625);
+        assertTrue(p99 >= 990 && p99 <= 1000);
+        assertEquals(1000, histogram.getPercentile(1.0));
+        for(int value = 0; value < 4; value ++) {
+            Histogram small = new Histogram();
+            small.record(value);
+            assertEquals(value, small.getPercentile(0.5));
+        }
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(1.0));
+    }
+    
+    @Test
+    public void testNestedPhases() throws InterruptedException {
+        Profiler profiler = new Profiler();
+        try(Profiler.Phase outer = profiler.start("outer")) {
+            for(int i = 0; i < 3; i ++) {
+                try(Profiler.Phase inner = profiler.start("inner")) {
+                    inner.recordSize(i, 2 * i);
+                    Thread.sleep(2);
+                }
+            }
+            // the same name again only counts once in the totals
+            try(Profiler.Phase nested = profiler.start("outer")) {
+                Thread.sleep(1);
+            }
+        }
+        List<Profiler.Node> children = profiler.getRoot().getChildren();
+        assertEquals(1, children.size());
+        Profiler.Node outer = children.get(0);
+        assertEquals("outer", outer.getName());
+        assertEquals(1, outer.getCount());
+        assertEquals(2, outer.getChildren().size());
+        
+        Profiler.Node inner = profiler.getPhase("inner");
+        assertEquals(3, inner.getCount());
+        assertTrue(inner.getTotalNanos() >= 6000000);
+        assertEquals(2, inner.getStemLengths().getMax());
+        assertEquals(4, inner.getLoopLengths().getMax());
+        assertEquals(outer.getTotalNanos(), profiler.getNanos("outer"));
+        assertTrue(outer.getSelfNanos() >= 0);
+        assertTrue(outer.getSelfNanos() < outer.getTotalNanos() - inner.getTotalNanos());
+    }
+    
+    @Test
+    public void testMillis() {
+        Profiler profiler = new Profiler();
+        long[] millis = new long[1];
+        for(int i = 0; i < 1000; i ++) {
+            try(Profiler.Phase phase = profiler.start("short", p -> millis[0] += p.getMillis())) {
+                // nothing
+            }
+        }
+        // short phases add up without losing their fractions
+        assertEquals(profiler.getMillis("short"), millis[0]);
+        // phases are closed when an exception leaves them
+        try(Profiler.Phase outer = profiler.start("failing")) {
+            try(Profiler.Phase inner = profiler.start("failing inside")) {
+                throw new IllegalStateException();
+            }
+        }catch(IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, profiler.getPhase("failing").getCount());
+        assertEquals(1, profiler.getPhase("failing inside").getCount());
+        try(Profiler.Phase phase = profiler.start("after")) {
+            // nothing
+        }
+        assertEquals(1, profiler.getRoot().getChildren().stream().filter(n -> n.getName().equals("after")).count());
+    }
+
+}